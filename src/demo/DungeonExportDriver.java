@@ -0,0 +1,106 @@
+package demo;
+
+import maze.CustomRandomInteger;
+import maze.Dungeon;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+import mazegraphiccontroller.DungeonImageExporter;
+
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Driver that exports seeded dungeons as png images for visual audits.
+ * Runs headless, one dungeon per seed, using all the available cores. Work is handed to the
+ * workers through a bounded queue so that only a few dungeons are in memory at a time.
+ */
+public class DungeonExportDriver {
+  private static final String USAGE = "\nusage: <output dir> <rows> <columns> <interconnectivity> "
+          + "<treasure percentage> <difficulty> <W|N> <first seed> <count> [scale]\n";
+
+  /**
+   * entry point for the driver.
+   *
+   * @param args parameters as described in the usage message.
+   */
+  public static void main(String[] args) {
+    System.setProperty("java.awt.headless", "true");
+    if ((args.length != 9) && (args.length != 10)) {
+      System.out.println(USAGE);
+      return;
+    }
+    final File outDir = new File(args[0]);
+    final int row;
+    final int col;
+    final int interConn;
+    final int treasureP;
+    final int difficulty;
+    final long firstSeed;
+    final int count;
+    final double scale;
+    try {
+      row = Integer.parseInt(args[1]);
+      col = Integer.parseInt(args[2]);
+      interConn = Integer.parseInt(args[3]);
+      treasureP = Integer.parseInt(args[4]);
+      difficulty = Integer.parseInt(args[5]);
+      firstSeed = Long.parseLong(args[7]);
+      count = Integer.parseInt(args[8]);
+      scale = (args.length == 10) ? Double.parseDouble(args[9]) : 0.5;
+    } catch (NumberFormatException exp) {
+      System.out.println("\ninvalid numeric value: " + exp.getMessage() + USAGE);
+      return;
+    }
+    final boolean wrapping = args[6].equals("W");
+    if (!outDir.isDirectory() && !outDir.mkdirs()) {
+      System.out.println("\ncannot create output directory: " + outDir);
+      return;
+    }
+
+    int workers = Runtime.getRuntime().availableProcessors();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(2 * workers), new ThreadPoolExecutor.CallerRunsPolicy());
+    // exporters cache sprites and tiles, so each thread keeps its own.
+    ThreadLocal<DungeonImageExporter> exporters =
+            ThreadLocal.withInitial(() -> new DungeonImageExporter(scale));
+    AtomicInteger exported = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+
+    long startTime = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      final long seed = firstSeed + i;
+      pool.execute(() -> {
+        try {
+          Dungeon dungeon;
+          if (wrapping) {
+            dungeon = new WrappingDungeon("player", row, col, interConn, treasureP, difficulty,
+                    new CustomRandomInteger(seed));
+          } else {
+            dungeon = new NonWrappingDungeon("player", row, col, interConn, treasureP,
+                    difficulty, new CustomRandomInteger(seed));
+          }
+          exporters.get().export(dungeon, new File(outDir, "dungeon-" + seed + ".png"));
+          exported.incrementAndGet();
+        } catch (IllegalArgumentException | IllegalStateException exp) {
+          failed.incrementAndGet();
+          System.out.println("seed " + seed + " failed: " + exp.getMessage());
+        }
+      });
+    }
+    pool.shutdown();
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+      System.out.println("\nexport interrupted.");
+      return;
+    }
+    double seconds = (System.nanoTime() - startTime) / 1e9;
+    System.out.println(String.format("\nexported %d images (%d failed) to %s in %.2fs, "
+                    + "%.1f images/sec using %d threads.", exported.get(), failed.get(), outDir,
+            seconds, exported.get() / seconds, workers));
+  }
+}
@@ -0,0 +1,121 @@
+package demo;
+
+import maze.BacktrackerGenerator;
+import maze.CustomRandomInteger;
+import maze.KruskalGenerator;
+import maze.MazeGenerator;
+import maze.PrimGenerator;
+import maze.WilsonGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+
+/**
+ * Driver that compares the {@link MazeGenerator} implementations on a large grid, printing for
+ * each the mean time to generate a maze, the cells generated per second and the bytes allocated
+ * per maze. A few warm up rounds are run first so the timings are of compiled code.
+ */
+public class MazeGeneratorBenchmark {
+  private static final String USAGE = "\nusage: <rows> <columns> <W|N> <rounds> [seed]\n";
+  private static final int WARM_UP_ROUNDS = 3;
+
+  /**
+   * entry point for the driver.
+   *
+   * @param args parameters as described in the usage message.
+   */
+  public static void main(String[] args) {
+    if ((args.length != 4) && (args.length != 5)) {
+      System.out.println(USAGE);
+      return;
+    }
+    final int rows;
+    final int cols;
+    final int rounds;
+    final long seed;
+    try {
+      rows = Integer.parseInt(args[0]);
+      cols = Integer.parseInt(args[1]);
+      rounds = Integer.parseInt(args[3]);
+      seed = (args.length == 5) ? Long.parseLong(args[4]) : 1;
+    } catch (NumberFormatException exp) {
+      System.out.println("\ninvalid numeric value: " + exp.getMessage() + USAGE);
+      return;
+    }
+    if ((rows < 2) || (cols < 2) || (rounds < 1)) {
+      System.out.println("\nrows and columns should be >= 2, rounds >= 1." + USAGE);
+      return;
+    }
+    int[] edges = grid(rows, cols, args[2].equals("W"));
+    int cells = rows * cols;
+    System.out.println(String.format("\n%d x %d grid, %d edges, %d rounds%n", rows, cols,
+            edges.length / 2, rounds));
+    System.out.println(String.format("%-22s %12s %14s %14s %12s", "generator", "ms / maze",
+            "cells / s", "bytes / maze", "retries"));
+
+    MazeGenerator[] generators = {new KruskalGenerator(), new WilsonGenerator(),
+        new PrimGenerator(), new BacktrackerGenerator()};
+    for (MazeGenerator generator : generators) {
+      int[] order = new int[edges.length / 2];
+      for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+        generator.generate(edges, cells, new CustomRandomInteger(seed + i), order);
+      }
+      long retries = 0;
+      long bytesBefore = allocatedBytes();
+      long start = System.nanoTime();
+      for (int i = 0; i < rounds; i++) {
+        retries += generator.generate(edges, cells, new CustomRandomInteger(seed + i), order);
+      }
+      long elapsed = System.nanoTime() - start;
+      long bytes = allocatedBytes() - bytesBefore;
+      System.out.println(String.format("%-22s %12.2f %14.0f %14s %12d",
+              generator.getClass().getSimpleName(), elapsed / 1e6 / rounds,
+              (double) cells * rounds * 1e9 / elapsed,
+              (bytesBefore < 0) ? "n/a" : String.valueOf(bytes / rounds), retries / rounds));
+    }
+  }
+
+  // packed edges of a grid in the layout of the dungeons, with the wrapping edges when asked for.
+  private static int[] grid(int rows, int cols, boolean wrapping) {
+    int[] edges = new int[4 * rows * cols];
+    int count = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int cell = row * cols + col;
+        if (col != cols - 1) {
+          edges[count++] = cell;
+          edges[count++] = cell + 1;
+        }
+        if (row != rows - 1) {
+          edges[count++] = cell;
+          edges[count++] = cell + cols;
+        }
+      }
+    }
+    if (wrapping) {
+      for (int row = 0; row < rows; row++) {
+        edges[count++] = row * cols;
+        edges[count++] = row * cols + cols - 1;
+      }
+      for (int col = 0; col < cols; col++) {
+        edges[count++] = col;
+        edges[count++] = (rows - 1) * cols + col;
+      }
+    }
+    return Arrays.copyOf(edges, count);
+  }
+
+  // bytes allocated by the current thread so far, -1 when the runtime cannot tell.
+  private static long allocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+      if (counter.isThreadAllocatedMemorySupported()
+              && counter.isThreadAllocatedMemoryEnabled()) {
+        return counter.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+}
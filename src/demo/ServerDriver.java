@@ -0,0 +1,88 @@
+package demo;
+
+import maze.Dungeon;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+import mazeserver.DungeonServer;
+import mazeserver.DungeonSpec;
+import mazeserver.SessionRegistry;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Driver that hosts console games for clients connecting over local TCP, e.g., with
+ * "nc localhost [port]". Runs until the process is stopped.
+ * When a spill directory is given, the games are kept in a {@link SessionRegistry} that spills
+ * idle games to the directory.
+ */
+public class ServerDriver {
+  private static final String USAGE = "\nusage: <port> <rows> <columns> <interconnectivity> "
+          + "<treasure percentage> <difficulty> <W|N> [max sessions] [idle timeout seconds] "
+          + "[spill directory]\n";
+  private static final long MEMORY_BUDGET = 256L * 1024 * 1024;
+  private static final long SPILL_AFTER = 60 * 1000;
+
+  /**
+   * entry point for the driver.
+   *
+   * @param args parameters as described in the usage message.
+   */
+  public static void main(String[] args) {
+    if ((args.length < 7) || (args.length > 10)) {
+      System.out.println(USAGE);
+      return;
+    }
+    final int port;
+    final int row;
+    final int col;
+    final int interConn;
+    final int treasureP;
+    final int difficulty;
+    final int maxSessions;
+    final int idleTimeout;
+    try {
+      port = Integer.parseInt(args[0]);
+      row = Integer.parseInt(args[1]);
+      col = Integer.parseInt(args[2]);
+      interConn = Integer.parseInt(args[3]);
+      treasureP = Integer.parseInt(args[4]);
+      difficulty = Integer.parseInt(args[5]);
+      maxSessions = (args.length > 7) ? Integer.parseInt(args[7]) : 10000;
+      idleTimeout = (args.length > 8) ? Integer.parseInt(args[8]) * 1000 : 30 * 60 * 1000;
+    } catch (NumberFormatException exp) {
+      System.out.println("\ninvalid numeric value: " + exp.getMessage() + USAGE);
+      return;
+    }
+    final boolean wrapping = args[6].equals("W");
+    Supplier<Dungeon> dungeons = () -> {
+      if (wrapping) {
+        return new WrappingDungeon("player", row, col, interConn, treasureP, difficulty, null);
+      }
+      return new NonWrappingDungeon("player", row, col, interConn, treasureP, difficulty, null);
+    };
+
+    try {
+      if (args.length > 9) {
+        SessionRegistry registry = new SessionRegistry(Paths.get(args[9]), MEMORY_BUDGET,
+                SPILL_AFTER);
+        Random seeds = new Random();
+        dungeons = () -> registry.create(new DungeonSpec("player", row, col, interConn,
+                treasureP, difficulty, wrapping, seeds.nextLong()));
+      }
+      DungeonServer server = new DungeonServer(port, dungeons, maxSessions, idleTimeout);
+      server.start();
+      System.out.println(String.format("\nlistening on port %d, sessions on %s threads.",
+              server.getPort(), server.usesVirtualThreads() ? "virtual" : "platform"));
+      Thread.currentThread().join();
+    } catch (IllegalArgumentException exp) {
+      System.out.println("\n" + exp.getMessage() + USAGE);
+    } catch (IOException exp) {
+      System.out.println("\ncould not start the server: " + exp.getMessage());
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package demo;
+
+import maze.CustomRandomInteger;
+import maze.Dungeon;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+import mazesimulation.Agent;
+import mazesimulation.BfsExplorerAgent;
+import mazesimulation.RandomAgent;
+import mazesimulation.SimulationResult;
+import mazesimulation.SimulationRunner;
+
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Driver that plays seeded games headless with one of the built in agents and prints the
+ * aggregated results, used to balance the dungeon configuration.
+ */
+public class SimulationDriver {
+  private static final String USAGE = "\nusage: <rows> <columns> <interconnectivity> "
+          + "<treasure percentage> <difficulty> <W|N> <random|bfs> <first seed> <games> "
+          + "[max turns]\n";
+
+  /**
+   * entry point for the driver.
+   *
+   * @param args parameters as described in the usage message.
+   */
+  public static void main(String[] args) {
+    if ((args.length != 9) && (args.length != 10)) {
+      System.out.println(USAGE);
+      return;
+    }
+    final int row;
+    final int col;
+    final int interConn;
+    final int treasureP;
+    final int difficulty;
+    final long firstSeed;
+    final int games;
+    final int maxTurns;
+    try {
+      row = Integer.parseInt(args[0]);
+      col = Integer.parseInt(args[1]);
+      interConn = Integer.parseInt(args[2]);
+      treasureP = Integer.parseInt(args[3]);
+      difficulty = Integer.parseInt(args[4]);
+      firstSeed = Long.parseLong(args[7]);
+      games = Integer.parseInt(args[8]);
+      maxTurns = (args.length == 10) ? Integer.parseInt(args[9]) : 10 * row * col;
+    } catch (NumberFormatException exp) {
+      System.out.println("\ninvalid numeric value: " + exp.getMessage() + USAGE);
+      return;
+    }
+    final boolean wrapping = args[5].equals("W");
+    Supplier<Agent> agents;
+    if (args[6].equals("random")) {
+      agents = RandomAgent::new;
+    } else if (args[6].equals("bfs")) {
+      agents = BfsExplorerAgent::new;
+    } else {
+      System.out.println("\nunknown agent: " + args[6] + USAGE);
+      return;
+    }
+    LongFunction<Dungeon> dungeons = seed -> {
+      if (wrapping) {
+        return new WrappingDungeon("player", row, col, interConn, treasureP, difficulty,
+                new CustomRandomInteger(seed));
+      }
+      return new NonWrappingDungeon("player", row, col, interConn, treasureP, difficulty,
+              new CustomRandomInteger(seed));
+    };
+
+    int workers = Runtime.getRuntime().availableProcessors();
+    SimulationRunner runner;
+    try {
+      runner = new SimulationRunner(dungeons, agents, maxTurns, workers);
+    } catch (IllegalArgumentException exp) {
+      System.out.println("\n" + exp.getMessage() + USAGE);
+      return;
+    }
+    long startTime = System.nanoTime();
+    SimulationResult result;
+    try {
+      result = runner.run(firstSeed, games);
+    } finally {
+      runner.close();
+    }
+    double seconds = (System.nanoTime() - startTime) / 1e9;
+    System.out.println("\n" + result);
+    System.out.println(String.format("\nplayed in %.2fs, %.1f games/sec using %d threads.",
+            seconds, (result.getGames() + result.getFailed()) / seconds, workers));
+  }
+}
@@ -1,9 +1,15 @@
 package maze;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Abstract dungeon implementation that captures common functionality in both wrapping and
@@ -22,14 +28,24 @@ import java.util.Map;
  * even when predictable random generator is used, will switch to a true random generation for:
  * selecting start and end locations of the dungeon.
  * placing the treasure in the caves.
+ * when a seeded {@link CustomRandomInteger} is used, those choices are seeded from it as well,
+ * so the same seed always constructs the same dungeon.
+ * Once constructed, the locations are never changed: what a game collects or slays is recorded in
+ * a {@link ContentOverlay}, which lets a dungeon be forked cheaply and lets reset restore the
+ * original treasure, arrows and monsters by forgetting the changes.
+ * {@link DungeonListener}s are notified once per operation that changed the dungeon, after the
+ * change is complete.
+ * The construction and the actions made on the dungeon are recorded as JFR events, see
+ * {@link GenerationPhaseEvent} and {@link DungeonActionEvent}.
  * Intentionally making the class package private so that it is not available outside the package.
  */
 abstract class AbstractDungeon implements Dungeon {
   private Player player;
   private Location playerLocation;
-  protected List<List<Integer>> allEdges;
-  private final List<List<Integer>> selectedEdges;
-  private final List<List<Integer>> leftOverEdges;
+  // possible edges between the locations, packed as in MazeGenerator; null once generated.
+  private int[] edges;
+  private int edgeCount;
+  private final MazeGenerator generator;
   private Location start;
   private Location end;
   private boolean started;
@@ -38,15 +54,32 @@ abstract class AbstractDungeon implements Dungeon {
   private final RandomInteger trueRandom;
   protected final int row;
   protected final int col;
-  private final Map<String, Map<String, Integer>> shortestPath;
   private final int treasureP;
   protected final int numMonsters;
   protected Location[][] dungeon;
-  private List<Location> treasureCollected;
-  private List<Location> arrowsCollected;
+  private ContentOverlay overlay;
+  private final CellBitSet visited;
+  private final ActionLog log;
+  private UndoHistory history;
+  private int beforeCell;
+  private int beforeFlags;
+  private final int[] beforeInventory;
+  private int contentCell;
+  private int contentBefore;
+  private final List<DungeonListener> listeners;
+  private DistanceFields distances;
+  private CaveGraph caveGraph;
+  private final Long layoutSeed;
+  // records the construction, null once the dungeon is constructed.
+  private GenerationRecorder recorder;
+  private GenerationReport generationReport;
   private static final int MIN_START_END_DIST = 5;
   private static final int INJURED_OTYUGH_HEALTH = 1;
   private static final int HEALTH_OTYUGH_HEALTH = 2;
+  private static final int DEFAULT_UNDO_DEPTH = 256;
+  private static final int STARTED_FLAG = 1;
+  private static final int ENDED_FLAG = 1 << 1;
+  private static final int DECEASED_FLAG = 1 << 2;
 
   /**
    * operation not permitted.
@@ -66,6 +99,8 @@ abstract class AbstractDungeon implements Dungeon {
    * @param row        number of rows that should be in the dungeon.
    * @param col        number of columns that should be in the dungeon.
    * @param difficulty number of monsters to be configured in the dungeon.
+   * @param generator  {@link MazeGenerator} to generate the maze with, can be null, in which case
+   *                   {@link KruskalGenerator} will be used.
    * @throws IllegalArgumentException when player name is null or empty;
    *                                  when percentage of caves to place treasure in is less than
    *                                  or equal to 0 / greater than 100.
@@ -73,8 +108,8 @@ abstract class AbstractDungeon implements Dungeon {
    *                                  select caves in the dungeon.
    */
   protected AbstractDungeon(
-          String pName, int treasureP, RandomInteger rand, int row, int col, int difficulty)
-          throws IllegalArgumentException {
+          String pName, int treasureP, RandomInteger rand, int row, int col, int difficulty,
+          MazeGenerator generator) throws IllegalArgumentException {
     if ((pName == null) || (pName.length() == 0)) {
       throw new IllegalArgumentException("player name cannot be null or empty.");
     }
@@ -94,33 +129,122 @@ abstract class AbstractDungeon implements Dungeon {
       throw new IllegalArgumentException(
               "difficulty cannot be less than 0");
     }
+    this.recorder = new GenerationRecorder(row, col);
     this.player = new PlayerImpl(pName);
     if (rand == null) {
       rand = new CustomRandomInteger();
     }
     this.rand = rand;
-    this.allEdges = new ArrayList<>();
-    this.selectedEdges = new ArrayList<>();
-    this.leftOverEdges = new ArrayList<>();
+    this.layoutSeed = layoutSeed(rand);
+    // a wrapping dungeon has two edges per location.
+    this.edges = new int[4 * Math.max(0, row * col)];
+    this.generator = (generator == null) ? new KruskalGenerator() : generator;
     this.row = row;
     this.col = col;
     this.dungeon = new Location[row][col];
-    this.shortestPath = new HashMap<>();
-    this.trueRandom = new CustomRandomInteger();
+    this.trueRandom = independentRandom(rand);
     this.treasureP = treasureP;
-    this.treasureCollected = new ArrayList<>();
     this.numMonsters = difficulty;
-    this.arrowsCollected = new ArrayList<>();
+    this.overlay = new ContentOverlay();
+    this.visited = new CellBitSet(row * col);
+    this.log = new ActionLog();
+    this.history = new UndoHistory(DEFAULT_UNDO_DEPTH);
+    this.beforeInventory = new int[Treasure.values().length + 1];
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.distances = new DistanceFields(dungeon, DistanceFields.DEFAULT_CAPACITY);
+  }
+
+  /**
+   * initializes the dungeon as a fork of the given dungeon.
+   * The locations, distance fields and cave graph are shared with the given dungeon since
+   * they do not change once the dungeon is constructed; the player, the changes made to the
+   * content of the locations and the visited locations are copied, the latter two copy on write,
+   * and the action log shares the actions recorded so far. The fork starts with an empty undo
+   * history of the same depth.
+   * Listeners are not copied.
+   *
+   * @param other dungeon to fork.
+   */
+  protected AbstractDungeon(AbstractDungeon other) {
+    this.player = other.player.copy();
+    this.playerLocation = other.playerLocation;
+    this.generator = other.generator;
+    this.start = other.start;
+    this.end = other.end;
+    this.started = other.started;
+    this.ended = other.ended;
+    this.rand = forkedRandom(other.rand);
+    this.trueRandom = other.trueRandom;
+    this.row = other.row;
+    this.col = other.col;
+    this.treasureP = other.treasureP;
+    this.numMonsters = other.numMonsters;
+    this.dungeon = other.dungeon;
+    this.overlay = other.overlay.fork();
+    this.visited = other.visited.fork();
+    this.log = other.log.copy();
+    this.history = new UndoHistory(other.history.getDepth());
+    this.beforeInventory = new int[Treasure.values().length + 1];
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.distances = other.distances;
+    this.caveGraph = other.caveGraph;
+    this.layoutSeed = other.layoutSeed;
+    this.generationReport = other.generationReport;
+  }
+
+  /*
+  fetches the seed that decides the layout of the dungeon, which is only known when the generator
+  is seeded and was not used yet. null when the layout cannot be cached.
+   */
+  private static Long layoutSeed(RandomInteger rand) {
+    if ((rand instanceof CustomRandomInteger) && ((CustomRandomInteger) rand).isFresh()) {
+      return ((CustomRandomInteger) rand).getSeed();
+    }
+    return null;
+  }
+
+  /*
+  fetches the generator used for the choices that are always made randomly.
+  a seeded generator yields a seeded generator so that the whole dungeon can be reproduced,
+  any other generator yields a true random generator.
+   */
+  private static RandomInteger independentRandom(RandomInteger rand) {
+    if (rand instanceof CustomRandomInteger) {
+      return ((CustomRandomInteger) rand).split();
+    }
+    return new CustomRandomInteger();
+  }
+
+  /*
+  fetches the generator for a fork of the game.
+  a predictable generator is shared, a custom generator yields an independent one, which is
+  seeded when the generator is seeded. Other generators are shared with the fork.
+   */
+  private static RandomInteger forkedRandom(RandomInteger rand) {
+    if (rand instanceof CustomRandomInteger) {
+      return ((CustomRandomInteger) rand).fork();
+    }
+    return rand;
   }
 
   @Override
   public String getStart() {
-    return String.format("%d,%d", start.getRow(), start.getColumn());
+    return Cell.of(start.getRow(), start.getColumn()).toString();
   }
 
   @Override
   public String getEnd() {
-    return String.format("%d,%d", end.getRow(), end.getColumn());
+    return Cell.of(end.getRow(), end.getColumn()).toString();
+  }
+
+  @Override
+  public int getStartCell() {
+    return cellOf(start);
+  }
+
+  @Override
+  public int getEndCell() {
+    return cellOf(end);
   }
 
   @Override
@@ -130,7 +254,9 @@ abstract class AbstractDungeon implements Dungeon {
     } catch (IllegalStateException ill) {
       throw new IllegalStateException("error while entering the dungeon:" + ill.getMessage());
     }
+    beginChange();
     playerLocation = start;
+    visited.set(cellOf(start));
     started = true;
     if (numMonsters != 0) {
       try {
@@ -139,6 +265,10 @@ abstract class AbstractDungeon implements Dungeon {
         throw new IllegalStateException("error while initializing player with weapons");
       }
     }
+    endChange();
+    log.appendEnter();
+    notifyListeners(EnumSet.of(DungeonChange.PLAYER_LOCATION, DungeonChange.PLAYER_INVENTORY,
+            DungeonChange.GAME_STATUS));
   }
 
   @Override
@@ -158,12 +288,28 @@ abstract class AbstractDungeon implements Dungeon {
 
   @Override
   public Map<LocationDescription, List<String>> describeLocation() throws IllegalStateException {
+    DescribeLocationEvent event = new DescribeLocationEvent();
+    event.begin();
+    int cell = eventCell();
+    String outcome = DungeonActionEvent.FAILED;
+    try {
+      Map<LocationDescription, List<String>> result = describePlayerLocation();
+      outcome = String.valueOf(playerLocation.getType());
+      return result;
+    } finally {
+      event.location = cell;
+      commitAction(event, cell, outcome);
+    }
+  }
+
+  private Map<LocationDescription, List<String>> describePlayerLocation()
+          throws IllegalStateException {
     try {
       checkGameStatus(true, null);
     } catch (IllegalStateException ill) {
       throw new IllegalStateException("error while describing player location:" + ill.getMessage());
     }
-    Map<LocationDescription, List<String>> result = playerLocation.getLocationSign();
+    Map<LocationDescription, List<String>> result = describe(playerLocation);
 
     SmellIntensity smell = getLocationSmell();
     List<String> smellVal = new ArrayList<>();
@@ -176,8 +322,118 @@ abstract class AbstractDungeon implements Dungeon {
     return result;
   }
 
+  @Override
+  public Map<LocationDescription, List<String>> describeLocation(int row, int col)
+          throws IllegalArgumentException {
+    DescribeLocationEvent event = new DescribeLocationEvent();
+    event.begin();
+    String outcome = DungeonActionEvent.FAILED;
+    try {
+      Map<LocationDescription, List<String>> result = describeLocationAt(row, col);
+      outcome = String.valueOf(dungeon[row][col].getType());
+      return result;
+    } finally {
+      event.location = row * this.col + col;
+      commitAction(event, eventCell(), outcome);
+    }
+  }
+
+  private Map<LocationDescription, List<String>> describeLocationAt(int row, int col)
+          throws IllegalArgumentException {
+    if ((row < 0) || (row >= this.row) || (col < 0) || (col >= this.col)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+    Location location = dungeon[row][col];
+    Map<LocationDescription, List<String>> result = describe(location);
+
+    SmellIntensity smell = smellAt(location, true);
+    List<String> smellVal = new ArrayList<>();
+    if (smell != null) {
+      smellVal.add(smell.name());
+    } else {
+      smellVal.add("null");
+    }
+    result.put(LocationDescription.SMELL, smellVal);
+    return result;
+  }
+
+  @Override
+  public int getMoves(int cell) throws IllegalArgumentException {
+    checkCell(cell);
+    int moves = 0;
+    for (Direction dir : Direction.values()) {
+      if (distances.neighbour(cell, dir) >= 0) {
+        moves |= 1 << dir.ordinal();
+      }
+    }
+    return moves;
+  }
+
+  @Override
+  public int getTreasureAt(int cell, Treasure treasure) throws IllegalArgumentException {
+    checkCell(cell);
+    if (treasure == null) {
+      throw new IllegalArgumentException("treasure cannot be null.");
+    }
+    if ((overlay.get(cell) & ContentOverlay.TREASURE_TAKEN) != 0) {
+      return 0;
+    }
+    Integer quantity = dungeon[cell / col][cell % col].getTreasure().get(treasure);
+    return (quantity == null) ? 0 : quantity;
+  }
+
+  @Override
+  public int getWeaponAt(int cell, WeaponType weapon) throws IllegalArgumentException {
+    checkCell(cell);
+    if (weapon == null) {
+      throw new IllegalArgumentException("weapon cannot be null.");
+    }
+    if ((overlay.get(cell) & ContentOverlay.ARROWS_TAKEN) != 0) {
+      return 0;
+    }
+    Integer quantity = dungeon[cell / col][cell % col].getWeaponInfo().get(weapon);
+    return (quantity == null) ? 0 : quantity;
+  }
+
+  private void checkCell(int cell) throws IllegalArgumentException {
+    if ((cell < 0) || (cell >= row * col)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+  }
+
   @Override
   public void move(Direction dir) throws IllegalArgumentException, IllegalStateException {
+    move(dir, -1);
+  }
+
+  /*
+  moves the player, flip is the coin flip to use when moving into the location of an injured
+  monster, -1 draws it from the generator. Replaying a game passes the recorded flip.
+   */
+  private void move(Direction dir, int flip)
+          throws IllegalArgumentException, IllegalStateException {
+    MoveEvent event = new MoveEvent();
+    event.begin();
+    int from = eventCell();
+    String outcome = DungeonActionEvent.FAILED;
+    try {
+      moveOnce(dir, flip);
+      if (!ended) {
+        outcome = MoveStatus.COMPLETED.name();
+      } else if (player.getPlayerStatus() == PlayerStatus.DECEASED) {
+        outcome = MoveStatus.KILLED.name();
+      } else {
+        outcome = MoveStatus.REACHED_END.name();
+      }
+    } finally {
+      event.direction = (dir == null) ? null : dir.name();
+      event.target = eventCell();
+      commitAction(event, from, outcome);
+    }
+  }
+
+  private void moveOnce(Direction dir, int flip)
+          throws IllegalArgumentException, IllegalStateException {
     try {
       checkGameStatus(true, false);
     } catch (IllegalStateException ill) {
@@ -186,41 +442,102 @@ abstract class AbstractDungeon implements Dungeon {
     if (dir == null) {
       throw new IllegalArgumentException("direction to move cannot be null.");
     }
-    Map<Direction, Location> pMoves = playerLocation.getPossibleMoves();
-    Location reqLoc = pMoves.get(dir);
-    if (reqLoc != null) {
-      playerLocation = reqLoc;
-      Monster m = playerLocation.getMonster();
-      if (m != null) {
-        if (m.getCurrentHealth() == HEALTH_OTYUGH_HEALTH) {
-          player.setPlayerStatus(PlayerStatus.DECEASED);
-          ended = true;
-        } else if (m.getCurrentHealth() == INJURED_OTYUGH_HEALTH) {
-          int randomNum = rand.nextInt(0, 2);
-          if (randomNum == 0) {
-            // survives
-            if (reqLoc == end) {
-              ended = true;
-            }
-          } else {
-            player.setPlayerStatus(PlayerStatus.DECEASED);
-            ended = true;
-          }
-        } else {
+    int next = distances.neighbour(cellOf(playerLocation), dir);
+    if (next < 0) {
+      throw new IllegalStateException("invalid move.");
+    }
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    step(dir, next, flip, changes);
+    notifyListeners(changes);
+  }
+
+  @Override
+  public MoveResult moveAlong(Direction[] steps)
+          throws IllegalArgumentException, IllegalStateException {
+    try {
+      checkGameStatus(true, false);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while making moves:" + ill.getMessage());
+    }
+    if (steps == null) {
+      throw new IllegalArgumentException("directions to move cannot be null.");
+    }
+    for (Direction dir : steps) {
+      if (dir == null) {
+        throw new IllegalArgumentException("direction to move cannot be null.");
+      }
+    }
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    MoveStatus status = MoveStatus.COMPLETED;
+    int taken = 0;
+    while (taken < steps.length) {
+      int next = distances.neighbour(cellOf(playerLocation), steps[taken]);
+      if (next < 0) {
+        status = MoveStatus.BLOCKED;
+        break;
+      }
+      step(steps[taken], next, -1, changes);
+      taken++;
+      if (ended) {
+        status = (player.getPlayerStatus() == PlayerStatus.DECEASED)
+                ? MoveStatus.KILLED : MoveStatus.REACHED_END;
+        break;
+      }
+    }
+    notifyListeners(changes);
+    return new MoveResult(taken, playerLocation.getRow(), playerLocation.getColumn(), col, status);
+  }
+
+  /*
+  moves the player to the neighbouring cell in the direction, records the move in the undo
+  history and the log and adds the kinds of changes made to the given set.
+  flip is the coin flip to use when moving into the location of an injured monster, -1 draws it
+  from the generator.
+   */
+  private void step(Direction dir, int next, int flip, Set<DungeonChange> changes) {
+    Location reqLoc = dungeon[next / col][next % col];
+    changes.add(DungeonChange.PLAYER_LOCATION);
+    int drawn = -1;
+    beginChange();
+    playerLocation = reqLoc;
+    visited.set(next);
+    int health = healthAt(playerLocation);
+    if (health >= 0) {
+      if (health == HEALTH_OTYUGH_HEALTH) {
+        player.setPlayerStatus(PlayerStatus.DECEASED);
+        ended = true;
+      } else if (health == INJURED_OTYUGH_HEALTH) {
+        int randomNum = (flip < 0) ? rand.nextInt(0, 2) : flip;
+        drawn = randomNum;
+        if (randomNum == 0) {
+          // survives
           if (reqLoc == end) {
-            collectTreasure();
             ended = true;
           }
+        } else {
+          player.setPlayerStatus(PlayerStatus.DECEASED);
+          ended = true;
         }
       } else {
         if (reqLoc == end) {
-          collectTreasure();
+          collectTreasureAtPlayer(changes);
           ended = true;
         }
       }
     } else {
-      throw new IllegalStateException("invalid move.");
+      if (reqLoc == end) {
+        collectTreasureAtPlayer(changes);
+        ended = true;
+      }
+    }
+    if (player.getPlayerStatus() == PlayerStatus.DECEASED) {
+      changes.add(DungeonChange.PLAYER_STATUS);
     }
+    if (ended) {
+      changes.add(DungeonChange.GAME_STATUS);
+    }
+    endChange();
+    log.appendMove(dir, drawn);
   }
 
   /*
@@ -241,12 +558,51 @@ abstract class AbstractDungeon implements Dungeon {
 
   @Override
   public Map<Treasure, Integer> collectTreasure() throws IllegalStateException {
+    CollectTreasureEvent event = new CollectTreasureEvent();
+    event.begin();
+    int cell = eventCell();
+    String outcome = DungeonActionEvent.FAILED;
+    try {
+      Map<Treasure, Integer> collected = takeTreasure();
+      int quantity = 0;
+      if (collected != null) {
+        for (Integer q : collected.values()) {
+          quantity += q;
+        }
+      }
+      event.quantity = quantity;
+      outcome = (quantity > 0) ? "COLLECTED" : "EMPTY";
+      return collected;
+    } finally {
+      commitAction(event, cell, outcome);
+    }
+  }
+
+  private Map<Treasure, Integer> takeTreasure() throws IllegalStateException {
     try {
       checkGameStatus(true, false);
     } catch (IllegalStateException ill) {
       throw new IllegalStateException("error while collecting treasure:" + ill.getMessage());
     }
-    if (treasureCollected.contains(playerLocation)) {
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    beginChange();
+    Map<Treasure, Integer> treasureL = collectTreasureAtPlayer(changes);
+    endChange();
+    log.appendCollectTreasure();
+    notifyListeners(changes);
+    return treasureL;
+  }
+
+  /*
+  moves the treasure at the player location to the player.
+  records the changes made in the given set instead of notifying the listeners, so that
+  operations collecting the treasure as part of them notify only once.
+   */
+  private Map<Treasure, Integer> collectTreasureAtPlayer(Set<DungeonChange> changes)
+          throws IllegalStateException {
+    int cell = cellOf(playerLocation);
+    int state = overlay.get(cell);
+    if ((state & ContentOverlay.TREASURE_TAKEN) != 0) {
       return null;
     }
 
@@ -256,13 +612,16 @@ abstract class AbstractDungeon implements Dungeon {
         int treasureQ = treasureL.get(t);
         if (treasureQ != 0) {
           player.addTreasure(t, treasureQ);
-          treasureCollected.add(playerLocation);
-          playerLocation.placeTreasure(t, -treasureQ);
+          changes.add(DungeonChange.PLAYER_INVENTORY);
+          changes.add(DungeonChange.LOCATION_CONTENT);
         }
       }
     } catch (IllegalArgumentException | IllegalStateException exp) {
       throw new IllegalStateException("error while collecting treasure." + exp.getMessage());
     }
+    if (!changes.isEmpty()) {
+      changeContent(cell, state | ContentOverlay.TREASURE_TAKEN);
+    }
     return treasureL;
   }
 
@@ -308,6 +667,7 @@ abstract class AbstractDungeon implements Dungeon {
       Location locToPlace = dungeon[allNodes.get(randomN).get(0)][allNodes.get(randomN).get(1)];
       int randomT = rand.nextInt(0, Treasure.values().length);
       int randomQ = rand.nextInt(20, 100);
+      int placed = treasureLoc.size();
 
       try {
         if (randomT == 0) {
@@ -337,6 +697,9 @@ abstract class AbstractDungeon implements Dungeon {
         throw new IllegalStateException("invalid argument while placing treasure."
                 + illArg.getMessage());
       }
+      if (treasureLoc.size() == placed) {
+        countRetry();
+      }
     }
   }
 
@@ -386,6 +749,7 @@ abstract class AbstractDungeon implements Dungeon {
       int randomN = rGen.nextInt(0, allNodes.size());
       Location locToPlace = dungeon[allNodes.get(randomN).get(0)][allNodes.get(randomN).get(1)];
       int randomQ = rand.nextInt(1, 3);
+      int placed = arrowLoc.size();
 
       try {
         if (!arrowLoc.contains(locToPlace)) {
@@ -401,6 +765,9 @@ abstract class AbstractDungeon implements Dungeon {
           throw new IllegalStateException("unable to place arrows." + ill.getMessage());
         }
       }
+      if (arrowLoc.size() == placed) {
+        countRetry();
+      }
     }
   }
 
@@ -439,6 +806,7 @@ abstract class AbstractDungeon implements Dungeon {
     while (monsterLoc.size() != numMonsters) {
       int randomN = rGen.nextInt(0, allNodes.size());
       Location locToPlace = dungeon[allNodes.get(randomN).get(0)][allNodes.get(randomN).get(1)];
+      int placed = monsterLoc.size();
 
       try {
         if (!monsterLoc.contains(locToPlace)) {
@@ -455,6 +823,9 @@ abstract class AbstractDungeon implements Dungeon {
           throw new IllegalStateException("unable to place monsters." + ill.getMessage());
         }
       }
+      if (monsterLoc.size() == placed) {
+        countRetry();
+      }
     }
   }
 
@@ -474,12 +845,38 @@ abstract class AbstractDungeon implements Dungeon {
 
   @Override
   public String getPlayerLocation() throws IllegalStateException {
+    return getPlayerPosition().toString();
+  }
+
+  @Override
+  public Cell getPlayerPosition() throws IllegalStateException {
+    Location location = enteredPlayerLocation();
+    return Cell.of(location.getRow(), location.getColumn());
+  }
+
+  @Override
+  public int getPlayerRow() throws IllegalStateException {
+    return enteredPlayerLocation().getRow();
+  }
+
+  @Override
+  public int getPlayerCol() throws IllegalStateException {
+    return enteredPlayerLocation().getColumn();
+  }
+
+  @Override
+  public int getPlayerCell() throws IllegalStateException {
+    return cellOf(enteredPlayerLocation());
+  }
+
+  // player location, throws IllegalStateException when the player has not entered the dungeon.
+  private Location enteredPlayerLocation() throws IllegalStateException {
     try {
       checkGameStatus(true, null);
     } catch (IllegalStateException ill) {
       throw new IllegalStateException("error while getting player location:" + ill.getMessage());
     }
-    return String.format("%d,%d", playerLocation.getRow(), playerLocation.getColumn());
+    return playerLocation;
   }
 
   @Override
@@ -503,40 +900,87 @@ abstract class AbstractDungeon implements Dungeon {
     playerLocation = null;
     started = false;
     ended = false;
-    treasureCollected = new ArrayList<>();
-    arrowsCollected = new ArrayList<>();
+    overlay.clear();
+    visited.clear();
+    history.clear();
+    log.appendReset();
+    notifyListeners(EnumSet.allOf(DungeonChange.class));
   }
 
   @Override
   public Map<WeaponType, Integer> pickWeapon() {
+    PickWeaponEvent event = new PickWeaponEvent();
+    event.begin();
+    int cell = eventCell();
+    String outcome = DungeonActionEvent.FAILED;
+    try {
+      Map<WeaponType, Integer> picked = takeWeapon();
+      Integer quantity = (picked == null) ? null : picked.get(WeaponType.CROOKEDARROW);
+      event.quantity = (quantity == null) ? 0 : quantity;
+      outcome = (event.quantity > 0) ? "PICKED" : "EMPTY";
+      return picked;
+    } finally {
+      commitAction(event, cell, outcome);
+    }
+  }
+
+  private Map<WeaponType, Integer> takeWeapon() {
     try {
       checkGameStatus(true, false);
     } catch (IllegalStateException ill) {
       throw new IllegalStateException("error while collecting weapon:" + ill.getMessage());
     }
-    if (arrowsCollected.contains(playerLocation)) {
+    int cell = cellOf(playerLocation);
+    int state = overlay.get(cell);
+    if ((state & ContentOverlay.ARROWS_TAKEN) != 0) {
+      log.appendPickWeapon();
       return null;
     }
 
     Map<WeaponType, Integer> weaponAtLoc = playerLocation.getWeaponInfo();
+    boolean picked = false;
+    beginChange();
     try {
       for (WeaponType t : WeaponType.values()) {
         int weaponQ = weaponAtLoc.get(t);
         if (weaponQ != 0) {
           player.addWeapon(t, weaponQ);
-          arrowsCollected.add(playerLocation);
-          playerLocation.placeWeapon(t, -weaponQ);
+          picked = true;
         }
       }
     } catch (IllegalArgumentException | IllegalStateException exp) {
       throw new IllegalStateException("error while collecting weapon." + exp.getMessage());
     }
+    if (picked) {
+      changeContent(cell, state | ContentOverlay.ARROWS_TAKEN);
+    }
+    endChange();
+    log.appendPickWeapon();
+    if (picked) {
+      notifyListeners(EnumSet.of(DungeonChange.PLAYER_INVENTORY, DungeonChange.LOCATION_CONTENT));
+    }
     return weaponAtLoc;
   }
 
   @Override
   public boolean shootArrow(Direction dir, int distance)
           throws IllegalArgumentException, IllegalStateException {
+    ShootArrowEvent event = new ShootArrowEvent();
+    event.begin();
+    String outcome = DungeonActionEvent.FAILED;
+    try {
+      boolean hit = shoot(dir, distance);
+      outcome = hit ? "HIT" : "MISSED";
+      return hit;
+    } finally {
+      event.direction = (dir == null) ? null : dir.name();
+      event.distance = distance;
+      commitAction(event, eventCell(), outcome);
+    }
+  }
+
+  private boolean shoot(Direction dir, int distance)
+          throws IllegalArgumentException, IllegalStateException {
     if (dir == null) {
       throw new IllegalArgumentException("direction to shoot cannot be null.");
     }
@@ -547,74 +991,445 @@ abstract class AbstractDungeon implements Dungeon {
     if (playerArr <= 0) {
       throw new IllegalStateException("player does not have arrows to shoot.");
     }
+    beginChange();
     boolean result = false;
     int distToTravel = distance;
-    Location tempLocation = playerLocation;
+    CaveGraph graph = caveGraph();
+    int tempCell = cellOf(playerLocation);
     Direction tempDir = dir;
 
+    // each hop follows the tunnels to the next cave, the arrow keeps its direction in the cave.
     while (distToTravel != 0) {
-      Map<Location, Direction> nextPossible = getNextPossibleLoc(tempLocation, tempDir);
-      if (nextPossible == null) {
+      int next = graph.getTarget(tempCell, tempDir);
+      if (next < 0) {
         break;
       }
-      for (Map.Entry<Location, Direction> mapEntry : nextPossible.entrySet()) {
-        if (mapEntry.getKey() != null) {
-          tempLocation = mapEntry.getKey();
-          tempDir = mapEntry.getValue();
-          if (tempLocation.getLocationSign().get(LocationDescription.TYPE).get(0)
-                  .equals(LocationType.CAVE.name())) {
-            distToTravel--;
-          }
-        } else {
-          break;
-        }
-      }
+      tempDir = graph.getArrival(tempCell, tempDir);
+      tempCell = next;
+      distToTravel--;
     }
     if (distToTravel == 0) {
       // check if temp location has monster, if so, slay it.
-      Monster m = tempLocation.getMonster();
-      if ((m != null) && (m.getCurrentHealth() != 0)) {
-        m.slay();
+      if (monsterAt(tempCell)) {
+        int state = overlay.get(tempCell);
+        int damage = ((state & ContentOverlay.DAMAGE_BITS) >> ContentOverlay.DAMAGE_SHIFT) + 1;
+        changeContent(tempCell, (state & ~ContentOverlay.DAMAGE_BITS)
+                | (damage << ContentOverlay.DAMAGE_SHIFT));
         result = true;
       }
     }
     // loose the arrow from the player.
     player.addWeapon(WeaponType.CROOKEDARROW, -1);
+    endChange();
+    log.appendShootArrow(dir, distance);
+    if (result) {
+      notifyListeners(EnumSet.of(DungeonChange.PLAYER_INVENTORY, DungeonChange.LOCATION_CONTENT));
+    } else {
+      notifyListeners(EnumSet.of(DungeonChange.PLAYER_INVENTORY));
+    }
     return result;
   }
 
-  private Map<Location, Direction> getNextPossibleLoc(Location location, Direction dir) {
+  @Override
+  public Direction[] pathTo(int row, int col)
+          throws IllegalArgumentException, IllegalStateException {
+    if ((row < 0) || (row >= this.row) || (col < 0) || (col >= this.col)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+    try {
+      checkGameStatus(true, null);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while finding a path:" + ill.getMessage());
+    }
+    Direction[] path = distances.path(cellOf(playerLocation), row * this.col + col);
+    if (path == null) {
+      throw new IllegalStateException("location cannot be reached from the player location.");
+    }
+    return path;
+  }
 
-    Map<Direction, Direction> compDir = new HashMap<>();
-    compDir.put(Direction.NORTH, Direction.SOUTH);
-    compDir.put(Direction.SOUTH, Direction.NORTH);
-    compDir.put(Direction.EAST, Direction.WEST);
-    compDir.put(Direction.WEST, Direction.EAST);
+  @Override
+  public int travelTo(int row, int col) throws IllegalArgumentException, IllegalStateException {
+    Direction[] path = pathTo(row, col);
+    if (path.length == 0) {
+      return 0;
+    }
+    return moveAlong(path).getSteps();
+  }
 
-    Location nextLocation;
-    Map<Direction, Location> possMoves = location.getPossibleMoves();
-    if (possMoves.get(dir) != null) {
-      nextLocation = possMoves.get(dir);
-    } else {
-      return null;
+  @Override
+  public CaveGraph getCaveGraph() {
+    return caveGraph();
+  }
+
+  /*
+  fetches the cave graph, derived from the locations on first use. construction uses it to select
+  the start and the end, so it is shared by every fork.
+   */
+  private CaveGraph caveGraph() {
+    if (caveGraph == null) {
+      caveGraph = new CaveGraph(distances.neighbours(), row, col);
+    }
+    return caveGraph;
+  }
+
+  // location of the cell id, the locations never change once the dungeon is constructed.
+  Location locationAt(int cell) {
+    return dungeon[cell / col][cell % col];
+  }
+
+  // cache of distance fields over the locations, shared by everything built on the layout.
+  DistanceFields distanceFields() {
+    return distances;
+  }
+
+  // generator for a game played on the layout of this dungeon, see forkedRandom.
+  RandomInteger forkRandom() {
+    return forkedRandom(rand);
+  }
+
+  @Override
+  public int getPlayerTreasure(Treasure treasure) throws IllegalArgumentException {
+    return player.getTreasureQuantity(treasure);
+  }
+
+  @Override
+  public int getPlayerWeapon(WeaponType weapon) throws IllegalArgumentException {
+    return player.getWeaponQuantity(weapon);
+  }
+
+  @Override
+  public void addListener(DungeonListener listener) throws IllegalArgumentException {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null.");
+    }
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+
+  @Override
+  public void removeListener(DungeonListener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
+    int offset = history.undo();
+    if (offset < 0) {
+      throw new IllegalStateException("there is no action to undo.");
+    }
+    Set<DungeonChange> changes = applyRecord(offset, false);
+    log.appendUndo();
+    notifyListeners(changes);
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
+    int offset = history.redo();
+    if (offset < 0) {
+      throw new IllegalStateException("there is no action to redo.");
+    }
+    Set<DungeonChange> changes = applyRecord(offset, true);
+    log.appendRedo();
+    notifyListeners(changes);
+  }
+
+  @Override
+  public boolean canUndo() {
+    return history.canUndo();
+  }
+
+  @Override
+  public boolean canRedo() {
+    return history.canRedo();
+  }
+
+  @Override
+  public void setUndoDepth(int depth) throws IllegalArgumentException {
+    history = new UndoHistory(depth);
+  }
+
+  // packed player and game state, recorded before and after each action.
+  private int gameFlags() {
+    int flags = 0;
+    if (started) {
+      flags |= STARTED_FLAG;
+    }
+    if (ended) {
+      flags |= ENDED_FLAG;
+    }
+    if (player.getPlayerStatus() == PlayerStatus.DECEASED) {
+      flags |= DECEASED_FLAG;
+    }
+    return flags;
+  }
+
+  private int playerCell() {
+    return (playerLocation == null) ? -1 : cellOf(playerLocation);
+  }
+
+  // captures the state an action may change, called before the action changes anything.
+  private void beginChange() {
+    beforeCell = playerCell();
+    beforeFlags = gameFlags();
+    for (Treasure t : Treasure.values()) {
+      beforeInventory[t.ordinal()] = player.getTreasureQuantity(t);
+    }
+    beforeInventory[Treasure.values().length] =
+            player.getWeaponQuantity(WeaponType.CROOKEDARROW);
+    contentCell = -1;
+  }
+
+  // changes the content of a location, remembering the first change of the action.
+  private void changeContent(int cell, int state) {
+    if (contentCell < 0) {
+      contentCell = cell;
+      contentBefore = overlay.get(cell);
+    }
+    overlay.put(cell, state);
+  }
+
+  /*
+  records the changes made since beginChange in the undo history.
+  actions that did not change anything are not recorded.
+   */
+  private void endChange() {
+    int cell = playerCell();
+    int flags = gameFlags();
+    boolean changed = (cell != beforeCell) || (flags != beforeFlags) || (contentCell >= 0);
+    Treasure[] treasures = Treasure.values();
+    for (Treasure t : treasures) {
+      beforeInventory[t.ordinal()] = player.getTreasureQuantity(t) - beforeInventory[t.ordinal()];
+      changed |= beforeInventory[t.ordinal()] != 0;
+    }
+    beforeInventory[treasures.length] = player.getWeaponQuantity(WeaponType.CROOKEDARROW)
+            - beforeInventory[treasures.length];
+    changed |= beforeInventory[treasures.length] != 0;
+    if (!changed) {
+      return;
+    }
+    int offset = history.record();
+    if (offset < 0) {
+      return;
+    }
+    history.set(offset, UndoHistory.CELL_BEFORE, beforeCell);
+    history.set(offset, UndoHistory.CELL_AFTER, cell);
+    history.set(offset, UndoHistory.FLAGS_BEFORE, beforeFlags);
+    history.set(offset, UndoHistory.FLAGS_AFTER, flags);
+    for (Treasure t : treasures) {
+      history.set(offset, UndoHistory.TREASURE + t.ordinal(), beforeInventory[t.ordinal()]);
+    }
+    history.set(offset, UndoHistory.ARROWS, beforeInventory[treasures.length]);
+    history.set(offset, UndoHistory.CONTENT_CELL, contentCell);
+    if (contentCell >= 0) {
+      history.set(offset, UndoHistory.CONTENT_BEFORE, contentBefore);
+      history.set(offset, UndoHistory.CONTENT_AFTER, overlay.get(contentCell));
+    }
+  }
+
+  /*
+  restores the state before (forward is false) or after (forward is true) a recorded action.
+  returns the kinds of changes made.
+   */
+  private Set<DungeonChange> applyRecord(int offset, boolean forward) {
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    int cell = history.get(offset, forward ? UndoHistory.CELL_AFTER : UndoHistory.CELL_BEFORE);
+    int flags = history.get(offset, forward ? UndoHistory.FLAGS_AFTER : UndoHistory.FLAGS_BEFORE);
+    int oldFlags = gameFlags();
+    if (cell != playerCell()) {
+      changes.add(DungeonChange.PLAYER_LOCATION);
+    }
+    playerLocation = (cell < 0) ? null : dungeon[cell / col][cell % col];
+    started = (flags & STARTED_FLAG) != 0;
+    ended = (flags & ENDED_FLAG) != 0;
+    player.restorePlayerStatus(((flags & DECEASED_FLAG) != 0)
+            ? PlayerStatus.DECEASED : PlayerStatus.ALIVE);
+    if (((flags ^ oldFlags) & DECEASED_FLAG) != 0) {
+      changes.add(DungeonChange.PLAYER_STATUS);
+    }
+    if (((flags ^ oldFlags) & (STARTED_FLAG | ENDED_FLAG)) != 0) {
+      changes.add(DungeonChange.GAME_STATUS);
+    }
+
+    int sign = forward ? 1 : -1;
+    for (Treasure t : Treasure.values()) {
+      int quantity = sign * history.get(offset, UndoHistory.TREASURE + t.ordinal());
+      if (quantity > 0) {
+        player.addTreasure(t, quantity);
+      } else if (quantity < 0) {
+        player.removeTreasure(t, -quantity);
+      }
+      if (quantity != 0) {
+        changes.add(DungeonChange.PLAYER_INVENTORY);
+      }
+    }
+    int arrows = sign * history.get(offset, UndoHistory.ARROWS);
+    if (arrows != 0) {
+      player.addWeapon(WeaponType.CROOKEDARROW, arrows);
+      changes.add(DungeonChange.PLAYER_INVENTORY);
+    }
+
+    int content = history.get(offset, UndoHistory.CONTENT_CELL);
+    if (content >= 0) {
+      overlay.put(content, history.get(offset,
+              forward ? UndoHistory.CONTENT_AFTER : UndoHistory.CONTENT_BEFORE));
+      changes.add(DungeonChange.LOCATION_CONTENT);
     }
+    return changes;
+  }
 
-    possMoves = nextLocation.getPossibleMoves();
-    Direction nextDir = null;
-    if (nextLocation.getType() == LocationType.TUNNEL) {
-      for (Map.Entry<Direction, Location> entry : possMoves.entrySet()) {
-        if (entry.getKey() != compDir.get(dir)) {
-          if (entry.getValue() != null) {
-            nextDir = entry.getKey();
+  @Override
+  public ActionLog getActionLog() {
+    return log.copy();
+  }
+
+  /*
+  applies the actions of the log to this dungeon.
+  moves use the recorded coin flips instead of drawing from the generator.
+  throws IllegalStateException when an action cannot be applied.
+   */
+  void replay(byte[] actions) throws IllegalStateException {
+    Direction[] directions = Direction.values();
+    int i = 0;
+    int applied = 0;
+    try {
+      while (i < actions.length) {
+        int code = actions[i++] & 0xff;
+        int op = code >>> ActionLog.OP_SHIFT;
+        Direction dir = directions[code & ActionLog.DIRECTION_BITS];
+        if (op == ActionLog.ENTER) {
+          enter();
+        } else if (op == ActionLog.MOVE) {
+          int flip = -1;
+          if ((code & ActionLog.FLIP_DRAWN) != 0) {
+            flip = ((code & ActionLog.FLIP_VALUE) != 0) ? 1 : 0;
           }
+          move(dir, flip);
+        } else if (op == ActionLog.COLLECT_TREASURE) {
+          collectTreasure();
+        } else if (op == ActionLog.PICK_WEAPON) {
+          pickWeapon();
+        } else if (op == ActionLog.SHOOT_ARROW) {
+          int distance = 0;
+          int shift = 0;
+          int b;
+          do {
+            b = actions[i++] & 0xff;
+            distance |= (b & 0x7f) << shift;
+            shift += 7;
+          } while ((b & 0x80) != 0);
+          shootArrow(dir, distance);
+        } else if (op == ActionLog.RESET) {
+          reset();
+        } else if (op == ActionLog.UNDO) {
+          undo();
+        } else if (op == ActionLog.REDO) {
+          redo();
+        } else {
+          throw new IllegalStateException("invalid operation.");
         }
+        applied++;
       }
-    } else {
-      nextDir = dir;
+    } catch (IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException exp) {
+      throw new IllegalStateException("log does not match the dungeon at action " + applied
+              + ": " + exp.getMessage());
+    }
+  }
+
+  // notifies the listeners with the given changes, skips the notification when nothing changed.
+  private void notifyListeners(Set<DungeonChange> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    Set<DungeonChange> unmodifiable = Collections.unmodifiableSet(changes);
+    for (DungeonListener listener : listeners) {
+      listener.dungeonChanged(unmodifiable);
+    }
+  }
+
+  // cell id of the location, row * columns + column.
+  private int cellOf(Location location) {
+    return location.getRow() * col + location.getColumn();
+  }
+
+  // treasure at the location in this game.
+  private Map<Treasure, Integer> treasureAt(Location location) {
+    Map<Treasure, Integer> treasureL = location.getTreasure();
+    if ((overlay.get(cellOf(location)) & ContentOverlay.TREASURE_TAKEN) != 0) {
+      for (Treasure t : Treasure.values()) {
+        treasureL.put(t, 0);
+      }
+    }
+    return treasureL;
+  }
+
+  // weapons at the location in this game.
+  private Map<WeaponType, Integer> weaponsAt(Location location) {
+    Map<WeaponType, Integer> weaponInfo = location.getWeaponInfo();
+    if ((overlay.get(cellOf(location)) & ContentOverlay.ARROWS_TAKEN) != 0) {
+      Map<WeaponType, Integer> taken = new HashMap<>();
+      for (WeaponType w : WeaponType.values()) {
+        taken.put(w, 0);
+      }
+      return taken;
     }
-    Map<Location, Direction> result = new HashMap<>();
-    result.put(nextLocation, nextDir);
+    return weaponInfo;
+  }
+
+  // current health of the monster at the location in this game, -1 when there is no monster.
+  private int healthAt(Location location) {
+    return health(location, overlay.get(cellOf(location)));
+  }
 
+  /*
+  current health of the monster at the location with the given state flags of the location,
+  -1 when there is no monster.
+   */
+  static int health(Location location, int state) {
+    Monster m = location.getMonster();
+    if (m == null) {
+      return -1;
+    }
+    int damage = (state & ContentOverlay.DAMAGE_BITS) >> ContentOverlay.DAMAGE_SHIFT;
+    return Math.max(0, m.getCurrentHealth() - damage);
+  }
+
+  // describes the location as it is in this game.
+  private Map<LocationDescription, List<String>> describe(Location location) {
+    return describe(location, overlay.get(cellOf(location)));
+  }
+
+  /*
+  describes the location with the given state flags of the location.
+  the description of the location is taken as is, with the content changed by the game replaced.
+   */
+  static Map<LocationDescription, List<String>> describe(Location location, int state) {
+    Map<LocationDescription, List<String>> result = location.getLocationSign();
+    if (state == 0) {
+      return result;
+    }
+    if ((state & ContentOverlay.TREASURE_TAKEN) != 0) {
+      List<String> treasureVal = new ArrayList<>();
+      for (Treasure t : Treasure.values()) {
+        treasureVal.add(t.name() + " " + 0);
+      }
+      result.put(LocationDescription.TREASURE, treasureVal);
+    }
+    if ((state & ContentOverlay.ARROWS_TAKEN) != 0) {
+      List<String> weaponVal = new ArrayList<>();
+      for (WeaponType w : WeaponType.values()) {
+        weaponVal.add(w.name() + " " + 0);
+      }
+      result.put(LocationDescription.WEAPON, weaponVal);
+    }
+    Monster m = location.getMonster();
+    if (((state & ContentOverlay.DAMAGE_BITS) != 0) && (m != null)) {
+      List<String> monsterVal = new ArrayList<>();
+      monsterVal.add(String.format("%s %d %d", m.getType().name(), m.getInitialHealth(),
+              health(location, state)));
+      result.put(LocationDescription.MONSTER, monsterVal);
+    }
     return result;
   }
 
@@ -623,55 +1438,184 @@ abstract class AbstractDungeon implements Dungeon {
     return player.getPlayerStatus();
   }
 
+  @Override
+  public boolean isVisited(int row, int col) throws IllegalArgumentException {
+    if ((row < 0) || (row >= this.row) || (col < 0) || (col >= this.col)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+    return visited.get(row * this.col + col);
+  }
+
+  @Override
+  public BitSet getVisitedCells() {
+    return visited.toBitSet();
+  }
+
+  @Override
+  public int getVisitedCount() {
+    return visited.cardinality();
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeVisitedLocation(int row, int col)
+          throws IllegalArgumentException, IllegalStateException {
+    if (!isVisited(row, col)) {
+      throw new IllegalStateException("location has not been visited.");
+    }
+    Location location = dungeon[row][col];
+    Map<LocationDescription, List<String>> result = describe(location);
+
+    SmellIntensity smell = smellAt(location, false);
+    List<String> smellVal = new ArrayList<>();
+    if (smell != null) {
+      smellVal.add(smell.name());
+    } else {
+      smellVal.add("null");
+    }
+    result.put(LocationDescription.SMELL, smellVal);
+    return result;
+  }
+
   @Override
   public SmellIntensity getLocationSmell() {
-    Map<Direction, Location> possMoves = playerLocation.getPossibleMoves();
-    Map<Direction, Direction> compDir = new HashMap<>();
-    compDir.put(Direction.NORTH, Direction.SOUTH);
-    compDir.put(Direction.SOUTH, Direction.NORTH);
-    compDir.put(Direction.EAST, Direction.WEST);
-    compDir.put(Direction.WEST, Direction.EAST);
-
-    if (gameStarted()) {
-      Monster m = playerLocation.getMonster();
-      if ((m != null) && (m.getCurrentHealth() != 0)) {
+    return smellAt(playerLocation, gameStarted());
+  }
+
+  /*
+  computes the smell at the given location.
+  monster in the location itself is considered only when checkOwn is true.
+   */
+  private SmellIntensity smellAt(Location location, boolean checkOwn) {
+    if (checkOwn) {
+      if (healthAt(location) > 0) {
         return SmellIntensity.HIGH;
       }
     }
+    return caveGraph().smellAround(cellOf(location), this::monsterAt);
+  }
 
-    int monsAtNextL = 0;
-    List<Location> nextNeighbor = new ArrayList<>();
+  // cell id of the player for the JFR events, -1 before entering the dungeon.
+  private int eventCell() {
+    return (playerLocation == null) ? -1 : cellOf(playerLocation);
+  }
 
-    // immediate neighbors
-    for (Direction d : Direction.values()) {
-      if (possMoves.get(d) != null) {
-        Monster m = possMoves.get(d).getMonster();
-        if ((m != null) && (m.getCurrentHealth() > 0)) {
-          return SmellIntensity.HIGH;
-        }
-        Map<Direction, Location> tempMoves = possMoves.get(d).getPossibleMoves();
-        for (Direction di : Direction.values()) {
-          Location neigh = tempMoves.get(di);
-          if ((di != compDir.get(d)) && (neigh != null) && (!nextNeighbor.contains(neigh))) {
-            Monster nextLevel = neigh.getMonster();
-            if ((nextLevel != null) && (nextLevel.getCurrentHealth() > 0)) {
-              monsAtNextL++;
-              nextNeighbor.add(neigh);
-              if (monsAtNextL == 2) {
-                return SmellIntensity.HIGH;
-              }
-            }
-          }
+  /*
+  commits the JFR event of an action, when a recording enables it. the outcome is FAILED when
+  the action threw an exception.
+   */
+  private void commitAction(DungeonActionEvent event, int cell, String outcome) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.rows = row;
+      event.columns = col;
+      event.cell = cell;
+      event.outcome = outcome;
+      event.commit();
+    }
+  }
+
+  private boolean monsterAt(int cell) {
+    return healthAt(dungeon[cell / col][cell % col]) > 0;
+  }
+
+  /*
+  sets up the layout of the dungeon from the LayoutCache: the locations and their neighbours, the
+  start, the end, the cave graph and the distance fields; the generators are resumed from where
+  the generation of the layout left them. returns false, without changing anything, when the
+  layout is not cached, in which case the layout should be generated and given to cacheLayout.
+   */
+  protected boolean restoreLayout(int interConn) {
+    if (layoutSeed == null) {
+      return false;
+    }
+    LayoutCache.Layout layout = LayoutCache.get(layoutKey(interConn));
+    if (layout == null) {
+      return false;
+    }
+    startPhase(GenerationPhase.RESTORE_LAYOUT);
+    createLocations();
+    Direction[] dirs = Direction.values();
+    int[] neighbours = layout.getNeighbours();
+    for (int cell = 0; cell < row * col; cell++) {
+      for (int d = 0; d < dirs.length; d++) {
+        int next = neighbours[cell * dirs.length + d];
+        if (next >= 0) {
+          locationAt(cell).setNeighbour(dirs[d], locationAt(next));
         }
       }
     }
+    distances = layout.getDistances();
+    caveGraph = layout.getCaveGraph();
+    start = locationAt(layout.getStartCell());
+    end = locationAt(layout.getEndCell());
+    ((CustomRandomInteger) rand).setState(layout.getRandState());
+    ((CustomRandomInteger) trueRandom).setState(layout.getTrueRandomState());
+    stopPhase();
+    return true;
+  }
 
-    if (monsAtNextL == 0) {
-      return null;
-    } else if (monsAtNextL == 1) {
-      return SmellIntensity.LOW;
+  /*
+  runs a phase of the construction, recording it for the GenerationReport.
+   */
+  protected void runPhase(GenerationPhase phase, Runnable step) {
+    startPhase(phase);
+    step.run();
+    stopPhase();
+  }
+
+  /*
+  completes the GenerationReport, called once the construction is complete.
+   */
+  protected void finishGeneration() {
+    if (recorder != null) {
+      generationReport = recorder.report();
+      recorder = null;
+    }
+  }
+
+  private void startPhase(GenerationPhase phase) {
+    if (recorder != null) {
+      recorder.start(phase);
+    }
+  }
+
+  private void stopPhase() {
+    if (recorder != null) {
+      recorder.stop();
     }
-    return null;
+  }
+
+  // counts a retry of the rejection loop of the running phase.
+  private void countRetry() {
+    if (recorder != null) {
+      recorder.retry();
+    }
+  }
+
+  @Override
+  public GenerationReport getGenerationReport() {
+    return generationReport;
+  }
+
+  /*
+  adds the layout generated for the dungeon to the LayoutCache, when it can be cached.
+  called once the start and the end are selected, before any content is placed.
+   */
+  protected void cacheLayout(int interConn) {
+    if (layoutSeed == null) {
+      return;
+    }
+    int[] neighbours = distances.neighbours();
+    // the cached distance fields should not hold on to the locations of this dungeon.
+    distances = new DistanceFields(neighbours, DistanceFields.DEFAULT_CAPACITY);
+    LayoutCache.put(layoutKey(interConn), new LayoutCache.Layout(neighbours, distances,
+            caveGraph(), cellOf(start), cellOf(end), ((CustomRandomInteger) rand).getState(),
+            ((CustomRandomInteger) trueRandom).getState()));
+  }
+
+  private LayoutCache.Key layoutKey(int interConn) {
+    return new LayoutCache.Key(getClass(), generator.getClass(), row, col, interConn,
+            layoutSeed);
   }
 
   /*
@@ -687,104 +1631,60 @@ abstract class AbstractDungeon implements Dungeon {
   }
 
   /*
-  runs the kruskal algorithm to generate the grid.
-  also sets neighbours between locations in dungeon.
-  interconnectivity is handled by adding leftover edges after kruskal algorithm, the number of
-  leftover edges added is the same as the value of interconnectivity.
+  generates the maze with the generator of the dungeon and sets neighbours between locations in
+  the dungeon.
+  interconnectivity is handled by adding left over edges after the maze is generated, the number
+  of left over edges added is the same as the value of interconnectivity. a left over edge is
+  drawn by its position among the ones not added yet.
    */
-  protected void runKruskal(int interConn) {
-    List<List<Integer>> allEdgesCopy = new ArrayList<>(allEdges);
-    List<String> selectedE = new ArrayList<>();
-    int random = 0;
-    while (selectedEdges.size() < (row * col) - 1) {
-      random = rand.nextInt(0, allEdgesCopy.size());
-      List<Integer> edge = allEdgesCopy.get(random);
-      String source = String.format("%d,%d", edge.get(0), edge.get(1));
-      String dest = String.format("%d,%d", edge.get(2), edge.get(3));
-      boolean edgeSelected = false;
-      int sourceInd = -1;
-      int destInd = -1;
-
-      // union-find for kruskal is done based on string comparison.
-      if (selectedEdges.size() == 0) {
-        edgeSelected = true;
-      } else {
-        for (int i = 0; i < selectedE.size(); i++) {
-          if (selectedE.get(i).contains(source.subSequence(0, source.length()))) {
-            sourceInd = i;
-          }
-          if (selectedE.get(i).contains(dest.subSequence(0, dest.length()))) {
-            destInd = i;
-          }
-        }
-
-        if (sourceInd != destInd) {
-          edgeSelected = true;
-        } else {
-          if (sourceInd == -1) {
-            edgeSelected = true;
-          } else {
-            edgeSelected = false;
-          }
-        }
-      }
-      if (edgeSelected) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(source);
-        sb.append("-");
-        sb.append(dest);
-        StringBuffer temp = new StringBuffer();
-        if (selectedEdges.size() != 0) {
-          if (sourceInd != -1) {
-            temp.append(selectedE.get(sourceInd));
-            temp.append("->");
-          }
-          temp.append(sb.toString());
-          if (destInd != -1) {
-            temp.append("->");
-            temp.append(selectedE.get(destInd));
-          }
-          if ((sourceInd == destInd) && (sourceInd != -1)) {
-            selectedE.remove(sourceInd);
-          } else {
-            if (sourceInd != -1) {
-              selectedE.remove(sourceInd);
-              if (sourceInd < destInd) {
-                destInd--;
-              }
-            }
-            if (destInd != -1) {
-              selectedE.remove(destInd);
-            }
-          }
-          selectedE.add(temp.toString());
-        } else {
-          selectedE.add(sb.toString());
-        }
-        setNeighbours(edge.get(0), edge.get(1), edge.get(2), edge.get(3));
-        allEdgesCopy.remove(random);
-        selectedEdges.add(edge);
-      } else {
-        allEdgesCopy.remove(random);
-        leftOverEdges.add(edge);
-      }
+  protected void generateMaze(int interConn) {
+    int cells = row * col;
+    int[] packed = Arrays.copyOf(edges, 2 * edgeCount);
+    edges = null;
+    int[] order = new int[edgeCount];
+    int retries = generator.generate(packed, cells, rand, order);
+    for (int i = 0; i < retries; i++) {
+      countRetry();
+    }
+    for (int i = 0; i < cells - 1; i++) {
+      connect(packed, order[i]);
     }
 
     // handling interconnectivity.
-    leftOverEdges.addAll(allEdgesCopy);
-    interConn = Math.min(interConn, leftOverEdges.size());
+    int leftOver = edgeCount - (cells - 1);
+    int[] leftOverEdges = Arrays.copyOfRange(order, cells - 1, edgeCount);
+    interConn = Math.min(interConn, leftOver);
     for (int i = 0; i < interConn; i++) {
       if (countCaves() <= 2) {
         break;
       }
-      random = rand.nextInt(0, leftOverEdges.size());
-      List<Integer> edge = leftOverEdges.get(random);
-      setNeighbours(edge.get(0), edge.get(1), edge.get(2), edge.get(3));
-      leftOverEdges.remove(random);
-      selectedEdges.add(edge);
+      int random = rand.nextInt(0, leftOver);
+      connect(packed, leftOverEdges[random]);
+      System.arraycopy(leftOverEdges, random + 1, leftOverEdges, random, leftOver - random - 1);
+      leftOver--;
     }
   }
 
+  // sets neighbours between the ends of a packed edge.
+  private void connect(int[] packed, int edge) {
+    int source = packed[2 * edge];
+    int dest = packed[2 * edge + 1];
+    setNeighbours(source / col, source % col, dest / col, dest % col);
+  }
+
+  /*
+  adds an edge between two locations represented by their row,column position to the possible
+  edges.
+   */
+  protected void addEdge(int sourceR, int sourceC, int destR, int destC) {
+    if (2 * edgeCount + 2 > edges.length) {
+      edges = Arrays.copyOf(edges, Math.max(4, 2 * edges.length));
+    }
+    edges[2 * edgeCount] = sourceR * col + sourceC;
+    edges[2 * edgeCount + 1] = destR * col + destC;
+    edgeCount++;
+  }
+
   /*
    set neighbours between two location objects represented by their row,column position.
    @param sourceR source location row.
@@ -795,7 +1695,7 @@ abstract class AbstractDungeon implements Dungeon {
   protected abstract void setNeighbours(int sourceR, int sourceC, int destR, int destC);
 
   /**
-   * Fills up non wrapping edges in this.allEdges
+   * Fills up non wrapping edges in the possible edges
    * To support testing using predictable random numbers, sets up few edges to
    * the front of the list.
    */
@@ -804,30 +1704,22 @@ abstract class AbstractDungeon implements Dungeon {
     int j = 0;
     int a = 0;
     int b = 1;
-    // sets up few edges towards the front of the allEdges data structure so that we know how the
+    // sets up few edges towards the front of the possible edges so that we know how the
     // grid will be formed when using predictable random numbers to construct the dungeon.
     // the pattern that is setup is a mirror image of 5,
     // e.g., 0,0-0,1 -> 0,1-0,2 -> ... -> 0,(column-2)-0,(column-1) -> 0,(column-1)-1,(column-1) ...
-    List<String> selectedEdges = new ArrayList<>();
+    // marks the edges of the pattern by the location to their left or above them, 2 * cell
+    // for the edge to the east and 2 * cell + 1 for the edge to the south.
+    boolean[] inPattern = new boolean[2 * row * col];
     for (int k = 0; k < row; k++) {
       for (int m = 0; m < col; m++) {
-        List<Integer> edge = new ArrayList<>();
         if (!((k == row - 1) && (m == col - 1))) {
           if ((i <= a) && (j <= b)) {
-            edge.add(i);
-            edge.add(j);
-            edge.add(a);
-            edge.add(b);
-            allEdges.add(edge);
-            selectedEdges.add(String.format("%d%d%d%d", i, j, a, b));
+            addEdge(i, j, a, b);
           } else {
-            edge.add(a);
-            edge.add(b);
-            edge.add(i);
-            edge.add(j);
-            allEdges.add(edge);
-            selectedEdges.add(String.format("%d%d%d%d", a, b, i, j));
+            addEdge(a, b, i, j);
           }
+          inPattern[2 * Math.min(i * col + j, a * col + b) + ((i == a) ? 0 : 1)] = true;
         }
         i = a;
         j = b;
@@ -867,30 +1759,12 @@ abstract class AbstractDungeon implements Dungeon {
     // fills remaining non-wrapping edges.
     for (int k = 0; k < row; k++) {
       for (int l = 0; l < col; l++) {
-        List<Integer> edge = new ArrayList<>();
-        String pEdge1 = "";
-        String pEdge2 = "";
-        if (l != col - 1) {
-          pEdge1 = String.format("%d%d%d%d", k, l, k, l + 1);
-        }
-        if (k != row - 1) {
-          pEdge2 = String.format("%d%d%d%d", k, l, k + 1, l);
-        }
-        if ((pEdge1.length() > 0) && (!(selectedEdges.contains(pEdge1)))) {
-          edge = new ArrayList<>();
-          edge.add(k);
-          edge.add(l);
-          edge.add(k);
-          edge.add(l + 1);
-          allEdges.add(edge);
+        int cell = k * col + l;
+        if ((l != col - 1) && (!inPattern[2 * cell])) {
+          addEdge(k, l, k, l + 1);
         }
-        if ((pEdge2.length() > 0) && (!(selectedEdges.contains(pEdge2)))) {
-          edge = new ArrayList<>();
-          edge.add(k);
-          edge.add(l);
-          edge.add(k + 1);
-          edge.add(l);
-          allEdges.add(edge);
+        if ((k != row - 1) && (!inPattern[2 * cell + 1])) {
+          addEdge(k, l, k + 1, l);
         }
       }
     }
@@ -898,121 +1772,51 @@ abstract class AbstractDungeon implements Dungeon {
 
   /*
   selects start and end location in the dungeon.
-  uses the all pair shortest path algorithm between randomly selected source and end to
-  ensure that the minimum distance between them is at least MIN_START_END_DIST.
+  searches the cave graph from each randomly selected end to ensure that the minimum distance
+  between the start and the end is at least MIN_START_END_DIST.
    */
   protected void selectStartEnd() {
-    List<String> allNodes = new ArrayList<>();
-    for (int i = 0; i < row; i++) {
-      for (int j = 0; j < col; j++) {
-        allNodes.add(String.format("%d,%d", i, j));
-      }
-    }
-
+    int cells = row * col;
+    CaveGraph graph = caveGraph();
     RandomInteger rGen = trueRandom;
+    int startCell = randomCave(rGen, graph, cells);
+    start = dungeon[startCell / col][startCell % col];
 
-    int random = rGen.nextInt(0, allNodes.size());
-
-    String possStart = allNodes.get(random);
-    int pStartI = Integer.parseInt(possStart.split(",")[0]);
-    int pStartJ = Integer.parseInt(possStart.split(",")[1]);
-    start = dungeon[pStartI][pStartJ];
-
-    List<String> possEndsChecked = new ArrayList<>();
-
-    while (start.getType() != LocationType.CAVE) {
-      random = rGen.nextInt(0, allNodes.size());
-      possStart = allNodes.get(random);
-      pStartI = Integer.parseInt(possStart.split(",")[0]);
-      pStartJ = Integer.parseInt(possStart.split(",")[1]);
-      start = dungeon[pStartI][pStartJ];
-    }
-
+    // caves already rejected as the end, the selection fails once every cave is rejected.
+    boolean[] checked = new boolean[cells];
+    int unchecked = graph.getCaveCount();
     while (end == null) {
-
-      if (possEndsChecked.size() == allNodes.size()) {
+      if (unchecked == 0) {
         throw new IllegalStateException("start and end location cannot be selected "
                 + "for the provided row and column values.");
       }
-
-      random = rGen.nextInt(0, allNodes.size());
-      String possEnd = allNodes.get(random);
-      int pEndI = Integer.parseInt(possEnd.split(",")[0]);
-      int pEndJ = Integer.parseInt(possEnd.split(",")[1]);
-      end = dungeon[pEndI][pEndJ];
-      while (end.getType() != LocationType.CAVE) {
-        random = rGen.nextInt(0, allNodes.size());
-        possEnd = allNodes.get(random);
-        pEndI = Integer.parseInt(possEnd.split(",")[0]);
-        pEndJ = Integer.parseInt(possEnd.split(",")[1]);
-        end = dungeon[pEndI][pEndJ];
+      int endCell = randomCave(rGen, graph, cells);
+      if (checked[endCell]) {
+        countRetry();
+        continue;
       }
-
-      if (!possEndsChecked.contains(possEnd)) {
-        possEndsChecked.add(possEnd);
+      checked[endCell] = true;
+      unchecked--;
+      int distance = graph.distancesFrom(endCell)[startCell];
+      if (distance < 0) {
+        throw new IllegalStateException("cannot determine distance between start to end.");
       }
-
-      Map<String, Integer> pathFromEnd;
-      if ((!shortestPath.isEmpty()) && (shortestPath.get(possEnd) != null)) {
-        pathFromEnd = shortestPath.get(possEnd);
-        if (pathFromEnd.get(possStart) < MIN_START_END_DIST) {
-          end = null;
-        }
+      if (distance >= MIN_START_END_DIST) {
+        end = dungeon[endCell / col][endCell % col];
       } else {
-        runAllPairShortestPath(possEnd, allNodes);
-        pathFromEnd = shortestPath.get(possEnd);
-        if (pathFromEnd.get(possStart) != null) {
-          if (pathFromEnd.get(possStart) < MIN_START_END_DIST) {
-            end = null;
-          }
-        } else {
-          throw new IllegalStateException("cannot determine distance between start to end.");
-        }
+        countRetry();
       }
     }
   }
 
-  /*
-  all pair shortest path algorithm implementation.
-  for the given target node "possEnd" finds distance from all other location.
-  results are stored in shortestPath map.
-   */
-  protected void runAllPairShortestPath(String possEnd, List<String> allNodes) {
-    int[][] opt = new int[selectedEdges.size()][allNodes.size()];
-    for (int i = 0; i < allNodes.size(); i++) {
-      opt[0][i] = Integer.MAX_VALUE - 100000;
-    }
-    int endIndex = allNodes.indexOf(possEnd);
-    opt[0][endIndex] = 0;
-
-    Location temp;
-    Map<Direction, Location> p;
-
-    for (int i = 1; i < selectedEdges.size(); i++) {
-      for (int j = 0; j < allNodes.size(); j++) {
-        opt[i][j] = opt[i - 1][j];
-        String[] iJ = allNodes.get(j).split(",");
-        temp = dungeon[Integer.parseInt(iJ[0])][Integer.parseInt(iJ[1])];
-        p = temp.getPossibleMoves();
-        List<String> moves = new ArrayList<>();
-        List<Integer> neighbour = new ArrayList<>();
-        for (Direction dir : Direction.values()) {
-          if (p.get(dir) != null) {
-            moves.add(String.format("%d,%d", p.get(dir).getRow(), p.get(dir).getColumn()));
-            neighbour.add(allNodes.indexOf(
-                    String.format("%d,%d", p.get(dir).getRow(), p.get(dir).getColumn())));
-          }
-        }
-        for (int neigh : neighbour) {
-          opt[i][j] = Math.min(opt[i][j], opt[i - 1][neigh] + 1);
-        }
-      }
+  // draws cells until a cave is drawn.
+  private int randomCave(RandomInteger rGen, CaveGraph graph, int cells) {
+    int cell = rGen.nextInt(0, cells);
+    while (!graph.isCave(cell)) {
+      countRetry();
+      cell = rGen.nextInt(0, cells);
     }
-    Map<String, Integer> shortP = new HashMap<>();
-    for (int j = 0; j < allNodes.size(); j++) {
-      shortP.put(allNodes.get(j), opt[selectedEdges.size() - 1][j]);
-    }
-    shortestPath.put(allNodes.get(endIndex), shortP);
+    return cell;
   }
 
   /**
@@ -1059,9 +1863,8 @@ abstract class AbstractDungeon implements Dungeon {
                 sb.append(" ");
               }
 
-              int monsterHealth;
-              if (dungeon[i][j].getMonster() != null) {
-                monsterHealth = dungeon[i][j].getMonster().getCurrentHealth();
+              int monsterHealth = healthAt(dungeon[i][j]);
+              if (monsterHealth >= 0) {
                 if (monsterHealth == 2) {
                   sb.append("M*");
                 } else if (monsterHealth == 1) {
@@ -1141,7 +1944,7 @@ abstract class AbstractDungeon implements Dungeon {
 
   private String getWeaponString(Location location) {
     StringBuffer sb = new StringBuffer();
-    Map<WeaponType, Integer> weaponInfo = location.getWeaponInfo();
+    Map<WeaponType, Integer> weaponInfo = weaponsAt(location);
     int crookQ = weaponInfo.get(WeaponType.CROOKEDARROW);
     if (crookQ > 0) {
       sb.append(String.format("%S %d ", WeaponType.CROOKEDARROW, crookQ));
@@ -1155,7 +1958,7 @@ abstract class AbstractDungeon implements Dungeon {
    */
   private String getTreasureString(Location location) {
     StringBuffer sb = new StringBuffer();
-    Map<Treasure, Integer> treasureL = location.getTreasure();
+    Map<Treasure, Integer> treasureL = treasureAt(location);
     int diaQ = treasureL.get(Treasure.DIAMONDS);
     if (diaQ > 0) {
       sb.append(String.format("D %d ", diaQ));
@@ -0,0 +1,308 @@
+package maze;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Append only log of the calls that changed a game, in a compact binary form.
+ * Every successful call to enter, move, collectTreasure, pickWeapon, shootArrow, reset, undo and
+ * redo is recorded, along with the coin flip a move into the location of an injured monster
+ * draws, so a game can be reconstructed from the dungeon it was played in and its log with
+ * {@link DungeonReplayer}, independent of the random generator.
+ * Each action takes one byte: the operation in the upper bits and the direction (and the coin
+ * flip of a move) in the lower bits; a shot is followed by its distance as a variable length
+ * integer.
+ * Since the log is only appended to, a copy shares the bytes recorded so far with the log it was
+ * copied from. Copies of copies form a chain of shared logs, which is flattened into a single
+ * array once it is MAX_DEPTH logs deep, so copying a log costs O(1) amortized and a log never
+ * keeps more than MAX_DEPTH other logs alive.
+ * A log is not thread safe.
+ */
+public final class ActionLog {
+  static final int ENTER = 0;
+  static final int MOVE = 1;
+  static final int COLLECT_TREASURE = 2;
+  static final int PICK_WEAPON = 3;
+  static final int SHOOT_ARROW = 4;
+  static final int RESET = 5;
+  static final int UNDO = 6;
+  static final int REDO = 7;
+
+  static final int OP_SHIFT = 5;
+  static final int DIRECTION_BITS = 0x03;
+  static final int FLIP_DRAWN = 1 << 2;
+  static final int FLIP_VALUE = 1 << 3;
+
+  private static final int MAGIC = 0x444c4f47;
+  private static final int VERSION = 1;
+  private static final int INITIAL_CAPACITY = 64;
+  // number of logs a chain of copies shares at most before it is flattened.
+  private static final int MAX_DEPTH = 16;
+  private static final byte[] EMPTY = new byte[0];
+  private static final String[] OPERATIONS = {
+      "ENTER", "MOVE", "COLLECT_TREASURE", "PICK_WEAPON", "SHOOT_ARROW", "RESET", "UNDO", "REDO"};
+
+  // bytes [0, prefixLength) are read from prefix, the following ones from data.
+  private final ActionLog prefix;
+  private final int prefixLength;
+  private final int prefixActions;
+  // number of logs in the chain of prefixes.
+  private final int depth;
+  private byte[] data;
+  private int length;
+  private int actions;
+
+  /**
+   * Initializes an empty log.
+   */
+  public ActionLog() {
+    this(null, 0, 0, new byte[INITIAL_CAPACITY], 0, 0);
+  }
+
+  private ActionLog(ActionLog prefix, int prefixLength, int prefixActions, byte[] data,
+                    int length, int actions) {
+    this.prefix = prefix;
+    this.prefixLength = prefixLength;
+    this.prefixActions = prefixActions;
+    this.depth = (prefix == null) ? 0 : prefix.depth + 1;
+    this.data = data;
+    this.length = length;
+    this.actions = actions;
+  }
+
+  /**
+   * creates a log with the actions recorded in this log so far. Actions recorded later in either
+   * log are not part of the other.
+   *
+   * @return copy of the log.
+   */
+  public ActionLog copy() {
+    if (length == 0) {
+      return new ActionLog(prefix, prefixLength, prefixActions, EMPTY, 0, 0);
+    }
+    if (depth + 1 >= MAX_DEPTH) {
+      // the bytes are copied into a log of its own so that the chain stays bounded.
+      byte[] bytes = new byte[byteLength() + INITIAL_CAPACITY];
+      copyTo(bytes, byteLength());
+      return new ActionLog(null, 0, 0, bytes, byteLength(), size());
+    }
+    return new ActionLog(this, byteLength(), size(), EMPTY, 0, 0);
+  }
+
+  /**
+   * fetches the number of actions in the log.
+   *
+   * @return actions.
+   */
+  public int size() {
+    return prefixActions + actions;
+  }
+
+  /**
+   * fetches the size of the log in bytes.
+   *
+   * @return bytes.
+   */
+  public int byteLength() {
+    return prefixLength + length;
+  }
+
+  /**
+   * fetches the log in its binary form.
+   *
+   * @return bytes of the log.
+   */
+  public byte[] toByteArray() {
+    byte[] bytes = new byte[byteLength()];
+    copyTo(bytes, bytes.length);
+    return bytes;
+  }
+
+  // copies the first count bytes of the log, walking the chain of prefixes.
+  private void copyTo(byte[] bytes, int count) {
+    ActionLog log = this;
+    while (count > 0) {
+      if (count > log.prefixLength) {
+        System.arraycopy(log.data, 0, bytes, log.prefixLength, count - log.prefixLength);
+        count = log.prefixLength;
+      }
+      log = log.prefix;
+    }
+  }
+
+  /**
+   * creates a log from its binary form.
+   *
+   * @param bytes bytes as returned by toByteArray.
+   * @return log.
+   * @throws IllegalArgumentException when bytes is null; when bytes is not a valid log.
+   */
+  public static ActionLog fromByteArray(byte[] bytes) throws IllegalArgumentException {
+    if (bytes == null) {
+      throw new IllegalArgumentException("bytes cannot be null.");
+    }
+    int actions = 0;
+    int i = 0;
+    while (i < bytes.length) {
+      int op = (bytes[i] & 0xff) >>> OP_SHIFT;
+      if (op > REDO) {
+        throw new IllegalArgumentException("invalid operation at byte " + i + ".");
+      }
+      i++;
+      if (op == SHOOT_ARROW) {
+        do {
+          if (i >= bytes.length) {
+            throw new IllegalArgumentException("log ends in the middle of an action.");
+          }
+        } while ((bytes[i++] & 0x80) != 0);
+      }
+      actions++;
+    }
+    byte[] data = Arrays.copyOf(bytes, Math.max(INITIAL_CAPACITY, bytes.length));
+    return new ActionLog(null, 0, 0, data, bytes.length, actions);
+  }
+
+  /**
+   * writes the log to the stream with a small header.
+   *
+   * @param out stream to write to, is not closed.
+   * @throws IllegalArgumentException when out is null.
+   * @throws IOException              when writing fails.
+   */
+  public void writeTo(OutputStream out) throws IllegalArgumentException, IOException {
+    if (out == null) {
+      throw new IllegalArgumentException("stream cannot be null.");
+    }
+    DataOutputStream dataOut = new DataOutputStream(out);
+    dataOut.writeInt(MAGIC);
+    dataOut.writeByte(VERSION);
+    dataOut.writeInt(byteLength());
+    dataOut.write(toByteArray());
+    dataOut.flush();
+  }
+
+  /**
+   * reads a log written with writeTo.
+   *
+   * @param in stream to read from, is not closed.
+   * @return log.
+   * @throws IllegalArgumentException when in is null; when the stream does not hold a log.
+   * @throws IOException              when reading fails.
+   */
+  public static ActionLog readFrom(InputStream in) throws IllegalArgumentException, IOException {
+    if (in == null) {
+      throw new IllegalArgumentException("stream cannot be null.");
+    }
+    DataInputStream dataIn = new DataInputStream(in);
+    if ((dataIn.readInt() != MAGIC) || (dataIn.readByte() != VERSION)) {
+      throw new IllegalArgumentException("stream does not hold an action log.");
+    }
+    int byteLength = dataIn.readInt();
+    if (byteLength < 0) {
+      throw new IllegalArgumentException("invalid length of the action log.");
+    }
+    byte[] bytes = new byte[byteLength];
+    dataIn.readFully(bytes);
+    return fromByteArray(bytes);
+  }
+
+  void appendEnter() {
+    append(ENTER << OP_SHIFT);
+    actions++;
+  }
+
+  /*
+  records a move, flip is the coin flip drawn by the move or -1 when no coin was flipped.
+   */
+  void appendMove(Direction dir, int flip) {
+    int code = (MOVE << OP_SHIFT) | dir.ordinal();
+    if (flip >= 0) {
+      code |= FLIP_DRAWN | ((flip != 0) ? FLIP_VALUE : 0);
+    }
+    append(code);
+    actions++;
+  }
+
+  void appendCollectTreasure() {
+    append(COLLECT_TREASURE << OP_SHIFT);
+    actions++;
+  }
+
+  void appendPickWeapon() {
+    append(PICK_WEAPON << OP_SHIFT);
+    actions++;
+  }
+
+  void appendShootArrow(Direction dir, int distance) {
+    append((SHOOT_ARROW << OP_SHIFT) | dir.ordinal());
+    int remaining = distance;
+    while ((remaining & ~0x7f) != 0) {
+      append((remaining & 0x7f) | 0x80);
+      remaining >>>= 7;
+    }
+    append(remaining);
+    actions++;
+  }
+
+  void appendReset() {
+    append(RESET << OP_SHIFT);
+    actions++;
+  }
+
+  void appendUndo() {
+    append(UNDO << OP_SHIFT);
+    actions++;
+  }
+
+  void appendRedo() {
+    append(REDO << OP_SHIFT);
+    actions++;
+  }
+
+  private void append(int b) {
+    if (length == data.length) {
+      data = Arrays.copyOf(data, Math.max(INITIAL_CAPACITY, data.length * 2));
+    }
+    data[length++] = (byte) b;
+  }
+
+  /**
+   * lists the actions in the log, one per line, e.g., "MOVE NORTH (flip 1)", "SHOOT_ARROW EAST 2".
+   *
+   * @return readable form of the log.
+   */
+  @Override
+  public String toString() {
+    byte[] bytes = toByteArray();
+    StringBuilder sb = new StringBuilder();
+    int i = 0;
+    while (i < bytes.length) {
+      int code = bytes[i++] & 0xff;
+      int op = code >>> OP_SHIFT;
+      sb.append(OPERATIONS[op]);
+      Direction dir = Direction.values()[code & DIRECTION_BITS];
+      if (op == MOVE) {
+        sb.append(' ').append(dir.name());
+        if ((code & FLIP_DRAWN) != 0) {
+          sb.append(" (flip ").append(((code & FLIP_VALUE) != 0) ? 1 : 0).append(')');
+        }
+      } else if (op == SHOOT_ARROW) {
+        int distance = 0;
+        int shift = 0;
+        int b;
+        do {
+          b = bytes[i++] & 0xff;
+          distance |= (b & 0x7f) << shift;
+          shift += 7;
+        } while ((b & 0x80) != 0);
+        sb.append(' ').append(dir.name()).append(' ').append(distance);
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,52 @@
+package maze;
+
+/**
+ * Generates the maze with a randomized depth first search, the recursive backtracker: the search
+ * moves to a random neighbour that is not in the maze yet, and backtracks when there is none.
+ * The path is kept in an array rather than on the call stack, so large dungeons do not overflow
+ * it; every cell is looked at once more per neighbour it backtracks from, so the generation takes
+ * time linear in the edges. The mazes have long winding passages and few dead ends. Nothing is
+ * rejected; the edges left over are the unused ones in the order of the edge array.
+ */
+public final class BacktrackerGenerator implements MazeGenerator {
+
+  @Override
+  public int generate(int[] edges, int cells, RandomInteger rand, int[] order)
+          throws IllegalStateException {
+    IncidentEdges incident = new IncidentEdges(edges, cells);
+    boolean[] inMaze = new boolean[cells];
+    boolean[] used = new boolean[edges.length / 2];
+    int[] path = new int[cells];
+    int[] candidates = new int[incident.maxDegree()];
+    int start = rand.nextInt(0, cells);
+    inMaze[start] = true;
+    path[0] = start;
+    int length = 1;
+    int selected = 0;
+    while (length > 0) {
+      int cell = path[length - 1];
+      int count = 0;
+      for (int i = 0; i < incident.degree(cell); i++) {
+        int edge = incident.edge(cell, i);
+        if (!inMaze[IncidentEdges.other(edges, edge, cell)]) {
+          candidates[count++] = edge;
+        }
+      }
+      if (count == 0) {
+        length--;
+        continue;
+      }
+      int edge = candidates[rand.nextInt(0, count)];
+      int next = IncidentEdges.other(edges, edge, cell);
+      inMaze[next] = true;
+      used[edge] = true;
+      order[selected++] = edge;
+      path[length++] = next;
+    }
+    if (selected < cells - 1) {
+      throw new IllegalStateException("edges do not connect every cell.");
+    }
+    IncidentEdges.fillLeftOver(used, order, selected);
+    return 0;
+  }
+}
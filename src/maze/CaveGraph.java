@@ -0,0 +1,307 @@
+package maze;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Represents the caves of a dungeon connected by the chains of tunnels between them.
+ * A tunnel has exactly two exits, so leaving any location in a direction always leads, through
+ * zero or more tunnels, to one cave. The graph keeps for every location and direction that cave,
+ * the number of moves needed to reach it and the direction of the last move into it, so walking a
+ * chain of tunnels takes a single lookup.
+ * Locations are identified by their cell id, row * columns + column.
+ * The graph is immutable, it is derived from the layout of a dungeon once the dungeon is
+ * constructed and shared by its forks.
+ */
+public final class CaveGraph {
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final int rows;
+  private final int cols;
+  private final int[] caves;
+  private final int tunnels;
+  private final int edges;
+  // indexed by cell * 4 + direction.
+  private final int[] target;
+  private final int[] length;
+  private final byte[] arrival;
+
+  /**
+   * Initializes the graph from the neighbours of the locations.
+   *
+   * @param neighbours neighbour cell id of every location in every direction, indexed by
+   *                   cell * 4 + direction, -1 when there is no move.
+   * @param rows       number of rows in the dungeon.
+   * @param cols       number of columns in the dungeon.
+   */
+  CaveGraph(int[] neighbours, int rows, int cols) {
+    this.rows = rows;
+    this.cols = cols;
+    int cells = rows * cols;
+    boolean[] cave = new boolean[cells];
+    int caveCount = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      if (exits(neighbours, cell) != 2) {
+        cave[cell] = true;
+        caveCount++;
+      }
+    }
+    this.caves = new int[caveCount];
+    this.tunnels = cells - caveCount;
+    this.target = new int[cells * DIRECTIONS.length];
+    this.length = new int[cells * DIRECTIONS.length];
+    this.arrival = new byte[cells * DIRECTIONS.length];
+    Arrays.fill(target, -1);
+
+    int index = 0;
+    int chains = 0;
+    int[] walked = new int[cells];
+    byte[] walkedDir = new byte[cells];
+    for (int cell = 0; cell < cells; cell++) {
+      if (!cave[cell]) {
+        continue;
+      }
+      caves[index++] = cell;
+      for (int d = 0; d < DIRECTIONS.length; d++) {
+        int next = neighbours[cell * DIRECTIONS.length + d];
+        if (next < 0) {
+          continue;
+        }
+        chains++;
+        // walks the tunnels, remembering the direction each one is left in.
+        int steps = 0;
+        int dir = d;
+        walked[steps] = cell;
+        walkedDir[steps] = (byte) dir;
+        while (!cave[next] && (steps < cells - 1)) {
+          int from = opposite(dir);
+          for (int e = 0; e < DIRECTIONS.length; e++) {
+            if ((e != from) && (neighbours[next * DIRECTIONS.length + e] >= 0)) {
+              dir = e;
+              break;
+            }
+          }
+          walked[++steps] = next;
+          walkedDir[steps] = (byte) dir;
+          next = neighbours[next * DIRECTIONS.length + dir];
+        }
+        if (!cave[next]) {
+          // a ring of tunnels without caves, not a connected dungeon.
+          continue;
+        }
+        for (int k = 0; k <= steps; k++) {
+          int slot = walked[k] * DIRECTIONS.length + walkedDir[k];
+          target[slot] = next;
+          length[slot] = steps + 1 - k;
+          arrival[slot] = (byte) dir;
+        }
+      }
+    }
+    // every chain is walked once from each of its ends.
+    this.edges = chains / 2;
+  }
+
+  private static int exits(int[] neighbours, int cell) {
+    int count = 0;
+    for (int d = 0; d < DIRECTIONS.length; d++) {
+      if (neighbours[cell * DIRECTIONS.length + d] >= 0) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  // directions are ordered NORTH, WEST, EAST, SOUTH, so the opposite one mirrors the ordinal.
+  private static int opposite(int dir) {
+    return DIRECTIONS.length - 1 - dir;
+  }
+
+  /**
+   * fetches the caves of the dungeon.
+   *
+   * @return cell ids of the caves, in increasing order.
+   */
+  public int[] getCaves() {
+    return caves.clone();
+  }
+
+  /**
+   * fetches the number of caves, the nodes of the graph.
+   *
+   * @return caves.
+   */
+  public int getCaveCount() {
+    return caves.length;
+  }
+
+  /**
+   * fetches the number of tunnels, the locations collapsed into the edges of the graph.
+   *
+   * @return tunnels.
+   */
+  public int getTunnelCount() {
+    return tunnels;
+  }
+
+  /**
+   * fetches the number of edges of the graph, each a direct move or a chain of tunnels between
+   * two caves.
+   *
+   * @return edges.
+   */
+  public int getEdgeCount() {
+    return edges;
+  }
+
+  /**
+   * checks whether the location is a cave.
+   *
+   * @param cell cell id of the location.
+   * @return true for a cave, false for a tunnel.
+   * @throws IllegalArgumentException when cell is outside the dungeon.
+   */
+  public boolean isCave(int cell) throws IllegalArgumentException {
+    checkCell(cell);
+    return Arrays.binarySearch(caves, cell) >= 0;
+  }
+
+  /**
+   * fetches the cave reached by leaving the location in the direction and following the tunnels.
+   *
+   * @param cell cell id of the location, a cave or a tunnel.
+   * @param dir  direction to leave in.
+   * @return cell id of the cave, -1 when there is no move in the direction.
+   * @throws IllegalArgumentException when cell is outside the dungeon; when dir is null.
+   */
+  public int getTarget(int cell, Direction dir) throws IllegalArgumentException {
+    return target[slot(cell, dir)];
+  }
+
+  /**
+   * fetches the number of moves to the cave returned by getTarget.
+   *
+   * @param cell cell id of the location, a cave or a tunnel.
+   * @param dir  direction to leave in.
+   * @return moves, 0 when there is no move in the direction.
+   * @throws IllegalArgumentException when cell is outside the dungeon; when dir is null.
+   */
+  public int getLength(int cell, Direction dir) throws IllegalArgumentException {
+    return length[slot(cell, dir)];
+  }
+
+  /**
+   * fetches the direction of the last move into the cave returned by getTarget, e.g., the
+   * direction an arrow keeps flying in through the cave.
+   *
+   * @param cell cell id of the location, a cave or a tunnel.
+   * @param dir  direction to leave in.
+   * @return direction, null when there is no move in the direction.
+   * @throws IllegalArgumentException when cell is outside the dungeon; when dir is null.
+   */
+  public Direction getArrival(int cell, Direction dir) throws IllegalArgumentException {
+    int slot = slot(cell, dir);
+    return (target[slot] < 0) ? null : DIRECTIONS[arrival[slot]];
+  }
+
+  /**
+   * computes the number of moves from the cave to every cave, searching the caves only.
+   *
+   * @param cave cell id of the cave.
+   * @return moves indexed by cell id; -1 for tunnels and unreachable caves.
+   * @throws IllegalArgumentException when cave is not a cave of the dungeon.
+   */
+  public int[] distancesFrom(int cave) throws IllegalArgumentException {
+    if (!isCave(cave)) {
+      throw new IllegalArgumentException("location is not a cave.");
+    }
+    int[] distance = new int[rows * cols];
+    Arrays.fill(distance, -1);
+    distance[cave] = 0;
+    // entries pack the distance in the upper and the cell in the lower half.
+    PriorityQueue<Long> queue = new PriorityQueue<>();
+    queue.add((long) cave);
+    boolean[] done = new boolean[rows * cols];
+    while (!queue.isEmpty()) {
+      long entry = queue.poll();
+      int cell = (int) entry;
+      if (done[cell]) {
+        continue;
+      }
+      done[cell] = true;
+      for (int d = 0; d < DIRECTIONS.length; d++) {
+        int slot = cell * DIRECTIONS.length + d;
+        int next = target[slot];
+        if (next < 0) {
+          continue;
+        }
+        int dist = distance[cell] + length[slot];
+        if ((distance[next] < 0) || (dist < distance[next])) {
+          distance[next] = dist;
+          queue.add(((long) dist << 32) | next);
+        }
+      }
+    }
+    return distance;
+  }
+
+  /*
+  computes the smell of the monsters around the location, not counting a monster in the location
+  itself. monsters are only in caves, so only the caves at most two moves away are checked.
+  monsterAt tells whether a cave holds a living monster.
+   */
+  SmellIntensity smellAround(int cell, IntPredicate monsterAt) {
+    int monsAtNextL = 0;
+    int counted = -1;
+    for (int d = 0; d < DIRECTIONS.length; d++) {
+      int slot = cell * DIRECTIONS.length + d;
+      int next = target[slot];
+      if (next < 0) {
+        continue;
+      }
+      if (length[slot] == 1) {
+        if (monsterAt.test(next)) {
+          return SmellIntensity.HIGH;
+        }
+        // caves next to the neighbouring cave, without going back.
+        int back = opposite(arrival[slot]);
+        for (int e = 0; e < DIRECTIONS.length; e++) {
+          int nextSlot = next * DIRECTIONS.length + e;
+          int nextNext = target[nextSlot];
+          if ((e != back) && (nextNext >= 0) && (length[nextSlot] == 1) && (nextNext != counted)
+                  && monsterAt.test(nextNext)) {
+            if (++monsAtNextL == 2) {
+              return SmellIntensity.HIGH;
+            }
+            counted = nextNext;
+          }
+        }
+      } else if ((length[slot] == 2) && (next != counted) && monsterAt.test(next)) {
+        if (++monsAtNextL == 2) {
+          return SmellIntensity.HIGH;
+        }
+        counted = next;
+      }
+    }
+    return (monsAtNextL == 1) ? SmellIntensity.LOW : null;
+  }
+
+  private void checkCell(int cell) throws IllegalArgumentException {
+    if ((cell < 0) || (cell >= rows * cols)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+  }
+
+  private int slot(int cell, Direction dir) throws IllegalArgumentException {
+    checkCell(cell);
+    if (dir == null) {
+      throw new IllegalArgumentException("direction cannot be null.");
+    }
+    return cell * DIRECTIONS.length + dir.ordinal();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d caves, %d tunnels, %d edges", caves.length, tunnels, edges);
+  }
+}
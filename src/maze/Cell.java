@@ -0,0 +1,123 @@
+package maze;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Represents the coordinates of a location in a dungeon.
+ * Cells are immutable and compared with equals. Cells of the first 128 rows and columns are
+ * interned in a table, so looking them up does not allocate once they were created; cells further
+ * away are created on every lookup, so that huge dungeons do not fill a static cache.
+ * The string form, "row,column", is created once per cell.
+ */
+public final class Cell {
+  private static final int TABLE_SIZE = 128;
+  private static final AtomicReferenceArray<Cell> TABLE =
+          new AtomicReferenceArray<>(TABLE_SIZE * TABLE_SIZE);
+
+  private final int row;
+  private final int col;
+  private final String text;
+
+  private Cell(int row, int col) {
+    this.row = row;
+    this.col = col;
+    this.text = row + "," + col;
+  }
+
+  /**
+   * fetches the cell with the given coordinates.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return cell, interned when it is in the first 128 rows and columns.
+   * @throws IllegalArgumentException when row / col is negative.
+   */
+  public static Cell of(int row, int col) throws IllegalArgumentException {
+    if ((row < 0) || (col < 0)) {
+      throw new IllegalArgumentException("row / column cannot be negative.");
+    }
+    if ((row < TABLE_SIZE) && (col < TABLE_SIZE)) {
+      int index = row * TABLE_SIZE + col;
+      Cell cell = TABLE.get(index);
+      if (cell == null) {
+        TABLE.compareAndSet(index, null, new Cell(row, col));
+        cell = TABLE.get(index);
+      }
+      return cell;
+    }
+    return new Cell(row, col);
+  }
+
+  /**
+   * fetches the cell of a cell id, row * columns + column.
+   *
+   * @param id   cell id.
+   * @param cols number of columns in the dungeon.
+   * @return cell, interned when it is in the first 128 rows and columns.
+   * @throws IllegalArgumentException when id is negative; when cols is <= 0.
+   */
+  public static Cell ofId(int id, int cols) throws IllegalArgumentException {
+    if (cols <= 0) {
+      throw new IllegalArgumentException("columns should be greater than 0.");
+    }
+    if (id < 0) {
+      throw new IllegalArgumentException("cell id cannot be negative.");
+    }
+    return of(id / cols, id % cols);
+  }
+
+  /**
+   * fetches the row of the cell.
+   *
+   * @return row.
+   */
+  public int getRow() {
+    return row;
+  }
+
+  /**
+   * fetches the column of the cell.
+   *
+   * @return column.
+   */
+  public int getCol() {
+    return col;
+  }
+
+  /**
+   * fetches the cell id in a dungeon with the given number of columns.
+   *
+   * @param cols number of columns in the dungeon.
+   * @return row * cols + column.
+   */
+  public int getId(int cols) {
+    return row * cols + col;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cell)) {
+      return false;
+    }
+    Cell other = (Cell) o;
+    return (row == other.row) && (col == other.col);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * row + col;
+  }
+
+  /**
+   * the cell in the format used by the dungeon for locations.
+   *
+   * @return "row,column".
+   */
+  @Override
+  public String toString() {
+    return text;
+  }
+}
@@ -0,0 +1,100 @@
+package maze;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of locations in a dungeon, one bit per cell id (row * columns + column) packed in longs.
+ * Forking a set is copy on write like {@link ContentOverlay}: the fork shares the words with the
+ * original and whichever of them changes first copies them, so forking costs O(1).
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class CellBitSet {
+  private long[] words;
+  private boolean shared;
+  private int count;
+
+  /**
+   * Initializes an empty set.
+   *
+   * @param cells number of cells in the dungeon.
+   */
+  public CellBitSet(int cells) {
+    words = new long[(cells + Long.SIZE - 1) / Long.SIZE];
+  }
+
+  private CellBitSet(CellBitSet other) {
+    words = other.words;
+    count = other.count;
+    shared = true;
+    other.shared = true;
+  }
+
+  /**
+   * creates a set with the same cells that shares the storage until either is changed.
+   *
+   * @return fork of the set.
+   */
+  public CellBitSet fork() {
+    return new CellBitSet(this);
+  }
+
+  /**
+   * checks whether the cell is in the set.
+   *
+   * @param cell cell id.
+   * @return true when the cell is in the set.
+   */
+  public boolean get(int cell) {
+    return (words[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  /**
+   * adds the cell to the set.
+   *
+   * @param cell cell id.
+   */
+  public void set(int cell) {
+    if (get(cell)) {
+      return;
+    }
+    if (shared) {
+      words = words.clone();
+      shared = false;
+    }
+    words[cell >>> 6] |= 1L << cell;
+    count++;
+  }
+
+  /**
+   * removes every cell from the set.
+   */
+  public void clear() {
+    if (shared) {
+      words = new long[words.length];
+      shared = false;
+    } else {
+      Arrays.fill(words, 0L);
+    }
+    count = 0;
+  }
+
+  /**
+   * fetches the number of cells in the set, which is kept as cells are added so it costs O(1).
+   *
+   * @return cells.
+   */
+  public int cardinality() {
+    return count;
+  }
+
+  /**
+   * copies the set.
+   *
+   * @return {@link BitSet} with the bits of the cells in the set.
+   */
+  public BitSet toBitSet() {
+    return BitSet.valueOf(words);
+  }
+}
@@ -0,0 +1,316 @@
+package maze;
+
+/**
+ * Square part of the world of a {@link ChunkedDungeon}: the neighbours of its locations, the
+ * content placed in them and the state the game changed, as arrays indexed by the location's
+ * index in the chunk (row in the chunk * size + column in the chunk).
+ * A chunk is generated from its own {@link RandomInteger}: a maze over its locations from a
+ * {@link MazeGenerator}, extra passages for the interconnectivity, the passages crossing its
+ * borders, which are decided by the dungeon so that neighbouring chunks agree, and then its
+ * content, which is either placed with the same generator or derived from a {@link HashedContent}
+ * when looked up. The same generator yields the same chunk, so a chunk can be dropped and
+ * generated again; only its state has to be kept. The state is allocated on the first change, so
+ * a chunk the game did not change has none.
+ * Neighbours are cell ids of the world, so they may be in other chunks.
+ * Intentionally making the class package private since it should not be available outside the
+ * package.
+ */
+final class Chunk {
+  // state flag of a location the player has been to, next to the flags of ContentOverlay.
+  static final int VISITED = 1 << 4;
+  static final int DIRECTIONS = Direction.values().length;
+
+  private final int size;
+  private final int firstRow;
+  private final int firstCol;
+  private final int worldCols;
+  private final int[] neighbours;
+  // placed content, null when the content is derived; treasure kind is the ordinal + 1, 0 for none.
+  private byte[] treasureKind;
+  private byte[] treasureQuantity;
+  private byte[] arrows;
+  private boolean[] monsters;
+  // derived content, null when the content is placed.
+  private HashedContent hashed;
+  private double monsterOdds;
+  // state of each location, null until the game changes one.
+  private int[] state;
+  private boolean changed;
+
+  /**
+   * generates the layout of a chunk.
+   *
+   * @param chunkRow   row of the chunk among the chunks.
+   * @param chunkCol   column of the chunk among the chunks.
+   * @param size       number of rows and columns of the chunk.
+   * @param worldCols  number of columns of the world.
+   * @param localEdges packed edges between the locations of a chunk, by index.
+   * @param generator  {@link MazeGenerator} to generate the maze with.
+   * @param rand       {@link RandomInteger} of the chunk.
+   * @param interConn  number of extra passages in the chunk.
+   * @param crossings  position along each border, in the order of {@link Direction}, of the
+   *                   passage crossing it, -1 when no passage crosses it.
+   */
+  Chunk(int chunkRow, int chunkCol, int size, int worldCols, int[] localEdges,
+        MazeGenerator generator, RandomInteger rand, int interConn, int[] crossings) {
+    int locations = size * size;
+    this.size = size;
+    this.firstRow = chunkRow * size;
+    this.firstCol = chunkCol * size;
+    this.worldCols = worldCols;
+    this.neighbours = new int[locations * DIRECTIONS];
+    for (int i = 0; i < neighbours.length; i++) {
+      neighbours[i] = -1;
+    }
+
+    int edgeCount = localEdges.length / 2;
+    int[] order = new int[edgeCount];
+    generator.generate(localEdges, locations, rand, order);
+    for (int i = 0; i < locations - 1; i++) {
+      connect(localEdges, order[i]);
+    }
+    // extra passages are drawn from the left over edges as in the other dungeons.
+    int leftOver = edgeCount - (locations - 1);
+    int[] leftOverEdges = new int[leftOver];
+    System.arraycopy(order, locations - 1, leftOverEdges, 0, leftOver);
+    int extra = Math.min(interConn, leftOver);
+    for (int i = 0; i < extra; i++) {
+      int random = rand.nextInt(0, leftOver);
+      connect(localEdges, leftOverEdges[random]);
+      System.arraycopy(leftOverEdges, random + 1, leftOverEdges, random, leftOver - random - 1);
+      leftOver--;
+    }
+
+    if (crossings[Direction.NORTH.ordinal()] >= 0) {
+      int col = crossings[Direction.NORTH.ordinal()];
+      cross(col, Direction.NORTH, (firstRow - 1) * worldCols + firstCol + col);
+    }
+    if (crossings[Direction.WEST.ordinal()] >= 0) {
+      int row = crossings[Direction.WEST.ordinal()];
+      cross(row * size, Direction.WEST, (firstRow + row) * worldCols + firstCol - 1);
+    }
+    if (crossings[Direction.EAST.ordinal()] >= 0) {
+      int row = crossings[Direction.EAST.ordinal()];
+      cross(row * size + size - 1, Direction.EAST,
+              (firstRow + row) * worldCols + firstCol + size);
+    }
+    if (crossings[Direction.SOUTH.ordinal()] >= 0) {
+      int col = crossings[Direction.SOUTH.ordinal()];
+      cross((size - 1) * size + col, Direction.SOUTH,
+              (firstRow + size) * worldCols + firstCol + col);
+    }
+  }
+
+  // sets neighbours between the ends of a local edge, which are next to each other.
+  private void connect(int[] localEdges, int edge) {
+    int first = Math.min(localEdges[2 * edge], localEdges[2 * edge + 1]);
+    int second = Math.max(localEdges[2 * edge], localEdges[2 * edge + 1]);
+    if (second == first + 1) {
+      neighbours[first * DIRECTIONS + Direction.EAST.ordinal()] = cell(second);
+      neighbours[second * DIRECTIONS + Direction.WEST.ordinal()] = cell(first);
+    } else {
+      neighbours[first * DIRECTIONS + Direction.SOUTH.ordinal()] = cell(second);
+      neighbours[second * DIRECTIONS + Direction.NORTH.ordinal()] = cell(first);
+    }
+  }
+
+  // sets the neighbour across the border of the location at the index.
+  private void cross(int index, Direction dir, int neighbour) {
+    neighbours[index * DIRECTIONS + dir.ordinal()] = neighbour;
+  }
+
+  /**
+   * places the content of the chunk, to be called once the layout is generated, with the same
+   * {@link RandomInteger}.
+   * Treasure is placed in the given percentage of the caves, arrows in the given percentage of
+   * the locations and monsters in as many caves as the difficulty asks for, one of them at the
+   * end when the end is in the chunk, none at the start.
+   *
+   * @param rand       {@link RandomInteger} of the chunk.
+   * @param treasureP  percentage of caves with treasure, and of locations with arrows.
+   * @param difficulty number of monsters in the chunk.
+   * @param startCell  cell id of the start.
+   * @param endCell    cell id of the end.
+   */
+  void placeContent(RandomInteger rand, int treasureP, int difficulty, int startCell,
+                    int endCell) {
+    int locations = size * size;
+    treasureKind = new byte[locations];
+    treasureQuantity = new byte[locations];
+    arrows = new byte[locations];
+    monsters = new boolean[locations];
+    int[] caves = new int[locations];
+    int caveCount = 0;
+    for (int i = 0; i < locations; i++) {
+      if (isCaveAt(i)) {
+        caves[caveCount++] = i;
+      }
+    }
+
+    int treasureRooms = Math.round((treasureP / 100f) * caveCount);
+    for (int i = 0; i < treasureRooms; i++) {
+      int index = draw(caves, i, caveCount, rand);
+      treasureKind[index] = (byte) (rand.nextInt(0, Treasure.values().length) + 1);
+      treasureQuantity[index] = (byte) rand.nextInt(20, 100);
+    }
+
+    int[] all = new int[locations];
+    for (int i = 0; i < locations; i++) {
+      all[i] = i;
+    }
+    int arrowRooms = Math.round((treasureP / 100f) * locations);
+    for (int i = 0; i < arrowRooms; i++) {
+      arrows[draw(all, i, locations, rand)] = (byte) rand.nextInt(1, 3);
+    }
+
+    if (difficulty == 0) {
+      return;
+    }
+    int placed = 0;
+    if (contains(endCell)) {
+      monsters[index(endCell)] = true;
+      placed++;
+    }
+    int candidates = 0;
+    for (int i = 0; i < caveCount; i++) {
+      int cell = cell(caves[i]);
+      if ((cell != startCell) && (cell != endCell)) {
+        caves[candidates++] = caves[i];
+      }
+    }
+    for (int i = 0; (placed < difficulty) && (i < candidates); i++) {
+      monsters[draw(caves, i, candidates, rand)] = true;
+      placed++;
+    }
+  }
+
+  /**
+   * derives the content of the chunk from the given content when it is looked up, instead of
+   * placing it. The odds of a cave holding a monster are set so that the chunk holds as many
+   * monsters as the difficulty asks for on average.
+   *
+   * @param content    {@link HashedContent} of the dungeon.
+   * @param difficulty number of monsters in the chunk.
+   */
+  void deriveContent(HashedContent content, int difficulty) {
+    int caveCount = 0;
+    for (int i = 0; i < size * size; i++) {
+      caveCount += isCaveAt(i) ? 1 : 0;
+    }
+    hashed = content;
+    monsterOdds = (caveCount == 0) ? 0 : Math.min(1, difficulty / (double) caveCount);
+  }
+
+  /*
+  draws one of values[from, count) and swaps it to from, so successive draws are distinct.
+   */
+  private static int draw(int[] values, int from, int count, RandomInteger rand) {
+    int drawn = rand.nextInt(from, count);
+    int value = values[drawn];
+    values[drawn] = values[from];
+    values[from] = value;
+    return value;
+  }
+
+  // whether the cell is in the chunk.
+  boolean contains(int cell) {
+    int row = cell / worldCols - firstRow;
+    int col = cell % worldCols - firstCol;
+    return (row >= 0) && (row < size) && (col >= 0) && (col < size);
+  }
+
+  // index in the chunk of a cell of the chunk.
+  int index(int cell) {
+    return (cell / worldCols - firstRow) * size + (cell % worldCols - firstCol);
+  }
+
+  // cell id of a location of the chunk.
+  int cell(int index) {
+    return (firstRow + index / size) * worldCols + firstCol + index % size;
+  }
+
+  // number of locations in the chunk.
+  int locations() {
+    return size * size;
+  }
+
+  // neighbour of a cell of the chunk in the direction, -1 when there is no move.
+  int neighbour(int cell, int dir) {
+    return neighbours[index(cell) * DIRECTIONS + dir];
+  }
+
+  // whether a cell of the chunk is a cave, i.e., does not have exactly two moves.
+  boolean isCave(int cell) {
+    return isCaveAt(index(cell));
+  }
+
+  private boolean isCaveAt(int index) {
+    int moves = 0;
+    for (int d = 0; d < DIRECTIONS; d++) {
+      moves += (neighbours[index * DIRECTIONS + d] >= 0) ? 1 : 0;
+    }
+    return moves != 2;
+  }
+
+  // quantity of the treasure placed at a cell of the chunk.
+  int treasure(int cell, Treasure treasure) {
+    if (hashed != null) {
+      return isCave(cell) ? hashed.treasure(cell, treasure) : 0;
+    }
+    int index = index(cell);
+    return (treasureKind[index] == treasure.ordinal() + 1) ? treasureQuantity[index] : 0;
+  }
+
+  // number of arrows placed at a cell of the chunk.
+  int arrows(int cell) {
+    if (hashed != null) {
+      return hashed.arrows(cell);
+    }
+    return arrows[index(cell)];
+  }
+
+  // whether a monster was placed at a cell of the chunk.
+  boolean hasMonster(int cell) {
+    if (hashed != null) {
+      return isCave(cell) && hashed.hasMonster(cell, monsterOdds);
+    }
+    return monsters[index(cell)];
+  }
+
+  // state of a cell of the chunk, see ContentOverlay and VISITED.
+  int getState(int cell) {
+    return (state == null) ? 0 : state[index(cell)];
+  }
+
+  // changes the state of a cell of the chunk.
+  void setState(int cell, int value) {
+    if (state == null) {
+      state = new int[size * size];
+    }
+    state[index(cell)] = value;
+    changed = true;
+  }
+
+  // state of every location of the chunk, by index; null when no state was changed or restored.
+  int[] states() {
+    return state;
+  }
+
+  // restores the states saved by a ChunkStore, as pairs of index and state.
+  void restore(int[] pairs) {
+    if (pairs.length == 0) {
+      return;
+    }
+    if (state == null) {
+      state = new int[size * size];
+    }
+    for (int i = 0; i < pairs.length; i += 2) {
+      state[pairs[i]] = pairs[i + 1];
+    }
+  }
+
+  // whether the game changed the state of the chunk since it was generated or restored.
+  boolean isChanged() {
+    return changed;
+  }
+}
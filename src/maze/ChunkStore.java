@@ -0,0 +1,304 @@
+package maze;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the state of the locations of the chunks of a {@link ChunkedDungeon} that were changed by
+ * the game while the chunks are not resident.
+ * A chunk is regenerated from the seed when it is needed again, so only the states that are not 0
+ * are kept, as pairs of the location's index in the chunk and its state. The pairs are kept in
+ * memory, or in a file per chunk in the spill directory when there is one.
+ * A copy shares the spill files of the original: a file is never changed once written, saving a
+ * chunk again writes a new file and a file is deleted once no store holds it, so a copy reads the
+ * files of the original until it saves the chunk itself. Closing the store deletes the files only
+ * it holds.
+ * States kept for a chunk that is still resident elsewhere, as a fork does for the resident chunks
+ * of its dungeon, stay pending in memory and are written only when the chunk is flushed or saved.
+ * Intentionally making the class package private since it should not be available outside the
+ * package.
+ */
+final class ChunkStore {
+  private static final AtomicLong STORES = new AtomicLong();
+  private static final int[] NONE = new int[0];
+
+  private final Path spillDir;
+  private final String prefix;
+  // pairs by chunk key when kept in memory, the arrays are never changed so copies share them.
+  private final Map<Long, int[]> saved;
+  // spill file by chunk key.
+  private final Map<Long, SpillFile> spilled;
+  // pairs by chunk key not written yet, they take the place of the spill file of the key.
+  private final Map<Long, int[]> pending;
+  // number of spill files written, so that every file of the store has its own name.
+  private long writes;
+  private boolean closed;
+
+  // spill file shared by a store and its copies, deleted when the last of them releases it.
+  private static final class SpillFile {
+    private final Path path;
+    private final AtomicInteger holders;
+
+    private SpillFile(Path path) {
+      this.path = path;
+      this.holders = new AtomicInteger(1);
+    }
+  }
+
+  /**
+   * Initializes an empty store.
+   *
+   * @param spillDir directory for the spill files, null keeps the states in memory.
+   * @throws IllegalStateException when the spill directory cannot be created.
+   */
+  ChunkStore(Path spillDir) throws IllegalStateException {
+    if (spillDir != null) {
+      try {
+        Files.createDirectories(spillDir);
+      } catch (IOException exp) {
+        throw new IllegalStateException("could not create the spill directory: "
+                + exp.getMessage());
+      }
+    }
+    this.spillDir = spillDir;
+    this.prefix = "chunks-" + STORES.incrementAndGet() + "-";
+    this.saved = new HashMap<>();
+    this.spilled = new HashMap<>();
+    this.pending = new HashMap<>();
+  }
+
+  /**
+   * creates a store in the same spill directory with the same states, which shares the spill
+   * files of this store instead of writing them again.
+   *
+   * @return copy of the store.
+   * @throws IllegalStateException when the store is closed.
+   */
+  ChunkStore copy() throws IllegalStateException {
+    checkOpen();
+    ChunkStore copy = new ChunkStore(spillDir);
+    copy.saved.putAll(saved);
+    copy.pending.putAll(pending);
+    for (Map.Entry<Long, SpillFile> entry : spilled.entrySet()) {
+      entry.getValue().holders.incrementAndGet();
+      copy.spilled.put(entry.getKey(), entry.getValue());
+    }
+    return copy;
+  }
+
+  /**
+   * saves the states of a chunk, replacing the ones saved before.
+   *
+   * @param key   key of the chunk.
+   * @param state state of each location of the chunk.
+   * @throws IllegalStateException when the spill file cannot be written; when the store is
+   *                               closed.
+   */
+  void save(long key, int[] state) throws IllegalStateException {
+    put(key, pairsOf(state));
+  }
+
+  /**
+   * keeps the states of a chunk like save, but without writing a spill file until the chunk is
+   * flushed or saved again.
+   *
+   * @param key   key of the chunk.
+   * @param state state of each location of the chunk, it is not changed by the store.
+   * @throws IllegalStateException when the store is closed.
+   */
+  void keep(long key, int[] state) throws IllegalStateException {
+    if (spillDir == null) {
+      save(key, state);
+      return;
+    }
+    checkOpen();
+    pending.put(key, pairsOf(state));
+  }
+
+  /**
+   * writes the states kept for a chunk to a spill file, does nothing when none are pending.
+   *
+   * @param key key of the chunk.
+   * @throws IllegalStateException when the spill file cannot be written; when the store is
+   *                               closed.
+   */
+  void flush(long key) throws IllegalStateException {
+    int[] pairs = pending.get(key);
+    if (pairs != null) {
+      put(key, pairs);
+    }
+  }
+
+  /**
+   * fetches the state saved for a location of a chunk.
+   *
+   * @param key   key of the chunk.
+   * @param index index of the location in the chunk.
+   * @return state, 0 when none was saved.
+   * @throws IllegalStateException when the spill file cannot be read.
+   */
+  int get(long key, int index) throws IllegalStateException {
+    int[] pairs = pairs(key);
+    for (int i = 0; i < pairs.length; i += 2) {
+      if (pairs[i] == index) {
+        return pairs[i + 1];
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * fetches the keys of the chunks with saved states.
+   *
+   * @return keys, a copy.
+   */
+  Set<Long> keys() {
+    Set<Long> keys = new HashSet<>(saved.keySet());
+    keys.addAll(spilled.keySet());
+    keys.addAll(pending.keySet());
+    return keys;
+  }
+
+  /**
+   * fetches the saved states of a chunk as pairs of index and state.
+   *
+   * @param key key of the chunk.
+   * @return pairs, empty when nothing was saved.
+   * @throws IllegalStateException when the spill file cannot be read.
+   */
+  int[] pairs(long key) throws IllegalStateException {
+    int[] kept = pending.get(key);
+    if (kept != null) {
+      return kept;
+    }
+    SpillFile file = spilled.get(key);
+    if (file == null) {
+      return saved.getOrDefault(key, NONE);
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Files.newInputStream(file.path)))) {
+      int[] pairs = new int[in.readInt()];
+      for (int i = 0; i < pairs.length; i++) {
+        pairs[i] = in.readInt();
+      }
+      return pairs;
+    } catch (IOException exp) {
+      throw new IllegalStateException("could not read the saved chunk: " + exp.getMessage());
+    }
+  }
+
+  /**
+   * removes every saved state, deleting the spill files no copy holds.
+   *
+   * @throws IllegalStateException when a spill file cannot be deleted.
+   */
+  void clear() throws IllegalStateException {
+    saved.clear();
+    pending.clear();
+    IllegalStateException failed = null;
+    for (SpillFile file : spilled.values()) {
+      try {
+        release(file);
+      } catch (IllegalStateException ill) {
+        failed = ill;
+      }
+    }
+    spilled.clear();
+    if (failed != null) {
+      throw failed;
+    }
+  }
+
+  /**
+   * removes every saved state like clear, after which the store cannot save states anymore.
+   * Closing a closed store does nothing.
+   *
+   * @throws IllegalStateException when a spill file cannot be deleted.
+   */
+  void close() throws IllegalStateException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    clear();
+  }
+
+  private void checkOpen() throws IllegalStateException {
+    if (closed) {
+      throw new IllegalStateException("store is closed.");
+    }
+  }
+
+  // pairs of index and state of the locations whose state is not 0.
+  private static int[] pairsOf(int[] state) {
+    int changed = 0;
+    for (int value : state) {
+      changed += (value != 0) ? 1 : 0;
+    }
+    int[] pairs = new int[2 * changed];
+    int next = 0;
+    for (int i = 0; i < state.length; i++) {
+      if (state[i] != 0) {
+        pairs[next++] = i;
+        pairs[next++] = state[i];
+      }
+    }
+    return pairs;
+  }
+
+  private void put(long key, int[] pairs) throws IllegalStateException {
+    checkOpen();
+    pending.remove(key);
+    if (spillDir == null) {
+      if (pairs.length == 0) {
+        saved.remove(key);
+      } else {
+        saved.put(key, pairs);
+      }
+      return;
+    }
+    SpillFile written = null;
+    if (pairs.length != 0) {
+      Path path = spillDir.resolve(prefix + (key >> 32) + "-" + (int) key + "-" + (++writes)
+              + ".bin");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              Files.newOutputStream(path)))) {
+        out.writeInt(pairs.length);
+        for (int value : pairs) {
+          out.writeInt(value);
+        }
+      } catch (IOException exp) {
+        throw new IllegalStateException("could not save the chunk: " + exp.getMessage());
+      }
+      written = new SpillFile(path);
+    }
+    // the file saved before is released once the new one is written.
+    SpillFile before = (written == null) ? spilled.remove(key) : spilled.put(key, written);
+    if (before != null) {
+      release(before);
+    }
+  }
+
+  // drops the hold of this store on the file, deleting it when no other store holds it.
+  private static void release(SpillFile file) throws IllegalStateException {
+    if (file.holders.decrementAndGet() > 0) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file.path);
+    } catch (IOException exp) {
+      throw new IllegalStateException("could not delete the saved chunk: " + exp.getMessage());
+    }
+  }
+}
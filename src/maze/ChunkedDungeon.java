@@ -0,0 +1,1287 @@
+package maze;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Non-wrapping dungeon far larger than what fits in memory, for exploration.
+ * The world is split into square chunks of chunkSize * chunkSize locations, see {@link Chunk}.
+ * A chunk is generated from (seed, chunk row, chunk column) only when the game needs it, e.g.,
+ * when the player moves next to it, and is dropped again when too many chunks are resident, the
+ * least recently used first. Dropping a chunk keeps the state the game changed in it (treasure
+ * collected, arrows picked, monsters shot and locations visited) in a {@link ChunkStore}, in
+ * memory or in a spill directory, and the chunk gets its state back when it is generated again.
+ * The chunks are joined by single passages across their borders: the position of the passage
+ * across a border is derived from the seed, so both chunks of the border agree on it without
+ * generating each other. The borders crossed form a spanning tree over the chunks, so every
+ * location can be reached; with interconnectivity, every border is crossed.
+ * Treasure, arrows and monsters are placed per chunk as in the other dungeons: treasure in the
+ * given percentage of the caves of the chunk, arrows in the given percentage of its locations and
+ * difficulty monsters in its caves. The start is a cave of the first chunk and the end a cave of
+ * the last chunk, which has a monster when the difficulty is not 0. With {@link ContentMode}.HASHED
+ * the content is derived from the seed and the cell id when it is looked up instead, see
+ * {@link HashedContent}, so only the locations the game changed take memory.
+ * Moves, shooting arrows and smells follow the same rules as in the other dungeons across the
+ * borders of the chunks.
+ * Locations are identified by cell id, row * columns + column, so the world holds at most
+ * {@link Integer}.MAX_VALUE locations.
+ * Undo is not supported, pathTo searches a bounded part of the world and there is no
+ * {@link CaveGraph} or {@link GenerationReport}, since both would need the whole world.
+ */
+public class ChunkedDungeon implements Dungeon, Closeable {
+  private static final int MIN_CHUNK_SIZE = 5;
+  private static final int MIN_RESIDENT_CHUNKS = 4;
+  private static final int DEFAULT_RESIDENT_CHUNKS = 64;
+  private static final int MIN_START_END_DIST = 5;
+  private static final int OTYUGH_HEALTH = 2;
+  private static final int INJURED_OTYUGH_HEALTH = 1;
+  // number of locations pathTo searches at most.
+  private static final int PATH_SEARCH_LIMIT = 1 << 20;
+  private static final Direction[] DIRECTIONS = Direction.values();
+  private static final int DIRS = DIRECTIONS.length;
+  // kinds of values derived from the seed.
+  private static final int CHUNK = 1;
+  private static final int NORTH_BORDER = 2;
+  private static final int WEST_BORDER = 3;
+  private static final int TREE = 4;
+  private static final int START_END = 5;
+  private static final int FLIPS = 6;
+
+  private final long seed;
+  private final int size;
+  private final int chunksDown;
+  private final int chunksAcross;
+  private final int rows;
+  private final int cols;
+  private final int interConn;
+  private final int treasureP;
+  private final int difficulty;
+  private final MazeGenerator generator;
+  // derived content, null when the content is placed.
+  private final HashedContent hashed;
+  private final RandomInteger rand;
+  private final int maxResident;
+  // edges between the locations of a chunk, packed as in MazeGenerator, shared by every chunk.
+  private final int[] localEdges;
+  private final LinkedHashMap<Long, Chunk> resident;
+  private final ChunkStore store;
+  private final int start;
+  private final int end;
+  private Player player;
+  private int playerCell;
+  // number of visited locations, kept as they are visited since the states may be spilled.
+  private int visitedCount;
+  private boolean started;
+  private boolean ended;
+  private final ActionLog log;
+  private final List<DungeonListener> listeners;
+  // length and arrival direction of the latest follow.
+  private final int[] hop;
+  private long generated;
+  private long evicted;
+
+  /**
+   * Initializes the dungeon with the given configuration, keeping up to 64 chunks resident and
+   * the state of the others in memory.
+   *
+   * @param pName        name of the player.
+   * @param chunkSize    number of rows and columns of a chunk.
+   * @param chunksDown   number of rows of chunks.
+   * @param chunksAcross number of columns of chunks.
+   * @param interConn    number of extra passages in each chunk.
+   * @param treasureP    percentage of caves that should hold the treasure.
+   * @param difficulty   number of monsters in each chunk.
+   * @param seed         seed the world is derived from.
+   * @throws IllegalArgumentException when an argument is invalid, see the other constructor.
+   * @throws IllegalStateException    when the start and the end cannot be selected.
+   */
+  public ChunkedDungeon(String pName, int chunkSize, int chunksDown, int chunksAcross,
+                        int interConn, int treasureP, int difficulty, long seed)
+          throws IllegalArgumentException, IllegalStateException {
+    this(pName, chunkSize, chunksDown, chunksAcross, interConn, treasureP, difficulty, seed,
+            null, null, DEFAULT_RESIDENT_CHUNKS, null);
+  }
+
+  /**
+   * Initializes the dungeon with the given configuration.
+   *
+   * @param pName        name of the player.
+   * @param chunkSize    number of rows and columns of a chunk.
+   * @param chunksDown   number of rows of chunks.
+   * @param chunksAcross number of columns of chunks.
+   * @param interConn    number of extra passages in each chunk.
+   * @param treasureP    percentage of caves that should hold the treasure.
+   * @param difficulty   number of monsters in each chunk.
+   * @param seed         seed the world is derived from.
+   * @param rand         {@link RandomInteger} for the coin flips of the game, can be null, in
+   *                     which case a generator seeded from the seed will be used.
+   * @param generator    {@link MazeGenerator} to generate the chunks with, can be null, in which
+   *                     case {@link KruskalGenerator} will be used.
+   * @param maxResident  number of chunks kept in memory at most.
+   * @param spillDir     directory to keep the state of the dropped chunks in, can be null, in
+   *                     which case it is kept in memory.
+   * @throws IllegalArgumentException when player name is null or empty; when chunkSize is < 5;
+   *                                  when there are less than 2 chunks; when the world has more
+   *                                  than {@link Integer}.MAX_VALUE locations; when treasureP is
+   *                                  <= 0 or > 100; when difficulty or interConn is < 0;
+   *                                  when maxResident is < 4.
+   * @throws IllegalStateException    when the start and the end cannot be selected; when the
+   *                                  spill directory cannot be created.
+   */
+  public ChunkedDungeon(String pName, int chunkSize, int chunksDown, int chunksAcross,
+                        int interConn, int treasureP, int difficulty, long seed,
+                        RandomInteger rand, MazeGenerator generator, int maxResident,
+                        Path spillDir) throws IllegalArgumentException, IllegalStateException {
+    this(pName, chunkSize, chunksDown, chunksAcross, interConn, treasureP, difficulty, seed,
+            rand, generator, maxResident, spillDir, ContentMode.PLACED);
+  }
+
+  /**
+   * Initializes the dungeon with the given configuration and content mode.
+   *
+   * @param pName        name of the player.
+   * @param chunkSize    number of rows and columns of a chunk.
+   * @param chunksDown   number of rows of chunks.
+   * @param chunksAcross number of columns of chunks.
+   * @param interConn    number of extra passages in each chunk.
+   * @param treasureP    percentage of caves that should hold the treasure.
+   * @param difficulty   number of monsters in each chunk.
+   * @param seed         seed the world is derived from.
+   * @param rand         {@link RandomInteger} for the coin flips of the game, can be null, in
+   *                     which case a generator seeded from the seed will be used.
+   * @param generator    {@link MazeGenerator} to generate the chunks with, can be null, in which
+   *                     case {@link KruskalGenerator} will be used.
+   * @param maxResident  number of chunks kept in memory at most.
+   * @param spillDir     directory to keep the state of the dropped chunks in, can be null, in
+   *                     which case it is kept in memory.
+   * @param mode         {@link ContentMode} of the treasure, arrows and monsters.
+   * @throws IllegalArgumentException when mode is null; see the other constructors.
+   * @throws IllegalStateException    when the start and the end cannot be selected; when the
+   *                                  spill directory cannot be created.
+   */
+  public ChunkedDungeon(String pName, int chunkSize, int chunksDown, int chunksAcross,
+                        int interConn, int treasureP, int difficulty, long seed,
+                        RandomInteger rand, MazeGenerator generator, int maxResident,
+                        Path spillDir, ContentMode mode)
+          throws IllegalArgumentException, IllegalStateException {
+    if ((pName == null) || (pName.length() == 0)) {
+      throw new IllegalArgumentException("player name cannot be null or empty.");
+    }
+    if (chunkSize < MIN_CHUNK_SIZE) {
+      throw new IllegalArgumentException("chunk size cannot be less than " + MIN_CHUNK_SIZE
+              + ".");
+    }
+    if ((chunksDown <= 0) || (chunksAcross <= 0) || ((long) chunksDown * chunksAcross < 2)) {
+      throw new IllegalArgumentException("dungeon should have at least 2 chunks.");
+    }
+    if ((long) chunksDown * chunkSize * chunksAcross * chunkSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("dungeon cannot have more than "
+              + Integer.MAX_VALUE + " locations.");
+    }
+    if (treasureP <= 0) {
+      throw new IllegalArgumentException(
+              "percentage of caves to place treasure in, cannot be negative or 0.");
+    }
+    if (treasureP > 100) {
+      throw new IllegalArgumentException(
+              "percentage of caves to place treasure in, cannot be > 100.");
+    }
+    if (difficulty < 0) {
+      throw new IllegalArgumentException("difficulty cannot be less than 0");
+    }
+    if (interConn < 0) {
+      throw new IllegalArgumentException("interconnectivity cannot be less than 0");
+    }
+    if (maxResident < MIN_RESIDENT_CHUNKS) {
+      throw new IllegalArgumentException("resident chunks cannot be less than "
+              + MIN_RESIDENT_CHUNKS + ".");
+    }
+    if (mode == null) {
+      throw new IllegalArgumentException("content mode cannot be null.");
+    }
+    this.player = new PlayerImpl(pName);
+    this.seed = seed;
+    this.size = chunkSize;
+    this.chunksDown = chunksDown;
+    this.chunksAcross = chunksAcross;
+    this.rows = chunksDown * chunkSize;
+    this.cols = chunksAcross * chunkSize;
+    this.interConn = interConn;
+    this.treasureP = treasureP;
+    this.difficulty = difficulty;
+    this.generator = (generator == null) ? new KruskalGenerator() : generator;
+    this.rand = (rand == null) ? new CustomRandomInteger(mix(seed, FLIPS, 0, 0)) : rand;
+    this.maxResident = maxResident;
+    this.localEdges = localEdges(chunkSize);
+    this.resident = residentChunks();
+    this.store = new ChunkStore(spillDir);
+    this.playerCell = -1;
+    this.log = new ActionLog();
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.hop = new int[2];
+
+    // the start and the end are selected on the layouts, before the content is placed.
+    RandomInteger first = chunkRandom(0, 0);
+    RandomInteger last = chunkRandom(chunksDown - 1, chunksAcross - 1);
+    Chunk firstChunk = layout(0, 0, first);
+    Chunk lastChunk = layout(chunksDown - 1, chunksAcross - 1, last);
+    RandomInteger select = new CustomRandomInteger(mix(seed, START_END, 0, 0));
+    List<Integer> starts = caves(firstChunk);
+    if (starts.isEmpty()) {
+      throw new IllegalStateException("could not select the start and the end of the dungeon.");
+    }
+    this.start = starts.get(select.nextInt(0, starts.size()));
+    this.end = selectEnd(caves(lastChunk), select);
+    this.hashed = (mode == ContentMode.HASHED)
+            ? new HashedContent(seed, treasureP, start, end) : null;
+    fillContent(firstChunk, first);
+    fillContent(lastChunk, last);
+    resident.put(key(0, 0), firstChunk);
+    resident.put(key(chunksDown - 1, chunksAcross - 1), lastChunk);
+    generated = 2;
+  }
+
+  /*
+  initializes the dungeon as a fork of the given dungeon: the fork gets a copy of its store, which
+  reads the spill files of the dungeon until it saves the chunks itself, the states of the changed
+  resident chunks are kept by the copy without writing them until the fork drops those chunks, and
+  the chunks are generated again when needed.
+   */
+  private ChunkedDungeon(ChunkedDungeon other) {
+    this.player = other.player.copy();
+    this.seed = other.seed;
+    this.size = other.size;
+    this.chunksDown = other.chunksDown;
+    this.chunksAcross = other.chunksAcross;
+    this.rows = other.rows;
+    this.cols = other.cols;
+    this.interConn = other.interConn;
+    this.treasureP = other.treasureP;
+    this.difficulty = other.difficulty;
+    this.generator = other.generator;
+    this.hashed = other.hashed;
+    this.rand = (other.rand instanceof CustomRandomInteger)
+            ? ((CustomRandomInteger) other.rand).fork() : other.rand;
+    this.maxResident = other.maxResident;
+    this.localEdges = other.localEdges;
+    this.resident = residentChunks();
+    this.store = other.store.copy();
+    for (Map.Entry<Long, Chunk> entry : other.resident.entrySet()) {
+      if (entry.getValue().isChanged()) {
+        store.keep(entry.getKey(), entry.getValue().states());
+      }
+    }
+    this.start = other.start;
+    this.end = other.end;
+    this.playerCell = other.playerCell;
+    this.visitedCount = other.visitedCount;
+    this.started = other.started;
+    this.ended = other.ended;
+    this.log = other.log.copy();
+    this.listeners = new CopyOnWriteArrayList<>();
+    this.hop = new int[2];
+  }
+
+  // edges between the locations of a chunk, to the east and to the south of each location.
+  private static int[] localEdges(int size) {
+    int[] edges = new int[4 * size * (size - 1)];
+    int next = 0;
+    for (int i = 0; i < size * size; i++) {
+      if (i % size < size - 1) {
+        edges[next++] = i;
+        edges[next++] = i + 1;
+      }
+      if (i / size < size - 1) {
+        edges[next++] = i;
+        edges[next++] = i + size;
+      }
+    }
+    return edges;
+  }
+
+  // resident chunks in access order, dropping the least recently used beyond maxResident.
+  private LinkedHashMap<Long, Chunk> residentChunks() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+        if (size() <= maxResident) {
+          return false;
+        }
+        if (eldest.getValue().isChanged()) {
+          store.save(eldest.getKey(), eldest.getValue().states());
+        } else {
+          store.flush(eldest.getKey());
+        }
+        evicted++;
+        return true;
+      }
+    };
+  }
+
+  /*
+  mixes the seed with the kind of value and the chunk coordinates, with the finalizer of
+  splitmix64 after each of them, so that nearby chunks get unrelated values.
+   */
+  static long mix(long seed, int kind, int chunkRow, int chunkCol) {
+    long z = seed;
+    z = finish(z + kind * 0x9E3779B97F4A7C15L);
+    z = finish(z + chunkRow * 0x9E3779B97F4A7C15L);
+    return finish(z + chunkCol * 0x9E3779B97F4A7C15L);
+  }
+
+  private static long finish(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static long key(int chunkRow, int chunkCol) {
+    return ((long) chunkRow << 32) | (chunkCol & 0xffffffffL);
+  }
+
+  private RandomInteger chunkRandom(int chunkRow, int chunkCol) {
+    return new CustomRandomInteger(mix(seed, CHUNK, chunkRow, chunkCol));
+  }
+
+  /*
+  whether the passage across the north border of the chunk is part of the spanning tree of the
+  chunks: the first row of chunks is joined from the west, the first column from the north and
+  the other chunks from one of the two, derived from the seed.
+   */
+  private boolean treeNorth(int chunkRow, int chunkCol) {
+    if (chunkRow == 0) {
+      return false;
+    }
+    return (chunkCol == 0) || ((mix(seed, TREE, chunkRow, chunkCol) & 1) == 0);
+  }
+
+  // position of the passage across the north border of the chunk, -1 when there is none.
+  private int northCrossing(int chunkRow, int chunkCol) {
+    if ((chunkRow <= 0) || (chunkRow >= chunksDown)) {
+      return -1;
+    }
+    if (!treeNorth(chunkRow, chunkCol) && (interConn == 0)) {
+      return -1;
+    }
+    return (int) Math.floorMod(mix(seed, NORTH_BORDER, chunkRow, chunkCol), (long) size);
+  }
+
+  // position of the passage across the west border of the chunk, -1 when there is none.
+  private int westCrossing(int chunkRow, int chunkCol) {
+    if ((chunkCol <= 0) || (chunkCol >= chunksAcross)) {
+      return -1;
+    }
+    boolean tree = (chunkRow == 0) || !treeNorth(chunkRow, chunkCol);
+    if (!tree && (interConn == 0)) {
+      return -1;
+    }
+    return (int) Math.floorMod(mix(seed, WEST_BORDER, chunkRow, chunkCol), (long) size);
+  }
+
+  // generates the layout of a chunk, the east and south borders are the ones of the neighbours.
+  private Chunk layout(int chunkRow, int chunkCol, RandomInteger chunkRand) {
+    int[] crossings = new int[DIRS];
+    crossings[Direction.NORTH.ordinal()] = northCrossing(chunkRow, chunkCol);
+    crossings[Direction.WEST.ordinal()] = westCrossing(chunkRow, chunkCol);
+    crossings[Direction.EAST.ordinal()] = westCrossing(chunkRow, chunkCol + 1);
+    crossings[Direction.SOUTH.ordinal()] = northCrossing(chunkRow + 1, chunkCol);
+    return new Chunk(chunkRow, chunkCol, size, cols, localEdges, generator, chunkRand, interConn,
+            crossings);
+  }
+
+  // places or derives the content of a chunk, once its layout is generated with the generator.
+  private void fillContent(Chunk chunk, RandomInteger chunkRand) {
+    if (hashed != null) {
+      chunk.deriveContent(hashed, difficulty);
+    } else {
+      chunk.placeContent(chunkRand, treasureP, difficulty, start, end);
+    }
+  }
+
+  private List<Integer> caves(Chunk chunk) {
+    List<Integer> caves = new ArrayList<>();
+    for (int i = 0; i < chunk.locations(); i++) {
+      if (chunk.isCave(chunk.cell(i))) {
+        caves.add(chunk.cell(i));
+      }
+    }
+    return caves;
+  }
+
+  /*
+  selects the end among the caves of the last chunk at least MIN_START_END_DIST rows and
+  columns away from the start, or the farthest of them when none is that far.
+   */
+  private int selectEnd(List<Integer> caves, RandomInteger select) throws IllegalStateException {
+    List<Integer> far = new ArrayList<>();
+    int farthest = -1;
+    int farthestDist = -1;
+    for (int cave : caves) {
+      int dist = Math.abs(cave / cols - start / cols) + Math.abs(cave % cols - start % cols);
+      if (dist >= MIN_START_END_DIST) {
+        far.add(cave);
+      }
+      if (dist > farthestDist) {
+        farthest = cave;
+        farthestDist = dist;
+      }
+    }
+    if (!far.isEmpty()) {
+      return far.get(select.nextInt(0, far.size()));
+    }
+    if (farthest < 0) {
+      throw new IllegalStateException("could not select the start and the end of the dungeon.");
+    }
+    return farthest;
+  }
+
+  /*
+  fetches the chunk of the cell, generating it, with its saved state, when it is not resident.
+  a chunk fetched may be dropped by fetching other chunks, so changes to a chunk fetch it again.
+   */
+  private Chunk chunk(int cell) {
+    int chunkRow = cell / cols / size;
+    int chunkCol = cell % cols / size;
+    long key = key(chunkRow, chunkCol);
+    Chunk chunk = resident.get(key);
+    if (chunk != null) {
+      return chunk;
+    }
+    RandomInteger chunkRand = chunkRandom(chunkRow, chunkCol);
+    chunk = layout(chunkRow, chunkCol, chunkRand);
+    fillContent(chunk, chunkRand);
+    chunk.restore(store.pairs(key));
+    generated++;
+    resident.put(key, chunk);
+    return chunk;
+  }
+
+  private int state(int cell) {
+    return chunk(cell).getState(cell);
+  }
+
+  private void setState(int cell, int value) {
+    chunk(cell).setState(cell, value);
+  }
+
+  // marks the cell as visited, counting it the first time.
+  private void visit(int cell) {
+    int state = state(cell);
+    if ((state & Chunk.VISITED) == 0) {
+      setState(cell, state | Chunk.VISITED);
+      visitedCount++;
+    }
+  }
+
+  private int neighbour(int cell, int dir) {
+    return chunk(cell).neighbour(cell, dir);
+  }
+
+  private boolean isCave(int cell) {
+    return chunk(cell).isCave(cell);
+  }
+
+  /*
+  follows the tunnels from the cell in the direction to the next cave, as CaveGraph does.
+  returns the cave, -1 when there is no move in the direction; hop holds the number of moves and
+  the direction of the last move.
+   */
+  private int follow(int cell, int dir) {
+    int next = neighbour(cell, dir);
+    if (next < 0) {
+      return -1;
+    }
+    int moves = 1;
+    int arrival = dir;
+    while (!isCave(next)) {
+      int back = DIRS - 1 - arrival;
+      for (int d = 0; d < DIRS; d++) {
+        if ((d != back) && (neighbour(next, d) >= 0)) {
+          arrival = d;
+          break;
+        }
+      }
+      next = neighbour(next, arrival);
+      moves++;
+    }
+    hop[0] = moves;
+    hop[1] = arrival;
+    return next;
+  }
+
+  // current health of the monster at the cell, -1 when there is no monster.
+  private int health(int cell) {
+    Chunk chunk = chunk(cell);
+    if (!chunk.hasMonster(cell)) {
+      return -1;
+    }
+    int damage = (chunk.getState(cell) & ContentOverlay.DAMAGE_BITS) >> ContentOverlay.DAMAGE_SHIFT;
+    return Math.max(0, OTYUGH_HEALTH - damage);
+  }
+
+  private boolean monsterAt(int cell) {
+    return health(cell) > 0;
+  }
+
+  /*
+  computes the smell at the cell as CaveGraph.smellAround does.
+  monster in the location itself is considered only when checkOwn is true.
+   */
+  private SmellIntensity smellAt(int cell, boolean checkOwn) {
+    if (checkOwn && monsterAt(cell)) {
+      return SmellIntensity.HIGH;
+    }
+    int monsAtNextL = 0;
+    int counted = -1;
+    for (int d = 0; d < DIRS; d++) {
+      int next = follow(cell, d);
+      if (next < 0) {
+        continue;
+      }
+      if (hop[0] == 1) {
+        if (monsterAt(next)) {
+          return SmellIntensity.HIGH;
+        }
+        // caves next to the neighbouring cave, without going back.
+        int back = DIRS - 1 - hop[1];
+        for (int e = 0; e < DIRS; e++) {
+          if (e == back) {
+            continue;
+          }
+          int nextNext = follow(next, e);
+          if ((nextNext >= 0) && (hop[0] == 1) && (nextNext != counted) && monsterAt(nextNext)) {
+            if (++monsAtNextL == 2) {
+              return SmellIntensity.HIGH;
+            }
+            counted = nextNext;
+          }
+        }
+      } else if ((hop[0] == 2) && (next != counted) && monsterAt(next)) {
+        if (++monsAtNextL == 2) {
+          return SmellIntensity.HIGH;
+        }
+        counted = next;
+      }
+    }
+    return (monsAtNextL == 1) ? SmellIntensity.LOW : null;
+  }
+
+  // describes the location as it is in this game, with its smell.
+  private Map<LocationDescription, List<String>> describe(int cell, boolean checkOwn) {
+    Chunk chunk = chunk(cell);
+    int state = chunk.getState(cell);
+    Map<LocationDescription, List<String>> result = new EnumMap<>(LocationDescription.class);
+    result.put(LocationDescription.ROW, List.of(String.valueOf(cell / cols)));
+    result.put(LocationDescription.COLUMN, List.of(String.valueOf(cell % cols)));
+    List<String> treasureVal = new ArrayList<>();
+    for (Treasure t : Treasure.values()) {
+      int quantity = ((state & ContentOverlay.TREASURE_TAKEN) != 0) ? 0 : chunk.treasure(cell, t);
+      treasureVal.add(t.name() + " " + quantity);
+    }
+    result.put(LocationDescription.TREASURE, treasureVal);
+    List<String> moves = new ArrayList<>();
+    for (int d = 0; d < DIRS; d++) {
+      int next = chunk.neighbour(cell, d);
+      moves.add((next < 0) ? "null" : Cell.ofId(next, cols).toString());
+    }
+    result.put(LocationDescription.MOVES, moves);
+    result.put(LocationDescription.TYPE, List.of(chunk.isCave(cell)
+            ? LocationType.CAVE.name() : LocationType.TUNNEL.name()));
+    int arrows = ((state & ContentOverlay.ARROWS_TAKEN) != 0) ? 0 : chunk.arrows(cell);
+    result.put(LocationDescription.WEAPON, List.of(WeaponType.CROOKEDARROW.name() + " " + arrows));
+    int health = health(cell);
+    result.put(LocationDescription.MONSTER, List.of((health < 0) ? "null"
+            : String.format("%s %d %d", MonsterType.OTYUGH.name(), OTYUGH_HEALTH, health)));
+    SmellIntensity smell = smellAt(cell, checkOwn);
+    result.put(LocationDescription.SMELL, List.of((smell == null) ? "null" : smell.name()));
+    return result;
+  }
+
+  private void checkLocation(int row, int col) throws IllegalArgumentException {
+    if ((row < 0) || (row >= rows) || (col < 0) || (col >= cols)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+  }
+
+  private void checkCell(int cell) throws IllegalArgumentException {
+    if ((cell < 0) || (cell >= rows * cols)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+  }
+
+  /*
+  helper to check game status.
+  throws exception when the states provided doesn't match.
+  isEnded can be null, in which case, checking end status is skipped.
+  */
+  private void checkGameStatus(boolean isStarted, Boolean isEnded) throws IllegalStateException {
+    if (started != isStarted) {
+      throw new IllegalStateException("player has not entered dungeon.");
+    }
+    if (isEnded != null) {
+      if (ended != isEnded) {
+        throw new IllegalStateException("player reached end, reset to play again.");
+      }
+    }
+  }
+
+  @Override
+  public String getStart() {
+    return Cell.ofId(start, cols).toString();
+  }
+
+  @Override
+  public String getEnd() {
+    return Cell.ofId(end, cols).toString();
+  }
+
+  @Override
+  public int getStartCell() {
+    return start;
+  }
+
+  @Override
+  public int getEndCell() {
+    return end;
+  }
+
+  @Override
+  public int getRow() {
+    return rows;
+  }
+
+  @Override
+  public int getCol() {
+    return cols;
+  }
+
+  @Override
+  public void enter() throws IllegalStateException {
+    try {
+      checkGameStatus(false, false);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while entering the dungeon:" + ill.getMessage());
+    }
+    playerCell = start;
+    visit(start);
+    started = true;
+    if (difficulty != 0) {
+      player.addWeapon(WeaponType.CROOKEDARROW, 3);
+    }
+    log.appendEnter();
+    notifyListeners(EnumSet.of(DungeonChange.PLAYER_LOCATION, DungeonChange.PLAYER_INVENTORY,
+            DungeonChange.GAME_STATUS));
+  }
+
+  @Override
+  public Map<PlayerDescription, List<String>> describePlayer() {
+    return player.getPlayerSign();
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeLocation() throws IllegalStateException {
+    try {
+      checkGameStatus(true, null);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while describing player location:" + ill.getMessage());
+    }
+    return describe(playerCell, true);
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeLocation(int row, int col)
+          throws IllegalArgumentException {
+    checkLocation(row, col);
+    return describe(row * cols + col, true);
+  }
+
+  @Override
+  public int getMoves(int cell) throws IllegalArgumentException {
+    checkCell(cell);
+    Chunk chunk = chunk(cell);
+    int moves = 0;
+    for (int d = 0; d < DIRS; d++) {
+      if (chunk.neighbour(cell, d) >= 0) {
+        moves |= 1 << d;
+      }
+    }
+    return moves;
+  }
+
+  @Override
+  public int getTreasureAt(int cell, Treasure treasure) throws IllegalArgumentException {
+    checkCell(cell);
+    if (treasure == null) {
+      throw new IllegalArgumentException("treasure cannot be null.");
+    }
+    Chunk chunk = chunk(cell);
+    return ((chunk.getState(cell) & ContentOverlay.TREASURE_TAKEN) != 0) ? 0
+            : chunk.treasure(cell, treasure);
+  }
+
+  @Override
+  public int getWeaponAt(int cell, WeaponType weapon) throws IllegalArgumentException {
+    checkCell(cell);
+    if (weapon == null) {
+      throw new IllegalArgumentException("weapon cannot be null.");
+    }
+    Chunk chunk = chunk(cell);
+    return ((chunk.getState(cell) & ContentOverlay.ARROWS_TAKEN) != 0) ? 0 : chunk.arrows(cell);
+  }
+
+  @Override
+  public void move(Direction dir) throws IllegalArgumentException, IllegalStateException {
+    try {
+      checkGameStatus(true, false);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while making a move:" + ill.getMessage());
+    }
+    if (dir == null) {
+      throw new IllegalArgumentException("direction to move cannot be null.");
+    }
+    int next = neighbour(playerCell, dir.ordinal());
+    if (next < 0) {
+      throw new IllegalStateException("invalid move.");
+    }
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    step(dir, next, changes);
+    notifyListeners(changes);
+  }
+
+  @Override
+  public MoveResult moveAlong(Direction[] steps)
+          throws IllegalArgumentException, IllegalStateException {
+    try {
+      checkGameStatus(true, false);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while making moves:" + ill.getMessage());
+    }
+    if (steps == null) {
+      throw new IllegalArgumentException("directions to move cannot be null.");
+    }
+    for (Direction dir : steps) {
+      if (dir == null) {
+        throw new IllegalArgumentException("direction to move cannot be null.");
+      }
+    }
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    MoveStatus status = MoveStatus.COMPLETED;
+    int taken = 0;
+    while (taken < steps.length) {
+      int next = neighbour(playerCell, steps[taken].ordinal());
+      if (next < 0) {
+        status = MoveStatus.BLOCKED;
+        break;
+      }
+      step(steps[taken], next, changes);
+      taken++;
+      if (ended) {
+        status = (player.getPlayerStatus() == PlayerStatus.DECEASED)
+                ? MoveStatus.KILLED : MoveStatus.REACHED_END;
+        break;
+      }
+    }
+    notifyListeners(changes);
+    return new MoveResult(taken, playerCell / cols, playerCell % cols, cols, status);
+  }
+
+  /*
+  moves the player to the neighbouring cell in the direction, records the move in the log and
+  adds the kinds of changes made to the given set.
+   */
+  private void step(Direction dir, int next, Set<DungeonChange> changes) {
+    changes.add(DungeonChange.PLAYER_LOCATION);
+    int drawn = -1;
+    playerCell = next;
+    visit(next);
+    int health = health(next);
+    if (health == OTYUGH_HEALTH) {
+      player.setPlayerStatus(PlayerStatus.DECEASED);
+      ended = true;
+    } else if (health == INJURED_OTYUGH_HEALTH) {
+      drawn = rand.nextInt(0, 2);
+      if (drawn == 0) {
+        // survives
+        ended = next == end;
+      } else {
+        player.setPlayerStatus(PlayerStatus.DECEASED);
+        ended = true;
+      }
+    } else if (next == end) {
+      collectTreasureAtPlayer(changes);
+      ended = true;
+    }
+    if (player.getPlayerStatus() == PlayerStatus.DECEASED) {
+      changes.add(DungeonChange.PLAYER_STATUS);
+    }
+    if (ended) {
+      changes.add(DungeonChange.GAME_STATUS);
+    }
+    log.appendMove(dir, drawn);
+  }
+
+  @Override
+  public Direction[] pathTo(int row, int col)
+          throws IllegalArgumentException, IllegalStateException {
+    checkLocation(row, col);
+    try {
+      checkGameStatus(true, null);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while finding a path:" + ill.getMessage());
+    }
+    int target = row * cols + col;
+    // breadth first search, parents hold the cell each location was reached from.
+    Map<Integer, Integer> parents = new HashMap<>();
+    ArrayDeque<Integer> queue = new ArrayDeque<>();
+    parents.put(playerCell, -1);
+    queue.add(playerCell);
+    while (!queue.isEmpty() && !parents.containsKey(target)) {
+      if (parents.size() > PATH_SEARCH_LIMIT) {
+        throw new IllegalStateException("location is too far from the player location.");
+      }
+      int cell = queue.poll();
+      for (int d = 0; d < DIRS; d++) {
+        int next = neighbour(cell, d);
+        if ((next >= 0) && !parents.containsKey(next)) {
+          parents.put(next, cell);
+          queue.add(next);
+        }
+      }
+    }
+    if (!parents.containsKey(target)) {
+      throw new IllegalStateException("location cannot be reached from the player location.");
+    }
+    List<Direction> path = new ArrayList<>();
+    for (int cell = target; cell != playerCell; cell = parents.get(cell)) {
+      int from = parents.get(cell);
+      for (int d = 0; d < DIRS; d++) {
+        if (neighbour(from, d) == cell) {
+          path.add(DIRECTIONS[d]);
+          break;
+        }
+      }
+    }
+    Collections.reverse(path);
+    return path.toArray(new Direction[0]);
+  }
+
+  @Override
+  public int travelTo(int row, int col) throws IllegalArgumentException, IllegalStateException {
+    Direction[] path = pathTo(row, col);
+    if (path.length == 0) {
+      return 0;
+    }
+    return moveAlong(path).getSteps();
+  }
+
+  @Override
+  public Map<Treasure, Integer> collectTreasure() throws IllegalStateException {
+    try {
+      checkGameStatus(true, false);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while collecting treasure:" + ill.getMessage());
+    }
+    Set<DungeonChange> changes = EnumSet.noneOf(DungeonChange.class);
+    Map<Treasure, Integer> treasureL = collectTreasureAtPlayer(changes);
+    log.appendCollectTreasure();
+    notifyListeners(changes);
+    return treasureL;
+  }
+
+  /*
+  moves the treasure at the player location to the player.
+  records the changes made in the given set instead of notifying the listeners.
+   */
+  private Map<Treasure, Integer> collectTreasureAtPlayer(Set<DungeonChange> changes) {
+    int state = state(playerCell);
+    if ((state & ContentOverlay.TREASURE_TAKEN) != 0) {
+      return null;
+    }
+    Map<Treasure, Integer> treasureL = new HashMap<>();
+    boolean collected = false;
+    for (Treasure t : Treasure.values()) {
+      int treasureQ = chunk(playerCell).treasure(playerCell, t);
+      treasureL.put(t, treasureQ);
+      if (treasureQ != 0) {
+        player.addTreasure(t, treasureQ);
+        collected = true;
+      }
+    }
+    if (collected) {
+      changes.add(DungeonChange.PLAYER_INVENTORY);
+      changes.add(DungeonChange.LOCATION_CONTENT);
+      setState(playerCell, state | ContentOverlay.TREASURE_TAKEN);
+    }
+    return treasureL;
+  }
+
+  @Override
+  public void reset() throws IllegalStateException {
+    try {
+      checkGameStatus(true, null);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("game hasn't started yet:" + ill.getMessage());
+    }
+    player = new PlayerImpl(player.getName());
+    playerCell = -1;
+    visitedCount = 0;
+    started = false;
+    ended = false;
+    store.clear();
+    // resident chunks are generated again without the state of the game.
+    resident.clear();
+    log.appendReset();
+    notifyListeners(EnumSet.allOf(DungeonChange.class));
+  }
+
+  @Override
+  public Map<WeaponType, Integer> pickWeapon() {
+    try {
+      checkGameStatus(true, false);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while collecting weapon:" + ill.getMessage());
+    }
+    int state = state(playerCell);
+    if ((state & ContentOverlay.ARROWS_TAKEN) != 0) {
+      log.appendPickWeapon();
+      return null;
+    }
+    int arrows = chunk(playerCell).arrows(playerCell);
+    Map<WeaponType, Integer> weaponAtLoc = new HashMap<>();
+    weaponAtLoc.put(WeaponType.CROOKEDARROW, arrows);
+    if (arrows != 0) {
+      player.addWeapon(WeaponType.CROOKEDARROW, arrows);
+      setState(playerCell, state | ContentOverlay.ARROWS_TAKEN);
+    }
+    log.appendPickWeapon();
+    if (arrows != 0) {
+      notifyListeners(EnumSet.of(DungeonChange.PLAYER_INVENTORY, DungeonChange.LOCATION_CONTENT));
+    }
+    return weaponAtLoc;
+  }
+
+  @Override
+  public boolean shootArrow(Direction dir, int distance)
+          throws IllegalArgumentException, IllegalStateException {
+    if (dir == null) {
+      throw new IllegalArgumentException("direction to shoot cannot be null.");
+    }
+    if (distance <= 0) {
+      throw new IllegalArgumentException("distance to shoot cannot be <= 0.");
+    }
+    if (player.getWeaponQuantity(WeaponType.CROOKEDARROW) <= 0) {
+      throw new IllegalStateException("player does not have arrows to shoot.");
+    }
+    boolean result = false;
+    int distToTravel = distance;
+    int tempCell = playerCell;
+    int tempDir = dir.ordinal();
+
+    // each hop follows the tunnels to the next cave, the arrow keeps its direction in the cave.
+    while (distToTravel != 0) {
+      int next = follow(tempCell, tempDir);
+      if (next < 0) {
+        break;
+      }
+      tempDir = hop[1];
+      tempCell = next;
+      distToTravel--;
+    }
+    if ((distToTravel == 0) && monsterAt(tempCell)) {
+      int state = state(tempCell);
+      int damage = ((state & ContentOverlay.DAMAGE_BITS) >> ContentOverlay.DAMAGE_SHIFT) + 1;
+      setState(tempCell, (state & ~ContentOverlay.DAMAGE_BITS)
+              | (damage << ContentOverlay.DAMAGE_SHIFT));
+      result = true;
+    }
+    // loose the arrow from the player.
+    player.addWeapon(WeaponType.CROOKEDARROW, -1);
+    log.appendShootArrow(dir, distance);
+    if (result) {
+      notifyListeners(EnumSet.of(DungeonChange.PLAYER_INVENTORY, DungeonChange.LOCATION_CONTENT));
+    } else {
+      notifyListeners(EnumSet.of(DungeonChange.PLAYER_INVENTORY));
+    }
+    return result;
+  }
+
+  @Override
+  public Dungeon fork() {
+    return new ChunkedDungeon(this);
+  }
+
+  /**
+   * not supported, there is never an action to undo.
+   *
+   * @throws IllegalStateException always.
+   */
+  @Override
+  public void undo() throws IllegalStateException {
+    throw new IllegalStateException("there is no action to undo.");
+  }
+
+  /**
+   * not supported, there is never an action to redo.
+   *
+   * @throws IllegalStateException always.
+   */
+  @Override
+  public void redo() throws IllegalStateException {
+    throw new IllegalStateException("there is no action to redo.");
+  }
+
+  @Override
+  public boolean canUndo() {
+    return false;
+  }
+
+  @Override
+  public boolean canRedo() {
+    return false;
+  }
+
+  /**
+   * has no effect other than validating the depth, undo is not supported.
+   *
+   * @param depth number of actions.
+   * @throws IllegalArgumentException when depth is < 0.
+   */
+  @Override
+  public void setUndoDepth(int depth) throws IllegalArgumentException {
+    if (depth < 0) {
+      throw new IllegalArgumentException("depth cannot be negative.");
+    }
+  }
+
+  /**
+   * not supported, the graph would need the whole world.
+   *
+   * @return null.
+   */
+  @Override
+  public CaveGraph getCaveGraph() {
+    return null;
+  }
+
+  @Override
+  public ActionLog getActionLog() {
+    return log.copy();
+  }
+
+  /**
+   * not supported, the chunks are generated while the game is played.
+   *
+   * @return null.
+   */
+  @Override
+  public GenerationReport getGenerationReport() {
+    return null;
+  }
+
+  @Override
+  public String getPlayerLocation() throws IllegalStateException {
+    return getPlayerPosition().toString();
+  }
+
+  @Override
+  public Cell getPlayerPosition() throws IllegalStateException {
+    return Cell.ofId(getPlayerCell(), cols);
+  }
+
+  @Override
+  public int getPlayerRow() throws IllegalStateException {
+    return getPlayerCell() / cols;
+  }
+
+  @Override
+  public int getPlayerCol() throws IllegalStateException {
+    return getPlayerCell() % cols;
+  }
+
+  @Override
+  public int getPlayerCell() throws IllegalStateException {
+    try {
+      checkGameStatus(true, null);
+    } catch (IllegalStateException ill) {
+      throw new IllegalStateException("error while getting player location:" + ill.getMessage());
+    }
+    return playerCell;
+  }
+
+  /**
+   * {@inheritDoc}
+   * The chunk of the location is not generated to answer.
+   */
+  @Override
+  public boolean isVisited(int row, int col) throws IllegalArgumentException {
+    checkLocation(row, col);
+    int cell = row * cols + col;
+    int chunkRow = row / size;
+    int chunkCol = col / size;
+    Chunk chunk = resident.get(key(chunkRow, chunkCol));
+    int state = (chunk != null) ? chunk.getState(cell)
+            : store.get(key(chunkRow, chunkCol), (row % size) * size + col % size);
+    return (state & Chunk.VISITED) != 0;
+  }
+
+  @Override
+  public BitSet getVisitedCells() {
+    BitSet visited = new BitSet();
+    for (long key : store.keys()) {
+      if (resident.containsKey(key)) {
+        continue;
+      }
+      int[] pairs = store.pairs(key);
+      int firstRow = (int) (key >> 32) * size;
+      int firstCol = (int) key * size;
+      for (int i = 0; i < pairs.length; i += 2) {
+        if ((pairs[i + 1] & Chunk.VISITED) != 0) {
+          visited.set((firstRow + pairs[i] / size) * cols + firstCol + pairs[i] % size);
+        }
+      }
+    }
+    for (Chunk chunk : resident.values()) {
+      int[] states = chunk.states();
+      if (states == null) {
+        continue;
+      }
+      for (int i = 0; i < states.length; i++) {
+        if ((states[i] & Chunk.VISITED) != 0) {
+          visited.set(chunk.cell(i));
+        }
+      }
+    }
+    return visited;
+  }
+
+  @Override
+  public int getVisitedCount() {
+    return visitedCount;
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeVisitedLocation(int row, int col)
+          throws IllegalArgumentException, IllegalStateException {
+    if (!isVisited(row, col)) {
+      throw new IllegalStateException("location has not been visited.");
+    }
+    return describe(row * cols + col, false);
+  }
+
+  @Override
+  public boolean gameStarted() {
+    return started;
+  }
+
+  @Override
+  public boolean gameEnded() {
+    return ended;
+  }
+
+  @Override
+  public PlayerStatus getPlayerStatus() {
+    return player.getPlayerStatus();
+  }
+
+  @Override
+  public SmellIntensity getLocationSmell() {
+    if (playerCell < 0) {
+      return null;
+    }
+    return smellAt(playerCell, true);
+  }
+
+  @Override
+  public int getPlayerTreasure(Treasure treasure) throws IllegalArgumentException {
+    return player.getTreasureQuantity(treasure);
+  }
+
+  @Override
+  public int getPlayerWeapon(WeaponType weapon) throws IllegalArgumentException {
+    return player.getWeaponQuantity(weapon);
+  }
+
+  @Override
+  public void addListener(DungeonListener listener) throws IllegalArgumentException {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener cannot be null.");
+    }
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+
+  @Override
+  public void removeListener(DungeonListener listener) {
+    listeners.remove(listener);
+  }
+
+  // notifies the listeners with the given changes, skips the notification when nothing changed.
+  private void notifyListeners(Set<DungeonChange> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    Set<DungeonChange> unmodifiable = Collections.unmodifiableSet(changes);
+    for (DungeonListener listener : listeners) {
+      listener.dungeonChanged(unmodifiable);
+    }
+  }
+
+  /**
+   * fetches the number of chunks in memory.
+   *
+   * @return resident chunks.
+   */
+  public int getResidentChunks() {
+    return resident.size();
+  }
+
+  /**
+   * fetches the number of times a chunk was generated, including generating it again after it
+   * was dropped.
+   *
+   * @return chunks generated.
+   */
+  public long getGeneratedChunks() {
+    return generated;
+  }
+
+  /**
+   * deletes the spill files of the dungeon that no fork still reads, along with the state kept in
+   * memory. The dungeon should not be played after it is closed: dropping a changed chunk then
+   * throws IllegalStateException. Closing a closed dungeon does nothing.
+   *
+   * @throws IllegalStateException when a spill file cannot be deleted.
+   */
+  @Override
+  public void close() throws IllegalStateException {
+    store.close();
+  }
+
+  /**
+   * fetches the number of times a chunk was dropped to keep the resident chunks in bounds.
+   *
+   * @return chunks dropped.
+   */
+  public long getEvictedChunks() {
+    return evicted;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d x %d chunked dungeon of %d x %d chunks", rows, cols, chunksDown,
+            chunksAcross);
+  }
+}
@@ -0,0 +1,19 @@
+package maze;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of the treasure collected by the player, the outcome is COLLECTED or EMPTY.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("maze.CollectTreasure")
+@Label("Collect Treasure")
+@Description("treasure collected by the player")
+final class CollectTreasureEvent extends DungeonActionEvent {
+  @Label("Quantity")
+  @Description("pieces of treasure collected")
+  int quantity;
+}
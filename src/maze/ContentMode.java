@@ -0,0 +1,13 @@
+package maze;
+
+/**
+ * Represents how a {@link ChunkedDungeon} decides the treasure, arrows and monsters of its
+ * locations.
+ * PLACED draws them when a chunk is generated, as many as the configuration asks for, and keeps
+ * them with the chunk. HASHED derives them from a hash of the seed and the cell id whenever they
+ * are looked up, each location getting them with the configured odds, so the chunks keep nothing
+ * but the locations the game changed.
+ */
+public enum ContentMode {
+  PLACED, HASHED
+}
@@ -0,0 +1,149 @@
+package maze;
+
+import java.util.Arrays;
+
+/**
+ * Records the changes a game made to the content of the locations in a dungeon, on top of the
+ * content placed while constructing the dungeon.
+ * The state of a location is a small int of flags (see the constants), keyed by the location's
+ * cell id (row * columns + column); locations that were never changed have state 0 and take no
+ * space. Entries are kept in an open addressing table of primitive arrays.
+ * Forking an overlay is copy on write: the fork shares the arrays with the original and whichever
+ * of them changes first copies them, so forking costs O(1) and the copy O(changed locations).
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class ContentOverlay {
+  static final int TREASURE_TAKEN = 1;
+  static final int ARROWS_TAKEN = 1 << 1;
+  static final int DAMAGE_SHIFT = 2;
+  static final int DAMAGE_BITS = 3 << DAMAGE_SHIFT;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  // keys hold cell id + 1 so that 0 marks an empty slot.
+  private int[] keys;
+  private int[] values;
+  private int size;
+  private boolean shared;
+
+  /**
+   * Initializes an empty overlay.
+   */
+  public ContentOverlay() {
+    keys = new int[INITIAL_CAPACITY];
+    values = new int[INITIAL_CAPACITY];
+  }
+
+  private ContentOverlay(ContentOverlay other) {
+    keys = other.keys;
+    values = other.values;
+    size = other.size;
+    shared = true;
+    other.shared = true;
+  }
+
+  /**
+   * creates an overlay with the same changes that shares the storage until either is changed.
+   *
+   * @return fork of the overlay.
+   */
+  public ContentOverlay fork() {
+    return new ContentOverlay(this);
+  }
+
+  /**
+   * fetches the state of the location.
+   *
+   * @param cell cell id of the location.
+   * @return state flags, 0 when the location was not changed.
+   */
+  public int get(int cell) {
+    int mask = keys.length - 1;
+    int slot = mix(cell) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == cell + 1) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return 0;
+  }
+
+  /**
+   * sets the state of the location.
+   *
+   * @param cell  cell id of the location.
+   * @param state state flags.
+   */
+  public void put(int cell, int state) {
+    if (shared) {
+      keys = keys.clone();
+      values = values.clone();
+      shared = false;
+    }
+    if (2 * (size + 1) > keys.length) {
+      grow();
+    }
+    int mask = keys.length - 1;
+    int slot = mix(cell) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == cell + 1) {
+        values[slot] = state;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = cell + 1;
+    values[slot] = state;
+    size++;
+  }
+
+  /**
+   * forgets all the changes, restoring every location to the content placed while constructing
+   * the dungeon. Takes time proportional to the number of changed locations, the table never
+   * grows beyond a small multiple of it.
+   */
+  public void clear() {
+    if (shared) {
+      keys = new int[INITIAL_CAPACITY];
+      values = new int[INITIAL_CAPACITY];
+      shared = false;
+    } else if (size > 0) {
+      Arrays.fill(keys, 0);
+    }
+    size = 0;
+  }
+
+  /**
+   * fetches the number of locations that were changed.
+   *
+   * @return changed locations.
+   */
+  public int size() {
+    return size;
+  }
+
+  private void grow() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        int slot = mix(oldKeys[i] - 1) & mask;
+        while (keys[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private static int mix(int cell) {
+    int h = cell * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
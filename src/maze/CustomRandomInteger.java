@@ -7,10 +7,22 @@ import java.util.Random;
  * Can be used as a predictable generator by providing predictable value as {@link Boolean}.True
  * In predictable mode, for successive calls to nextInt(),
  * will always select the lower bound.
+ * Can be used as a seeded generator by providing a seed, a seeded generator produces the same
+ * sequence of values for the same seed.
  * If not used as a predictable generator, {@link Random}.nextInt() is used to generate the values.
+ * A seeded generator produces the same values as a {@link Random} with the same seed; its state
+ * can be read and restored, so that the layout cache can resume a generator where the generation
+ * of a cached layout left it.
+ * A seeded generator is not safe to share across threads: its state is updated with a plain field
+ * write rather than the atomic update of {@link Random}, so concurrent draws can repeat values.
  */
 public final class CustomRandomInteger implements RandomInteger {
   private Random rand;
+  private boolean seeded;
+  private long seed;
+  private boolean fresh;
+  // number of forks created, so that successive forks of the same state differ.
+  private long forks;
 
   /**
    * Used when the generation should be based on {@link Random}.
@@ -30,8 +42,50 @@ public final class CustomRandomInteger implements RandomInteger {
     }
   }
 
+  /**
+   * Used when the generation should be reproducible from the given seed.
+   *
+   * @param seed seed for the generator.
+   */
+  public CustomRandomInteger(long seed) {
+    rand = new SeededRandom(seed);
+    seeded = true;
+    this.seed = seed;
+    this.fresh = true;
+  }
+
+  /*
+  java.util.Random with the same sequence, whose state can be read and set.
+  every method of Random draws through next, so overriding it is enough.
+   */
+  private static final class SeededRandom extends Random {
+    private static final long serialVersionUID = 1L;
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // not initialized in its declaration, Random's constructor sets it through setSeed.
+    private long state;
+
+    private SeededRandom(long seed) {
+      super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+      state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+      state = (state * MULTIPLIER + ADDEND) & MASK;
+      return (int) (state >>> (48 - bits));
+    }
+  }
+
   @Override
   public int nextInt(int lowerBound, int upperBound) {
+    fresh = false;
     if (rand == null) {
       return lowerBound;
     } else {
@@ -40,4 +94,79 @@ public final class CustomRandomInteger implements RandomInteger {
       return lowerBound + random;
     }
   }
+
+  /*
+  creates a generator that is independent of this one.
+  seeded generators create a generator seeded from this generator's sequence,
+  predictable and true random generators create a true random generator.
+   */
+  RandomInteger split() {
+    fresh = false;
+    if (seeded) {
+      return new CustomRandomInteger(rand.nextLong());
+    }
+    return new CustomRandomInteger();
+  }
+
+  /*
+  creates a generator for a fork of the game using this generator, without drawing from it, so
+  forking never changes the values this generator yields.
+  predictable generators stay predictable, seeded generators create a generator seeded from their
+  state mixed with the number of forks made so far, true random generators create a true random
+  generator.
+   */
+  RandomInteger fork() {
+    if (rand == null) {
+      return this;
+    }
+    if (!seeded) {
+      return new CustomRandomInteger();
+    }
+    // finalizer of splitmix64, so that nearby states and counts give unrelated seeds.
+    long z = getState() + (++forks) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return new CustomRandomInteger(z ^ (z >>> 31));
+  }
+
+  /*
+  whether the generator is seeded and has not generated any value yet, i.e., whether its values
+  are decided by the seed alone.
+   */
+  boolean isFresh() {
+    return fresh;
+  }
+
+  // seed of a seeded generator.
+  long getSeed() {
+    return seed;
+  }
+
+  /**
+   * fetches the state of a seeded generator, from which {@link #setState(long)} resumes it.
+   *
+   * @return state of the generator.
+   * @throws IllegalStateException when the generator is not seeded.
+   */
+  public long getState() throws IllegalStateException {
+    if (!seeded) {
+      throw new IllegalStateException("generator is not seeded.");
+    }
+    return ((SeededRandom) rand).state;
+  }
+
+  /**
+   * resumes a seeded generator from a state returned by {@link #getState()}, so that it
+   * generates the values it generated after that state.
+   *
+   * @param state state of the generator.
+   * @throws IllegalStateException when the generator is not seeded.
+   */
+  public void setState(long state) throws IllegalStateException {
+    if (!seeded) {
+      throw new IllegalStateException("generator is not seeded.");
+    }
+    fresh = false;
+    ((SeededRandom) rand).state = state;
+  }
 }
@@ -0,0 +1,19 @@
+package maze;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a location described, the outcome is the type of the location.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("maze.DescribeLocation")
+@Label("Describe Location")
+@Description("location described")
+final class DescribeLocationEvent extends DungeonActionEvent {
+  @Label("Location")
+  @Description("cell id of the location described")
+  int location;
+}
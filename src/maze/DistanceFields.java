@@ -0,0 +1,197 @@
+package maze;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of breadth first search distance fields over the locations of a dungeon.
+ * A distance field holds, for every location, the number of moves needed to reach one target
+ * location; a shortest path from any location is then found by repeatedly stepping to the
+ * neighbour closer to the target, without searching again.
+ * The neighbours are read from the locations, so the wrapping edges of a wrapping dungeon are
+ * part of the fields. The dungeon is expected not to change its layout once constructed, which
+ * lets the forks of a dungeon share the cache.
+ * Only the fields of the most recently used targets are kept, others are recomputed on demand.
+ * The cache is thread safe.
+ * Intentionally making the class package private since it should not be available
+ * outside the package.
+ */
+final class DistanceFields {
+  static final int DEFAULT_CAPACITY = 16;
+  static final int UNREACHABLE = -1;
+
+  private static final Direction[] DIRECTIONS = Direction.values();
+
+  private final Location[][] locations;
+  private final int cols;
+  private final Map<Integer, int[]> fields;
+  private volatile int[] neighbours;
+  private long hits;
+  private long misses;
+
+  /**
+   * Initializes the cache for the given locations, the neighbours are read on first use.
+   *
+   * @param locations locations of the dungeon.
+   * @param capacity  number of distance fields to keep.
+   * @throws IllegalArgumentException when capacity is < 1.
+   */
+  DistanceFields(Location[][] locations, int capacity) throws IllegalArgumentException {
+    this(locations, null, capacity);
+  }
+
+  /**
+   * Initializes the cache for a layout given by its neighbours only, e.g., one kept by the
+   * {@link LayoutCache}, so that the cache does not hold on to any locations.
+   *
+   * @param neighbours neighbour cell id of every location in every direction, indexed by
+   *                   cell * 4 + direction, -1 when there is no move.
+   * @param capacity   number of distance fields to keep.
+   * @throws IllegalArgumentException when capacity is < 1.
+   */
+  DistanceFields(int[] neighbours, int capacity) throws IllegalArgumentException {
+    this(null, neighbours, capacity);
+  }
+
+  private DistanceFields(Location[][] locations, int[] neighbours, int capacity)
+          throws IllegalArgumentException {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity should be at least 1.");
+    }
+    this.locations = locations;
+    this.cols = ((locations == null) || (locations.length == 0)) ? 0 : locations[0].length;
+    this.neighbours = neighbours;
+    this.fields = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * fetches the number of moves from every location to the target.
+   * The returned array is shared and should not be modified.
+   *
+   * @param target cell id of the target, row * columns + column.
+   * @return distance indexed by cell id, UNREACHABLE for locations without a path.
+   */
+  synchronized int[] field(int target) {
+    int[] field = fields.get(target);
+    if (field != null) {
+      hits++;
+      return field;
+    }
+    misses++;
+    field = search(target);
+    fields.put(target, field);
+    return field;
+  }
+
+  /**
+   * finds a shortest path between two locations, preferring the directions in the order of
+   * {@link Direction} when several neighbours are equally close.
+   *
+   * @param from   cell id to start from.
+   * @param target cell id to reach.
+   * @return directions to move in; empty when from is the target; null when there is no path.
+   */
+  Direction[] path(int from, int target) {
+    int[] field = field(target);
+    int[] neighbours = neighbours();
+    int distance = field[from];
+    if (distance == UNREACHABLE) {
+      return null;
+    }
+    Direction[] path = new Direction[distance];
+    int cell = from;
+    for (int step = 0; step < distance; step++) {
+      for (int d = 0; d < DIRECTIONS.length; d++) {
+        int next = neighbours[cell * DIRECTIONS.length + d];
+        if ((next >= 0) && (field[next] == field[cell] - 1)) {
+          path[step] = DIRECTIONS[d];
+          cell = next;
+          break;
+        }
+      }
+    }
+    return path;
+  }
+
+  /**
+   * fetches the neighbour of a location, without allocating.
+   *
+   * @param cell cell id of the location.
+   * @param dir  direction of the neighbour.
+   * @return cell id of the neighbour, -1 when there is no move in the direction.
+   */
+  int neighbour(int cell, Direction dir) {
+    return neighbours()[cell * DIRECTIONS.length + dir.ordinal()];
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  // breadth first search from the target, the moves between locations go both ways.
+  private int[] search(int target) {
+    int[] neighbours = neighbours();
+    int cells = neighbours.length / DIRECTIONS.length;
+    int[] field = new int[cells];
+    Arrays.fill(field, UNREACHABLE);
+    int[] queue = new int[cells];
+    int head = 0;
+    int tail = 0;
+    field[target] = 0;
+    queue[tail++] = target;
+    while (head < tail) {
+      int cell = queue[head++];
+      for (int d = 0; d < DIRECTIONS.length; d++) {
+        int next = neighbours[cell * DIRECTIONS.length + d];
+        if ((next >= 0) && (field[next] == UNREACHABLE)) {
+          field[next] = field[cell] + 1;
+          queue[tail++] = next;
+        }
+      }
+    }
+    return field;
+  }
+
+  /**
+   * fetches the neighbour cell id of every location in every direction, indexed by
+   * cell * 4 + direction, -1 when there is no move. The neighbours are read on first use; threads
+   * racing to read them compute the same array, so the race is harmless.
+   * The returned array is shared and should not be modified.
+   *
+   * @return neighbours.
+   */
+  int[] neighbours() {
+    int[] result = neighbours;
+    if (result == null) {
+      result = readNeighbours();
+      neighbours = result;
+    }
+    return result;
+  }
+
+  // neighbour cell id of every location in every direction, -1 when there is no move.
+  private int[] readNeighbours() {
+    int[] result = new int[locations.length * cols * DIRECTIONS.length];
+    for (int i = 0; i < locations.length; i++) {
+      for (int j = 0; j < cols; j++) {
+        Map<Direction, Location> moves = locations[i][j].getPossibleMoves();
+        for (Direction dir : DIRECTIONS) {
+          Location next = moves.get(dir);
+          result[(i * cols + j) * DIRECTIONS.length + dir.ordinal()] =
+                  (next == null) ? -1 : next.getRow() * cols + next.getColumn();
+        }
+      }
+    }
+    return result;
+  }
+}
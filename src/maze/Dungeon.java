@@ -1,5 +1,6 @@
 package maze;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -35,6 +36,18 @@ public interface Dungeon extends ReadOnlyDungeon {
    */
   String getEnd();
 
+  /**
+   * returns the start location of the dungeon as a cell id.
+   * @return row * number of columns + column.
+   */
+  int getStartCell();
+
+  /**
+   * returns the end location of the dungeon as a cell id.
+   * @return row * number of columns + column.
+   */
+  int getEndCell();
+
   /**
    * places the player in dungeon at the start location and starts the game.
    *
@@ -43,7 +56,53 @@ public interface Dungeon extends ReadOnlyDungeon {
    */
   void enter() throws IllegalStateException;
 
+  /**
+   * generates the description of any location in the dungeon, regardless of where the player is.
+   * Intended for tools that need to reveal the whole dungeon, like exporting it as an image.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return {@link Map} in the same format as {@link ReadOnlyDungeon}.describeLocation().
+   *     SMELL considers the monster in the location itself as well.
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   */
+  Map<LocationDescription, List<String>> describeLocation(int row, int col)
+          throws IllegalArgumentException;
+
+  /**
+   * fetches the moves possible from any location in the dungeon, like MOVES of
+   * describeLocation(row, col) without building the description.
+   *
+   * @param cell cell id of the location (row * number of columns + column).
+   * @return mask with bit {@link Direction}.ordinal() set for each direction that has a
+   *     neighbouring location.
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   */
+  int getMoves(int cell) throws IllegalArgumentException;
 
+  /**
+   * fetches the quantity of a treasure at any location in the dungeon in this game, like
+   * TREASURE of describeLocation(row, col) without building the description.
+   *
+   * @param cell     cell id of the location (row * number of columns + column).
+   * @param treasure {@link Treasure} to look up.
+   * @return quantity, 0 when the location has none or it was collected.
+   * @throws IllegalArgumentException when the location is outside the dungeon; when treasure
+   *                                  is null.
+   */
+  int getTreasureAt(int cell, Treasure treasure) throws IllegalArgumentException;
+
+  /**
+   * fetches the quantity of a weapon at any location in the dungeon in this game, like WEAPON of
+   * describeLocation(row, col) without building the description.
+   *
+   * @param cell   cell id of the location (row * number of columns + column).
+   * @param weapon {@link WeaponType} to look up.
+   * @return quantity, 0 when the location has none or it was picked.
+   * @throws IllegalArgumentException when the location is outside the dungeon; when weapon is
+   *                                  null.
+   */
+  int getWeaponAt(int cell, WeaponType weapon) throws IllegalArgumentException;
 
   /**
    * moves the player in the specified direction.
@@ -54,6 +113,49 @@ public interface Dungeon extends ReadOnlyDungeon {
    */
   void move(Direction dir) throws IllegalArgumentException, IllegalStateException;
 
+  /**
+   * moves the player in each of the specified directions in order, as if move was called for each
+   * of them, but checks the state of the game once and notifies the listeners once.
+   * Stops at the first direction with no neighbouring tunnel or cave, or when a move ends the game.
+   * Each move is recorded in the action log and can be undone on its own.
+   *
+   * @param steps directions to move the player {@link Direction}.
+   * @return {@link MoveResult} with the number of moves made, the location of the player
+   *     and why the moves stopped.
+   * @throws IllegalArgumentException when steps is null; when steps contains null.
+   * @throws IllegalStateException when the player has not entered the dungeon;
+   *     when the game has ended.
+   */
+  MoveResult moveAlong(Direction[] steps) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * finds a shortest path from the player location to the given location, following the
+   * wrapping edges as well in a wrapping dungeon.
+   * Distances to a location are cached, so finding paths to the same locations again, like the end
+   * or the caves with treasure, does not search the dungeon again.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return directions to move in, in order; empty when the player is at the location.
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   * @throws IllegalStateException    when the player has not entered the dungeon.
+   */
+  Direction[] pathTo(int row, int col) throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * moves the player along the path returned by pathTo with moveAlong.
+   * Stops early when a move ends the game, for example when the player is killed by a monster
+   * or reaches the end.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return number of moves made.
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   * @throws IllegalStateException    when the player has not entered the dungeon;
+   *     when the game has ended and the player is not at the location.
+   */
+  int travelTo(int row, int col) throws IllegalArgumentException, IllegalStateException;
+
   /**
    * collects the treasure from the player location.
    *
@@ -70,6 +172,8 @@ public interface Dungeon extends ReadOnlyDungeon {
 
   /**
    * resets the game, the dungeon constructed will remain the same.
+   * The treasure and arrows collected are placed back and the monsters slain are brought back,
+   * so the next game starts with the dungeon as it was constructed.
    * After reset, player's chest will be cleared of all the treasure.
    * player will be placed outside the dungeon.
    * user should enter the dungeon to play again.
@@ -109,4 +213,83 @@ public interface Dungeon extends ReadOnlyDungeon {
    */
   boolean shootArrow(Direction dir, int distance)
           throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * creates an independent copy of the game in its current state, for example to try out
+   * moves without changing this game.
+   * The layout of the dungeon is shared, so forking is cheap and does not depend on the size of
+   * the dungeon. Operations on the fork do not affect this dungeon and vice versa.
+   * The fork makes its random choices with its own generator, a fork of a dungeon constructed
+   * with a seeded {@link CustomRandomInteger} is seeded as well. Forking does not draw from the
+   * generator of this dungeon, so it does not change the random choices of this game.
+   * Listeners are not copied to the fork.
+   *
+   * @return fork of the dungeon.
+   */
+  Dungeon fork();
+
+  /**
+   * undoes the latest action that changed the game and has not been undone: the player's
+   * location, status, treasure and arrows, and the content of the location it changed are
+   * restored. An action that ended the game, including the player being killed, can be undone.
+   * reset cannot be undone, it forgets all the actions.
+   *
+   * @throws IllegalStateException when there is no action to undo.
+   */
+  void undo() throws IllegalStateException;
+
+  /**
+   * redoes the latest undone action, with the same outcome it had before.
+   * Any other action that changes the game forgets the undone actions.
+   *
+   * @throws IllegalStateException when there is no action to redo.
+   */
+  void redo() throws IllegalStateException;
+
+  /**
+   * checks whether there is an action to undo.
+   *
+   * @return true if undo would succeed.
+   */
+  boolean canUndo();
+
+  /**
+   * checks whether there is an action to redo.
+   *
+   * @return true if redo would succeed.
+   */
+  boolean canRedo();
+
+  /**
+   * sets the number of latest actions that can be undone, 256 by default, forgetting the
+   * actions recorded so far. The memory used by the history depends only on this depth.
+   *
+   * @param depth number of actions, 0 disables undo.
+   * @throws IllegalArgumentException when depth is < 0.
+   */
+  void setUndoDepth(int depth) throws IllegalArgumentException;
+
+  /**
+   * fetches the caves of the dungeon connected by the chains of tunnels between them, see
+   * {@link CaveGraph}. The graph is derived once per dungeon and shared by its forks.
+   *
+   * @return {@link CaveGraph} of the dungeon.
+   */
+  CaveGraph getCaveGraph();
+
+  /**
+   * fetches the log of the calls that changed the game so far, see {@link ActionLog}.
+   * The log returned is a copy, actions made later are not added to it.
+   *
+   * @return {@link ActionLog} of the game.
+   */
+  ActionLog getActionLog();
+
+  /**
+   * fetches the report of the construction of the dungeon, see {@link GenerationReport}.
+   * Forks share the report of the dungeon they were forked from.
+   *
+   * @return {@link GenerationReport} of the dungeon.
+   */
+  GenerationReport getGenerationReport();
 }
@@ -0,0 +1,35 @@
+package maze;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the JFR events of the actions made on a {@link Dungeon}, holding the size of the
+ * dungeon, the cell id of the player when the action was made and the outcome of the action,
+ * FAILED when the action threw an exception.
+ * The events are committed only while a recording enables them, otherwise they cost next to
+ * nothing.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Category({"Dungeon", "Model"})
+@StackTrace(false)
+abstract class DungeonActionEvent extends Event {
+  static final String FAILED = "FAILED";
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Cell")
+  @Description("cell id of the player, row * columns + column, -1 before entering the dungeon")
+  int cell;
+
+  @Label("Outcome")
+  String outcome;
+}
@@ -0,0 +1,8 @@
+package maze;
+
+/**
+ * Represents the kinds of changes in a dungeon that are reported to a {@link DungeonListener}.
+ */
+public enum DungeonChange {
+  PLAYER_LOCATION, PLAYER_INVENTORY, PLAYER_STATUS, LOCATION_CONTENT, GAME_STATUS
+}
@@ -0,0 +1,18 @@
+package maze;
+
+import java.util.Set;
+
+/**
+ * Represents a subscriber to the changes in a dungeon.
+ * Each operation that changes the dungeon notifies its listeners once, after the change is
+ * complete, with all the kinds of changes the operation made.
+ */
+public interface DungeonListener {
+
+  /**
+   * called after an operation changed the dungeon.
+   *
+   * @param changes {@link Set} of {@link DungeonChange} made by the operation, never empty.
+   */
+  void dungeonChanged(Set<DungeonChange> changes);
+}
@@ -0,0 +1,44 @@
+package maze;
+
+/**
+ * Reconstructs a game by applying its {@link ActionLog} to the dungeon it was played in.
+ * The dungeon should be constructed again with the same parameters and the same seeded
+ * {@link CustomRandomInteger}, which constructs the same dungeon; the moves into the location
+ * of an injured monster use the coin flips recorded in the log, so replaying does not depend on
+ * the generator the game used. A game that undid actions should be replayed in a dungeon with an
+ * undo depth at least as large as the one it was played with.
+ * Replaying applies the actions directly to the model, without any controller or view.
+ */
+public final class DungeonReplayer {
+
+  /**
+   * operation not permitted.
+   *
+   * @throws IllegalStateException when calling default constructor.
+   */
+  private DungeonReplayer() throws IllegalStateException {
+    throw new IllegalStateException("replayer cannot be instantiated.");
+  }
+
+  /**
+   * applies all the actions of the log to the dungeon.
+   *
+   * @param dungeon {@link Dungeon} constructed like the one the game was played in, that has
+   *                not been played.
+   * @param log     {@link ActionLog} of the game.
+   * @throws IllegalArgumentException when dungeon / log is null; when the dungeon was not
+   *                                  constructed by this package.
+   * @throws IllegalStateException    when an action of the log cannot be applied to the dungeon,
+   *                                  the dungeon keeps the actions applied until then.
+   */
+  public static void replay(Dungeon dungeon, ActionLog log)
+          throws IllegalArgumentException, IllegalStateException {
+    if ((dungeon == null) || (log == null)) {
+      throw new IllegalArgumentException("dungeon and log cannot be null.");
+    }
+    if (!(dungeon instanceof AbstractDungeon)) {
+      throw new IllegalArgumentException("dungeon cannot be replayed.");
+    }
+    ((AbstractDungeon) dungeon).replay(log.toByteArray());
+  }
+}
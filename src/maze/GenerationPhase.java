@@ -0,0 +1,11 @@
+package maze;
+
+/**
+ * Represents the phases of the construction of a dungeon, see {@link GenerationReport}.
+ * RESTORE_LAYOUT replaces the phases up to SELECT_START_END when the layout of the dungeon was
+ * found in the {@link LayoutCache}. GENERATE_MAZE runs the {@link MazeGenerator} of the dungeon.
+ */
+public enum GenerationPhase {
+  SETUP_NON_WRAPPING_EDGES, SETUP_WRAPPING_EDGES, CREATE_LOCATIONS, GENERATE_MAZE, SELECT_START_END,
+  RESTORE_LAYOUT, CONFIGURE_TREASURE, CONFIGURE_ARROWS, CONFIGURE_MONSTERS
+}
@@ -0,0 +1,33 @@
+package maze;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a phase of the construction of a dungeon, see {@link GenerationPhase}.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("maze.GenerationPhase")
+@Label("Generation Phase")
+@Description("phase of the construction of a dungeon")
+@Category({"Dungeon", "Generation"})
+@StackTrace(false)
+final class GenerationPhaseEvent extends Event {
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Retries")
+  @Description("retries of the rejection loop of the phase")
+  int retries;
+}
@@ -0,0 +1,131 @@
+package maze;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the phases of the construction of a dungeon for its {@link GenerationReport}, and as
+ * {@link GenerationPhaseEvent}s for JFR.
+ * The construction runs on one thread, so the recorder is not thread safe. Allocations are read
+ * from the thread allocation counter of the JVM when it is supported and enabled.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class GenerationRecorder {
+  private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+
+  private final int rows;
+  private final int columns;
+  private final long createdAt;
+  private final List<GenerationPhase> phases;
+  private final long[] nanos;
+  private final long[] allocated;
+  private final int[] retries;
+  private GenerationPhase current;
+  private long startNanos;
+  private long startBytes;
+  private int startRetries;
+  private GenerationPhaseEvent event;
+
+  /**
+   * Initializes the recorder, the total time of the construction is measured from here.
+   *
+   * @param rows    number of rows of the dungeon.
+   * @param columns number of columns of the dungeon.
+   */
+  GenerationRecorder(int rows, int columns) {
+    int count = GenerationPhase.values().length;
+    this.rows = rows;
+    this.columns = columns;
+    this.createdAt = System.nanoTime();
+    this.phases = new ArrayList<>(count);
+    this.nanos = new long[count];
+    this.allocated = (ALLOCATIONS == null) ? null : new long[count];
+    this.retries = new int[count];
+  }
+
+  // thread allocation counter of the JVM, null when it cannot be used.
+  private static com.sun.management.ThreadMXBean allocationCounter() {
+    try {
+      ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        if (counter.isThreadAllocatedMemorySupported()
+                && counter.isThreadAllocatedMemoryEnabled()) {
+          return counter;
+        }
+      }
+    } catch (LinkageError | SecurityException exp) {
+      // not available in this runtime.
+    }
+    return null;
+  }
+
+  private static long allocatedBytes() {
+    return (ALLOCATIONS == null) ? 0
+            : ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * starts timing the phase.
+   *
+   * @param phase phase that is starting.
+   */
+  void start(GenerationPhase phase) {
+    current = phase;
+    if (!phases.contains(phase)) {
+      phases.add(phase);
+    }
+    startRetries = retries[phase.ordinal()];
+    event = new GenerationPhaseEvent();
+    event.begin();
+    startBytes = allocatedBytes();
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * counts a retry of the rejection loop of the running phase.
+   */
+  void retry() {
+    if (current != null) {
+      retries[current.ordinal()]++;
+    }
+  }
+
+  /**
+   * stops timing the running phase.
+   */
+  void stop() {
+    if (current == null) {
+      return;
+    }
+    int index = current.ordinal();
+    nanos[index] += System.nanoTime() - startNanos;
+    if (allocated != null) {
+      allocated[index] += allocatedBytes() - startBytes;
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.rows = rows;
+      event.columns = columns;
+      event.phase = current.name();
+      event.retries = retries[index] - startRetries;
+      event.commit();
+    }
+    event = null;
+    current = null;
+  }
+
+  /**
+   * creates the report of the phases recorded so far.
+   *
+   * @return immutable report.
+   */
+  GenerationReport report() {
+    return new GenerationReport(phases, nanos.clone(),
+            (allocated == null) ? null : allocated.clone(), retries.clone(),
+            System.nanoTime() - createdAt);
+  }
+}
@@ -0,0 +1,129 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report of the construction of a dungeon: the time taken by each {@link GenerationPhase}, the
+ * bytes allocated by it and the number of retries of its rejection loop, e.g., the edges rejected
+ * by kruskal's algorithm, the caves rejected as the end or the locations drawn again because they
+ * could not hold treasure, arrows or a monster.
+ * Allocations are measured only when the JVM supports measuring the bytes allocated by a thread.
+ * The report is immutable.
+ */
+public final class GenerationReport {
+  private final List<GenerationPhase> phases;
+  private final long[] nanos;
+  private final long[] allocated;
+  private final int[] retries;
+  private final long totalNanos;
+
+  /**
+   * Initializes the report, the arrays are indexed by the ordinal of the phase and are not
+   * copied.
+   *
+   * @param phases     phases run, in order.
+   * @param nanos      nanoseconds taken by each phase.
+   * @param allocated  bytes allocated by each phase, null when not measured.
+   * @param retries    retries of each phase.
+   * @param totalNanos nanoseconds taken by the whole construction.
+   */
+  GenerationReport(List<GenerationPhase> phases, long[] nanos, long[] allocated, int[] retries,
+                   long totalNanos) {
+    this.phases = Collections.unmodifiableList(new ArrayList<>(phases));
+    this.nanos = nanos;
+    this.allocated = allocated;
+    this.retries = retries;
+    this.totalNanos = totalNanos;
+  }
+
+  /**
+   * fetches the phases run by the construction, in order.
+   *
+   * @return unmodifiable list of phases.
+   */
+  public List<GenerationPhase> getPhases() {
+    return phases;
+  }
+
+  /**
+   * fetches the time taken by the phase.
+   *
+   * @param phase phase of the construction.
+   * @return nanoseconds, 0 when the phase was not run.
+   * @throws IllegalArgumentException when phase is null.
+   */
+  public long getNanos(GenerationPhase phase) throws IllegalArgumentException {
+    return nanos[index(phase)];
+  }
+
+  /**
+   * fetches the bytes allocated by the phase.
+   *
+   * @param phase phase of the construction.
+   * @return bytes, 0 when the phase was not run, -1 when allocations were not measured.
+   * @throws IllegalArgumentException when phase is null.
+   */
+  public long getAllocatedBytes(GenerationPhase phase) throws IllegalArgumentException {
+    int index = index(phase);
+    return (allocated == null) ? -1 : allocated[index];
+  }
+
+  /**
+   * fetches the number of retries of the rejection loop of the phase.
+   *
+   * @param phase phase of the construction.
+   * @return retries, 0 when the phase has no rejection loop or was not run.
+   * @throws IllegalArgumentException when phase is null.
+   */
+  public int getRetries(GenerationPhase phase) throws IllegalArgumentException {
+    return retries[index(phase)];
+  }
+
+  /**
+   * fetches the time taken by the whole construction, including the work between the phases.
+   *
+   * @return nanoseconds.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * whether the layout of the dungeon was found in the {@link LayoutCache}.
+   *
+   * @return true when the layout was restored from the cache.
+   */
+  public boolean isLayoutCached() {
+    return phases.contains(GenerationPhase.RESTORE_LAYOUT);
+  }
+
+  private static int index(GenerationPhase phase) throws IllegalArgumentException {
+    if (phase == null) {
+      throw new IllegalArgumentException("phase cannot be null.");
+    }
+    return phase.ordinal();
+  }
+
+  /**
+   * String representation of the report, one line per phase run with its time in microseconds,
+   * its allocated kilobytes when measured and its retries, followed by the total time.
+   *
+   * @return the report.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (GenerationPhase phase : phases) {
+      int index = phase.ordinal();
+      sb.append(String.format("%-24s %10.1f us", phase.name(), nanos[index] / 1e3));
+      if (allocated != null) {
+        sb.append(String.format(" %10.1f KB", allocated[index] / 1024.0));
+      }
+      sb.append(String.format(" %6d retries%n", retries[index]));
+    }
+    sb.append(String.format("%-24s %10.1f us", "TOTAL", totalNanos / 1e3));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,94 @@
+package maze;
+
+/**
+ * Derives the content of the locations of a {@link ChunkedDungeon} from a hash of the seed and
+ * the cell id, see {@link ContentMode}.HASHED.
+ * Each cave holds treasure with the configured percentage as odds, of one random kind and a
+ * quantity between 20 and 99, and each location holds 1 or 2 arrows with the same odds, as the
+ * placed content does. Monsters are never in the start and always in the end when there are
+ * monsters, other caves hold one with the odds given by their chunk.
+ * Nothing is stored, so the content of a location is the same whenever it is looked up.
+ * Intentionally making the class package private since it should not be available outside the
+ * package.
+ */
+final class HashedContent {
+  // kinds of values derived from the seed, apart from the ones of ChunkedDungeon.
+  private static final int TREASURE = 16;
+  private static final int ARROWS = 17;
+  private static final int MONSTER = 18;
+  private static final int PERCENT = 100;
+
+  private final long seed;
+  private final int treasureP;
+  private final int start;
+  private final int end;
+
+  /**
+   * Initializes the content of a dungeon.
+   *
+   * @param seed      seed of the dungeon.
+   * @param treasureP percentage of caves with treasure, and of locations with arrows.
+   * @param start     cell id of the start.
+   * @param end       cell id of the end.
+   */
+  HashedContent(long seed, int treasureP, int start, int end) {
+    this.seed = seed;
+    this.treasureP = treasureP;
+    this.start = start;
+    this.end = end;
+  }
+
+  private long hash(int kind, int cell) {
+    return ChunkedDungeon.mix(seed, kind, cell, 0);
+  }
+
+  /**
+   * fetches the quantity of the treasure in a cave.
+   *
+   * @param cell     cell id of the cave.
+   * @param treasure {@link Treasure} to look up.
+   * @return quantity, 0 when the cave has none of the treasure.
+   */
+  int treasure(int cell, Treasure treasure) {
+    long hash = hash(TREASURE, cell);
+    if (Long.remainderUnsigned(hash, PERCENT) >= treasureP) {
+      return 0;
+    }
+    Treasure[] treasures = Treasure.values();
+    if (treasures[(int) ((hash >>> 32) % treasures.length)] != treasure) {
+      return 0;
+    }
+    return 20 + (int) ((hash >>> 40) % 80);
+  }
+
+  /**
+   * fetches the number of arrows in a location.
+   *
+   * @param cell cell id of the location.
+   * @return arrows, 0 when there are none.
+   */
+  int arrows(int cell) {
+    long hash = hash(ARROWS, cell);
+    if (Long.remainderUnsigned(hash, PERCENT) >= treasureP) {
+      return 0;
+    }
+    return 1 + (int) ((hash >>> 32) & 1);
+  }
+
+  /**
+   * checks whether a monster is in a cave.
+   *
+   * @param cell cell id of the cave.
+   * @param odds odds of a cave holding a monster, between 0 and 1; 0 when there are no monsters.
+   * @return true when there is a monster.
+   */
+  boolean hasMonster(int cell, double odds) {
+    if ((odds <= 0) || (cell == start)) {
+      return false;
+    }
+    if (cell == end) {
+      return true;
+    }
+    return (hash(MONSTER, cell) >>> 11) * 0x1.0p-53 < odds;
+  }
+}
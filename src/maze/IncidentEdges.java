@@ -0,0 +1,72 @@
+package maze;
+
+/**
+ * Edges incident to each cell of a packed edge array (see {@link MazeGenerator}), stored as
+ * compressed rows: the edges of a cell are contiguous, in the order of the edge array.
+ * Intentionally making the class package private since it should not be available outside the
+ * package.
+ */
+final class IncidentEdges {
+  private final int[] offsets;
+  private final int[] incident;
+  private final int maxDegree;
+
+  /**
+   * Initializes the incident edges of the given edges.
+   *
+   * @param edges packed edges.
+   * @param cells number of cells.
+   */
+  IncidentEdges(int[] edges, int cells) {
+    offsets = new int[cells + 1];
+    for (int end : edges) {
+      offsets[end + 1]++;
+    }
+    int max = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      max = Math.max(max, offsets[cell + 1]);
+      offsets[cell + 1] += offsets[cell];
+    }
+    maxDegree = max;
+    incident = new int[edges.length];
+    int[] next = new int[cells];
+    for (int i = 0; i < edges.length; i++) {
+      int cell = edges[i];
+      incident[offsets[cell] + next[cell]++] = i / 2;
+    }
+  }
+
+  // number of edges of a cell.
+  int degree(int cell) {
+    return offsets[cell + 1] - offsets[cell];
+  }
+
+  // i-th edge of a cell.
+  int edge(int cell, int i) {
+    return incident[offsets[cell] + i];
+  }
+
+  // largest degree of a cell.
+  int maxDegree() {
+    return maxDegree;
+  }
+
+  // end of the edge other than the given cell.
+  static int other(int[] edges, int edge, int cell) {
+    int first = edges[2 * edge];
+    return (first == cell) ? edges[2 * edge + 1] : first;
+  }
+
+  /*
+  fills order from the given position with the edges that are not used, in the order of the edge
+  array.
+   */
+  static void fillLeftOver(boolean[] used, int[] order, int from) {
+    int next = from;
+    for (int edge = 0; edge < used.length; edge++) {
+      if (!used[edge]) {
+        order[next++] = edge;
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package maze;
+
+/**
+ * Generates the maze with the randomized kruskal algorithm: edges are drawn at random, an edge is
+ * kept when its ends are not connected yet and rejected otherwise, until the cells are connected.
+ * The edges left over are the rejected ones in the order they were rejected, followed by the ones
+ * that were not drawn in the order of the edge array.
+ * An edge is drawn by its position among the edges not drawn yet, the position being found in a
+ * binary indexed tree, and connected cells are tracked by a union-find over cell indices, so the
+ * generation takes O(edges log edges); a predictable {@link RandomInteger} always draws the first
+ * edge left.
+ */
+public final class KruskalGenerator implements MazeGenerator {
+
+  @Override
+  public int generate(int[] edges, int cells, RandomInteger rand, int[] order)
+          throws IllegalStateException {
+    int count = edges.length / 2;
+    // tree[i] counts the edges not drawn yet among the positions (i - (i & -i), i].
+    int[] tree = new int[count + 1];
+    for (int i = 1; i <= count; i++) {
+      tree[i]++;
+      int parent = i + (i & -i);
+      if (parent <= count) {
+        tree[parent] += tree[i];
+      }
+    }
+    int[] roots = new int[cells];
+    for (int cell = 0; cell < cells; cell++) {
+      roots[cell] = -1;
+    }
+    boolean[] drawn = new boolean[count];
+    int[] rejected = new int[count];
+    int rejectedCount = 0;
+    int selected = 0;
+    int remaining = count;
+    while (selected < cells - 1) {
+      if (remaining == 0) {
+        throw new IllegalStateException("edges do not connect every cell.");
+      }
+      int edge = select(tree, rand.nextInt(0, remaining));
+      for (int i = edge + 1; i <= count; i += i & -i) {
+        tree[i]--;
+      }
+      drawn[edge] = true;
+      remaining--;
+      if (union(roots, edges[2 * edge], edges[2 * edge + 1])) {
+        order[selected++] = edge;
+      } else {
+        rejected[rejectedCount++] = edge;
+      }
+    }
+    System.arraycopy(rejected, 0, order, selected, rejectedCount);
+    IncidentEdges.fillLeftOver(drawn, order, selected + rejectedCount);
+    return rejectedCount;
+  }
+
+  // position of the (rank + 1)-th edge not drawn yet.
+  private static int select(int[] tree, int rank) {
+    int position = 0;
+    for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+      if ((position + step < tree.length) && (tree[position + step] <= rank)) {
+        position += step;
+        rank -= tree[position];
+      }
+    }
+    return position;
+  }
+
+  /*
+  joins the sets of the two cells, false when they are in the same set.
+  roots hold the parent of a cell, or minus the size of the set for a root.
+   */
+  private static boolean union(int[] roots, int first, int second) {
+    int firstRoot = find(roots, first);
+    int secondRoot = find(roots, second);
+    if (firstRoot == secondRoot) {
+      return false;
+    }
+    if (roots[firstRoot] > roots[secondRoot]) {
+      int swap = firstRoot;
+      firstRoot = secondRoot;
+      secondRoot = swap;
+    }
+    roots[firstRoot] += roots[secondRoot];
+    roots[secondRoot] = firstRoot;
+    return true;
+  }
+
+  // root of the set of a cell, halving the path on the way.
+  private static int find(int[] roots, int cell) {
+    while (roots[cell] >= 0) {
+      if (roots[roots[cell]] >= 0) {
+        roots[cell] = roots[roots[cell]];
+      }
+      cell = roots[cell];
+    }
+    return cell;
+  }
+}
@@ -0,0 +1,286 @@
+package maze;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Cache of the layouts of the dungeons constructed from seeded generators.
+ * The layout of a dungeon, i.e., the neighbours of its locations (which decide the caves and the
+ * tunnels), its cave graph, its start and its end, is decided by the kind of dungeon, its rows,
+ * its columns, its interconnectivity, the class of its {@link MazeGenerator} and the seed of its
+ * generator alone. Constructing a dungeon whose layout is cached skips the generation of the
+ * layout and only places the treasure, arrows and monsters, which are not part of the layout;
+ * the generators are resumed from where the generation of the layout left them, so the dungeon
+ * is the same as one constructed without the cache.
+ * Only dungeons constructed from an unused seeded {@link CustomRandomInteger} are cached.
+ * The layouts are immutable and shared by every dungeon constructed from them, including the
+ * distance fields computed over them. The least recently used layouts are evicted once the
+ * estimated memory taken by the cached layouts exceeds the maximum.
+ * The cache counts the constructions that found their layout cached (hits), the ones that did not
+ * (misses) and the evicted layouts. The cache is thread safe.
+ */
+public final class LayoutCache {
+  /**
+   * default estimated memory the cached layouts may take, in bytes.
+   */
+  public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+  // neighbours, cave graph and a full distance field cache of a location.
+  static final int BYTES_PER_CELL = 4 * (Direction.values().length * 3 + 1
+          + DistanceFields.DEFAULT_CAPACITY);
+  private static final int BYTES_PER_LAYOUT = 256;
+
+  // layouts by key, least recently used first; guards every field below.
+  private static final LinkedHashMap<Key, Layout> LAYOUTS = new LinkedHashMap<>(16, 0.75f, true);
+  private static long maxBytes = DEFAULT_MAX_BYTES;
+  private static long bytes;
+  private static long hits;
+  private static long misses;
+  private static long evictions;
+
+  private LayoutCache() {
+    // static members only.
+  }
+
+  /*
+  fetches the layout of the key, null when it is not cached.
+   */
+  static Layout get(Key key) {
+    synchronized (LAYOUTS) {
+      Layout layout = LAYOUTS.get(key);
+      if (layout == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+      return layout;
+    }
+  }
+
+  /*
+  caches the layout of the key, evicting the least recently used layouts as needed. layouts
+  larger than the maximum are not cached.
+   */
+  static void put(Key key, Layout layout) {
+    synchronized (LAYOUTS) {
+      if (layout.size() > maxBytes) {
+        return;
+      }
+      Layout previous = LAYOUTS.put(key, layout);
+      if (previous != null) {
+        bytes -= previous.size();
+      }
+      bytes += layout.size();
+      evict();
+    }
+  }
+
+  // called while holding the lock.
+  private static void evict() {
+    Iterator<Layout> eldest = LAYOUTS.values().iterator();
+    while ((bytes > maxBytes) && eldest.hasNext()) {
+      bytes -= eldest.next().size();
+      eldest.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * sets the estimated memory the cached layouts may take, evicting layouts as needed.
+   *
+   * @param maxBytes bytes, 0 disables the cache.
+   * @throws IllegalArgumentException when maxBytes is < 0.
+   */
+  public static void setMaxBytes(long maxBytes) throws IllegalArgumentException {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("maximum bytes cannot be negative.");
+    }
+    synchronized (LAYOUTS) {
+      LayoutCache.maxBytes = maxBytes;
+      evict();
+    }
+  }
+
+  /**
+   * fetches the estimated memory the cached layouts may take.
+   *
+   * @return bytes.
+   */
+  public static long getMaxBytes() {
+    synchronized (LAYOUTS) {
+      return maxBytes;
+    }
+  }
+
+  /**
+   * fetches the estimated memory taken by the cached layouts.
+   *
+   * @return bytes.
+   */
+  public static long getBytes() {
+    synchronized (LAYOUTS) {
+      return bytes;
+    }
+  }
+
+  /**
+   * fetches the number of cached layouts.
+   *
+   * @return layouts.
+   */
+  public static int size() {
+    synchronized (LAYOUTS) {
+      return LAYOUTS.size();
+    }
+  }
+
+  /**
+   * fetches the number of constructions that found their layout cached.
+   *
+   * @return hits.
+   */
+  public static long getHits() {
+    synchronized (LAYOUTS) {
+      return hits;
+    }
+  }
+
+  /**
+   * fetches the number of constructions that generated their layout.
+   *
+   * @return misses.
+   */
+  public static long getMisses() {
+    synchronized (LAYOUTS) {
+      return misses;
+    }
+  }
+
+  /**
+   * fetches the number of layouts evicted to stay within the maximum.
+   *
+   * @return evictions.
+   */
+  public static long getEvictions() {
+    synchronized (LAYOUTS) {
+      return evictions;
+    }
+  }
+
+  /**
+   * removes every cached layout, the counters are kept.
+   */
+  public static void clear() {
+    synchronized (LAYOUTS) {
+      LAYOUTS.clear();
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Identifies a layout: the kind of dungeon and the parameters the layout is generated from.
+   */
+  static final class Key {
+    private final Class<?> type;
+    private final Class<?> generator;
+    private final int row;
+    private final int col;
+    private final int interConn;
+    private final long seed;
+
+    Key(Class<?> type, Class<?> generator, int row, int col, int interConn, long seed) {
+      this.type = type;
+      this.generator = generator;
+      this.row = row;
+      this.col = col;
+      this.interConn = interConn;
+      this.seed = seed;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return (type == other.type) && (generator == other.generator)
+              && (row == other.row) && (col == other.col)
+              && (interConn == other.interConn) && (seed == other.seed);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = type.hashCode();
+      result = 31 * result + generator.hashCode();
+      result = 31 * result + row;
+      result = 31 * result + col;
+      result = 31 * result + interConn;
+      return 31 * result + Long.hashCode(seed);
+    }
+  }
+
+  /**
+   * Layout of a dungeon along with the state of the generators once it was generated.
+   * Immutable; the arrays are shared and should not be modified.
+   */
+  static final class Layout {
+    private final int[] neighbours;
+    private final DistanceFields distances;
+    private final CaveGraph caveGraph;
+    private final int startCell;
+    private final int endCell;
+    private final long randState;
+    private final long trueRandomState;
+
+    Layout(int[] neighbours, DistanceFields distances, CaveGraph caveGraph, int startCell,
+           int endCell, long randState, long trueRandomState) {
+      this.neighbours = neighbours;
+      this.distances = distances;
+      this.caveGraph = caveGraph;
+      this.startCell = startCell;
+      this.endCell = endCell;
+      this.randState = randState;
+      this.trueRandomState = trueRandomState;
+    }
+
+    // neighbour cell id of every location in every direction, see DistanceFields.neighbours.
+    int[] getNeighbours() {
+      return neighbours;
+    }
+
+    DistanceFields getDistances() {
+      return distances;
+    }
+
+    CaveGraph getCaveGraph() {
+      return caveGraph;
+    }
+
+    int getStartCell() {
+      return startCell;
+    }
+
+    int getEndCell() {
+      return endCell;
+    }
+
+    // state of the generator of the dungeon once the layout was generated.
+    long getRandState() {
+      return randState;
+    }
+
+    // state of the generator of the always random choices once the layout was generated.
+    long getTrueRandomState() {
+      return trueRandomState;
+    }
+
+    // estimated memory taken by the layout, in bytes.
+    long size() {
+      return BYTES_PER_LAYOUT
+              + (long) (neighbours.length / Direction.values().length) * BYTES_PER_CELL;
+    }
+  }
+}
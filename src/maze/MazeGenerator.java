@@ -0,0 +1,30 @@
+package maze;
+
+/**
+ * Strategy that generates the maze of a dungeon, i.e., decides which of the possible edges
+ * between locations become passages.
+ * The edges are packed in an int array, edge i joins the cells edges[2 * i] and
+ * edges[2 * i + 1], a cell being row * columns + column; wrapping dungeons simply have more
+ * edges. A generator selects a spanning tree of the cells so that every location can be reached,
+ * the dungeon then adds as many of the left over edges as its interconnectivity asks for, drawing
+ * them in the order given by the generator.
+ * Implementations should be stateless; the layouts of seeded dungeons are cached by the class of
+ * the generator they were generated with, see {@link LayoutCache}.
+ */
+public interface MazeGenerator {
+
+  /**
+   * generates a maze over the given edges.
+   * fills order with the index of every edge: the cells - 1 edges of the spanning tree first,
+   * followed by the left over edges.
+   *
+   * @param edges packed edges, every cell is an end of at least one edge.
+   * @param cells number of cells.
+   * @param rand  {@link RandomInteger} to make the random choices with.
+   * @param order array of edges.length / 2 to fill.
+   * @return number of random draws that were rejected, reported by {@link GenerationReport}.
+   * @throws IllegalStateException when the edges do not connect every cell.
+   */
+  int generate(int[] edges, int cells, RandomInteger rand, int[] order)
+          throws IllegalStateException;
+}
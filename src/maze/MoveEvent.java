@@ -0,0 +1,22 @@
+package maze;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a move of the player, the outcome is COMPLETED, REACHED_END or KILLED.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("maze.Move")
+@Label("Move")
+@Description("move of the player")
+final class MoveEvent extends DungeonActionEvent {
+  @Label("Direction")
+  String direction;
+
+  @Label("Target")
+  @Description("cell id the player moved to")
+  int target;
+}
@@ -0,0 +1,80 @@
+package maze;
+
+/**
+ * Represents the outcome of a batch of moves made with {@link Dungeon}.moveAlong().
+ * The result is immutable.
+ */
+public final class MoveResult {
+  private final int steps;
+  private final int row;
+  private final int col;
+  private final int cell;
+  private final MoveStatus status;
+
+  /**
+   * Initializes the result.
+   *
+   * @param steps  number of moves made.
+   * @param row    row of the player after the moves.
+   * @param col    column of the player after the moves.
+   * @param cols   number of columns in the dungeon.
+   * @param status why the moves stopped.
+   */
+  MoveResult(int steps, int row, int col, int cols, MoveStatus status) {
+    this.steps = steps;
+    this.row = row;
+    this.col = col;
+    this.cell = row * cols + col;
+    this.status = status;
+  }
+
+  /**
+   * fetches the number of moves made.
+   *
+   * @return moves.
+   */
+  public int getSteps() {
+    return steps;
+  }
+
+  /**
+   * fetches the row of the player after the moves.
+   *
+   * @return row.
+   */
+  public int getRow() {
+    return row;
+  }
+
+  /**
+   * fetches the column of the player after the moves.
+   *
+   * @return column.
+   */
+  public int getCol() {
+    return col;
+  }
+
+  /**
+   * fetches the location of the player after the moves as row * columns + column.
+   *
+   * @return cell id.
+   */
+  public int getCell() {
+    return cell;
+  }
+
+  /**
+   * fetches why the moves stopped.
+   *
+   * @return {@link MoveStatus}.
+   */
+  public MoveStatus getStatus() {
+    return status;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s after %d moves at %d,%d", status, steps, row, col);
+  }
+}
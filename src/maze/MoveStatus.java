@@ -0,0 +1,11 @@
+package maze;
+
+/**
+ * Represents why a batch of moves made with {@link Dungeon}.moveAlong() stopped.
+ * COMPLETED when every move was made, REACHED_END when a move reached the end,
+ * KILLED when the player was killed by a monster and BLOCKED when a move had no neighbouring
+ * tunnel or cave in its direction.
+ */
+public enum MoveStatus {
+  COMPLETED, REACHED_END, KILLED, BLOCKED
+}
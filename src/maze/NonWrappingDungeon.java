@@ -74,7 +74,27 @@ public class NonWrappingDungeon extends AbstractDungeon {
           int treasureP,
           int difficulty,
           RandomInteger rand) throws IllegalArgumentException {
-    super(pName, treasureP, rand, row, column, difficulty);
+    this(pName, row, column, interConn, treasureP, difficulty, rand, null);
+  }
+
+  /**
+   * constructs the dungeon with the requested parameters, generating its maze with the given
+   * generator.
+   * for exceptions and the other parameters, refer to the constructor without the generator.
+   *
+   * @param generator {@link MazeGenerator}, can be null, in which case {@link KruskalGenerator}
+   *                  will be used.
+   */
+  public NonWrappingDungeon(
+          String pName,
+          int row,
+          int column,
+          int interConn,
+          int treasureP,
+          int difficulty,
+          RandomInteger rand,
+          MazeGenerator generator) throws IllegalArgumentException {
+    super(pName, treasureP, rand, row, column, difficulty, generator);
 
     if ((row < 4) || (column < 5)) {
       throw new IllegalArgumentException(
@@ -90,19 +110,33 @@ public class NonWrappingDungeon extends AbstractDungeon {
     createDungeon(interConn);
   }
 
+  // creates a fork of the given dungeon, refer to AbstractDungeon for what is shared.
+  private NonWrappingDungeon(NonWrappingDungeon other) {
+    super(other);
+  }
+
+  @Override
+  public NonWrappingDungeon fork() {
+    return new NonWrappingDungeon(this);
+  }
+
   /*
   creates the dungeon.
    */
   private void createDungeon(int interConn) {
-    setupNonWrappingEdges();
-    createLocations();
-    runKruskal(interConn);
-    selectStartEnd();
-    configureTreasure();
+    if (!restoreLayout(interConn)) {
+      runPhase(GenerationPhase.SETUP_NON_WRAPPING_EDGES, this::setupNonWrappingEdges);
+      runPhase(GenerationPhase.CREATE_LOCATIONS, this::createLocations);
+      runPhase(GenerationPhase.GENERATE_MAZE, () -> generateMaze(interConn));
+      runPhase(GenerationPhase.SELECT_START_END, this::selectStartEnd);
+      cacheLayout(interConn);
+    }
+    runPhase(GenerationPhase.CONFIGURE_TREASURE, this::configureTreasure);
     if (numMonsters != 0) {
-      configureArrows();
-      configureMonsters();
+      runPhase(GenerationPhase.CONFIGURE_ARROWS, this::configureArrows);
+      runPhase(GenerationPhase.CONFIGURE_MONSTERS, this::configureMonsters);
     }
+    finishGeneration();
   }
 
   @Override
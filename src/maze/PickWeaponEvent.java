@@ -0,0 +1,19 @@
+package maze;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of the weapons picked by the player, the outcome is PICKED or EMPTY.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("maze.PickWeapon")
+@Label("Pick Weapon")
+@Description("weapons picked by the player")
+final class PickWeaponEvent extends DungeonActionEvent {
+  @Label("Quantity")
+  @Description("arrows picked")
+  int quantity;
+}
@@ -74,4 +74,44 @@ interface Player {
    *     If no treasure of a particular {@link WeaponType} is found, it will be 0
    */
   Map<WeaponType, Integer> getWeaponInfo();
+
+  /**
+   * fetches the quantity of the given treasure in the player's chest.
+   * @param treasure {@link Treasure}
+   * @return quantity, 0 when the player has none of the treasure.
+   * @throws IllegalArgumentException when treasure is null.
+   */
+  int getTreasureQuantity(Treasure treasure) throws IllegalArgumentException;
+
+  /**
+   * fetches the quantity of the given weapon in the player's armory.
+   * @param weapon {@link WeaponType}
+   * @return quantity, 0 when the player has none of the weapon.
+   * @throws IllegalArgumentException when weapon is null.
+   */
+  int getWeaponQuantity(WeaponType weapon) throws IllegalArgumentException;
+
+  /**
+   * creates an independent copy of the player, changes to the copy do not affect this player.
+   * @return copy of the player.
+   */
+  Player copy();
+
+  /**
+   * removes the treasure of given quantity from the player's chest, used to undo collecting it.
+   * @param treas {@link Treasure} indicating the treasure to be removed.
+   * @param quantity quantity to be removed.
+   * @throws IllegalArgumentException when treas is null; when quantity is <= 0.
+   * @throws IllegalStateException when the chest has less than the quantity.
+   */
+  void removeTreasure(Treasure treas, int quantity)
+          throws IllegalArgumentException, IllegalStateException;
+
+  /**
+   * sets the status of the player without any check, used to undo an action that killed the
+   * player.
+   * @param status {@link PlayerStatus}
+   * @throws IllegalArgumentException when status is null.
+   */
+  void restorePlayerStatus(PlayerStatus status) throws IllegalArgumentException;
 }
@@ -43,6 +43,19 @@ final class PlayerImpl implements Player {
     this.status = PlayerStatus.ALIVE;
   }
 
+  // copies the name, status and the quantities of the given player.
+  private PlayerImpl(PlayerImpl other) {
+    this.name = other.name;
+    this.treasure = new Hashtable<>(other.treasure);
+    this.armory = new Hashtable<>(other.armory);
+    this.status = other.status;
+  }
+
+  @Override
+  public Player copy() {
+    return new PlayerImpl(this);
+  }
+
   @Override
   public String getName() {
     return this.name;
@@ -60,6 +73,22 @@ final class PlayerImpl implements Player {
     treasure.put(tres, existingQ + quantity);
   }
 
+  @Override
+  public void removeTreasure(Treasure tres, int quantity)
+          throws IllegalArgumentException, IllegalStateException {
+    if (tres == null) {
+      throw new IllegalArgumentException("treasure to remove cannot be null.");
+    }
+    if (quantity <= 0) {
+      throw new IllegalArgumentException("quantity to remove cannot be zero or negative.");
+    }
+    int existingQ = (treasure.get(tres) == null) ? 0 : treasure.get(tres);
+    if (existingQ < quantity) {
+      throw new IllegalStateException("chest does not have the quantity of treasure to remove.");
+    }
+    treasure.put(tres, existingQ - quantity);
+  }
+
   @Override
   public Map<PlayerDescription, List<String>> getPlayerSign() {
     Map<PlayerDescription, List<String>> playerD = new Hashtable<>();
@@ -120,6 +149,14 @@ final class PlayerImpl implements Player {
     this.status = status;
   }
 
+  @Override
+  public void restorePlayerStatus(PlayerStatus status) throws IllegalArgumentException {
+    if (status == null) {
+      throw new IllegalArgumentException("status to restore cannot be null.");
+    }
+    this.status = status;
+  }
+
   @Override
   public Map<WeaponType, Integer> getWeaponInfo() {
     Map<WeaponType, Integer> weaponInfo = new Hashtable<>();
@@ -130,4 +167,22 @@ final class PlayerImpl implements Player {
     }
     return Map.copyOf(armory);
   }
+
+  @Override
+  public int getTreasureQuantity(Treasure treasure) throws IllegalArgumentException {
+    if (treasure == null) {
+      throw new IllegalArgumentException("treasure cannot be null.");
+    }
+    Integer quantity = this.treasure.get(treasure);
+    return (quantity == null) ? 0 : quantity;
+  }
+
+  @Override
+  public int getWeaponQuantity(WeaponType weapon) throws IllegalArgumentException {
+    if (weapon == null) {
+      throw new IllegalArgumentException("weapon cannot be null.");
+    }
+    Integer quantity = armory.get(weapon);
+    return (quantity == null) ? 0 : quantity;
+  }
 }
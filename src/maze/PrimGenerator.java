@@ -0,0 +1,56 @@
+package maze;
+
+/**
+ * Generates the maze with the randomized prim algorithm: the maze grows from a random cell by a
+ * random edge of its frontier, i.e., the edges with an end in the maze, at a time. Frontier edges
+ * whose ends both joined the maze meanwhile are rejected.
+ * Every edge enters the frontier at most once and is removed by swapping in the last one, so the
+ * generation takes time linear in the edges. The mazes have many short dead ends. The edges left
+ * over are the unused ones in the order of the edge array.
+ */
+public final class PrimGenerator implements MazeGenerator {
+
+  @Override
+  public int generate(int[] edges, int cells, RandomInteger rand, int[] order)
+          throws IllegalStateException {
+    IncidentEdges incident = new IncidentEdges(edges, cells);
+    boolean[] inMaze = new boolean[cells];
+    boolean[] used = new boolean[edges.length / 2];
+    int[] frontier = new int[edges.length / 2];
+    int size = addFrontier(edges, incident, inMaze, rand.nextInt(0, cells), frontier, 0);
+    int selected = 0;
+    int retries = 0;
+    while (selected < cells - 1) {
+      if (size == 0) {
+        throw new IllegalStateException("edges do not connect every cell.");
+      }
+      int draw = rand.nextInt(0, size);
+      int edge = frontier[draw];
+      frontier[draw] = frontier[--size];
+      int first = edges[2 * edge];
+      int second = edges[2 * edge + 1];
+      if (inMaze[first] && inMaze[second]) {
+        retries++;
+        continue;
+      }
+      used[edge] = true;
+      order[selected++] = edge;
+      size = addFrontier(edges, incident, inMaze, inMaze[first] ? second : first, frontier, size);
+    }
+    IncidentEdges.fillLeftOver(used, order, selected);
+    return retries;
+  }
+
+  // adds the cell to the maze and its edges to cells outside the maze to the frontier.
+  private static int addFrontier(int[] edges, IncidentEdges incident, boolean[] inMaze, int cell,
+                                 int[] frontier, int size) {
+    inMaze[cell] = true;
+    for (int i = 0; i < incident.degree(cell); i++) {
+      int edge = incident.edge(cell, i);
+      if (!inMaze[IncidentEdges.other(edges, edge, cell)]) {
+        frontier[size++] = edge;
+      }
+    }
+    return size;
+  }
+}
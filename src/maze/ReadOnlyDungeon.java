@@ -1,5 +1,6 @@
 package maze;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -83,6 +84,77 @@ public interface ReadOnlyDungeon {
    */
   String getPlayerLocation() throws IllegalStateException;
 
+  /**
+   * returns the location of the player as an interned {@link Cell}.
+   *
+   * @return player's location.
+   * @throws IllegalStateException when player has not entered the dungeon.
+   */
+  Cell getPlayerPosition() throws IllegalStateException;
+
+  /**
+   * returns the row of the player's location.
+   *
+   * @return row.
+   * @throws IllegalStateException when player has not entered the dungeon.
+   */
+  int getPlayerRow() throws IllegalStateException;
+
+  /**
+   * returns the column of the player's location.
+   *
+   * @return column.
+   * @throws IllegalStateException when player has not entered the dungeon.
+   */
+  int getPlayerCol() throws IllegalStateException;
+
+  /**
+   * returns the player's location as a cell id.
+   *
+   * @return row * number of columns + column.
+   * @throws IllegalStateException when player has not entered the dungeon.
+   */
+  int getPlayerCell() throws IllegalStateException;
+
+  /**
+   * checks whether the player has been in the location during the current game, locations not
+   * visited are hidden by the fog of war. Locations stay visited when actions are undone, reset
+   * forgets them.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return true when the location was visited.
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   */
+  boolean isVisited(int row, int col) throws IllegalArgumentException;
+
+  /**
+   * fetches the locations the player has been in during the current game, see isVisited.
+   *
+   * @return {@link BitSet} indexed by cell id (row * number of columns + column), a copy.
+   */
+  BitSet getVisitedCells();
+
+  /**
+   * fetches the number of locations the player has been in during the current game, which is the
+   * cardinality of getVisitedCells without copying the locations.
+   *
+   * @return number of visited locations.
+   */
+  int getVisitedCount();
+
+  /**
+   * generates the description of a location the player has visited, as it is now.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return {@link Map} in the same format as describeLocation().
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   * @throws IllegalStateException    when the location has not been visited.
+   */
+  Map<LocationDescription, List<String>> describeVisitedLocation(int row, int col)
+          throws IllegalArgumentException, IllegalStateException;
+
   /**
    * fetches the start status of the game.
    * entering the dungeon starts the game.
@@ -110,4 +182,39 @@ public interface ReadOnlyDungeon {
    * @return {@link SmellIntensity}. If the player's location has no smell, will return null.
    */
   SmellIntensity getLocationSmell();
+
+  /**
+   * Fetches the quantity of the given treasure the player has collected.
+   *
+   * @param treasure {@link Treasure} to look up.
+   * @return quantity, 0 when the player has none of the treasure.
+   * @throws IllegalArgumentException when treasure is null.
+   */
+  int getPlayerTreasure(Treasure treasure) throws IllegalArgumentException;
+
+  /**
+   * Fetches the quantity of the given weapon the player has.
+   *
+   * @param weapon {@link WeaponType} to look up.
+   * @return quantity, 0 when the player has none of the weapon.
+   * @throws IllegalArgumentException when weapon is null.
+   */
+  int getPlayerWeapon(WeaponType weapon) throws IllegalArgumentException;
+
+  /**
+   * subscribes the listener to the changes in the dungeon.
+   * Adding the same listener more than once has no effect.
+   *
+   * @param listener {@link DungeonListener}.
+   * @throws IllegalArgumentException when listener is null.
+   */
+  void addListener(DungeonListener listener) throws IllegalArgumentException;
+
+  /**
+   * unsubscribes the listener from the changes in the dungeon.
+   * Removing a listener that is not subscribed has no effect.
+   *
+   * @param listener {@link DungeonListener}.
+   */
+  void removeListener(DungeonListener listener);
 }
@@ -0,0 +1,479 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Dungeon shared by several players, each with their own location, status and inventory, who
+ * contend for the same treasure, arrows and monsters.
+ * The layout, the content placed while constructing it, the distance fields and the cave graph
+ * are taken from a constructed dungeon and never change. What the players collect or slay is kept
+ * per location as the state flags of {@link ContentOverlay}, packed in one int per cell id and
+ * changed by compare and set, so operations on different locations never wait for each other and
+ * conflicting ones resolve atomically: of two players collecting the same treasure exactly one
+ * gets it, and a monster takes exactly as many hits as it has health, however many arrows reach
+ * it at once.
+ * The state of a player is guarded by the player's own lock, so the operations of one player are
+ * applied one at a time while different players proceed in parallel.
+ * The game of each player starts when the player joins at the start location and ends when the
+ * player reaches the end or is killed, the shared content is not restored when a game ends.
+ * Players are identified by the index returned when joining. The class is thread safe.
+ */
+public final class SharedDungeon {
+  private static final int INJURED_OTYUGH_HEALTH = 1;
+  private static final int HEALTH_OTYUGH_HEALTH = 2;
+  private static final int STARTING_ARROWS = 3;
+
+  private final AbstractDungeon layout;
+  private final int rows;
+  private final int cols;
+  private final AtomicIntegerArray cells;
+  private final List<Seat> seats;
+  private final RandomInteger rand;
+
+  /*
+  state of one player, guarded by the seat's lock.
+   */
+  private static final class Seat {
+    private final Player player;
+    private final RandomInteger rand;
+    private int cell;
+    private boolean ended;
+
+    private Seat(Player player, RandomInteger rand, int cell) {
+      this.player = player;
+      this.rand = rand;
+      this.cell = cell;
+    }
+  }
+
+  /**
+   * Initializes the shared dungeon on the layout and the content of the given dungeon, as they
+   * were placed while constructing it; the game played on the given dungeon is not shared.
+   *
+   * @param layout constructed dungeon.
+   * @throws IllegalArgumentException when layout is null; when layout is not one of the
+   *                                  dungeons of this package.
+   */
+  public SharedDungeon(Dungeon layout) throws IllegalArgumentException {
+    if (!(layout instanceof AbstractDungeon)) {
+      throw new IllegalArgumentException("layout should be a wrapping or non-wrapping dungeon.");
+    }
+    this.layout = (AbstractDungeon) layout;
+    this.rows = layout.getRow();
+    this.cols = layout.getCol();
+    this.cells = new AtomicIntegerArray(rows * cols);
+    this.seats = new CopyOnWriteArrayList<>();
+    this.rand = this.layout.forkRandom();
+  }
+
+  /**
+   * adds a player at the start location, armed with arrows when the dungeon has monsters.
+   *
+   * @param name name of the player.
+   * @return id of the player.
+   * @throws IllegalArgumentException when name is null or empty.
+   */
+  public int join(String name) throws IllegalArgumentException {
+    if ((name == null) || (name.length() == 0)) {
+      throw new IllegalArgumentException("player name cannot be null or empty.");
+    }
+    Player player = new PlayerImpl(name);
+    if (layout.numMonsters != 0) {
+      player.addWeapon(WeaponType.CROOKEDARROW, STARTING_ARROWS);
+    }
+    synchronized (seats) {
+      seats.add(new Seat(player, playerRandom(), layout.getStartCell()));
+      return seats.size() - 1;
+    }
+  }
+
+  /*
+  generator for the coin flips of a new player, independent of the other players' when the
+  generator of the layout is a custom one.
+   */
+  private RandomInteger playerRandom() {
+    if (rand instanceof CustomRandomInteger) {
+      return ((CustomRandomInteger) rand).fork();
+    }
+    return rand;
+  }
+
+  /**
+   * fetches the number of players that joined.
+   *
+   * @return players.
+   */
+  public int getPlayerCount() {
+    return seats.size();
+  }
+
+  /**
+   * fetches the number of rows in the dungeon.
+   *
+   * @return rows.
+   */
+  public int getRow() {
+    return rows;
+  }
+
+  /**
+   * fetches the number of columns in the dungeon.
+   *
+   * @return columns.
+   */
+  public int getCol() {
+    return cols;
+  }
+
+  /**
+   * moves the player to the neighbouring location in the direction.
+   * Moving into the end collects its treasure, when no other player did.
+   *
+   * @param player id of the player.
+   * @param dir    {@link Direction} to move.
+   * @throws IllegalArgumentException when player did not join; when dir is null.
+   * @throws IllegalStateException    when the player's game ended; when there is no move in the
+   *                                  direction.
+   */
+  public void move(int player, Direction dir)
+          throws IllegalArgumentException, IllegalStateException {
+    Seat seat = seat(player);
+    if (dir == null) {
+      throw new IllegalArgumentException("direction to move cannot be null.");
+    }
+    synchronized (seat) {
+      checkPlaying(seat, "error while making a move:");
+      int next = layout.distanceFields().neighbour(seat.cell, dir);
+      if (next < 0) {
+        throw new IllegalStateException("invalid move.");
+      }
+      seat.cell = next;
+      int health = healthAt(next);
+      if (health == HEALTH_OTYUGH_HEALTH) {
+        seat.player.setPlayerStatus(PlayerStatus.DECEASED);
+        seat.ended = true;
+        return;
+      }
+      if ((health == INJURED_OTYUGH_HEALTH) && (flip(seat) != 0)) {
+        seat.player.setPlayerStatus(PlayerStatus.DECEASED);
+        seat.ended = true;
+        return;
+      }
+      if (next == layout.getEndCell()) {
+        if (health <= 0) {
+          collect(seat, next);
+        }
+        seat.ended = true;
+      }
+    }
+  }
+
+  private static int flip(Seat seat) {
+    // the generator may be shared by the players.
+    synchronized (seat.rand) {
+      return seat.rand.nextInt(0, 2);
+    }
+  }
+
+  /**
+   * moves the treasure at the player's location to the player.
+   *
+   * @param player id of the player.
+   * @return {@link Map} with the treasure collected, null when the treasure was already
+   *     collected by a player.
+   * @throws IllegalArgumentException when player did not join.
+   * @throws IllegalStateException    when the player's game ended.
+   */
+  public Map<Treasure, Integer> collectTreasure(int player)
+          throws IllegalArgumentException, IllegalStateException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      checkPlaying(seat, "error while collecting treasure:");
+      return collect(seat, seat.cell);
+    }
+  }
+
+  private Map<Treasure, Integer> collect(Seat seat, int cell) {
+    Map<Treasure, Integer> treasureL = layout.locationAt(cell).getTreasure();
+    if (placed(treasureL) && !take(cell, ContentOverlay.TREASURE_TAKEN)) {
+      return null;
+    }
+    for (Treasure t : Treasure.values()) {
+      int treasureQ = treasureL.get(t);
+      if (treasureQ != 0) {
+        seat.player.addTreasure(t, treasureQ);
+      }
+    }
+    return treasureL;
+  }
+
+  /**
+   * moves the arrows at the player's location to the player.
+   *
+   * @param player id of the player.
+   * @return {@link Map} with the weapons picked, null when the weapons were already picked by a
+   *     player.
+   * @throws IllegalArgumentException when player did not join.
+   * @throws IllegalStateException    when the player's game ended.
+   */
+  public Map<WeaponType, Integer> pickWeapon(int player)
+          throws IllegalArgumentException, IllegalStateException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      checkPlaying(seat, "error while collecting weapon:");
+      Map<WeaponType, Integer> weaponAtLoc = layout.locationAt(seat.cell).getWeaponInfo();
+      if (placed(weaponAtLoc) && !take(seat.cell, ContentOverlay.ARROWS_TAKEN)) {
+        return null;
+      }
+      for (WeaponType t : WeaponType.values()) {
+        int weaponQ = weaponAtLoc.get(t);
+        if (weaponQ != 0) {
+          seat.player.addWeapon(t, weaponQ);
+        }
+      }
+      return weaponAtLoc;
+    }
+  }
+
+  // true when any quantity of the location's content is non-zero, only then it can be taken.
+  private static boolean placed(Map<?, Integer> quantities) {
+    for (int quantity : quantities.values()) {
+      if (quantity != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+  sets the flag of the location, returns false when another player set it first.
+   */
+  private boolean take(int cell, int flag) {
+    while (true) {
+      int state = cells.get(cell);
+      if ((state & flag) != 0) {
+        return false;
+      }
+      if (cells.compareAndSet(cell, state, state | flag)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * shoots an arrow of the player, see {@link Dungeon#shootArrow(Direction, int)}.
+   * When arrows of several players reach a monster at once, only as many of them hit as the
+   * monster has health left.
+   *
+   * @param player   id of the player.
+   * @param dir      {@link Direction} to shoot.
+   * @param distance number of caves the arrow should travel.
+   * @return true when the arrow hit a monster.
+   * @throws IllegalArgumentException when player did not join; when dir is null; when
+   *                                  distance is <= 0.
+   * @throws IllegalStateException    when the player's game ended; when the player does not
+   *                                  have arrows.
+   */
+  public boolean shootArrow(int player, Direction dir, int distance)
+          throws IllegalArgumentException, IllegalStateException {
+    Seat seat = seat(player);
+    if (dir == null) {
+      throw new IllegalArgumentException("direction to shoot cannot be null.");
+    }
+    if (distance <= 0) {
+      throw new IllegalArgumentException("distance to shoot cannot be <= 0.");
+    }
+    synchronized (seat) {
+      checkPlaying(seat, "error while shooting:");
+      if (seat.player.getWeaponQuantity(WeaponType.CROOKEDARROW) <= 0) {
+        throw new IllegalStateException("player does not have arrows to shoot.");
+      }
+      seat.player.addWeapon(WeaponType.CROOKEDARROW, -1);
+      CaveGraph graph = layout.getCaveGraph();
+      int tempCell = seat.cell;
+      Direction tempDir = dir;
+      int distToTravel = distance;
+      while (distToTravel != 0) {
+        int next = graph.getTarget(tempCell, tempDir);
+        if (next < 0) {
+          return false;
+        }
+        tempDir = graph.getArrival(tempCell, tempDir);
+        tempCell = next;
+        distToTravel--;
+      }
+      return hit(tempCell);
+    }
+  }
+
+  /*
+  adds a hit to the damage of the monster at the location, returns false when there is no
+  living monster to hit.
+   */
+  private boolean hit(int cell) {
+    Location location = layout.locationAt(cell);
+    while (true) {
+      int state = cells.get(cell);
+      if (AbstractDungeon.health(location, state) <= 0) {
+        return false;
+      }
+      int damage = ((state & ContentOverlay.DAMAGE_BITS) >> ContentOverlay.DAMAGE_SHIFT) + 1;
+      int updated = (state & ~ContentOverlay.DAMAGE_BITS) | (damage << ContentOverlay.DAMAGE_SHIFT);
+      if (cells.compareAndSet(cell, state, updated)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * fetches the cell id of the player's location, row * columns + column.
+   *
+   * @param player id of the player.
+   * @return cell id.
+   * @throws IllegalArgumentException when player did not join.
+   */
+  public int getPlayerCell(int player) throws IllegalArgumentException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      return seat.cell;
+    }
+  }
+
+  /**
+   * fetches the status of the player.
+   *
+   * @param player id of the player.
+   * @return {@link PlayerStatus}.
+   * @throws IllegalArgumentException when player did not join.
+   */
+  public PlayerStatus getPlayerStatus(int player) throws IllegalArgumentException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      return seat.player.getPlayerStatus();
+    }
+  }
+
+  /**
+   * checks whether the player's game ended, by reaching the end or being killed.
+   *
+   * @param player id of the player.
+   * @return true when the game ended.
+   * @throws IllegalArgumentException when player did not join.
+   */
+  public boolean gameEnded(int player) throws IllegalArgumentException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      return seat.ended;
+    }
+  }
+
+  /**
+   * describes the player, see {@link ReadOnlyDungeon#describePlayer()}.
+   *
+   * @param player id of the player.
+   * @return player description.
+   * @throws IllegalArgumentException when player did not join.
+   */
+  public Map<PlayerDescription, List<String>> describePlayer(int player)
+          throws IllegalArgumentException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      return seat.player.getPlayerSign();
+    }
+  }
+
+  /**
+   * fetches the quantity of the treasure the player collected.
+   *
+   * @param player   id of the player.
+   * @param treasure {@link Treasure}.
+   * @return quantity.
+   * @throws IllegalArgumentException when player did not join; when treasure is null.
+   */
+  public int getPlayerTreasure(int player, Treasure treasure) throws IllegalArgumentException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      return seat.player.getTreasureQuantity(treasure);
+    }
+  }
+
+  /**
+   * fetches the quantity of the weapon the player holds.
+   *
+   * @param player id of the player.
+   * @param weapon {@link WeaponType}.
+   * @return quantity.
+   * @throws IllegalArgumentException when player did not join; when weapon is null.
+   */
+  public int getPlayerWeapon(int player, WeaponType weapon) throws IllegalArgumentException {
+    Seat seat = seat(player);
+    synchronized (seat) {
+      return seat.player.getWeaponQuantity(weapon);
+    }
+  }
+
+  /**
+   * describes the location as it is in the shared game, see
+   * {@link Dungeon#describeLocation(int, int)}.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @return location description.
+   * @throws IllegalArgumentException when the location is outside the dungeon.
+   */
+  public Map<LocationDescription, List<String>> describeLocation(int row, int col)
+          throws IllegalArgumentException {
+    if ((row < 0) || (row >= rows) || (col < 0) || (col >= cols)) {
+      throw new IllegalArgumentException("location is outside the dungeon.");
+    }
+    int cell = row * cols + col;
+    Map<LocationDescription, List<String>> result =
+            AbstractDungeon.describe(layout.locationAt(cell), cells.get(cell));
+    List<String> smellVal = new ArrayList<>();
+    SmellIntensity smell = (healthAt(cell) > 0) ? SmellIntensity.HIGH : smellAround(cell);
+    smellVal.add((smell != null) ? smell.name() : "null");
+    result.put(LocationDescription.SMELL, smellVal);
+    return result;
+  }
+
+  /**
+   * computes the smell at the player's location.
+   *
+   * @param player id of the player.
+   * @return {@link SmellIntensity}, null when there is no smell.
+   * @throws IllegalArgumentException when player did not join.
+   */
+  public SmellIntensity getLocationSmell(int player) throws IllegalArgumentException {
+    int cell = getPlayerCell(player);
+    if (healthAt(cell) > 0) {
+      return SmellIntensity.HIGH;
+    }
+    return smellAround(cell);
+  }
+
+  private SmellIntensity smellAround(int cell) {
+    return layout.getCaveGraph().smellAround(cell, c -> healthAt(c) > 0);
+  }
+
+  // current health of the monster at the location, -1 when there is no monster.
+  private int healthAt(int cell) {
+    return AbstractDungeon.health(layout.locationAt(cell), cells.get(cell));
+  }
+
+  private Seat seat(int player) throws IllegalArgumentException {
+    if ((player < 0) || (player >= seats.size())) {
+      throw new IllegalArgumentException("player has not joined the dungeon.");
+    }
+    return seats.get(player);
+  }
+
+  private static void checkPlaying(Seat seat, String message) throws IllegalStateException {
+    if (seat.ended) {
+      throw new IllegalStateException(message + "player's game has ended.");
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package maze;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of an arrow shot by the player, the outcome is HIT or MISSED.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("maze.ShootArrow")
+@Label("Shoot Arrow")
+@Description("arrow shot by the player")
+final class ShootArrowEvent extends DungeonActionEvent {
+  @Label("Direction")
+  String direction;
+
+  @Label("Distance")
+  int distance;
+}
@@ -0,0 +1,137 @@
+package maze;
+
+/**
+ * Bounded history of the changes made by the actions of a game, used to undo and redo them.
+ * Each action is recorded as a fixed size record of ints (see the field constants) in a single
+ * ring buffer, so recording, undoing and redoing an action is O(1) and the memory used depends
+ * only on the depth. Once the history is full, recording an action forgets the oldest one.
+ * Recording an action forgets the actions that were undone and not redone.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class UndoHistory {
+  static final int CELL_BEFORE = 0;
+  static final int CELL_AFTER = 1;
+  static final int FLAGS_BEFORE = 2;
+  static final int FLAGS_AFTER = 3;
+  // change in the quantity of each treasure, in the order of Treasure.values().
+  static final int TREASURE = 4;
+  static final int ARROWS = TREASURE + Treasure.values().length;
+  static final int CONTENT_CELL = ARROWS + 1;
+  static final int CONTENT_BEFORE = CONTENT_CELL + 1;
+  static final int CONTENT_AFTER = CONTENT_BEFORE + 1;
+  static final int RECORD_INTS = CONTENT_AFTER + 1;
+
+  private final int depth;
+  private final int[] records;
+  private int oldest;
+  private int undoable;
+  private int redoable;
+
+  /**
+   * Initializes an empty history.
+   *
+   * @param depth number of actions that can be undone, 0 disables the history.
+   * @throws IllegalArgumentException when depth is < 0.
+   */
+  public UndoHistory(int depth) throws IllegalArgumentException {
+    if (depth < 0) {
+      throw new IllegalArgumentException("depth cannot be negative.");
+    }
+    this.depth = depth;
+    this.records = new int[depth * RECORD_INTS];
+  }
+
+  /**
+   * fetches the number of actions that can be undone.
+   *
+   * @return depth.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * starts the record of a new action.
+   *
+   * @return offset of the record, the fields should be set using it; -1 when the history is
+   *     disabled.
+   */
+  public int record() {
+    if (depth == 0) {
+      return -1;
+    }
+    if (undoable == depth) {
+      oldest = (oldest + 1) % depth;
+      undoable--;
+    }
+    int offset = ((oldest + undoable) % depth) * RECORD_INTS;
+    undoable++;
+    redoable = 0;
+    return offset;
+  }
+
+  /**
+   * moves the latest action to the actions that can be redone.
+   *
+   * @return offset of its record, -1 when there is nothing to undo.
+   */
+  public int undo() {
+    if (undoable == 0) {
+      return -1;
+    }
+    undoable--;
+    redoable++;
+    return ((oldest + undoable) % depth) * RECORD_INTS;
+  }
+
+  /**
+   * moves the latest undone action back to the actions that can be undone.
+   *
+   * @return offset of its record, -1 when there is nothing to redo.
+   */
+  public int redo() {
+    if (redoable == 0) {
+      return -1;
+    }
+    int offset = ((oldest + undoable) % depth) * RECORD_INTS;
+    undoable++;
+    redoable--;
+    return offset;
+  }
+
+  /**
+   * checks whether there is an action to undo.
+   *
+   * @return true if undo would succeed.
+   */
+  public boolean canUndo() {
+    return undoable > 0;
+  }
+
+  /**
+   * checks whether there is an action to redo.
+   *
+   * @return true if redo would succeed.
+   */
+  public boolean canRedo() {
+    return redoable > 0;
+  }
+
+  /**
+   * forgets all the actions.
+   */
+  public void clear() {
+    oldest = 0;
+    undoable = 0;
+    redoable = 0;
+  }
+
+  int get(int offset, int field) {
+    return records[offset + field];
+  }
+
+  void set(int offset, int field, int value) {
+    records[offset + field] = value;
+  }
+}
@@ -0,0 +1,54 @@
+package maze;
+
+/**
+ * Generates the maze with wilson's algorithm: from every cell not in the maze yet, a random walk
+ * is made until it reaches the maze, and the walk with its loops erased joins the maze. The maze
+ * is a uniformly random spanning tree, unlike the ones of the other generators.
+ * A walk only remembers the edge it last left each cell by, which erases the loops for free, so
+ * the generation takes time linear in the length of the walks and memory linear in the cells.
+ * Each step draws among the edges of the cell, offset by a per cell counter that moves on every
+ * visit; the draw stays uniform, and a predictable {@link RandomInteger} still walks every cell
+ * so the generation ends. The walked steps that were erased are reported as retries, and the
+ * edges left over are the unused ones in the order of the edge array.
+ */
+public final class WilsonGenerator implements MazeGenerator {
+
+  @Override
+  public int generate(int[] edges, int cells, RandomInteger rand, int[] order)
+          throws IllegalStateException {
+    IncidentEdges incident = new IncidentEdges(edges, cells);
+    boolean[] inMaze = new boolean[cells];
+    boolean[] used = new boolean[edges.length / 2];
+    int[] exits = new int[cells];
+    int[] rotors = new int[cells];
+    inMaze[rand.nextInt(0, cells)] = true;
+    int selected = 0;
+    int retries = 0;
+    for (int start = 0; start < cells; start++) {
+      int cell = start;
+      int steps = 0;
+      while (!inMaze[cell]) {
+        int degree = incident.degree(cell);
+        if (degree == 0) {
+          throw new IllegalStateException("edges do not connect every cell.");
+        }
+        rotors[cell] = (rotors[cell] + 1) % degree;
+        int edge = incident.edge(cell, (rand.nextInt(0, degree) + rotors[cell]) % degree);
+        exits[cell] = edge;
+        cell = IncidentEdges.other(edges, edge, cell);
+        steps++;
+      }
+      cell = start;
+      while (!inMaze[cell]) {
+        inMaze[cell] = true;
+        order[selected++] = exits[cell];
+        used[exits[cell]] = true;
+        cell = IncidentEdges.other(edges, exits[cell], cell);
+        steps--;
+      }
+      retries += steps;
+    }
+    IncidentEdges.fillLeftOver(used, order, selected);
+    return retries;
+  }
+}
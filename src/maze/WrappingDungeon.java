@@ -1,8 +1,5 @@
 package maze;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Represents a wrapping dungeon.
  * The locations at the border of the dungeons can wrap to the other end.
@@ -62,7 +59,27 @@ public class WrappingDungeon extends AbstractDungeon {
           int treasureP,
           int difficulty,
           RandomInteger rand) throws IllegalArgumentException {
-    super(pName, treasureP, rand, row, column, difficulty);
+    this(pName, row, column, interConn, treasureP, difficulty, rand, null);
+  }
+
+  /**
+   * constructs the dungeon with the requested parameters, generating its maze with the given
+   * generator.
+   * for exceptions and the other parameters, refer to the constructor without the generator.
+   *
+   * @param generator {@link MazeGenerator}, can be null, in which case {@link KruskalGenerator}
+   *                  will be used.
+   */
+  public WrappingDungeon(
+          String pName,
+          int row,
+          int column,
+          int interConn,
+          int treasureP,
+          int difficulty,
+          RandomInteger rand,
+          MazeGenerator generator) throws IllegalArgumentException {
+    super(pName, treasureP, rand, row, column, difficulty, generator);
 
     if ((row < 5) || (column < 6)) {
       throw new IllegalArgumentException(
@@ -77,42 +94,45 @@ public class WrappingDungeon extends AbstractDungeon {
     createDungeon(interConn);
   }
 
+  // creates a fork of the given dungeon, refer to AbstractDungeon for what is shared.
+  private WrappingDungeon(WrappingDungeon other) {
+    super(other);
+  }
+
+  @Override
+  public WrappingDungeon fork() {
+    return new WrappingDungeon(this);
+  }
+
   /*
   creates the dungeon.
    */
   private void createDungeon(int interConn) {
-    setupNonWrappingEdges();
-    setupWrappingEdges();
-    createLocations();
-    runKruskal(interConn);
-    selectStartEnd();
-    configureTreasure();
+    if (!restoreLayout(interConn)) {
+      runPhase(GenerationPhase.SETUP_NON_WRAPPING_EDGES, this::setupNonWrappingEdges);
+      runPhase(GenerationPhase.SETUP_WRAPPING_EDGES, this::setupWrappingEdges);
+      runPhase(GenerationPhase.CREATE_LOCATIONS, this::createLocations);
+      runPhase(GenerationPhase.GENERATE_MAZE, () -> generateMaze(interConn));
+      runPhase(GenerationPhase.SELECT_START_END, this::selectStartEnd);
+      cacheLayout(interConn);
+    }
+    runPhase(GenerationPhase.CONFIGURE_TREASURE, this::configureTreasure);
     if (numMonsters != 0) {
-      configureArrows();
-      configureMonsters();
+      runPhase(GenerationPhase.CONFIGURE_ARROWS, this::configureArrows);
+      runPhase(GenerationPhase.CONFIGURE_MONSTERS, this::configureMonsters);
     }
+    finishGeneration();
   }
 
   /*
   adds all the wrapping edges to the dungeon.
    */
   private void setupWrappingEdges() {
-    List<Integer> edge;
     for (int i = 0; i < row; i++) {
-      edge = new ArrayList<>();
-      edge.add(i);
-      edge.add(0);
-      edge.add(i);
-      edge.add(col - 1);
-      allEdges.add(edge);
+      addEdge(i, 0, i, col - 1);
     }
     for (int i = 0; i < col; i++) {
-      edge = new ArrayList<>();
-      edge.add(0);
-      edge.add(i);
-      edge.add(row - 1);
-      edge.add(i);
-      allEdges.add(edge);
+      addEdge(0, i, row - 1, i);
     }
   }
 
@@ -0,0 +1,48 @@
+package mazeconsolecontroller;
+
+import maze.Dungeon;
+import mazemetrics.LatencyHistogram;
+import mazemetrics.MetricsRegistry;
+
+/**
+ * Records the time taken by the {@link DungeonCommand}s of a controller in a
+ * {@link MetricsRegistry}, one histogram per command named "console.[command]". The time spent
+ * waiting for the input of the player is left out.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class CommandTimer {
+  private final MetricsRegistry metrics;
+  private final TimedInput input;
+
+  /**
+   * Initializes the timer.
+   *
+   * @param metrics registry to record in.
+   * @param input   input of the controller.
+   */
+  CommandTimer(MetricsRegistry metrics, TimedInput input) {
+    this.metrics = metrics;
+    this.input = input;
+  }
+
+  MetricsRegistry getMetrics() {
+    return metrics;
+  }
+
+  /*
+  wraps the command so that every apply is recorded under the given name.
+   */
+  DungeonCommand timed(String name, DungeonCommand command) {
+    LatencyHistogram histogram = metrics.histogram("console." + name);
+    return (Dungeon dungeon) -> {
+      long waited = input.getWaitedNanos();
+      long start = System.nanoTime();
+      try {
+        command.apply(dungeon);
+      } finally {
+        histogram.record(System.nanoTime() - start - (input.getWaitedNanos() - waited));
+      }
+    };
+  }
+}
@@ -1,6 +1,7 @@
 package mazeconsolecontroller;
 
 import maze.Dungeon;
+import mazemetrics.MetricsRegistry;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -11,6 +12,8 @@ import java.util.Scanner;
  * Represents a console based controller for {@link Dungeon} game that reads input
  * and appends output via the given sources.
  * Control returns when the game ends.
+ * The time taken by each {@link DungeonCommand}, without the time spent waiting for input, is
+ * recorded in a {@link MetricsRegistry}; entering "stats" at any prompt prints the latencies.
  */
 
 public class DungeonConsoleController implements DungeonController {
@@ -18,6 +21,7 @@ public class DungeonConsoleController implements DungeonController {
   private final Appendable out;
   private final Scanner scan;
   private final Map<String, DungeonCommand> commands;
+  private final CommandTimer timer;
 
   /**
    * Constructor for the console controller.
@@ -27,12 +31,29 @@ public class DungeonConsoleController implements DungeonController {
    * @param out the target to print to
    */
   public DungeonConsoleController(Readable in, Appendable out) {
+    this(in, out, MetricsRegistry.getDefault());
+  }
+
+  /**
+   * Constructor for the console controller recording the latencies of the commands in the given
+   * registry.
+   *
+   * @param in      the source to read from
+   * @param out     the target to print to
+   * @param metrics the registry to record the latencies in
+   */
+  public DungeonConsoleController(Readable in, Appendable out, MetricsRegistry metrics) {
     if (in == null || out == null) {
       throw new IllegalArgumentException("Readable and Appendable can't be null");
     }
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics registry can't be null");
+    }
     this.out = out;
-    scan = new Scanner(in);
+    TimedInput input = new TimedInput(in);
+    scan = new Scanner(input);
     commands = new HashMap<>();
+    timer = new CommandTimer(metrics, input);
   }
 
   @Override
@@ -40,13 +61,16 @@ public class DungeonConsoleController implements DungeonController {
     if (dungeon == null) {
       throw new IllegalArgumentException("model cannot be empty.");
     }
-    commands.put("enter", new EnterCommand(out));
-    commands.put("describeLoc", new DescribeLocationCommand(out));
-    commands.put("describePlayer", new DescribePlayerCommand(out));
-    commands.put("playerLoc", new PlayerLocationCommand(out));
-    commands.put("reset", new ResetCommand(out));
-    commands.put("nextAction", new TakeNextActionCommand(scan, out));
-    commands.put("playerS", new PlayerStatusCommand(out));
+    commands.put("enter", timer.timed("enter", new EnterCommand(out)));
+    commands.put("describeLoc", timer.timed("describeLoc", new DescribeLocationCommand(out)));
+    commands.put("describePlayer",
+            timer.timed("describePlayer", new DescribePlayerCommand(out)));
+    commands.put("playerLoc", timer.timed("playerLoc", new PlayerLocationCommand(out)));
+    commands.put("reset", timer.timed("reset", new ResetCommand(out)));
+    commands.put("nextAction", timer.timed("nextAction",
+            new TakeNextActionCommand(scan, out, timer)));
+    commands.put("playerS", timer.timed("playerS", new PlayerStatusCommand(out)));
+    commands.put("stats", new StatsCommand(out, timer.getMetrics()));
 
     boolean rematch = false;
     try {
@@ -58,6 +82,8 @@ public class DungeonConsoleController implements DungeonController {
             commands.get("enter").apply(dungeon);
           } else if (token.equals("D")) {
             commands.get("describePlayer").apply(dungeon);
+          } else if (token.equals("stats")) {
+            commands.get("stats").apply(dungeon);
           } else {
             out.append("\nUnsupported operation: ").append(token);
           }
@@ -90,6 +116,9 @@ public class DungeonConsoleController implements DungeonController {
               rematch = false;
               cont = false;
               break;
+            case "stats":
+              commands.get("stats").apply(dungeon);
+              break;
             default:
               break;
           }
@@ -0,0 +1,36 @@
+package mazeconsolecontroller;
+
+import maze.Dungeon;
+import mazemetrics.MetricsRegistry;
+
+import java.io.IOException;
+
+/**
+ * Represents accessor to the latencies of the commands recorded in a {@link MetricsRegistry}.
+ * prints to an appendable the 50th and 99th percentile, maximum and throughput of each command.
+ * Intentionally making packing private since it should not be available outside the package.
+ */
+class StatsCommand implements DungeonCommand {
+  private final Appendable out;
+  private final MetricsRegistry metrics;
+
+  /**
+   * Initializes the action with the appendable to print results and the registry to print.
+   *
+   * @param out     {@link Appendable}
+   * @param metrics {@link MetricsRegistry}
+   * @throws IllegalArgumentException when out / metrics is null.
+   */
+  public StatsCommand(Appendable out, MetricsRegistry metrics) throws IllegalArgumentException {
+    if ((out == null) || (metrics == null)) {
+      throw new IllegalArgumentException("an appendable and a registry are required");
+    }
+    this.out = out;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void apply(Dungeon dungeon) throws IOException {
+    out.append("\n").append(metrics.report());
+  }
+}
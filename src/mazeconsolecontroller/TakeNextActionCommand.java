@@ -16,6 +16,8 @@ import java.util.Scanner;
  * Represents a set of actions applicable from a {@link Dungeon} location.
  * reads input from a scanner about which action to perform,
  * prints to an appendable the prompt for available actions.
+ * the actions are timed by the {@link CommandTimer} of the controller, "stats" prints the
+ * latencies recorded so far.
  * Intentionally making packing private since it should not be available outside the package.
  */
 class TakeNextActionCommand implements DungeonCommand {
@@ -27,21 +29,24 @@ class TakeNextActionCommand implements DungeonCommand {
   /**
    * Initializes the action with the appendable, scanner and followup commands.
    *
-   * @param scan the source to read from
-   * @param out  the target to print to
-   * @throws IllegalArgumentException when scan/out is null.
+   * @param scan  the source to read from
+   * @param out   the target to print to
+   * @param timer the timer of the followup commands
+   * @throws IllegalArgumentException when scan/out/timer is null.
    */
-  public TakeNextActionCommand(Scanner scan, Appendable out) throws IllegalArgumentException {
-    if (scan == null || out == null) {
-      throw new IllegalArgumentException("Scanner / Appendable can't be null");
+  public TakeNextActionCommand(Scanner scan, Appendable out, CommandTimer timer)
+          throws IllegalArgumentException {
+    if (scan == null || out == null || timer == null) {
+      throw new IllegalArgumentException("Scanner / Appendable / CommandTimer can't be null");
     }
     this.out = out;
     this.scan = scan;
     this.commands = new HashMap<>();
-    commands.put("move", new MoveCommand(scan, out));
-    commands.put("collectT", new CollectTreasureCommand(out));
-    commands.put("collectW", new CollectWeaponCommand(out));
-    commands.put("shoot", new ShootCommand(scan, out));
+    commands.put("move", timer.timed("move", new MoveCommand(scan, out)));
+    commands.put("collectT", timer.timed("collectT", new CollectTreasureCommand(out)));
+    commands.put("collectW", timer.timed("collectW", new CollectWeaponCommand(out)));
+    commands.put("shoot", timer.timed("shoot", new ShootCommand(scan, out)));
+    commands.put("stats", new StatsCommand(out, timer.getMetrics()));
   }
 
   @Override
@@ -66,6 +71,9 @@ class TakeNextActionCommand implements DungeonCommand {
       case "S":
         commands.get("shoot").apply(dungeon);
         break;
+      case "stats":
+        commands.get("stats").apply(dungeon);
+        break;
       default:
         break;
     }
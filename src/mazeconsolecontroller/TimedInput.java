@@ -0,0 +1,40 @@
+package mazeconsolecontroller;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+
+/**
+ * {@link Readable} that keeps the time spent waiting for its source, so that the time taken by a
+ * command can leave out the time the player took to type its input.
+ * Used by one controller thread at a time.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class TimedInput implements Readable {
+  private final Readable in;
+  private long waitedNanos;
+
+  /**
+   * Initializes the input with the source to read from.
+   *
+   * @param in the source to read from.
+   */
+  TimedInput(Readable in) {
+    this.in = in;
+  }
+
+  @Override
+  public int read(CharBuffer cb) throws IOException {
+    long start = System.nanoTime();
+    try {
+      return in.read(cb);
+    } finally {
+      waitedNanos += System.nanoTime() - start;
+    }
+  }
+
+  // total time spent waiting for the source so far.
+  long getWaitedNanos() {
+    return waitedNanos;
+  }
+}
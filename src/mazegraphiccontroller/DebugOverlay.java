@@ -0,0 +1,81 @@
+package mazegraphiccontroller;
+
+import mazemetrics.MetricsRegistry;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.event.ActionEvent;
+import javax.swing.JComponent;
+import javax.swing.Timer;
+
+/**
+ * Glass pane drawing the latencies of a {@link MetricsRegistry} over the game, refreshed twice a
+ * second while it is shown. The overlay takes no input, key and mouse events go to the game
+ * underneath.
+ * Intentionally making the class package private since it should not be available outside the
+ * package.
+ */
+class DebugOverlay extends JComponent {
+  private static final int REFRESH_MS = 500;
+  private static final int MARGIN = 8;
+  private final MetricsRegistry metrics;
+  private final Timer refreshTimer;
+  private String[] lines;
+
+  /**
+   * Initializes a hidden overlay for the given registry.
+   *
+   * @param metrics registry to show.
+   * @throws IllegalArgumentException when metrics is null.
+   */
+  DebugOverlay(MetricsRegistry metrics) throws IllegalArgumentException {
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics registry should not be null.");
+    }
+    this.metrics = metrics;
+    this.lines = new String[0];
+    this.refreshTimer = new Timer(REFRESH_MS, (ActionEvent e) -> refresh());
+    this.setOpaque(false);
+    this.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+    super.setVisible(false);
+  }
+
+  @Override
+  public void setVisible(boolean visible) {
+    if (visible) {
+      refresh();
+      refreshTimer.start();
+    } else {
+      refreshTimer.stop();
+    }
+    super.setVisible(visible);
+  }
+
+  // takes a new copy of the report to draw.
+  private void refresh() {
+    lines = metrics.report().split("\\R");
+    repaint();
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    FontMetrics fm = g.getFontMetrics(getFont());
+    int width = 0;
+    for (String line : lines) {
+      width = Math.max(width, fm.stringWidth(line));
+    }
+    int height = lines.length * fm.getHeight();
+    g.setColor(new Color(0, 0, 0, 180));
+    g.fillRect(MARGIN, MARGIN, width + 2 * MARGIN, height + 2 * MARGIN);
+    g.setColor(Color.GREEN);
+    g.setFont(getFont());
+    int y = 2 * MARGIN + fm.getAscent();
+    for (String line : lines) {
+      g.drawString(line, 2 * MARGIN, y);
+      y += fm.getHeight();
+    }
+  }
+}
@@ -19,6 +19,15 @@ public interface DungeonControllerFeatures {
    */
   void move(Direction dir) throws IllegalArgumentException, IllegalStateException;
 
+  /**
+   * makes a call to the model to move the player along a shortest path to the given location.
+   *
+   * @param row row of the location.
+   * @param col column of the location.
+   * @throws IllegalStateException when the controller is not initialized with a model.
+   */
+  void travelTo(int row, int col) throws IllegalStateException;
+
   /**
    * makes a call to the model to collect treasure from the player's location.
    *
@@ -5,6 +5,7 @@ import maze.Dungeon;
 import maze.NonWrappingDungeon;
 import maze.ReadOnlyDungeon;
 import maze.WrappingDungeon;
+import mazemetrics.MetricsRegistry;
 
 /**
  * Represents a {@link Dungeon} controller that is compatible with a graphical view which
@@ -12,11 +13,15 @@ import maze.WrappingDungeon;
  * An instance of the controller can either be constructed by passing just a {@link DungeonView} or
  * by passing a {@link DungeonView} and a {@link Dungeon}.
  * In both cases, playGame() method is the entry point to the controller which presents the game.
+ * The time taken by each {@link DungeonControllerFeatures} method is recorded in a
+ * {@link MetricsRegistry}, as "gui.[method]"; time spent in dialogs waiting for the player is
+ * left out.
  */
 public class DungeonGraphicController implements DungeonControllerFeatures {
 
   private Dungeon model;
   private final DungeonView view;
+  private final MetricsRegistry metrics;
 
   /**
    * Initializes the controller with provided view and model.
@@ -43,10 +48,32 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
    * @throws IllegalArgumentException when view is null.
    */
   public DungeonGraphicController(DungeonView view) throws IllegalArgumentException {
+    this(view, MetricsRegistry.getDefault());
+  }
+
+  /**
+   * Initializes the controller with the provided view, recording the latencies of the
+   * controller in the given registry.
+   *
+   * @param view    an instance of {@link DungeonView}.
+   * @param metrics registry to record the latencies in.
+   * @throws IllegalArgumentException when view is null; when metrics is null.
+   */
+  public DungeonGraphicController(DungeonView view, MetricsRegistry metrics)
+          throws IllegalArgumentException {
     if (view == null) {
       throw new IllegalArgumentException("view should not be null.");
     }
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics registry should not be null.");
+    }
     this.view = view;
+    this.metrics = metrics;
+  }
+
+  // records the time taken by a method since the given start.
+  private void record(String method, long startNanos) {
+    metrics.histogram("gui." + method).recordSince(startNanos);
   }
 
   @Override
@@ -57,9 +84,11 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
     if (dir == null) {
       throw new IllegalArgumentException("direction to shoot should not be null");
     }
+    long start = System.nanoTime();
     try {
       model.move(dir);
       view.repaintDungeon();
+      record("move", start);
       if (model.gameEnded()) {
         view.showGameEndedScreen();
       }
@@ -68,6 +97,29 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
       The exceptions would occur when user inputs a direction that cannot be the next move or make
       a move when the game has ended.
       */
+      record("move", start);
+    }
+  }
+
+  @Override
+  public void travelTo(int row, int col) throws IllegalStateException {
+    if (model == null) {
+      throw new IllegalStateException("model is not initialized.");
+    }
+    long start = System.nanoTime();
+    try {
+      model.travelTo(row, col);
+      view.repaintDungeon();
+      record("travelTo", start);
+      if (model.gameEnded()) {
+        view.showGameEndedScreen();
+      }
+    } catch (IllegalArgumentException | IllegalStateException exp) {
+      /* Intentionally suppressing since why the exception occurs is obvious.
+      The exceptions would occur when user clicks a location outside the dungeon or travels
+      when the game has ended.
+      */
+      record("travelTo", start);
     }
   }
 
@@ -76,6 +128,7 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
     if (model == null) {
       throw new IllegalStateException("model is not initialized.");
     }
+    long start = System.nanoTime();
     try {
       model.collectTreasure();
       view.repaintDungeon();
@@ -83,6 +136,8 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
       /* Intentionally suppressing since why the exception occurs is obvious.
       Only when the game ends and the user tries to collect treasure, the exception would occur.
       */
+    } finally {
+      record("collectTreasure", start);
     }
   }
 
@@ -91,6 +146,7 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
     if (model == null) {
       throw new IllegalStateException("model is not initialized.");
     }
+    long start = System.nanoTime();
     try {
       model.pickWeapon();
       view.repaintDungeon();
@@ -98,6 +154,8 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
       /* Intentionally suppressing since why the exception occurs is obvious.
       Only when the game ends and the user tries to collect arrows, the exception would occur.
        */
+    } finally {
+      record("pickWeapon", start);
     }
   }
 
@@ -106,8 +164,10 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
     if (view == null) {
       throw new IllegalStateException("view is not initialized.");
     }
+    long start = System.nanoTime();
     view.setListeners(this);
     view.setVisible();
+    record("playGame", start);
     if (model == null) {
       view.showNewGameScreen();
     }
@@ -122,8 +182,14 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
     if (dirToShoot == null) {
       throw new IllegalArgumentException("direction should not be null.");
     }
+    long start = System.nanoTime();
     try {
-      boolean shootR = model.shootArrow(dirToShoot, distance);
+      boolean shootR;
+      try {
+        shootR = model.shootArrow(dirToShoot, distance);
+      } finally {
+        record("shootArrow", start);
+      }
       view.showShootFeedback(shootR);
       view.repaintDungeon();
     } catch (IllegalStateException exp) {
@@ -142,6 +208,7 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
                         int difficulty,
                         boolean wrapping)
           throws IllegalArgumentException {
+    long start = System.nanoTime();
     try {
       if (wrapping) {
         model = new WrappingDungeon(
@@ -156,6 +223,8 @@ public class DungeonGraphicController implements DungeonControllerFeatures {
       view.repaintDungeon();
     } catch (IllegalArgumentException | IllegalStateException exp) {
       throw new IllegalArgumentException(exp.getMessage());
+    } finally {
+      record("setUpGame", start);
     }
   }
 }
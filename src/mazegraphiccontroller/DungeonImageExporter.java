@@ -0,0 +1,126 @@
+package mazegraphiccontroller;
+
+import maze.Dungeon;
+import maze.PlayerStatus;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Renders a whole {@link Dungeon} to an image using the same sprites as the game area.
+ * Every location is revealed, the start location is outlined in green and the end location in
+ * red; the player is drawn when the player is in the dungeon.
+ * Does not depend on a display so it can be used with java.awt.headless=true.
+ * An exporter is not thread safe, each thread should use its own instance.
+ */
+public final class DungeonImageExporter {
+  private final TileCache tiles;
+  private final int cellWidth;
+  private final int cellHeight;
+
+  /**
+   * Initializes an exporter that draws each location at the size used in the game area.
+   */
+  public DungeonImageExporter() {
+    this(1);
+  }
+
+  /**
+   * Initializes an exporter that draws each location scaled by the given factor.
+   *
+   * @param scale factor applied to the size of a location in the game area.
+   * @throws IllegalArgumentException when scale is <= 0; when scale is too small to draw
+   *                                  a location.
+   */
+  public DungeonImageExporter(double scale) throws IllegalArgumentException {
+    if (scale <= 0) {
+      throw new IllegalArgumentException("scale should be greater than 0.");
+    }
+    cellWidth = (int) Math.round(TileCache.TILE_WIDTH * scale);
+    cellHeight = (int) Math.round(TileCache.TILE_HEIGHT * scale);
+    if ((cellWidth < 1) || (cellHeight < 1)) {
+      throw new IllegalArgumentException("scale is too small to draw a location.");
+    }
+    tiles = new TileCache();
+  }
+
+  /**
+   * renders the dungeon.
+   *
+   * @param dungeon {@link Dungeon} to render.
+   * @return image of the whole dungeon.
+   * @throws IllegalArgumentException when dungeon is null.
+   * @throws IllegalStateException    when the sprites cannot be loaded.
+   */
+  public BufferedImage render(Dungeon dungeon)
+          throws IllegalArgumentException, IllegalStateException {
+    if (dungeon == null) {
+      throw new IllegalArgumentException("dungeon should not be null.");
+    }
+    int rows = dungeon.getRow();
+    int cols = dungeon.getCol();
+    int playerCell = dungeon.gameStarted() ? dungeon.getPlayerCell() : -1;
+    BufferedImage image = new BufferedImage(
+            cols * cellWidth, rows * cellHeight, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = image.createGraphics();
+    try {
+      g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+              RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      for (int i = 0; i < rows; i++) {
+        for (int j = 0; j < cols; j++) {
+          int key = TileCache.contentKey(dungeon.describeLocation(i, j));
+          if (i * cols + j == playerCell) {
+            key |= (dungeon.getPlayerStatus() == PlayerStatus.DECEASED)
+                    ? TileCache.PLAYER_DEAD : TileCache.PLAYER_ALIVE;
+          }
+          g2d.drawImage(tiles.tile(key), j * cellWidth, i * cellHeight,
+                  cellWidth, cellHeight, null);
+        }
+      }
+      g2d.setStroke(new BasicStroke(Math.max(1, cellWidth / 40f)));
+      outline(g2d, dungeon.getStartCell(), cols, Color.GREEN);
+      outline(g2d, dungeon.getEndCell(), cols, Color.RED);
+    } finally {
+      g2d.dispose();
+    }
+    return image;
+  }
+
+  /**
+   * renders the dungeon and writes it to the given file as a png.
+   *
+   * @param dungeon {@link Dungeon} to render.
+   * @param file    target file.
+   * @throws IllegalArgumentException when dungeon / file is null.
+   * @throws IllegalStateException    when the image cannot be rendered or written.
+   */
+  public void export(Dungeon dungeon, File file)
+          throws IllegalArgumentException, IllegalStateException {
+    if (file == null) {
+      throw new IllegalArgumentException("file should not be null.");
+    }
+    BufferedImage image = render(dungeon);
+    try {
+      ImageIO.write(image, "png", file);
+    } catch (IOException e) {
+      throw new IllegalStateException("error while writing image to " + file + "."
+              + e.getMessage());
+    }
+  }
+
+  // draws a border around the location with the given cell id.
+  private void outline(Graphics2D g2d, int cell, int cols, Color color) {
+    int row = cell / cols;
+    int col = cell % cols;
+    g2d.setColor(color);
+    int inset = Math.max(1, cellWidth / 40);
+    g2d.drawRect(col * cellWidth + inset, row * cellHeight + inset,
+            cellWidth - 2 * inset, cellHeight - 2 * inset);
+  }
+}
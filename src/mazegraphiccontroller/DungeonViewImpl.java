@@ -2,9 +2,10 @@ package mazegraphiccontroller;
 
 import maze.Direction;
 import maze.LocationDescription;
-import maze.PlayerDescription;
 import maze.PlayerStatus;
 import maze.ReadOnlyDungeon;
+import maze.WeaponType;
+import mazemetrics.MetricsRegistry;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
@@ -13,8 +14,11 @@ import java.awt.GridLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JMenu;
@@ -25,6 +29,8 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
 
 /**
@@ -32,18 +38,43 @@ import javax.swing.WindowConstants;
  * After initializing the view before calling other operations on the view,
  * a {@link ReadOnlyDungeon} should be initialized to the view using assignReadOnlyModel method.
  * listeners should be initialized using setListeners method.
+ * A debug overlay showing the latencies of a {@link MetricsRegistry} can be toggled from the
+ * options menu or with F3.
  */
 public class DungeonViewImpl extends JFrame implements DungeonView {
   private final DungeonPanel mainGamePane;
   private final PlayerDetailsPanel playerDPane;
+  private final MinimapPanel minimap;
+  private final Deque<Direction> pendingMoves;
+  private final Timer moveTimer;
+  private final Timer frameTimer;
+  private final DebugOverlay debugOverlay;
   private DungeonControllerFeatures control;
   private ReadOnlyDungeon model;
+  // minimum time between two moves made by holding a key.
+  private static final int MOVE_TICK_MS = 120;
+  private static final int FRAME_MS = 16;
+  private static final int MAX_PENDING_MOVES = 2;
 
   /**
-   * Initializes the view with all the components that are part of the GUI.
+   * Initializes the view with all the components that are part of the GUI, the debug overlay
+   * shows the default {@link MetricsRegistry}.
    */
   public DungeonViewImpl() {
+    this(MetricsRegistry.getDefault());
+  }
+
+  /**
+   * Initializes the view with all the components that are part of the GUI, the debug overlay
+   * shows the given registry.
+   *
+   * @param metrics registry shown by the debug overlay.
+   * @throws IllegalArgumentException when metrics is null.
+   */
+  public DungeonViewImpl(MetricsRegistry metrics) throws IllegalArgumentException {
     super();
+    debugOverlay = new DebugOverlay(metrics);
+    this.setGlassPane(debugOverlay);
 
     this.setTitle("Dungeon");
     this.setSize(800, 600);
@@ -64,6 +95,10 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
     scrollPane.setPreferredSize(new Dimension(800, 450));
     this.add(scrollPane, BorderLayout.CENTER);
 
+    // overview of the explored dungeon, rendered off the event dispatch thread.
+    minimap = new MinimapPanel();
+    this.add(minimap, BorderLayout.EAST);
+
     //button panel
     JPanel buttonPanel = new JPanel();
     buttonPanel.setLayout(new FlowLayout());
@@ -75,6 +110,17 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
     quitButton.addActionListener((ActionEvent e) -> System.exit(0));
     buttonPanel.add(quitButton);
 
+    // key events only queue moves, queued moves are made at most once every tick and
+    // repaint requests are folded into at most one repaint per frame.
+    pendingMoves = new ArrayDeque<>();
+    moveTimer = new Timer(MOVE_TICK_MS, (ActionEvent e) -> makePendingMove());
+    // the player details panel repaints itself when the player's inventory changes.
+    frameTimer = new Timer(FRAME_MS, (ActionEvent e) -> {
+      minimap.update();
+      mainGamePane.repaint();
+    });
+    frameTimer.setRepeats(false);
+
     this.setFocusable(true);
     this.requestFocus();
     this.setResizable(false);
@@ -91,6 +137,11 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
     menu.add(newGameItem);
     newGameItem.addActionListener(l -> showNewGameScreen());
 
+    JCheckBoxMenuItem debugItem = new JCheckBoxMenuItem("Debug Overlay");
+    debugItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0));
+    menu.add(debugItem);
+    debugItem.addActionListener(l -> debugOverlay.setVisible(debugItem.isSelected()));
+
     JMenuItem quitItem = new JMenuItem("Quit");
     menu.add(quitItem);
     quitItem.addActionListener((ActionEvent e) -> System.exit(0));
@@ -100,7 +151,34 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
 
   @Override
   public void repaintDungeon() {
-    this.repaint();
+    if (!frameTimer.isRunning()) {
+      frameTimer.start();
+    }
+  }
+
+  /*
+  makes the move right away when no move was made in the last tick, else queues it.
+  auto repeated key events for a direction that is already queued are dropped.
+  */
+  private void queueMove(Direction dir) {
+    if (!moveTimer.isRunning()) {
+      moveTimer.restart();
+      control.move(dir);
+      return;
+    }
+    if ((!pendingMoves.contains(dir)) && (pendingMoves.size() < MAX_PENDING_MOVES)) {
+      pendingMoves.addLast(dir);
+    }
+  }
+
+  // called every tick, stops the tick once there are no more moves queued.
+  private void makePendingMove() {
+    Direction dir = pendingMoves.pollFirst();
+    if (dir == null) {
+      moveTimer.stop();
+      return;
+    }
+    control.move(dir);
   }
 
   @Override
@@ -215,7 +293,7 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
       }
 
       @Override
-      public synchronized void keyPressed(KeyEvent e) {
+      public void keyPressed(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_S) {
           shoot = true;
         }
@@ -232,10 +310,8 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
         }
 
         if ((shoot) && (dir != null)) {
-          String arrow = model.describePlayer()
-                  .get(PlayerDescription.WEAPON).get(0).split("\\s")[1];
-          int arrQ = Integer.parseInt(arrow);
-          if (arrQ > 0) {
+          pendingMoves.clear();
+          if (model.getPlayerWeapon(WeaponType.CROOKEDARROW) > 0) {
             int distance = showShootScreen(dir);
             if (distance != 0) {
               control.shootArrow(dir, distance);
@@ -245,13 +321,15 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
           }
           shoot = false;
         } else if (dir != null) {
-          control.move(dir);
+          queueMove(dir);
         }
       }
 
       @Override
       public void keyReleased(KeyEvent e) {
         shoot = false;
+        // moves queued by auto repeat should not carry on once the key is released.
+        pendingMoves.clear();
       }
     });
   }
@@ -282,6 +360,7 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
     mainGamePane.assignReadOnlyModel(m);
     mainGamePane.setController(control);
     playerDPane.assignReadOnlyModel(m);
+    minimap.assignReadOnlyModel(m);
     this.model = m;
   }
 
@@ -308,6 +387,7 @@ public class DungeonViewImpl extends JFrame implements DungeonView {
 
   @Override
   public void setVisible() {
+    minimap.update();
     this.setVisible(true);
     this.requestFocus();
   }
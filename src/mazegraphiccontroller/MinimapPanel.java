@@ -0,0 +1,319 @@
+package mazegraphiccontroller;
+
+import maze.DungeonChange;
+import maze.LocationDescription;
+import maze.ReadOnlyDungeon;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JPanel;
+
+/**
+ * Represents the panel that shows an overview of the explored part of the {@link maze.Dungeon}.
+ * Each location is drawn with 1 to 4 pixels depending on the size of the dungeon; a dungeon with
+ * more than MAX_SIZE rows or columns is drawn with a pixel for each square block of locations,
+ * so the whole dungeon always fits in MAX_SIZE * MAX_SIZE pixels. A block shows the player when
+ * the player is in it, a cave when any of its visited locations is a cave and a tunnel when all
+ * of them are tunnels.
+ * The explored state is kept packed as one byte per location (neighbour mask, visited flag and
+ * type), locations are rendered into an offscreen image on a background thread and only the
+ * locations that changed since the last update are drawn again. An update after a single step
+ * explores only the player's location; the visited locations are scanned only when several were
+ * visited at once, e.g. by travelTo, and forgotten and scanned again after a reset.
+ * After constructing the panel, a {@link ReadOnlyDungeon} should be assigned using
+ * assignReadOnlyModel method and update should be called whenever the player may have moved.
+ * Intentionally making the class package private since it should not be available
+ * outside the package.
+ */
+final class MinimapPanel extends JPanel {
+  static final int MAX_SIZE = 160;
+  private static final int MAX_CELL_SIZE = 4;
+  private static final int PADDING = 10;
+  private static final int MASK_BITS = 0x0f;
+  private static final int VISITED = 1 << 4;
+  private static final int TUNNEL = 1 << 5;
+  private static final int PLAYER = 1 << 6;
+  private static final Color UNEXPLORED = Color.BLACK;
+  private static final Color CAVE = new Color(200, 200, 200);
+  private static final Color TUNNEL_COLOR = new Color(120, 120, 120);
+  private static final Color PLAYER_COLOR = Color.RED;
+
+  private final ExecutorService renderer;
+  private ReadOnlyDungeon readModel;
+  private byte[] cells;
+  private int rows;
+  private int cols;
+  private int cellSize;
+  // number of rows and columns of locations in the block drawn as one pixel, 1 when each
+  // location takes a pixel or more.
+  private int blockSize;
+  private int blockRows;
+  private int blockCols;
+  private int playerCell;
+  // number of visited locations at the last update.
+  private int visitedCount;
+  // set by the listener after a reset, which forgets the visited locations.
+  private volatile boolean rescan;
+  private volatile BufferedImage canvas;
+
+  /**
+   * Initializes the panel and the background thread used for rendering.
+   */
+  public MinimapPanel() {
+    renderer = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "minimap-renderer");
+      t.setDaemon(true);
+      return t;
+    });
+    playerCell = -1;
+    this.setBackground(Color.DARK_GRAY);
+    this.setPreferredSize(new Dimension(MAX_SIZE + 2 * PADDING, MAX_SIZE + 2 * PADDING));
+  }
+
+  /**
+   * assigns the provided model to the panel, forgetting all the explored locations.
+   *
+   * @param readModel {@link ReadOnlyDungeon}.
+   * @throws IllegalArgumentException when readModel is null.
+   */
+  public void assignReadOnlyModel(ReadOnlyDungeon readModel) throws IllegalArgumentException {
+    if (readModel == null) {
+      throw new IllegalArgumentException("readModel should not be null.");
+    }
+    this.readModel = readModel;
+    rows = readModel.getRow();
+    cols = readModel.getCol();
+    cells = new byte[rows * cols];
+    playerCell = -1;
+    visitedCount = 0;
+    rescan = false;
+    readModel.addListener(changes -> {
+      // a reset forgets the visited locations and leaves the game not started.
+      if ((this.readModel == readModel) && changes.contains(DungeonChange.GAME_STATUS)
+              && !readModel.gameStarted()) {
+        rescan = true;
+      }
+    });
+    int largest = Math.max(rows, cols);
+    cellSize = Math.max(1, Math.min(MAX_CELL_SIZE, MAX_SIZE / largest));
+    blockSize = (largest + MAX_SIZE - 1) / MAX_SIZE;
+    blockRows = (rows + blockSize - 1) / blockSize;
+    blockCols = (cols + blockSize - 1) / blockSize;
+    BufferedImage image = new BufferedImage(
+            blockCols * cellSize, blockRows * cellSize, BufferedImage.TYPE_INT_RGB);
+    renderer.execute(() -> {
+      clear(image);
+      canvas = image;
+      repaint();
+    });
+    update();
+  }
+
+  private static void clear(BufferedImage image) {
+    synchronized (image) {
+      Graphics2D g2d = image.createGraphics();
+      g2d.setColor(UNEXPLORED);
+      g2d.fillRect(0, 0, image.getWidth(), image.getHeight());
+      g2d.dispose();
+    }
+  }
+
+  /**
+   * records the locations the player visited as explored, as kept by the model, and schedules
+   * drawing of the locations that changed. Does nothing when the player has not entered the
+   * dungeon.
+   */
+  public void update() {
+    if ((readModel == null) || (!readModel.gameStarted())) {
+      return;
+    }
+    if (rescan) {
+      rescan = false;
+      forget();
+    }
+    int cell = readModel.getPlayerCell();
+    int visits = readModel.getVisitedCount();
+    if ((cell == playerCell) && (visits == visitedCount)) {
+      return;
+    }
+    int[] changed;
+    int count = 0;
+    if ((visits == visitedCount + 1) && ((cells[cell] & VISITED) == 0)) {
+      // a single step to a new location, which is the only location visited since.
+      changed = new int[4];
+      cells[cell] = (byte) explore(cell);
+    } else if (visits != visitedCount) {
+      // every location visited since the last update is explored, not only the player's.
+      BitSet visited = readModel.getVisitedCells();
+      changed = new int[2 * (visits + 2)];
+      for (int i = visited.nextSetBit(0); i >= 0; i = visited.nextSetBit(i + 1)) {
+        if ((cells[i] & VISITED) == 0) {
+          cells[i] = (byte) explore(i);
+          if (i != cell) {
+            changed[count++] = i;
+            changed[count++] = cells[i];
+          }
+        }
+      }
+    } else {
+      // only the player moved, e.g. by an undo, to a location that was explored already.
+      changed = new int[4];
+    }
+    visitedCount = visits;
+    if (playerCell >= 0) {
+      cells[playerCell] = (byte) (cells[playerCell] & ~PLAYER);
+      changed[count++] = playerCell;
+      changed[count++] = cells[playerCell];
+    }
+    cells[cell] = (byte) (cells[cell] | PLAYER);
+    changed[count++] = cell;
+    changed[count++] = cells[cell];
+    playerCell = cell;
+    render(Arrays.copyOf(changed, count));
+  }
+
+  /*
+  forgets every explored location and clears the image, the visited locations are explored
+  again by the update.
+   */
+  private void forget() {
+    Arrays.fill(cells, (byte) 0);
+    playerCell = -1;
+    visitedCount = 0;
+    renderer.execute(() -> {
+      BufferedImage image = canvas;
+      if (image != null) {
+        clear(image);
+      }
+    });
+  }
+
+  // packed state of a visited location, read once when the location is first explored.
+  private int explore(int cell) {
+    List<String> moves = readModel.describeVisitedLocation(cell / cols, cell % cols)
+            .get(LocationDescription.MOVES);
+    int state = VISITED;
+    for (int i = 0; i < moves.size(); i++) {
+      if (!moves.get(i).equals("null")) {
+        state |= 1 << i;
+      }
+    }
+    if (Integer.bitCount(state & MASK_BITS) == 2) {
+      state |= TUNNEL;
+    }
+    return state;
+  }
+
+  /*
+  packed state of the block of the location, from the states of the locations in the block:
+  visited when any of them is, with the player when the player is in it and a tunnel when no
+  visited location of it is a cave. there are no openings, a block takes a single pixel.
+   */
+  private int blockState(int cell) {
+    int firstRow = (cell / cols) / blockSize * blockSize;
+    int firstCol = (cell % cols) / blockSize * blockSize;
+    int state = 0;
+    boolean cave = false;
+    for (int r = firstRow; r < Math.min(rows, firstRow + blockSize); r++) {
+      for (int c = firstCol; c < Math.min(cols, firstCol + blockSize); c++) {
+        int located = cells[r * cols + c];
+        state |= located & (VISITED | PLAYER);
+        cave |= ((located & VISITED) != 0) && ((located & TUNNEL) == 0);
+      }
+    }
+    return ((state & VISITED) != 0) && !cave ? state | TUNNEL : state;
+  }
+
+  /*
+  draws the given locations on the background thread.
+  changed holds pairs of location index and its packed state at the time of the update so the
+  renderer never reads the state array that is written on the event dispatch thread. with blocks,
+  the pairs are turned into pairs of block index and block state first.
+  */
+  private void render(int[] changed) {
+    if (blockSize > 1) {
+      for (int i = 0; i < changed.length; i += 2) {
+        int cell = changed[i];
+        changed[i] = (cell / cols) / blockSize * blockCols + (cell % cols) / blockSize;
+        changed[i + 1] = blockState(cell);
+      }
+    }
+    final int size = cellSize;
+    final int columns = blockCols;
+    renderer.execute(() -> {
+      BufferedImage image = canvas;
+      if ((image == null) || (image.getWidth() != columns * size)) {
+        return;
+      }
+      synchronized (image) {
+        Graphics2D g2d = image.createGraphics();
+        for (int i = 0; i < changed.length; i += 2) {
+          drawCell(g2d, changed[i] / columns, changed[i] % columns, changed[i + 1], size);
+        }
+        g2d.dispose();
+      }
+      repaint();
+    });
+  }
+
+  private void drawCell(Graphics2D g2d, int row, int col, int state, int size) {
+    int x = col * size;
+    int y = row * size;
+    g2d.setColor(UNEXPLORED);
+    g2d.fillRect(x, y, size, size);
+    if ((state & VISITED) == 0) {
+      return;
+    }
+    if ((state & PLAYER) != 0) {
+      g2d.setColor(PLAYER_COLOR);
+    } else if ((state & TUNNEL) != 0) {
+      g2d.setColor(TUNNEL_COLOR);
+    } else {
+      g2d.setColor(CAVE);
+    }
+    if (size < 3) {
+      g2d.fillRect(x, y, size, size);
+      return;
+    }
+    // larger cells leave a border so that the openings towards the neighbours are visible.
+    g2d.fillRect(x + 1, y + 1, size - 2, size - 2);
+    if ((state & 1) != 0) {
+      g2d.fillRect(x + 1, y, size - 2, 1);
+    }
+    if ((state & (1 << 1)) != 0) {
+      g2d.fillRect(x, y + 1, 1, size - 2);
+    }
+    if ((state & (1 << 2)) != 0) {
+      g2d.fillRect(x + size - 1, y + 1, 1, size - 2);
+    }
+    if ((state & (1 << 3)) != 0) {
+      g2d.fillRect(x + 1, y + size - 1, size - 2, 1);
+    }
+  }
+
+  @Override
+  protected void paintComponent(Graphics g) throws IllegalArgumentException {
+    if (g == null) {
+      throw new IllegalArgumentException("graphics should not be null");
+    }
+    super.paintComponent(g);
+    BufferedImage image = canvas;
+    if (image == null) {
+      return;
+    }
+    PaintEvent event = new PaintEvent();
+    event.begin();
+    synchronized (image) {
+      g.drawImage(image, PADDING, PADDING, null);
+    }
+    event.finish("minimap", rows, cols, -1, "DRAWN");
+  }
+}
@@ -0,0 +1,57 @@
+package mazegraphiccontroller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a paint pass of a panel of the view.
+ * The outcome tells what the pass had to do, e.g., HIDDEN for a location in the fog of war,
+ * CACHED when a location reused its tile and FETCHED when its contents changed and its tile was
+ * fetched again from the {@link TileCache}.
+ * Every location is painted on its own, so the event is disabled unless a recording enables it.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+@Name("mazegraphiccontroller.Paint")
+@Label("Paint")
+@Description("paint pass of a panel of the view")
+@Category({"Dungeon", "View"})
+@StackTrace(false)
+@Enabled(false)
+final class PaintEvent extends Event {
+  @Label("Component")
+  String component;
+
+  @Label("Rows")
+  int rows;
+
+  @Label("Columns")
+  int columns;
+
+  @Label("Cell")
+  @Description("cell id of the location painted, -1 for panels showing the whole dungeon")
+  int cell;
+
+  @Label("Outcome")
+  String outcome;
+
+  /*
+  ends the event and commits it when a recording enables it.
+   */
+  void finish(String component, int rows, int columns, int cell, String outcome) {
+    end();
+    if (shouldCommit()) {
+      this.component = component;
+      this.rows = rows;
+      this.columns = columns;
+      this.cell = cell;
+      this.outcome = outcome;
+      commit();
+    }
+  }
+}
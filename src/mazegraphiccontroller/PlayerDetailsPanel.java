@@ -1,6 +1,7 @@
 package mazegraphiccontroller;
 
-import maze.PlayerDescription;
+import maze.DungeonChange;
+import maze.DungeonListener;
 import maze.ReadOnlyDungeon;
 import maze.Treasure;
 import maze.WeaponType;
@@ -9,39 +10,97 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.font.GlyphVector;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import javax.imageio.ImageIO;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 
 /**
  * Represents the panel that shows the player's treasure and weapon details.
  * For the panel to display the player's details properly, a {@link ReadOnlyDungeon}
  * should be assigned using the assignReadOnlyModel method.
+ * The panel subscribes to the model and reads the quantities only when the player's inventory
+ * or the game changed; sprites are read once and the quantity labels are laid out once per change,
+ * so painting only draws the cached images and glyphs.
  * Intentionally making the class package private since it should not be available
  * outside the package.
  */
-final class PlayerDetailsPanel extends JPanel {
+final class PlayerDetailsPanel extends JPanel implements DungeonListener {
+  private static final String[] SPRITES = {"diamond", "ruby", "emerald", "arrow-white"};
+  private static final int[][] SPRITE_BOUNDS = {
+      {0, 0, 35, 35}, {120, 0, 35, 35}, {240, 0, 35, 35}, {360, 12, 100, 18}};
+  private static final int[] LABEL_X = {40, 160, 280, 500};
+  private static final int LABEL_Y = 30;
+
   private ReadOnlyDungeon readModel;
   private final Font boldItalicFont;
+  private final int[] quantities;
+  private BufferedImage[] images;
+  private GlyphVector[] labels;
 
   /**
    * Initializes the player details panel.
    */
   public PlayerDetailsPanel() {
     boldItalicFont = new Font("Serif", Font.BOLD + Font.ITALIC, 20);
+    quantities = new int[SPRITES.length];
+    this.setBackground(Color.black);
   }
 
   /**
-   * sets the provided read model to the panel instance.
+   * sets the provided read model to the panel instance and subscribes to its changes.
+   * The panel is unsubscribed from the previously assigned model.
    *
    * @param readModel {@link ReadOnlyDungeon}.
    */
   public void assignReadOnlyModel(ReadOnlyDungeon readModel) {
+    if (this.readModel != null) {
+      this.readModel.removeListener(this);
+    }
     this.readModel = readModel;
+    if (readModel != null) {
+      readModel.addListener(this);
+    }
+    refresh();
+  }
+
+  @Override
+  public void dungeonChanged(Set<DungeonChange> changes) {
+    if (!changes.contains(DungeonChange.PLAYER_INVENTORY)) {
+      return;
+    }
+    if (SwingUtilities.isEventDispatchThread()) {
+      refresh();
+    } else {
+      SwingUtilities.invokeLater(this::refresh);
+    }
+  }
+
+  // reads the current quantities and schedules a repaint only when one of them changed.
+  private void refresh() {
+    if (readModel == null) {
+      return;
+    }
+    int[] current = {
+        readModel.getPlayerTreasure(Treasure.DIAMONDS),
+        readModel.getPlayerTreasure(Treasure.RUBIES),
+        readModel.getPlayerTreasure(Treasure.SAPPHIRES),
+        readModel.getPlayerWeapon(WeaponType.CROOKEDARROW)};
+    boolean changed = false;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i] != quantities[i]) {
+        quantities[i] = current[i];
+        changed = true;
+      }
+    }
+    if (changed || (labels == null)) {
+      labels = null;
+      repaint();
+    }
   }
 
   @Override
@@ -53,80 +112,46 @@ final class PlayerDetailsPanel extends JPanel {
     if (readModel == null) {
       return;
     }
-    this.setBackground(Color.black);
-    Map<PlayerDescription, List<String>> playerD = readModel.describePlayer();
-    List<String> treasureDesc = playerD.get(PlayerDescription.TREASURE);
-    List<String> weaponDesc = playerD.get(PlayerDescription.WEAPON);
-
-    // computing the current treasure / arrow quantities of the user.
-    int diaQ = 0;
-    int rubyQ = 0;
-    int sapQ = 0;
-    int i = 0;
-    for (Treasure t : Treasure.values()) {
-      String temp;
-      temp = treasureDesc.get(i);
-      String[] treasureD = temp.split("\\s");
-      int tempQ = Integer.parseInt(treasureD[1]);
-      if (t == Treasure.DIAMONDS) {
-        if (tempQ > 0) {
-          diaQ = tempQ;
-        }
-      } else if (t == Treasure.RUBIES) {
-        if (tempQ > 0) {
-          rubyQ = tempQ;
-        }
-      } else if (t == Treasure.SAPPHIRES) {
-        if (tempQ > 0) {
-          sapQ = tempQ;
-        }
-      }
-      i++;
+    PaintEvent event = new PaintEvent();
+    event.begin();
+    Graphics2D g2d = (Graphics2D) g;
+    if (images == null) {
+      images = loadImages();
     }
-
-    int arrQ = 0;
-    i = 0;
-    for (WeaponType w : WeaponType.values()) {
-      String temp;
-      temp = weaponDesc.get(i);
-      String[] weaponD = temp.split("\\s");
-      int tempQ = Integer.parseInt(weaponD[1]);
-      if (w == WeaponType.CROOKEDARROW) {
-        if (tempQ > 0) {
-          arrQ = tempQ;
-        }
+    // the labels are laid out again only when the inventory changed.
+    String outcome = "CACHED";
+    if (labels == null) {
+      outcome = "LAID_OUT";
+      labels = new GlyphVector[quantities.length];
+      for (int i = 0; i < quantities.length; i++) {
+        labels[i] = boldItalicFont.createGlyphVector(g2d.getFontRenderContext(),
+                Integer.toString(quantities[i]));
       }
-      i++;
     }
-    Graphics2D g2d = (Graphics2D) g;
-    g2d.setColor(Color.WHITE);
-    g.setFont(boldItalicFont);
 
     // drawing the treasure / arrows along with their quantities.
-    try {
-      InputStream imageStream = getClass().getResourceAsStream("/img/diamond.png");
-      BufferedImage image = ImageIO.read(imageStream);
-      g2d.drawImage(image, 0, 0, 35, 35, null);
-
-      g2d.drawString(Integer.toString(diaQ), 40, 30);
-
-      imageStream = getClass().getResourceAsStream("/img/ruby.png");
-      image = ImageIO.read(imageStream);
-      g2d.drawImage(image, 120, 0, 35, 35, null);
-      g2d.drawString(Integer.toString(rubyQ), 160, 30);
-
-      imageStream = getClass().getResourceAsStream("/img/emerald.png");
-      image = ImageIO.read(imageStream);
-      g2d.drawImage(image, 240, 0, 35, 35, null);
-      g2d.drawString(Integer.toString(sapQ), 280, 30);
+    g2d.setColor(Color.WHITE);
+    for (int i = 0; i < images.length; i++) {
+      int[] bounds = SPRITE_BOUNDS[i];
+      g2d.drawImage(images[i], bounds[0], bounds[1], bounds[2], bounds[3], null);
+      g2d.drawGlyphVector(labels[i], LABEL_X[i], LABEL_Y);
+    }
+    event.finish("player details", readModel.getRow(), readModel.getCol(), -1, outcome);
+  }
 
-      imageStream = getClass().getResourceAsStream("/img/arrow-white.png");
-      image = ImageIO.read(imageStream);
-      g2d.drawImage(image, 360, 12, 100, 18, null);
-      g2d.drawString(Integer.toString(arrQ), 500, 30);
-    } catch (IOException e) {
-      throw new IllegalStateException("error while reading image" + e);
+  private BufferedImage[] loadImages() throws IllegalStateException {
+    BufferedImage[] loaded = new BufferedImage[SPRITES.length];
+    for (int i = 0; i < SPRITES.length; i++) {
+      try (InputStream imageStream =
+                   getClass().getResourceAsStream("/img/" + SPRITES[i] + ".png")) {
+        if (imageStream == null) {
+          throw new IllegalStateException("image not found: " + SPRITES[i]);
+        }
+        loaded[i] = ImageIO.read(imageStream);
+      } catch (IOException e) {
+        throw new IllegalStateException("error while reading image" + e);
+      }
     }
+    return loaded;
   }
 }
-
@@ -0,0 +1,237 @@
+package mazegraphiccontroller;
+
+import maze.LocationDescription;
+import maze.SmellIntensity;
+import maze.Treasure;
+import maze.WeaponType;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.imageio.ImageIO;
+
+/**
+ * Cache of pre-composited location tiles.
+ * A tile is the base cell image chosen by the neighbour mask of the location with all the
+ * overlays (treasure, arrows, monster, stench, player) already drawn on it, so painting a location
+ * is a single drawImage call.
+ * Tiles are identified by a compact int key built with the helpers in this class, the key
+ * captures everything that decides how a location looks.
+ * Sprites are read only once, composited tiles are kept in a bounded least recently used map.
+ * Intentionally making the class package private since it should not be available
+ * outside the package.
+ */
+final class TileCache {
+  static final int TILE_WIDTH = 160;
+  static final int TILE_HEIGHT = 112;
+
+  static final int NORTH = 1;
+  static final int WEST = 1 << 1;
+  static final int EAST = 1 << 2;
+  static final int SOUTH = 1 << 3;
+  static final int MASK_BITS = NORTH | WEST | EAST | SOUTH;
+  static final int DIAMONDS = 1 << 4;
+  static final int RUBIES = 1 << 5;
+  static final int SAPPHIRES = 1 << 6;
+  static final int ARROWS = 1 << 7;
+  static final int MONSTER = 1 << 8;
+  static final int STENCH_LOW = 1 << 9;
+  static final int STENCH_HIGH = 2 << 9;
+  static final int PLAYER_ALIVE = 1 << 11;
+  static final int PLAYER_DEAD = 2 << 11;
+  static final int CONTENT_BITS = MASK_BITS | DIAMONDS | RUBIES | SAPPHIRES | ARROWS | MONSTER;
+
+  private static final int MAX_TILES = 128;
+  private static final String[] CELL_NAMES = {
+      null, "N", "W", "NW", "E", "NE", "EW", "NEW", "S", "NS", "SW", "NSW", "SE", "NSE", "SEW",
+      "NSEW"};
+
+  private final Map<String, BufferedImage> sprites;
+  private final Map<Integer, BufferedImage> tiles;
+
+  /**
+   * Initializes an empty cache, sprites and tiles are loaded on first use.
+   */
+  public TileCache() {
+    sprites = new HashMap<>();
+    tiles = new LinkedHashMap<>(MAX_TILES, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+        return size() > MAX_TILES;
+      }
+    };
+  }
+
+  /**
+   * Fetches the composited tile for the given key, compositing it on a cache miss.
+   *
+   * @param key tile key built using the helpers in this class.
+   * @return tile of size TILE_WIDTH x TILE_HEIGHT.
+   * @throws IllegalArgumentException when the key has no neighbour in its mask.
+   * @throws IllegalStateException    when a sprite cannot be loaded.
+   */
+  public BufferedImage tile(int key) throws IllegalArgumentException, IllegalStateException {
+    BufferedImage tile = tiles.get(key);
+    if (tile == null) {
+      tile = composite(key);
+      tiles.put(key, tile);
+    }
+    return tile;
+  }
+
+  /**
+   * builds the content part of the key (neighbour mask, treasure, arrows, monster) from
+   * a location description.
+   *
+   * @param locInfo location description as returned by the model.
+   * @return content key.
+   */
+  static int contentKey(Map<LocationDescription, List<String>> locInfo) {
+    int key = 0;
+    List<String> moves = locInfo.get(LocationDescription.MOVES);
+    for (int i = 0; i < moves.size(); i++) {
+      if (!moves.get(i).equals("null")) {
+        key |= 1 << i;
+      }
+    }
+    List<String> treasure = locInfo.get(LocationDescription.TREASURE);
+    int i = 0;
+    for (Treasure t : Treasure.values()) {
+      if (quantity(treasure.get(i)) > 0) {
+        if (t == Treasure.DIAMONDS) {
+          key |= DIAMONDS;
+        } else if (t == Treasure.RUBIES) {
+          key |= RUBIES;
+        } else if (t == Treasure.SAPPHIRES) {
+          key |= SAPPHIRES;
+        }
+      }
+      i++;
+    }
+    List<String> weapons = locInfo.get(LocationDescription.WEAPON);
+    i = 0;
+    for (WeaponType w : WeaponType.values()) {
+      if ((w == WeaponType.CROOKEDARROW) && (quantity(weapons.get(i)) > 0)) {
+        key |= ARROWS;
+      }
+      i++;
+    }
+    String monsterInfo = locInfo.get(LocationDescription.MONSTER).get(0);
+    if (!monsterInfo.equals("null")) {
+      String[] monsterD = monsterInfo.split("\\s");
+      if (Integer.parseInt(monsterD[2]) != 0) {
+        key |= MONSTER;
+      }
+    }
+    return key;
+  }
+
+  /**
+   * builds the stench part of the key.
+   *
+   * @param smell smell at the location, can be null.
+   * @return stench bits of the key.
+   */
+  static int stenchKey(SmellIntensity smell) {
+    if (smell == SmellIntensity.HIGH) {
+      return STENCH_HIGH;
+    } else if (smell == SmellIntensity.LOW) {
+      return STENCH_LOW;
+    }
+    return 0;
+  }
+
+  /**
+   * builds the stench part of the key from the SMELL entry of a location description.
+   *
+   * @param locInfo location description as returned by the model.
+   * @return stench bits of the key.
+   */
+  static int stenchKey(Map<LocationDescription, List<String>> locInfo) {
+    String smellInfo = locInfo.get(LocationDescription.SMELL).get(0);
+    for (SmellIntensity smell : SmellIntensity.values()) {
+      if (smellInfo.equals(smell.name())) {
+        return stenchKey(smell);
+      }
+    }
+    return 0;
+  }
+
+  private static int quantity(String desc) {
+    return Integer.parseInt(desc.split("\\s")[1]);
+  }
+
+  private static boolean isTunnel(int key) {
+    return Integer.bitCount(key & MASK_BITS) == 2;
+  }
+
+  // draws the base cell and all the overlays in the same order as they were drawn per paint.
+  private BufferedImage composite(int key) throws IllegalArgumentException, IllegalStateException {
+    String cellName = CELL_NAMES[key & MASK_BITS];
+    if (cellName == null) {
+      throw new IllegalArgumentException("location should have at least one neighbour.");
+    }
+    BufferedImage tile = new BufferedImage(TILE_WIDTH, TILE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = tile.createGraphics();
+    try {
+      g2d.drawImage(sprite("color-cells/" + cellName), 0, 0, TILE_WIDTH, TILE_HEIGHT, null);
+      boolean tunnel = isTunnel(key);
+      if (!tunnel) {
+        if ((key & DIAMONDS) != 0) {
+          g2d.drawImage(sprite("diamond"), 0, 0, 10, 10, null);
+        }
+        if ((key & RUBIES) != 0) {
+          g2d.drawImage(sprite("ruby"), 10, 0, 10, 10, null);
+        }
+        if ((key & SAPPHIRES) != 0) {
+          g2d.drawImage(sprite("emerald"), 20, 0, 10, 10, null);
+        }
+      }
+      if ((key & ARROWS) != 0) {
+        g2d.drawImage(sprite("arrow-white"), 0, 15, 20, 10, null);
+      }
+      if ((!tunnel) && ((key & MONSTER) != 0)) {
+        g2d.drawImage(sprite("otyugh"), 40, 36, 30, 30, null);
+      }
+      if ((key & STENCH_HIGH) != 0) {
+        g2d.drawImage(sprite("stench02"), 50, 26, 60, 60, null);
+      } else if ((key & STENCH_LOW) != 0) {
+        g2d.drawImage(sprite("stench01"), 50, 26, 60, 60, null);
+      }
+      if (tunnel) {
+        if ((key & (PLAYER_ALIVE | PLAYER_DEAD)) != 0) {
+          g2d.drawImage(sprite("player"), 60, 36, 50, 50, null);
+        }
+      } else if ((key & PLAYER_DEAD) != 0) {
+        g2d.drawImage(sprite("player-dead"), 80, 36, 30, 30, null);
+      } else if ((key & PLAYER_ALIVE) != 0) {
+        g2d.drawImage(sprite("player"), 80, 36, 30, 30, null);
+      }
+    } finally {
+      g2d.dispose();
+    }
+    return tile;
+  }
+
+  private BufferedImage sprite(String name) throws IllegalStateException {
+    BufferedImage image = sprites.get(name);
+    if (image == null) {
+      try (InputStream imageStream = getClass().getResourceAsStream("/img/" + name + ".png")) {
+        if (imageStream == null) {
+          throw new IllegalStateException("image not found: " + name);
+        }
+        image = ImageIO.read(imageStream);
+      } catch (IOException e) {
+        throw new IllegalStateException("error while loading image " + name + "."
+                + e.getMessage());
+      }
+      sprites.put(name, image);
+    }
+    return image;
+  }
+}
@@ -0,0 +1,155 @@
+package mazemetrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with a bounded relative error, in the manner of an HDR
+ * histogram.
+ * Values below 32 get a bucket each; above that, every power of two is split into 16 buckets, so
+ * a value is known within 1/16 of itself (about 6%) whatever its magnitude, with 960 buckets
+ * covering every long value.
+ * Recording is lock free: a value increments its bucket, the count and the total, and raises the
+ * maximum, each atomically, so any number of threads can record at once. Reading while values are
+ * recorded gives a view that may miss the latest values.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BITS = 5;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int HALF_COUNT = SUB_COUNT / 2;
+  private static final int BUCKETS = SUB_COUNT + (Long.SIZE - SUB_BITS - 1) * HALF_COUNT;
+
+  private final AtomicLongArray buckets;
+  private final AtomicLong count;
+  private final AtomicLong total;
+  private final AtomicLong max;
+  private final long createdAt;
+
+  /**
+   * Initializes an empty histogram, throughput is measured from here.
+   */
+  public LatencyHistogram() {
+    this.buckets = new AtomicLongArray(BUCKETS);
+    this.count = new AtomicLong();
+    this.total = new AtomicLong();
+    this.max = new AtomicLong();
+    this.createdAt = System.nanoTime();
+  }
+
+  // bucket of a non negative value.
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+    int top = (int) (value >>> shift);
+    return SUB_COUNT + (shift - 1) * HALF_COUNT + (top - HALF_COUNT);
+  }
+
+  // largest value of a bucket.
+  static long highestOf(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    int offset = bucket - SUB_COUNT;
+    int shift = offset / HALF_COUNT + 1;
+    long top = offset % HALF_COUNT + HALF_COUNT;
+    return ((top + 1) << shift) - 1;
+  }
+
+  /**
+   * records a latency, negative values are recorded as 0.
+   *
+   * @param nanos latency in nanoseconds.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    buckets.incrementAndGet(bucketOf(value));
+    count.incrementAndGet();
+    total.addAndGet(value);
+    long current = max.get();
+    while ((value > current) && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * records the time elapsed since the given start.
+   *
+   * @param startNanos start, as returned by {@link System}.nanoTime().
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * fetches the number of latencies recorded.
+   *
+   * @return count.
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * fetches the largest latency recorded, exactly.
+   *
+   * @return nanoseconds, 0 when nothing was recorded.
+   */
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * fetches the mean of the latencies recorded.
+   *
+   * @return nanoseconds, 0 when nothing was recorded.
+   */
+  public double getMeanNanos() {
+    long recorded = count.get();
+    return (recorded == 0) ? 0 : (double) total.get() / recorded;
+  }
+
+  /**
+   * fetches the latency at or below which the given percentage of the latencies fall, as the
+   * largest value of its bucket; never more than the maximum.
+   *
+   * @param percentile percentage, between 0 and 100.
+   * @return nanoseconds, 0 when nothing was recorded.
+   * @throws IllegalArgumentException when percentile is not between 0 and 100.
+   */
+  public long getPercentileNanos(double percentile) throws IllegalArgumentException {
+    if ((percentile < 0) || (percentile > 100)) {
+      throw new IllegalArgumentException("percentile should be between 0 and 100.");
+    }
+    long[] counts = new long[BUCKETS];
+    long recorded = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      recorded += counts[i];
+    }
+    if (recorded == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * fetches the number of latencies recorded per second since the histogram was created.
+   *
+   * @return latencies per second.
+   */
+  public double getThroughput() {
+    long elapsed = System.nanoTime() - createdAt;
+    return (elapsed <= 0) ? 0 : count.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+  }
+}
@@ -0,0 +1,84 @@
+package mazemetrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process registry of named {@link LatencyHistogram}s, e.g., one per command of a controller.
+ * Histograms are created on first use and kept for the life of the registry. The default
+ * registry is shared by everything in the process that does not get a registry of its own, so
+ * the latencies of every game add up in one place.
+ * The registry is thread safe.
+ */
+public final class MetricsRegistry {
+  private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+  private final ConcurrentHashMap<String, LatencyHistogram> histograms;
+
+  /**
+   * Initializes an empty registry.
+   */
+  public MetricsRegistry() {
+    this.histograms = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * fetches the registry shared by the process.
+   *
+   * @return default registry.
+   */
+  public static MetricsRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * fetches the histogram of the given name, creating it when missing.
+   *
+   * @param name name of the histogram.
+   * @return {@link LatencyHistogram}.
+   * @throws IllegalArgumentException when name is null or empty.
+   */
+  public LatencyHistogram histogram(String name) throws IllegalArgumentException {
+    if ((name == null) || name.isEmpty()) {
+      throw new IllegalArgumentException("name cannot be null or empty.");
+    }
+    LatencyHistogram histogram = histograms.get(name);
+    if (histogram != null) {
+      return histogram;
+    }
+    return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+  }
+
+  /**
+   * fetches every histogram of the registry by name.
+   *
+   * @return histograms sorted by name, the map is a copy.
+   */
+  public Map<String, LatencyHistogram> getHistograms() {
+    return new TreeMap<>(histograms);
+  }
+
+  /**
+   * creates a table of the histograms holding latencies, one line per histogram with its count,
+   * its 50th and 99th percentiles and maximum in milliseconds, and its throughput per second.
+   *
+   * @return table, sorted by name.
+   */
+  public String report() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(String.format("%-24s %8s %9s %9s %9s %9s%n", "name", "count", "p50 ms", "p99 ms",
+            "max ms", "per s"));
+    for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+      LatencyHistogram histogram = entry.getValue();
+      if (histogram.getCount() == 0) {
+        continue;
+      }
+      sb.append(String.format("%-24s %8d %9.3f %9.3f %9.3f %9.2f%n", entry.getKey(),
+              histogram.getCount(), histogram.getPercentileNanos(50) / 1e6,
+              histogram.getPercentileNanos(99) / 1e6, histogram.getMaxNanos() / 1e6,
+              histogram.getThroughput()));
+    }
+    return sb.toString();
+  }
+}
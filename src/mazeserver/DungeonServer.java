@@ -0,0 +1,219 @@
+package mazeserver;
+
+import maze.Dungeon;
+import mazeconsolecontroller.DungeonConsoleController;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * Server that hosts console games for clients connecting over local TCP.
+ * Every connection gets its own session: a new dungeon from the given supplier played through a
+ * {@link DungeonConsoleController}, which reads the commands from the connection and writes its
+ * output back, exactly as on a console. A session ends when its game is quit, when the client
+ * disconnects or when the client stays idle for longer than the idle timeout. Dungeons that are
+ * {@link Closeable}, like the ones of a {@link SessionRegistry}, are closed when their session
+ * ends.
+ * Each session runs on its own virtual thread when the runtime has them, otherwise on a platform
+ * thread with a small stack. A session only holds the dungeon, the controller and a small input
+ * buffer while it waits for the client, and the number of sessions is bounded; clients
+ * connecting while the server is full are told so and disconnected.
+ * The server only listens on the loopback address.
+ */
+public final class DungeonServer implements Closeable {
+  private static final byte[] FULL_MESSAGE =
+          "\nserver is full, try again later.\n".getBytes(StandardCharsets.UTF_8);
+
+  private final int port;
+  private final Supplier<Dungeon> dungeons;
+  private final int maxSessions;
+  private final int idleTimeout;
+  private final Semaphore permits;
+  private final Set<Socket> connections;
+  private final ThreadFactory threads;
+  private final boolean virtual;
+  private ServerSocket server;
+  private Thread acceptor;
+
+  /**
+   * Initializes the server, it starts listening when started.
+   *
+   * @param port        port to listen on, 0 picks a free port.
+   * @param dungeons    creates the dungeon for a new session.
+   * @param maxSessions maximum number of sessions at once.
+   * @param idleTimeout milliseconds a session waits for a command before it is closed, 0 waits
+   *                    forever.
+   * @throws IllegalArgumentException when dungeons is null; when port is not a valid port; when
+   *                                  maxSessions is <= 0; when idleTimeout is < 0.
+   */
+  public DungeonServer(int port, Supplier<Dungeon> dungeons, int maxSessions, int idleTimeout)
+          throws IllegalArgumentException {
+    if (dungeons == null) {
+      throw new IllegalArgumentException("dungeons cannot be null.");
+    }
+    if ((port < 0) || (port > 65535)) {
+      throw new IllegalArgumentException("port should be between 0 and 65535.");
+    }
+    if (maxSessions <= 0) {
+      throw new IllegalArgumentException("maximum sessions should be greater than 0.");
+    }
+    if (idleTimeout < 0) {
+      throw new IllegalArgumentException("idle timeout cannot be negative.");
+    }
+    this.port = port;
+    this.dungeons = dungeons;
+    this.maxSessions = maxSessions;
+    this.idleTimeout = idleTimeout;
+    this.permits = new Semaphore(maxSessions);
+    this.connections = ConcurrentHashMap.newKeySet();
+    ThreadFactory virtualThreads = SessionThreads.virtual();
+    this.virtual = virtualThreads != null;
+    this.threads = virtual ? virtualThreads
+            : SessionThreads.platform(SessionThreads.PLATFORM_STACK_SIZE);
+  }
+
+  /**
+   * starts listening and accepting connections in the background.
+   *
+   * @throws IOException           when the port cannot be listened on.
+   * @throws IllegalStateException when the server was already started.
+   */
+  public synchronized void start() throws IOException, IllegalStateException {
+    if (server != null) {
+      throw new IllegalStateException("server is already started.");
+    }
+    server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+    acceptor = new Thread(this::accept, "dungeon-server-acceptor");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * fetches the port the server listens on.
+   *
+   * @return port.
+   * @throws IllegalStateException when the server is not started.
+   */
+  public synchronized int getPort() throws IllegalStateException {
+    if (server == null) {
+      throw new IllegalStateException("server is not started.");
+    }
+    return server.getLocalPort();
+  }
+
+  /**
+   * fetches the number of sessions in progress.
+   *
+   * @return sessions.
+   */
+  public int getActiveSessions() {
+    return maxSessions - permits.availablePermits();
+  }
+
+  /**
+   * checks whether the sessions run on virtual threads.
+   *
+   * @return true for virtual threads, false for platform threads.
+   */
+  public boolean usesVirtualThreads() {
+    return virtual;
+  }
+
+  /**
+   * stops accepting connections and disconnects every session.
+   *
+   * @throws IOException when the server socket cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    ServerSocket toClose;
+    synchronized (this) {
+      toClose = server;
+    }
+    if (toClose == null) {
+      return;
+    }
+    toClose.close();
+    for (Socket socket : connections) {
+      closeQuietly(socket);
+    }
+  }
+
+  /*
+  accepts connections until the server socket is closed, starting a session for each.
+   */
+  private void accept() {
+    while (true) {
+      Socket socket;
+      try {
+        socket = server.accept();
+      } catch (IOException exp) {
+        // the server was closed.
+        return;
+      }
+      if (!permits.tryAcquire()) {
+        refuse(socket);
+        continue;
+      }
+      connections.add(socket);
+      threads.newThread(() -> serve(socket)).start();
+    }
+  }
+
+  private static void refuse(Socket socket) {
+    try (socket) {
+      OutputStream out = socket.getOutputStream();
+      out.write(FULL_MESSAGE);
+      out.flush();
+    } catch (IOException exp) {
+      // the client is gone already.
+    }
+  }
+
+  /*
+  plays one game over the connection.
+  running out of input, which is how the controller sees a disconnected or idle client, failing
+  to write and failing to create the dungeon end the session.
+   */
+  private void serve(Socket socket) {
+    Dungeon dungeon = null;
+    try {
+      socket.setSoTimeout(idleTimeout);
+      SessionOutput out = new SessionOutput(socket.getOutputStream());
+      SessionInput in = new SessionInput(socket.getInputStream(), out);
+      dungeon = dungeons.get();
+      new DungeonConsoleController(in, out).playGame(dungeon);
+      out.flush();
+    } catch (IOException | NoSuchElementException | IllegalStateException exp) {
+      // the session ended without the game being quit.
+    } catch (IllegalArgumentException exp) {
+      // the dungeon could not be created.
+    } finally {
+      if (dungeon instanceof Closeable) {
+        closeQuietly((Closeable) dungeon);
+      }
+      connections.remove(socket);
+      closeQuietly(socket);
+      permits.release();
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException exp) {
+      // nothing more to release.
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package mazeserver;
+
+import maze.CustomRandomInteger;
+import maze.Dungeon;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Parameters that construct a dungeon, including the seed of its generator, so the same dungeon
+ * can be constructed again, e.g., to restore a game from its {@link maze.ActionLog}.
+ * Specs are immutable.
+ */
+public final class DungeonSpec {
+  private final String name;
+  private final int row;
+  private final int col;
+  private final int interConn;
+  private final int treasureP;
+  private final int difficulty;
+  private final boolean wrapping;
+  private final long seed;
+
+  /**
+   * Initializes the spec, the parameters are validated when the dungeon is constructed.
+   *
+   * @param name       name of the player.
+   * @param row        number of rows.
+   * @param col        number of columns.
+   * @param interConn  interconnectivity.
+   * @param treasureP  percentage of caves with treasure.
+   * @param difficulty number of monsters.
+   * @param wrapping   true for a {@link WrappingDungeon}, false for a
+   *                   {@link NonWrappingDungeon}.
+   * @param seed       seed of the {@link CustomRandomInteger} the dungeon is constructed with.
+   * @throws IllegalArgumentException when name is null.
+   */
+  public DungeonSpec(String name, int row, int col, int interConn, int treasureP,
+                     int difficulty, boolean wrapping, long seed) throws IllegalArgumentException {
+    if (name == null) {
+      throw new IllegalArgumentException("player name cannot be null.");
+    }
+    this.name = name;
+    this.row = row;
+    this.col = col;
+    this.interConn = interConn;
+    this.treasureP = treasureP;
+    this.difficulty = difficulty;
+    this.wrapping = wrapping;
+    this.seed = seed;
+  }
+
+  /**
+   * constructs the dungeon, constructing it again yields the same dungeon.
+   *
+   * @return {@link Dungeon} that has not been played.
+   * @throws IllegalArgumentException when the parameters are not valid for a dungeon.
+   * @throws IllegalStateException    when the dungeon cannot be constructed with them.
+   */
+  public Dungeon create() throws IllegalArgumentException, IllegalStateException {
+    return create(random());
+  }
+
+  // new generator of the dungeon, seeded with the seed of the spec.
+  CustomRandomInteger random() {
+    return new CustomRandomInteger(seed);
+  }
+
+  // constructs the dungeon with the given generator, which random() returned.
+  Dungeon create(CustomRandomInteger rand) throws IllegalArgumentException,
+          IllegalStateException {
+    if (wrapping) {
+      return new WrappingDungeon(name, row, col, interConn, treasureP, difficulty, rand);
+    }
+    return new NonWrappingDungeon(name, row, col, interConn, treasureP, difficulty, rand);
+  }
+
+  /**
+   * fetches the number of locations of the dungeon.
+   *
+   * @return rows * columns.
+   */
+  public int getCells() {
+    return row * col;
+  }
+
+  /*
+  writes the spec in the form read by readFrom.
+   */
+  void writeTo(DataOutput out) throws IOException {
+    out.writeUTF(name);
+    out.writeInt(row);
+    out.writeInt(col);
+    out.writeInt(interConn);
+    out.writeInt(treasureP);
+    out.writeInt(difficulty);
+    out.writeBoolean(wrapping);
+    out.writeLong(seed);
+  }
+
+  /*
+  reads a spec written by writeTo.
+   */
+  static DungeonSpec readFrom(DataInput in) throws IOException {
+    return new DungeonSpec(in.readUTF(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+            in.readInt(), in.readBoolean(), in.readLong());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s %dx%d %s interconnectivity %d treasure %d%% difficulty %d seed %d",
+            name, row, col, wrapping ? "wrapping" : "non-wrapping", interConn, treasureP,
+            difficulty, seed);
+  }
+}
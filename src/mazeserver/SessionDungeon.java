@@ -0,0 +1,498 @@
+package mazeserver;
+
+import maze.ActionLog;
+import maze.CaveGraph;
+import maze.Cell;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.DungeonListener;
+import maze.DungeonReplayer;
+import maze.GenerationReport;
+import maze.LocationDescription;
+import maze.MoveResult;
+import maze.PlayerDescription;
+import maze.PlayerStatus;
+import maze.SmellIntensity;
+import maze.Treasure;
+import maze.WeaponType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Dungeon of a session of a {@link SessionRegistry}, which the registry may spill to disk while
+ * the session is idle.
+ * Every call is passed on to the dungeon of the session, which is restored from its spill file
+ * first when it was spilled, so callers never see the difference. A spill file holds the
+ * {@link DungeonSpec} of the dungeon, the undo depth, the {@link ActionLog} of the game and the
+ * state of its generator; restoring constructs the dungeon again, replays the log and resumes the
+ * generator from the state, so the coin flips after a restore are the ones the game would have
+ * made anyway. Listeners are kept by the session
+ * and added again to a restored dungeon.
+ * Calls are applied one at a time; the registry only spills a session that is not in a call.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class SessionDungeon implements Dungeon, Closeable {
+  private static final int MAGIC = 0x44534553;
+  private static final int VERSION = 2;
+
+  private final SessionRegistry registry;
+  private final long id;
+  private final DungeonSpec spec;
+  private final Path spillFile;
+  private final ReentrantLock lock;
+  private final List<DungeonListener> listeners;
+  private Dungeon delegate;
+  // generator of the dungeon, whose state is spilled with the game.
+  private CustomRandomInteger rand;
+  private int undoDepth;
+  private boolean closed;
+  private volatile long lastAccess;
+
+  /**
+   * Initializes the session with a new dungeon of the spec.
+   *
+   * @param registry  registry the session belongs to.
+   * @param id        id of the session.
+   * @param spec      spec of the dungeon.
+   * @param spillFile file the session is spilled to.
+   * @throws IllegalArgumentException when the spec is not valid for a dungeon.
+   * @throws IllegalStateException    when the dungeon cannot be constructed.
+   */
+  SessionDungeon(SessionRegistry registry, long id, DungeonSpec spec, Path spillFile)
+          throws IllegalArgumentException, IllegalStateException {
+    this.registry = registry;
+    this.id = id;
+    this.spec = spec;
+    this.spillFile = spillFile;
+    this.lock = new ReentrantLock();
+    this.listeners = new ArrayList<>();
+    this.rand = spec.random();
+    this.delegate = spec.create(rand);
+    this.undoDepth = -1;
+    this.lastAccess = System.nanoTime();
+  }
+
+  long getId() {
+    return id;
+  }
+
+  // estimated memory taken by the dungeon while it is resident, in bytes.
+  long getResidentSize() {
+    return (long) spec.getCells() * SessionRegistry.BYTES_PER_CELL;
+  }
+
+  long getLastAccess() {
+    return lastAccess;
+  }
+
+  // called by the registry when it records a use of the session, in the order of the uses.
+  void accessed(long time) {
+    lastAccess = time;
+  }
+
+  /*
+  runs the operation on the dungeon of the session, restoring it first when it was spilled.
+   */
+  private <T> T call(Function<Dungeon, T> op) throws IllegalStateException {
+    lock.lock();
+    try {
+      if (closed) {
+        throw new IllegalStateException("session is closed.");
+      }
+      if (delegate == null) {
+        restore();
+      } else {
+        registry.recordHit();
+      }
+      registry.touch(this);
+      return op.apply(delegate);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void run(Consumer<Dungeon> op) throws IllegalStateException {
+    call(d -> {
+      op.accept(d);
+      return null;
+    });
+  }
+
+  /*
+  writes the session to its spill file and drops the dungeon, unless the session is in a call,
+  closed or already spilled. returns whether the session was spilled.
+   */
+  boolean trySpill() {
+    if (!lock.tryLock()) {
+      return false;
+    }
+    try {
+      if (closed || (delegate == null)) {
+        return false;
+      }
+      try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(spillFile))) {
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        spec.writeTo(out);
+        out.writeInt(undoDepth);
+        delegate.getActionLog().writeTo(out);
+        out.writeLong(rand.getState());
+      } catch (IOException exp) {
+        // stays in memory.
+        return false;
+      }
+      delegate = null;
+      rand = null;
+      registry.spilled(this);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /*
+  constructs the dungeon again from the spill file and replays the game.
+   */
+  private void restore() throws IllegalStateException {
+    long startTime = System.nanoTime();
+    Dungeon dungeon;
+    CustomRandomInteger random;
+    try (InputStream file = new BufferedInputStream(Files.newInputStream(spillFile))) {
+      DataInputStream in = new DataInputStream(file);
+      if ((in.readInt() != MAGIC) || (in.readByte() != VERSION)) {
+        throw new IllegalStateException("spill file does not hold a session.");
+      }
+      DungeonSpec saved = DungeonSpec.readFrom(in);
+      random = saved.random();
+      dungeon = saved.create(random);
+      int depth = in.readInt();
+      if (depth > 0) {
+        dungeon.setUndoDepth(depth);
+      }
+      DungeonReplayer.replay(dungeon, ActionLog.readFrom(in));
+      // replaying applies the recorded flips without drawing them, so the state is set after it.
+      random.setState(in.readLong());
+    } catch (IOException | IllegalArgumentException exp) {
+      throw new IllegalStateException("could not restore the session: " + exp.getMessage());
+    }
+    for (DungeonListener listener : listeners) {
+      dungeon.addListener(listener);
+    }
+    delegate = dungeon;
+    rand = random;
+    deleteSpillFile();
+    registry.recordRestore(System.nanoTime() - startTime);
+  }
+
+  private void deleteSpillFile() {
+    try {
+      Files.deleteIfExists(spillFile);
+    } catch (IOException exp) {
+      // overwritten by the next spill.
+    }
+  }
+
+  /**
+   * ends the session, removing it from the registry along with its spill file.
+   * Calls made after closing fail.
+   */
+  @Override
+  public void close() {
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      delegate = null;
+      deleteSpillFile();
+    } finally {
+      lock.unlock();
+    }
+    registry.closed(this);
+  }
+
+  @Override
+  public String getStart() {
+    return call(Dungeon::getStart);
+  }
+
+  @Override
+  public String getEnd() {
+    return call(Dungeon::getEnd);
+  }
+
+  @Override
+  public int getStartCell() {
+    return call(Dungeon::getStartCell);
+  }
+
+  @Override
+  public int getEndCell() {
+    return call(Dungeon::getEndCell);
+  }
+
+  @Override
+  public void enter() throws IllegalStateException {
+    run(Dungeon::enter);
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeLocation(int row, int col)
+          throws IllegalArgumentException {
+    return call(d -> d.describeLocation(row, col));
+  }
+
+  @Override
+  public int getMoves(int cell) throws IllegalArgumentException {
+    return call(d -> d.getMoves(cell));
+  }
+
+  @Override
+  public int getTreasureAt(int cell, Treasure treasure) throws IllegalArgumentException {
+    return call(d -> d.getTreasureAt(cell, treasure));
+  }
+
+  @Override
+  public int getWeaponAt(int cell, WeaponType weapon) throws IllegalArgumentException {
+    return call(d -> d.getWeaponAt(cell, weapon));
+  }
+
+  @Override
+  public void move(Direction dir) throws IllegalArgumentException, IllegalStateException {
+    run(d -> d.move(dir));
+  }
+
+  @Override
+  public MoveResult moveAlong(Direction[] steps)
+          throws IllegalArgumentException, IllegalStateException {
+    return call(d -> d.moveAlong(steps));
+  }
+
+  @Override
+  public Direction[] pathTo(int row, int col)
+          throws IllegalArgumentException, IllegalStateException {
+    return call(d -> d.pathTo(row, col));
+  }
+
+  @Override
+  public int travelTo(int row, int col) throws IllegalArgumentException, IllegalStateException {
+    return call(d -> d.travelTo(row, col));
+  }
+
+  @Override
+  public Map<Treasure, Integer> collectTreasure() throws IllegalStateException {
+    return call(Dungeon::collectTreasure);
+  }
+
+  @Override
+  public void reset() throws IllegalStateException {
+    run(Dungeon::reset);
+  }
+
+  @Override
+  public Map<WeaponType, Integer> pickWeapon() {
+    return call(Dungeon::pickWeapon);
+  }
+
+  @Override
+  public boolean shootArrow(Direction dir, int distance)
+          throws IllegalArgumentException, IllegalStateException {
+    return call(d -> d.shootArrow(dir, distance));
+  }
+
+  /**
+   * forks the dungeon of the session, the fork is not part of the session.
+   *
+   * @return fork of the game.
+   */
+  @Override
+  public Dungeon fork() {
+    return call(Dungeon::fork);
+  }
+
+  @Override
+  public void undo() throws IllegalStateException {
+    run(Dungeon::undo);
+  }
+
+  @Override
+  public void redo() throws IllegalStateException {
+    run(Dungeon::redo);
+  }
+
+  @Override
+  public boolean canUndo() {
+    return call(Dungeon::canUndo);
+  }
+
+  @Override
+  public boolean canRedo() {
+    return call(Dungeon::canRedo);
+  }
+
+  @Override
+  public void setUndoDepth(int depth) throws IllegalArgumentException {
+    run(d -> {
+      d.setUndoDepth(depth);
+      undoDepth = depth;
+    });
+  }
+
+  @Override
+  public CaveGraph getCaveGraph() {
+    return call(Dungeon::getCaveGraph);
+  }
+
+  @Override
+  public ActionLog getActionLog() {
+    return call(Dungeon::getActionLog);
+  }
+
+  /**
+   * fetches the report of the construction of the dungeon of the session, which is the latest
+   * restore when the session was spilled.
+   *
+   * @return report of the construction.
+   */
+  @Override
+  public GenerationReport getGenerationReport() {
+    return call(Dungeon::getGenerationReport);
+  }
+
+  @Override
+  public int getRow() {
+    return call(Dungeon::getRow);
+  }
+
+  @Override
+  public int getCol() {
+    return call(Dungeon::getCol);
+  }
+
+  @Override
+  public Map<PlayerDescription, List<String>> describePlayer() {
+    return call(Dungeon::describePlayer);
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeLocation() throws IllegalStateException {
+    return call(Dungeon::describeLocation);
+  }
+
+  @Override
+  public String getPlayerLocation() throws IllegalStateException {
+    return call(Dungeon::getPlayerLocation);
+  }
+
+  @Override
+  public Cell getPlayerPosition() throws IllegalStateException {
+    return call(Dungeon::getPlayerPosition);
+  }
+
+  @Override
+  public int getPlayerRow() throws IllegalStateException {
+    return call(Dungeon::getPlayerRow);
+  }
+
+  @Override
+  public int getPlayerCol() throws IllegalStateException {
+    return call(Dungeon::getPlayerCol);
+  }
+
+  @Override
+  public int getPlayerCell() throws IllegalStateException {
+    return call(Dungeon::getPlayerCell);
+  }
+
+  @Override
+  public boolean isVisited(int row, int col) throws IllegalArgumentException {
+    return call(d -> d.isVisited(row, col));
+  }
+
+  @Override
+  public BitSet getVisitedCells() {
+    return call(Dungeon::getVisitedCells);
+  }
+
+  @Override
+  public int getVisitedCount() {
+    return call(Dungeon::getVisitedCount);
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeVisitedLocation(int row, int col)
+          throws IllegalArgumentException, IllegalStateException {
+    return call(d -> d.describeVisitedLocation(row, col));
+  }
+
+  @Override
+  public boolean gameStarted() {
+    return call(Dungeon::gameStarted);
+  }
+
+  @Override
+  public boolean gameEnded() {
+    return call(Dungeon::gameEnded);
+  }
+
+  @Override
+  public PlayerStatus getPlayerStatus() {
+    return call(Dungeon::getPlayerStatus);
+  }
+
+  @Override
+  public SmellIntensity getLocationSmell() {
+    return call(Dungeon::getLocationSmell);
+  }
+
+  @Override
+  public int getPlayerTreasure(Treasure treasure) throws IllegalArgumentException {
+    return call(d -> d.getPlayerTreasure(treasure));
+  }
+
+  @Override
+  public int getPlayerWeapon(WeaponType weapon) throws IllegalArgumentException {
+    return call(d -> d.getPlayerWeapon(weapon));
+  }
+
+  @Override
+  public void addListener(DungeonListener listener) throws IllegalArgumentException {
+    run(d -> {
+      d.addListener(listener);
+      listeners.add(listener);
+    });
+  }
+
+  @Override
+  public void removeListener(DungeonListener listener) {
+    run(d -> {
+      d.removeListener(listener);
+      listeners.remove(listener);
+    });
+  }
+
+  @Override
+  public String toString() {
+    return call(Dungeon::toString);
+  }
+}
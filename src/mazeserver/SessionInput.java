@@ -0,0 +1,48 @@
+package mazeserver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Input of a session, reads the commands sent over the connection.
+ * Before blocking for input it flushes the output of the session, so the client sees every
+ * prompt before it is expected to answer it, while the output of a command is still written in
+ * one go. Commands are ASCII, each byte is read as one character.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class SessionInput extends Reader {
+  private static final int BUFFER_SIZE = 128;
+
+  private final InputStream in;
+  private final SessionOutput out;
+  private final byte[] bytes;
+
+  /**
+   * Initializes the input for the stream of the connection.
+   *
+   * @param in  stream to read from.
+   * @param out output of the session, flushed before reading.
+   */
+  SessionInput(InputStream in, SessionOutput out) {
+    this.in = in;
+    this.out = out;
+    this.bytes = new byte[BUFFER_SIZE];
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    out.flush();
+    int read = in.read(bytes, 0, Math.min(len, bytes.length));
+    for (int i = 0; i < read; i++) {
+      cbuf[off + i] = (char) (bytes[i] & 0xFF);
+    }
+    return read;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,66 @@
+package mazeserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Output of a session, collects what the controller appends and writes it to the connection when
+ * flushed. Nothing is allocated beyond the text appended since the last flush, so an idle session
+ * holds no buffer.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class SessionOutput implements Appendable {
+  private final OutputStream out;
+  private StringBuilder pending;
+
+  /**
+   * Initializes the output for the stream of the connection.
+   *
+   * @param out stream to write to.
+   */
+  SessionOutput(OutputStream out) {
+    this.out = out;
+  }
+
+  @Override
+  public Appendable append(CharSequence csq) {
+    buffer().append(csq);
+    return this;
+  }
+
+  @Override
+  public Appendable append(CharSequence csq, int start, int end) {
+    buffer().append(csq, start, end);
+    return this;
+  }
+
+  @Override
+  public Appendable append(char c) {
+    buffer().append(c);
+    return this;
+  }
+
+  private StringBuilder buffer() {
+    if (pending == null) {
+      pending = new StringBuilder();
+    }
+    return pending;
+  }
+
+  /**
+   * writes the text appended since the last flush to the connection.
+   *
+   * @throws IOException when the connection cannot be written to.
+   */
+  void flush() throws IOException {
+    if (pending == null) {
+      return;
+    }
+    byte[] bytes = pending.toString().getBytes(StandardCharsets.UTF_8);
+    pending = null;
+    out.write(bytes);
+    out.flush();
+  }
+}
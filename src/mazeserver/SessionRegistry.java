@@ -0,0 +1,308 @@
+package mazeserver;
+
+import maze.Dungeon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of game sessions that keeps the recently used sessions in memory and spills the
+ * others to disk.
+ * A session is created from a {@link DungeonSpec} and used through the {@link Dungeon} returned
+ * for it. Its dungeon is resident until the registry spills it, because the resident sessions
+ * take more than the memory budget, least recently used first, or because it was not used for
+ * longer than the idle timeout, which a background sweeper checks; the next call on a spilled
+ * session restores it from the disk before it is applied. The memory a resident session takes
+ * is estimated from the number of locations of its dungeon. A session in the middle of a call is
+ * never spilled.
+ * Spilled sessions take a spill file each in the spill directory, holding only the spec, the
+ * compact action log of the game and the state of its generator. Closing a session removes it,
+ * with its file.
+ * The registry counts the calls that found their session resident (hits) and the restores, and
+ * times the restores. The registry is thread safe.
+ */
+public final class SessionRegistry implements Closeable {
+  static final int BYTES_PER_CELL = 512;
+
+  private final Path spillDir;
+  private final long memoryBudget;
+  private final long idleTimeout;
+  // resident sessions by id, least recently used first; guards memoryUsed.
+  private final LinkedHashMap<Long, SessionDungeon> resident;
+  private long memoryUsed;
+  private final AtomicLong nextId;
+  private final AtomicInteger sessions;
+  private final LongAdder hits;
+  private final LongAdder restores;
+  private final LongAdder restoreNanos;
+  private final LongAdder spills;
+  private final Thread sweeper;
+
+  /**
+   * Initializes the registry.
+   *
+   * @param spillDir     directory for the spill files, created when missing.
+   * @param memoryBudget estimated bytes the resident sessions may take.
+   * @param idleTimeout  milliseconds after which an unused session is spilled, 0 spills sessions
+   *                     only to stay within the budget.
+   * @throws IllegalArgumentException when spillDir is null; when memoryBudget is <= 0; when
+   *                                  idleTimeout is < 0.
+   * @throws IOException              when the spill directory cannot be created.
+   */
+  public SessionRegistry(Path spillDir, long memoryBudget, long idleTimeout)
+          throws IllegalArgumentException, IOException {
+    if (spillDir == null) {
+      throw new IllegalArgumentException("spill directory cannot be null.");
+    }
+    if (memoryBudget <= 0) {
+      throw new IllegalArgumentException("memory budget should be greater than 0.");
+    }
+    if (idleTimeout < 0) {
+      throw new IllegalArgumentException("idle timeout cannot be negative.");
+    }
+    this.spillDir = Files.createDirectories(spillDir);
+    this.memoryBudget = memoryBudget;
+    this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    this.resident = new LinkedHashMap<>(16, 0.75f, true);
+    this.nextId = new AtomicLong();
+    this.sessions = new AtomicInteger();
+    this.hits = new LongAdder();
+    this.restores = new LongAdder();
+    this.restoreNanos = new LongAdder();
+    this.spills = new LongAdder();
+    if (idleTimeout > 0) {
+      // idle sessions make no calls, so they are looked for periodically.
+      long period = Math.max(1, idleTimeout / 2);
+      this.sweeper = new Thread(() -> sweep(period), "dungeon-session-sweeper");
+      this.sweeper.setDaemon(true);
+      this.sweeper.start();
+    } else {
+      this.sweeper = null;
+    }
+  }
+
+  private void sweep(long period) {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        Thread.sleep(period);
+        evictIdle();
+      }
+    } catch (InterruptedException exp) {
+      // the registry was closed.
+    }
+  }
+
+  /**
+   * creates a session with a new dungeon.
+   *
+   * @param spec spec of the dungeon.
+   * @return dungeon of the session, closing it ({@link Closeable}) ends the session.
+   * @throws IllegalArgumentException when spec is null; when the spec is not valid for a
+   *                                  dungeon.
+   * @throws IllegalStateException    when the dungeon cannot be constructed.
+   */
+  public Dungeon create(DungeonSpec spec) throws IllegalArgumentException, IllegalStateException {
+    if (spec == null) {
+      throw new IllegalArgumentException("spec cannot be null.");
+    }
+    long id = nextId.getAndIncrement();
+    SessionDungeon session = new SessionDungeon(this, id, spec,
+            spillDir.resolve("session-" + id + ".bin"));
+    sessions.incrementAndGet();
+    touch(session);
+    return session;
+  }
+
+  /**
+   * spills the sessions that were not used for longer than the idle timeout. Does nothing when
+   * the idle timeout is 0.
+   */
+  public void evictIdle() {
+    if (idleTimeout == 0) {
+      return;
+    }
+    List<SessionDungeon> victims = new ArrayList<>();
+    long now = System.nanoTime();
+    synchronized (resident) {
+      // the last access is recorded along with the access order, so the sessions are in the
+      // order they became idle and the first one in use ends the idle ones.
+      for (SessionDungeon candidate : resident.values()) {
+        if (now - candidate.getLastAccess() <= idleTimeout) {
+          break;
+        }
+        victims.add(candidate);
+      }
+    }
+    spill(victims);
+  }
+
+  /*
+  records the use of the session, which is resident, and spills the least recently used other
+  sessions beyond the budget. idle sessions are left to the sweeper, so the lock of the
+  registry is held only as long as the budget asks for.
+  called by the session while it holds its own lock; the other sessions are only spilled when
+  their lock is free, so sessions never wait for each other.
+   */
+  void touch(SessionDungeon session) {
+    List<SessionDungeon> victims = new ArrayList<>();
+    synchronized (resident) {
+      session.accessed(System.nanoTime());
+      if (resident.put(session.getId(), session) == null) {
+        memoryUsed += session.getResidentSize();
+      }
+      long excess = memoryUsed - memoryBudget;
+      for (SessionDungeon candidate : resident.values()) {
+        if (excess <= 0) {
+          break;
+        }
+        if (candidate != session) {
+          victims.add(candidate);
+          excess -= candidate.getResidentSize();
+        }
+      }
+    }
+    spill(victims);
+  }
+
+  private static void spill(List<SessionDungeon> victims) {
+    for (SessionDungeon victim : victims) {
+      victim.trySpill();
+    }
+  }
+
+  // called by a session once it was written to its spill file.
+  void spilled(SessionDungeon session) {
+    synchronized (resident) {
+      if (resident.remove(session.getId()) != null) {
+        memoryUsed -= session.getResidentSize();
+      }
+    }
+    spills.increment();
+  }
+
+  // called by a session once it was closed.
+  void closed(SessionDungeon session) {
+    synchronized (resident) {
+      if (resident.remove(session.getId()) != null) {
+        memoryUsed -= session.getResidentSize();
+      }
+    }
+    sessions.decrementAndGet();
+  }
+
+  void recordHit() {
+    hits.increment();
+  }
+
+  void recordRestore(long nanos) {
+    restores.increment();
+    restoreNanos.add(nanos);
+  }
+
+  /**
+   * fetches the number of open sessions.
+   *
+   * @return sessions.
+   */
+  public int getSessions() {
+    return sessions.get();
+  }
+
+  /**
+   * fetches the number of sessions in memory.
+   *
+   * @return resident sessions.
+   */
+  public int getResidentSessions() {
+    synchronized (resident) {
+      return resident.size();
+    }
+  }
+
+  /**
+   * fetches the estimated memory taken by the resident sessions.
+   *
+   * @return bytes.
+   */
+  public long getMemoryUsed() {
+    synchronized (resident) {
+      return memoryUsed;
+    }
+  }
+
+  /**
+   * fetches the number of calls that found their session in memory.
+   *
+   * @return hits.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * fetches the number of sessions restored from the disk.
+   *
+   * @return restores.
+   */
+  public long getRestores() {
+    return restores.sum();
+  }
+
+  /**
+   * fetches the number of sessions spilled to the disk.
+   *
+   * @return spills.
+   */
+  public long getSpills() {
+    return spills.sum();
+  }
+
+  /**
+   * fetches the fraction of calls that found their session in memory.
+   *
+   * @return hit rate between 0 and 1, 1 when there were no calls.
+   */
+  public double getHitRate() {
+    long hit = hits.sum();
+    long total = hit + restores.sum();
+    return (total == 0) ? 1 : (double) hit / total;
+  }
+
+  /**
+   * fetches the mean time taken to restore a session.
+   *
+   * @return milliseconds, 0 when no session was restored.
+   */
+  public double getMeanRestoreMillis() {
+    long count = restores.sum();
+    return (count == 0) ? 0 : restoreNanos.sum() / 1e6 / count;
+  }
+
+  /**
+   * stops looking for idle sessions. Sessions stay usable and are still spilled to stay within
+   * the budget.
+   */
+  @Override
+  public void close() {
+    if (sweeper != null) {
+      sweeper.interrupt();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d sessions, %d resident (%d KB), hit rate %.3f, %d restores "
+                    + "(mean %.2f ms), %d spills", getSessions(), getResidentSessions(),
+            getMemoryUsed() / 1024, getHitRate(), getRestores(), getMeanRestoreMillis(),
+            getSpills());
+  }
+}
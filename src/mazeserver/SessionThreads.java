@@ -0,0 +1,55 @@
+package mazeserver;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads that run the sessions of a server.
+ * Virtual threads are used when the runtime has them, they are looked up reflectively so that
+ * the server still builds and runs on runtimes without them. Otherwise sessions run on daemon
+ * platform threads with a small stack, a session only ever runs the shallow console controller.
+ * Intentionally making the class package private since it should not be available outside
+ * the package.
+ */
+final class SessionThreads {
+  static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+  private SessionThreads() {
+  }
+
+  /**
+   * creates a factory of virtual threads.
+   *
+   * @return factory, null when the runtime has no virtual threads or they are not enabled.
+   */
+  static ThreadFactory virtual() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      Method name = builderType.getMethod("name", String.class, long.class);
+      builder = name.invoke(builder, "dungeon-session-", 0L);
+      ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+      // preview runtimes only fail when a thread is created.
+      factory.newThread(() -> { });
+      return factory;
+    } catch (ReflectiveOperationException | RuntimeException exp) {
+      return null;
+    }
+  }
+
+  /**
+   * creates a factory of daemon platform threads with the given stack size.
+   *
+   * @param stackSize stack size of the threads in bytes, 0 for the default.
+   * @return factory.
+   */
+  static ThreadFactory platform(long stackSize) {
+    AtomicInteger count = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(null, r, "dungeon-session-" + count.getAndIncrement(), stackSize);
+      t.setDaemon(true);
+      return t;
+    };
+  }
+}
@@ -0,0 +1,99 @@
+package mazesimulation;
+
+import maze.Direction;
+
+/**
+ * Represents an action taken by an {@link Agent} in a turn.
+ * Actions are immutable, use the factory methods to create them.
+ */
+public final class Action {
+  private static final Action PICKUP = new Action(ActionType.PICKUP, null, 0);
+
+  private final ActionType type;
+  private final Direction direction;
+  private final int distance;
+
+  private Action(ActionType type, Direction direction, int distance) {
+    this.type = type;
+    this.direction = direction;
+    this.distance = distance;
+  }
+
+  /**
+   * creates an action that moves the player.
+   *
+   * @param direction {@link Direction} to move.
+   * @return move action.
+   * @throws IllegalArgumentException when direction is null.
+   */
+  public static Action move(Direction direction) throws IllegalArgumentException {
+    if (direction == null) {
+      throw new IllegalArgumentException("direction cannot be null.");
+    }
+    return new Action(ActionType.MOVE, direction, 0);
+  }
+
+  /**
+   * creates an action that collects the treasure and weapons at the player's location.
+   *
+   * @return pickup action.
+   */
+  public static Action pickUp() {
+    return PICKUP;
+  }
+
+  /**
+   * creates an action that shoots an arrow.
+   *
+   * @param direction {@link Direction} to shoot.
+   * @param distance  number of caves the arrow should travel.
+   * @return shoot action.
+   * @throws IllegalArgumentException when direction is null; when distance is <= 0.
+   */
+  public static Action shoot(Direction direction, int distance) throws IllegalArgumentException {
+    if (direction == null) {
+      throw new IllegalArgumentException("direction cannot be null.");
+    }
+    if (distance <= 0) {
+      throw new IllegalArgumentException("distance cannot be <= 0.");
+    }
+    return new Action(ActionType.SHOOT, direction, distance);
+  }
+
+  /**
+   * fetches the type of the action.
+   *
+   * @return {@link ActionType}.
+   */
+  public ActionType getType() {
+    return type;
+  }
+
+  /**
+   * fetches the direction of a move / shoot action.
+   *
+   * @return {@link Direction}, null for a pickup action.
+   */
+  public Direction getDirection() {
+    return direction;
+  }
+
+  /**
+   * fetches the distance of a shoot action.
+   *
+   * @return distance, 0 for other actions.
+   */
+  public int getDistance() {
+    return distance;
+  }
+
+  @Override
+  public String toString() {
+    if (type == ActionType.PICKUP) {
+      return type.name();
+    } else if (type == ActionType.MOVE) {
+      return type.name() + " " + direction.name();
+    }
+    return type.name() + " " + direction.name() + " " + distance;
+  }
+}
@@ -0,0 +1,9 @@
+package mazesimulation;
+
+/**
+ * Represents the kinds of actions an {@link Agent} can take in a turn.
+ * PICKUP collects both the treasure and the weapons at the player's location.
+ */
+public enum ActionType {
+  MOVE, PICKUP, SHOOT
+}
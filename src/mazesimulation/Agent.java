@@ -0,0 +1,21 @@
+package mazesimulation;
+
+import maze.RandomInteger;
+
+/**
+ * Represents a player that decides its actions from the observed state of a game.
+ * An agent may remember what it observed in the earlier turns of a game, so the
+ * {@link SimulationRunner} uses a new agent for every game.
+ */
+public interface Agent {
+
+  /**
+   * decides the action for the current turn.
+   *
+   * @param observation {@link Observation} of the game at the start of the turn.
+   * @param rand        {@link RandomInteger} seeded per game, agents should use it for all of
+   *                    their random choices so that a game can be reproduced from its seed.
+   * @return {@link Action} to take, should not be null.
+   */
+  Action nextAction(Observation observation, RandomInteger rand);
+}
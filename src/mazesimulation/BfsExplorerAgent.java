@@ -0,0 +1,113 @@
+package mazesimulation;
+
+import maze.Direction;
+import maze.RandomInteger;
+import maze.SmellIntensity;
+
+import java.util.Arrays;
+
+/**
+ * Agent that explores the dungeon systematically.
+ * Remembers the possible moves of every location it visited and always heads to the closest
+ * location it has not visited yet, found with a breadth first search over the visited part of
+ * the dungeon. Wrapping dungeons are handled by wrapping the row / column of a neighbour.
+ * Picks up whatever is at its location. When a monster is next to it (strong smell), shoots up
+ * to two arrows towards the location it is about to move to before moving.
+ * An agent remembers a single game, a new agent should be used for every game.
+ */
+public final class BfsExplorerAgent implements Agent {
+  private static final int VISITED = 1 << 4;
+  private static final int MOVES_BITS = 0x0f;
+  private static final int MAX_SHOTS = 2;
+  private static final int[] ROW_STEP = {-1, 0, 0, 1};
+  private static final int[] COL_STEP = {0, -1, 1, 0};
+
+  private byte[] known;
+  private byte[] shots;
+  private int[] queue;
+  private byte[] firstStep;
+  private int rows;
+  private int cols;
+
+  @Override
+  public Action nextAction(Observation observation, RandomInteger rand) {
+    if (known == null) {
+      rows = observation.getRows();
+      cols = observation.getCols();
+      known = new byte[rows * cols];
+      shots = new byte[rows * cols * 4];
+      queue = new int[rows * cols];
+      firstStep = new byte[rows * cols];
+    }
+    int cell = observation.getRow() * cols + observation.getCol();
+    known[cell] = (byte) (observation.getMoves() | VISITED);
+
+    if ((observation.getTreasureHere() > 0) || (observation.getArrowsHere() > 0)) {
+      return Action.pickUp();
+    }
+    int dir = stepTowardsUnvisited(cell);
+    if (dir < 0) {
+      // everything reachable is visited, wander.
+      dir = randomMove(observation.getMoves(), rand);
+    }
+    Direction direction = Direction.values()[dir];
+    if ((observation.getSmell() == SmellIntensity.HIGH) && (observation.getArrows() > 0)
+            && (shots[cell * 4 + dir] < MAX_SHOTS)) {
+      shots[cell * 4 + dir]++;
+      return Action.shoot(direction, 1);
+    }
+    return Action.move(direction);
+  }
+
+  /*
+  breadth first search from the given location over the visited locations.
+  returns the direction of the first step on a shortest path to an unvisited location,
+  -1 when there is no unvisited location next to the visited ones.
+   */
+  private int stepTowardsUnvisited(int from) {
+    Arrays.fill(firstStep, (byte) -1);
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = from;
+    firstStep[from] = 4;
+    while (head < tail) {
+      int cell = queue[head++];
+      int moves = known[cell] & MOVES_BITS;
+      for (int d = 0; d < 4; d++) {
+        if ((moves & (1 << d)) == 0) {
+          continue;
+        }
+        int next = neighbour(cell, d);
+        if (firstStep[next] != -1) {
+          continue;
+        }
+        int step = (cell == from) ? d : firstStep[cell];
+        if ((known[next] & VISITED) == 0) {
+          return step;
+        }
+        firstStep[next] = (byte) step;
+        queue[tail++] = next;
+      }
+    }
+    return -1;
+  }
+
+  private int neighbour(int cell, int dir) {
+    int r = Math.floorMod(cell / cols + ROW_STEP[dir], rows);
+    int c = Math.floorMod(cell % cols + COL_STEP[dir], cols);
+    return r * cols + c;
+  }
+
+  private static int randomMove(int moves, RandomInteger rand) {
+    int pick = rand.nextInt(0, Integer.bitCount(moves));
+    for (int d = 0; d < 4; d++) {
+      if ((moves & (1 << d)) != 0) {
+        if (pick == 0) {
+          return d;
+        }
+        pick--;
+      }
+    }
+    throw new IllegalStateException("location has no possible moves.");
+  }
+}
@@ -0,0 +1,172 @@
+package mazesimulation;
+
+import maze.Direction;
+import maze.Dungeon;
+import maze.SmellIntensity;
+import maze.Treasure;
+import maze.WeaponType;
+
+/**
+ * Represents what the player can observe at the start of a turn: the player's location and the
+ * moves possible from it, the treasure / arrows at the location, the smell and the arrows held.
+ * Monsters and the locations the player has not visited are not observable.
+ * Observations are immutable.
+ */
+public final class Observation {
+  private final int turn;
+  private final int rows;
+  private final int cols;
+  private final int row;
+  private final int col;
+  private final int moves;
+  private final boolean tunnel;
+  private final int treasureHere;
+  private final int arrowsHere;
+  private final SmellIntensity smell;
+  private final int arrows;
+
+  private Observation(int turn, int rows, int cols, int row, int col, int moves,
+                      boolean tunnel, int treasureHere, int arrowsHere, SmellIntensity smell,
+                      int arrows) {
+    this.turn = turn;
+    this.rows = rows;
+    this.cols = cols;
+    this.row = row;
+    this.col = col;
+    this.moves = moves;
+    this.tunnel = tunnel;
+    this.treasureHere = treasureHere;
+    this.arrowsHere = arrowsHere;
+    this.smell = smell;
+    this.arrows = arrows;
+  }
+
+  /*
+  observes the dungeon the player has entered.
+  the fields are read with the typed accessors of the dungeon, no description is built.
+   */
+  static Observation of(Dungeon dungeon, int turn) {
+    int cols = dungeon.getCol();
+    int cell = dungeon.getPlayerCell();
+    int moves = dungeon.getMoves(cell);
+    int treasureHere = 0;
+    for (Treasure t : Treasure.values()) {
+      treasureHere += dungeon.getTreasureAt(cell, t);
+    }
+    // a location with exactly two moves is a tunnel, as in the dungeons.
+    return new Observation(turn, dungeon.getRow(), cols, cell / cols, cell % cols, moves,
+            Integer.bitCount(moves) == 2, treasureHere,
+            dungeon.getWeaponAt(cell, WeaponType.CROOKEDARROW), dungeon.getLocationSmell(),
+            dungeon.getPlayerWeapon(WeaponType.CROOKEDARROW));
+  }
+
+  /**
+   * fetches the number of turns taken before this observation.
+   *
+   * @return turn, starting with 0.
+   */
+  public int getTurn() {
+    return turn;
+  }
+
+  /**
+   * fetches the number of rows in the dungeon.
+   *
+   * @return rows.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * fetches the number of columns in the dungeon.
+   *
+   * @return columns.
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * fetches the row of the player's location.
+   *
+   * @return row.
+   */
+  public int getRow() {
+    return row;
+  }
+
+  /**
+   * fetches the column of the player's location.
+   *
+   * @return column.
+   */
+  public int getCol() {
+    return col;
+  }
+
+  /**
+   * checks whether the player can move in the given direction.
+   *
+   * @param direction {@link Direction}.
+   * @return true if there is a neighbouring location in the direction.
+   */
+  public boolean canMove(Direction direction) {
+    return (direction != null) && ((moves & (1 << direction.ordinal())) != 0);
+  }
+
+  /**
+   * fetches the possible moves as a mask with bit {@link Direction}.ordinal() set for each
+   * direction the player can move in.
+   *
+   * @return moves mask.
+   */
+  public int getMoves() {
+    return moves;
+  }
+
+  /**
+   * checks whether the player's location is a tunnel.
+   *
+   * @return true for a tunnel, false for a cave.
+   */
+  public boolean isTunnel() {
+    return tunnel;
+  }
+
+  /**
+   * fetches the total quantity of all the {@link Treasure} at the player's location.
+   *
+   * @return treasure quantity.
+   */
+  public int getTreasureHere() {
+    return treasureHere;
+  }
+
+  /**
+   * fetches the number of arrows at the player's location.
+   *
+   * @return arrows.
+   */
+  public int getArrowsHere() {
+    return arrowsHere;
+  }
+
+  /**
+   * fetches the smell at the player's location.
+   *
+   * @return {@link SmellIntensity}, null when there is no smell.
+   */
+  public SmellIntensity getSmell() {
+    return smell;
+  }
+
+  /**
+   * fetches the number of arrows the player holds.
+   *
+   * @return arrows.
+   */
+  public int getArrows() {
+    return arrows;
+  }
+}
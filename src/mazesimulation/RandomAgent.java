@@ -0,0 +1,41 @@
+package mazesimulation;
+
+import maze.Direction;
+import maze.RandomInteger;
+import maze.SmellIntensity;
+
+/**
+ * Agent that wanders the dungeon randomly.
+ * Picks up whatever is at its location, otherwise moves in a random possible direction.
+ * When a monster is next to it (strong smell) and it has arrows, shoots in a random possible
+ * direction half of the time.
+ * Serves as the baseline the other agents are compared to.
+ */
+public final class RandomAgent implements Agent {
+
+  @Override
+  public Action nextAction(Observation observation, RandomInteger rand) {
+    if ((observation.getTreasureHere() > 0) || (observation.getArrowsHere() > 0)) {
+      return Action.pickUp();
+    }
+    Direction[] directions = Direction.values();
+    int moves = observation.getMoves();
+    // picks the n-th set bit of the moves mask.
+    int pick = rand.nextInt(0, Integer.bitCount(moves));
+    Direction direction = null;
+    for (Direction d : directions) {
+      if ((moves & (1 << d.ordinal())) != 0) {
+        if (pick == 0) {
+          direction = d;
+          break;
+        }
+        pick--;
+      }
+    }
+    if ((observation.getSmell() == SmellIntensity.HIGH) && (observation.getArrows() > 0)
+            && (rand.nextInt(0, 2) == 0)) {
+      return Action.shoot(direction, 1);
+    }
+    return Action.move(direction);
+  }
+}
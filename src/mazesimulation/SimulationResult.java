@@ -0,0 +1,182 @@
+package mazesimulation;
+
+/**
+ * Represents the aggregated outcome of the games played by a {@link SimulationRunner}.
+ * A game is won when the player reaches the end alive, lost when the player is killed and
+ * timed out when it is still running after the maximum number of turns. Games whose dungeon
+ * could not be constructed are counted as failed and are not part of the other numbers.
+ * Results are immutable.
+ */
+public final class SimulationResult {
+  private final long games;
+  private final long wins;
+  private final long deaths;
+  private final long timeouts;
+  private final long failed;
+  private final long turns;
+  private final long invalidActions;
+  private final long treasure;
+  private final long arrowsUsed;
+  private final long monstersHit;
+
+  SimulationResult(long games, long wins, long deaths, long timeouts, long failed, long turns,
+                   long invalidActions, long treasure, long arrowsUsed, long monstersHit) {
+    this.games = games;
+    this.wins = wins;
+    this.deaths = deaths;
+    this.timeouts = timeouts;
+    this.failed = failed;
+    this.turns = turns;
+    this.invalidActions = invalidActions;
+    this.treasure = treasure;
+    this.arrowsUsed = arrowsUsed;
+    this.monstersHit = monstersHit;
+  }
+
+  // combines the results of two disjoint sets of games.
+  SimulationResult combine(SimulationResult other) {
+    return new SimulationResult(games + other.games, wins + other.wins, deaths + other.deaths,
+            timeouts + other.timeouts, failed + other.failed, turns + other.turns,
+            invalidActions + other.invalidActions, treasure + other.treasure,
+            arrowsUsed + other.arrowsUsed, monstersHit + other.monstersHit);
+  }
+
+  /**
+   * fetches the number of games played, excluding the failed ones.
+   *
+   * @return games.
+   */
+  public long getGames() {
+    return games;
+  }
+
+  /**
+   * fetches the number of games won.
+   *
+   * @return wins.
+   */
+  public long getWins() {
+    return wins;
+  }
+
+  /**
+   * fetches the number of games in which the player was killed.
+   *
+   * @return deaths.
+   */
+  public long getDeaths() {
+    return deaths;
+  }
+
+  /**
+   * fetches the number of games stopped at the maximum number of turns.
+   *
+   * @return timeouts.
+   */
+  public long getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * fetches the number of games whose dungeon could not be constructed.
+   *
+   * @return failed games.
+   */
+  public long getFailed() {
+    return failed;
+  }
+
+  /**
+   * fetches the total number of turns taken in all the games.
+   *
+   * @return turns.
+   */
+  public long getTurns() {
+    return turns;
+  }
+
+  /**
+   * fetches the number of actions the dungeon rejected, like moving into a wall.
+   *
+   * @return invalid actions.
+   */
+  public long getInvalidActions() {
+    return invalidActions;
+  }
+
+  /**
+   * fetches the total quantity of treasure the players held at the end of their games.
+   *
+   * @return treasure.
+   */
+  public long getTreasure() {
+    return treasure;
+  }
+
+  /**
+   * fetches the number of arrows shot in all the games.
+   *
+   * @return arrows used.
+   */
+  public long getArrowsUsed() {
+    return arrowsUsed;
+  }
+
+  /**
+   * fetches the number of arrows that hit a monster in all the games.
+   *
+   * @return hits.
+   */
+  public long getMonstersHit() {
+    return monstersHit;
+  }
+
+  /**
+   * fetches the fraction of the games won.
+   *
+   * @return win rate between 0 and 1, 0 when no game was played.
+   */
+  public double getWinRate() {
+    return rate(wins);
+  }
+
+  /**
+   * fetches the fraction of the games in which the player was killed.
+   *
+   * @return death rate between 0 and 1, 0 when no game was played.
+   */
+  public double getDeathRate() {
+    return rate(deaths);
+  }
+
+  /**
+   * fetches the average number of turns per game.
+   *
+   * @return average turns, 0 when no game was played.
+   */
+  public double getAverageTurns() {
+    return rate(turns);
+  }
+
+  /**
+   * fetches the average quantity of treasure per game.
+   *
+   * @return average treasure, 0 when no game was played.
+   */
+  public double getAverageTreasure() {
+    return rate(treasure);
+  }
+
+  private double rate(long count) {
+    return (games == 0) ? 0 : (double) count / games;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("games: %d (failed: %d)\nwin rate: %.4f\ndeath rate: %.4f\n"
+                    + "timeouts: %d\naverage turns: %.2f\naverage treasure: %.2f\n"
+                    + "arrows used: %d (hits: %d)\ninvalid actions: %d", games, failed,
+            getWinRate(), getDeathRate(), timeouts, getAverageTurns(), getAverageTreasure(),
+            arrowsUsed, monstersHit, invalidActions);
+  }
+}
@@ -0,0 +1,183 @@
+package mazesimulation;
+
+import maze.CustomRandomInteger;
+import maze.Dungeon;
+import maze.PlayerStatus;
+import maze.RandomInteger;
+import maze.Treasure;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Plays many games headless and aggregates their outcome.
+ * Game i of a run is played in the dungeon created for seed firstSeed + i, by a new
+ * {@link Agent} that gets a {@link RandomInteger} seeded from the same seed, so a run is
+ * reproducible as long as the dungeons are created with seeded generators.
+ * Games are split into small batches that are played on a fork join pool of the runner, which
+ * is shut down when the runner is closed.
+ */
+public final class SimulationRunner implements AutoCloseable {
+  private static final int GAMES_PER_TASK = 16;
+  // keeps the agent's choices independent of the dungeon created from the same seed.
+  private static final long AGENT_SEED_SALT = 0x9E3779B97F4A7C15L;
+  private static final SimulationResult FAILED = new SimulationResult(
+          0, 0, 0, 0, 1, 0, 0, 0, 0, 0);
+  private static final SimulationResult NONE = new SimulationResult(
+          0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+  private final LongFunction<Dungeon> dungeons;
+  private final Supplier<Agent> agents;
+  private final int maxTurns;
+  private final ForkJoinPool pool;
+
+  /**
+   * Initializes the runner.
+   *
+   * @param dungeons    creates the dungeon for a seed, for example a {@link maze.WrappingDungeon}
+   *                    constructed with {@link CustomRandomInteger}(seed).
+   * @param agents      creates the agent for a game.
+   * @param maxTurns    number of turns after which a game is stopped.
+   * @param parallelism number of threads used to play the games.
+   * @throws IllegalArgumentException when dungeons / agents is null; when maxTurns /
+   *                                  parallelism is <= 0.
+   */
+  public SimulationRunner(LongFunction<Dungeon> dungeons, Supplier<Agent> agents, int maxTurns,
+                          int parallelism) throws IllegalArgumentException {
+    if ((dungeons == null) || (agents == null)) {
+      throw new IllegalArgumentException("dungeons and agents cannot be null.");
+    }
+    if (maxTurns <= 0) {
+      throw new IllegalArgumentException("maximum turns should be greater than 0.");
+    }
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism should be greater than 0.");
+    }
+    this.dungeons = dungeons;
+    this.agents = agents;
+    this.maxTurns = maxTurns;
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * plays the given number of games.
+   *
+   * @param firstSeed seed of the first game, the following games use the following seeds.
+   * @param games     number of games to play.
+   * @return aggregated {@link SimulationResult}.
+   * @throws IllegalArgumentException when games is < 0.
+   * @throws IllegalStateException    when the runner is closed.
+   */
+  public SimulationResult run(long firstSeed, int games)
+          throws IllegalArgumentException, IllegalStateException {
+    if (games < 0) {
+      throw new IllegalArgumentException("number of games cannot be negative.");
+    }
+    if (pool.isShutdown()) {
+      throw new IllegalStateException("runner is closed.");
+    }
+    return pool.invoke(new GamesTask(firstSeed, games));
+  }
+
+  /**
+   * shuts down the threads of the runner, games being played are finished first.
+   */
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+
+  /*
+  plays a single game.
+  an action the dungeon rejects is counted as invalid and still takes a turn, so an agent
+  that keeps making invalid actions times out.
+   */
+  private SimulationResult play(long seed) {
+    Dungeon dungeon;
+    try {
+      dungeon = dungeons.apply(seed);
+    } catch (IllegalArgumentException | IllegalStateException exp) {
+      return FAILED;
+    }
+    if (dungeon == null) {
+      return FAILED;
+    }
+    Agent agent = agents.get();
+    RandomInteger rand = new CustomRandomInteger(seed ^ AGENT_SEED_SALT);
+    dungeon.enter();
+
+    int turn = 0;
+    long invalid = 0;
+    long shots = 0;
+    long hits = 0;
+    while ((!dungeon.gameEnded()) && (turn < maxTurns)) {
+      Action action = agent.nextAction(Observation.of(dungeon, turn), rand);
+      turn++;
+      if (action == null) {
+        invalid++;
+        continue;
+      }
+      try {
+        switch (action.getType()) {
+          case MOVE:
+            dungeon.move(action.getDirection());
+            break;
+          case PICKUP:
+            dungeon.collectTreasure();
+            dungeon.pickWeapon();
+            break;
+          case SHOOT:
+            if (dungeon.shootArrow(action.getDirection(), action.getDistance())) {
+              hits++;
+            }
+            shots++;
+            break;
+          default:
+            invalid++;
+        }
+      } catch (IllegalArgumentException | IllegalStateException exp) {
+        invalid++;
+      }
+    }
+
+    long treasure = 0;
+    for (Treasure t : Treasure.values()) {
+      treasure += dungeon.getPlayerTreasure(t);
+    }
+    boolean dead = dungeon.getPlayerStatus() == PlayerStatus.DECEASED;
+    boolean won = dungeon.gameEnded() && !dead;
+    return new SimulationResult(1, won ? 1 : 0, dead ? 1 : 0,
+            dungeon.gameEnded() ? 0 : 1, 0, turn, invalid, treasure, shots, hits);
+  }
+
+  // plays the games of a seed range, splitting the range until it is small enough.
+  private final class GamesTask extends RecursiveTask<SimulationResult> {
+    private static final long serialVersionUID = 1L;
+    private final long firstSeed;
+    private final int games;
+
+    private GamesTask(long firstSeed, int games) {
+      this.firstSeed = firstSeed;
+      this.games = games;
+    }
+
+    @Override
+    protected SimulationResult compute() {
+      if (games <= GAMES_PER_TASK) {
+        SimulationResult result = NONE;
+        for (int i = 0; i < games; i++) {
+          result = result.combine(play(firstSeed + i));
+        }
+        return result;
+      }
+      int half = games / 2;
+      GamesTask first = new GamesTask(firstSeed, half);
+      GamesTask second = new GamesTask(firstSeed + half, games - half);
+      first.fork();
+      SimulationResult secondResult = second.compute();
+      return first.join().combine(secondResult);
+    }
+  }
+}
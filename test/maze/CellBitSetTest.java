@@ -0,0 +1,64 @@
+package maze;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link CellBitSet}.
+ */
+public class CellBitSetTest {
+
+  private CellBitSet set;
+
+  @Before
+  public void setUp() throws Exception {
+    set = new CellBitSet(200);
+  }
+
+  @Test
+  public void setAndGet() {
+    set.set(0);
+    set.set(63);
+    set.set(64);
+    set.set(199);
+    set.set(64);
+    assertTrue(set.get(0));
+    assertTrue(set.get(63));
+    assertTrue(set.get(64));
+    assertTrue(set.get(199));
+    assertFalse(set.get(1));
+    assertEquals(4, set.cardinality());
+
+    BitSet bits = set.toBitSet();
+    assertEquals(4, bits.cardinality());
+    assertTrue(bits.get(199));
+  }
+
+  @Test
+  public void forkIsCopyOnWrite() {
+    set.set(5);
+    CellBitSet fork = set.fork();
+    fork.set(6);
+    set.set(7);
+    assertTrue(fork.get(5));
+    assertTrue(fork.get(6));
+    assertFalse(fork.get(7));
+    assertFalse(set.get(6));
+    assertTrue(set.get(7));
+  }
+
+  @Test
+  public void clearDoesNotAffectFork() {
+    set.set(5);
+    CellBitSet fork = set.fork();
+    set.clear();
+    assertEquals(0, set.cardinality());
+    assertTrue(fork.get(5));
+  }
+}
@@ -0,0 +1,70 @@
+package maze;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Testing class for {@link ContentOverlay}.
+ */
+public class ContentOverlayTest {
+
+  private ContentOverlay overlay;
+
+  @Before
+  public void setUp() throws Exception {
+    overlay = new ContentOverlay();
+  }
+
+  @Test
+  public void unchangedLocation() {
+    assertEquals("unchanged location should have state 0", 0, overlay.get(42));
+    assertEquals(0, overlay.size());
+  }
+
+  @Test
+  public void putAndGet() {
+    for (int i = 0; i < 1000; i++) {
+      overlay.put(i * 7, i + 1);
+    }
+    overlay.put(0, ContentOverlay.TREASURE_TAKEN);
+    assertEquals(1000, overlay.size());
+    assertEquals(ContentOverlay.TREASURE_TAKEN, overlay.get(0));
+    for (int i = 1; i < 1000; i++) {
+      assertEquals(i + 1, overlay.get(i * 7));
+    }
+    assertEquals(0, overlay.get(1));
+  }
+
+  @Test
+  public void forkIsCopyOnWrite() {
+    overlay.put(3, ContentOverlay.ARROWS_TAKEN);
+    ContentOverlay fork = overlay.fork();
+    fork.put(3, ContentOverlay.TREASURE_TAKEN);
+    fork.put(4, ContentOverlay.TREASURE_TAKEN);
+    overlay.put(5, ContentOverlay.TREASURE_TAKEN);
+
+    assertEquals(ContentOverlay.ARROWS_TAKEN, overlay.get(3));
+    assertEquals(0, overlay.get(4));
+    assertEquals(ContentOverlay.TREASURE_TAKEN, overlay.get(5));
+    assertEquals(ContentOverlay.TREASURE_TAKEN, fork.get(3));
+    assertEquals(ContentOverlay.TREASURE_TAKEN, fork.get(4));
+    assertEquals(0, fork.get(5));
+  }
+
+  @Test
+  public void clear() {
+    overlay.put(3, ContentOverlay.ARROWS_TAKEN);
+    ContentOverlay fork = overlay.fork();
+    overlay.clear();
+    assertEquals(0, overlay.get(3));
+    assertEquals(0, overlay.size());
+    assertEquals("clearing should not change the fork.",
+            ContentOverlay.ARROWS_TAKEN, fork.get(3));
+    fork.clear();
+    fork.put(8, ContentOverlay.TREASURE_TAKEN);
+    assertEquals(0, fork.get(3));
+    assertEquals(ContentOverlay.TREASURE_TAKEN, fork.get(8));
+  }
+}
@@ -10,8 +10,10 @@ import maze.NonWrappingDungeon;
 import maze.RandomInteger;
 import mazeconsolecontroller.DungeonConsoleController;
 import mazeconsolecontroller.DungeonController;
+import mazemetrics.MetricsRegistry;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Testing class to test {@link DungeonConsoleController} along with the model.
@@ -406,6 +408,23 @@ public class DungeonConsoleControllerTest {
     assertEquals("output state should match", gameLog.toString());
   }
 
+  @Test
+  public void playGameStats() {
+    StringReader input = new StringReader("stats " + inputForPredefinedT
+            + " M W M W M W stats Q");
+    Appendable gameLog = new StringBuffer();
+    MetricsRegistry metrics = new MetricsRegistry();
+    DungeonController control = new DungeonConsoleController(input, gameLog, metrics);
+    control.playGame(nonWrap);
+    String log = gameLog.toString();
+    // the stats are printed at the action prompt and at the end prompt.
+    assertEquals(2, log.split("p50 ms").length - 1);
+    assertTrue(log.contains("console.move"));
+    assertEquals(1, metrics.histogram("console.describeLoc").getCount());
+    assertTrue(metrics.histogram("console.nextAction").getCount() > 0);
+    assertTrue(metrics.histogram("console.collectT").getCount() > 0);
+  }
+
   @Test
   public void playGamePlayerDeceased() {
     StringReader input = new StringReader(inputForPredefinedT + " M W M W M W P L Q");
@@ -1,13 +1,20 @@
 package mazecontrollertest;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import maze.ActionLog;
+import maze.CaveGraph;
+import maze.Cell;
 import maze.Direction;
 import maze.Dungeon;
+import maze.DungeonListener;
+import maze.GenerationReport;
 import maze.LocationDescription;
+import maze.MoveResult;
 import maze.PlayerDescription;
 import maze.PlayerStatus;
 import maze.SmellIntensity;
@@ -56,6 +63,16 @@ class MockDungeonModel implements Dungeon {
     return null;
   }
 
+  @Override
+  public int getStartCell() {
+    return 0;
+  }
+
+  @Override
+  public int getEndCell() {
+    return 0;
+  }
+
   @Override
   public void enter() throws IllegalStateException {
     gameStarted = true;
@@ -105,6 +122,27 @@ class MockDungeonModel implements Dungeon {
     return result;
   }
 
+  @Override
+  public Map<LocationDescription, List<String>> describeLocation(int row, int col)
+          throws IllegalArgumentException {
+    return describeLocation();
+  }
+
+  @Override
+  public int getMoves(int cell) throws IllegalArgumentException {
+    return 0;
+  }
+
+  @Override
+  public int getTreasureAt(int cell, Treasure treasure) throws IllegalArgumentException {
+    return 0;
+  }
+
+  @Override
+  public int getWeaponAt(int cell, WeaponType weapon) throws IllegalArgumentException {
+    return 0;
+  }
+
   @Override
   public void move(Direction dir) throws IllegalArgumentException, IllegalStateException {
     if (dir == null) {
@@ -123,6 +161,25 @@ class MockDungeonModel implements Dungeon {
     log.append("Direction: ").append(dir.name()).append("\n");
   }
 
+  @Override
+  public MoveResult moveAlong(Direction[] steps) {
+    for (Direction dir : steps) {
+      move(dir);
+    }
+    return null;
+  }
+
+  @Override
+  public Direction[] pathTo(int row, int col) {
+    return new Direction[0];
+  }
+
+  @Override
+  public int travelTo(int row, int col) {
+    log.append("Travel: ").append(row).append(",").append(col).append("\n");
+    return 0;
+  }
+
   @Override
   public Map<Treasure, Integer> collectTreasure() throws IllegalStateException {
     return null;
@@ -133,6 +190,46 @@ class MockDungeonModel implements Dungeon {
     return null;
   }
 
+  @Override
+  public Cell getPlayerPosition() {
+    return Cell.of(0, 0);
+  }
+
+  @Override
+  public int getPlayerRow() {
+    return 0;
+  }
+
+  @Override
+  public int getPlayerCol() {
+    return 0;
+  }
+
+  @Override
+  public int getPlayerCell() {
+    return 0;
+  }
+
+  @Override
+  public boolean isVisited(int row, int col) {
+    return false;
+  }
+
+  @Override
+  public BitSet getVisitedCells() {
+    return new BitSet();
+  }
+
+  @Override
+  public int getVisitedCount() {
+    return 0;
+  }
+
+  @Override
+  public Map<LocationDescription, List<String>> describeVisitedLocation(int row, int col) {
+    return describeLocation();
+  }
+
   @Override
   public boolean gameStarted() {
     return gameStarted;
@@ -176,4 +273,69 @@ class MockDungeonModel implements Dungeon {
   public SmellIntensity getLocationSmell() {
     return null;
   }
+
+  @Override
+  public int getPlayerTreasure(Treasure treasure) {
+    return 0;
+  }
+
+  @Override
+  public int getPlayerWeapon(WeaponType weapon) {
+    return 0;
+  }
+
+  @Override
+  public void addListener(DungeonListener listener) {
+    return;
+  }
+
+  @Override
+  public void removeListener(DungeonListener listener) {
+    return;
+  }
+
+  @Override
+  public Dungeon fork() {
+    return this;
+  }
+
+  @Override
+  public void undo() {
+    return;
+  }
+
+  @Override
+  public void redo() {
+    return;
+  }
+
+  @Override
+  public boolean canUndo() {
+    return false;
+  }
+
+  @Override
+  public boolean canRedo() {
+    return false;
+  }
+
+  @Override
+  public void setUndoDepth(int depth) {
+    return;
+  }
+
+  @Override
+  public CaveGraph getCaveGraph() {
+    return null;
+  }
+
+  @Override
+  public ActionLog getActionLog() {
+    return new ActionLog();
+  }
+
+  @Override
+  public GenerationReport getGenerationReport() {
+    return null;
+  }
 }
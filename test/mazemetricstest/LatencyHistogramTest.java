@@ -0,0 +1,98 @@
+package mazemetricstest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import mazemetrics.LatencyHistogram;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+  @Test
+  public void emptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMaxNanos());
+    assertEquals(0, histogram.getPercentileNanos(99), 0);
+    assertEquals(0, histogram.getMeanNanos(), 0);
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 20; i++) {
+      histogram.record(i);
+    }
+    assertEquals(10, histogram.getPercentileNanos(50));
+    assertEquals(20, histogram.getPercentileNanos(100));
+    assertEquals(1, histogram.getPercentileNanos(0));
+    assertEquals(10.5, histogram.getMeanNanos(), 1e-9);
+  }
+
+  @Test
+  public void percentilesWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(7);
+    long[] values = new long[10000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 25);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    for (double percentile : new double[]{1, 25, 50, 90, 99, 99.9}) {
+      long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long estimate = histogram.getPercentileNanos(percentile);
+      assertTrue(estimate >= exact);
+      assertTrue(estimate <= exact + exact / 16 + 1);
+    }
+    assertEquals(values[values.length - 1], histogram.getMaxNanos());
+    assertEquals(values[values.length - 1], histogram.getPercentileNanos(100));
+  }
+
+  @Test
+  public void largeAndNegativeValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(0, histogram.getPercentileNanos(50));
+    assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(100));
+    assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+  }
+
+  @Test
+  public void concurrentRecording() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final int offset = t;
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 25000; i++) {
+          histogram.record(i % 1000 + offset);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(100000, histogram.getCount());
+    assertEquals(1002, histogram.getMaxNanos());
+    assertTrue(histogram.getThroughput() > 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidPercentile() {
+    new LatencyHistogram().getPercentileNanos(100.5);
+  }
+}
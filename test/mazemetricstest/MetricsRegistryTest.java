@@ -0,0 +1,49 @@
+package mazemetricstest;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import mazemetrics.MetricsRegistry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link MetricsRegistry}.
+ */
+public class MetricsRegistryTest {
+
+  @Test
+  public void histogramsAreCreatedOnce() {
+    MetricsRegistry registry = new MetricsRegistry();
+    assertSame(registry.histogram("move"), registry.histogram("move"));
+    registry.histogram("collect");
+    assertEquals(List.of("collect", "move"), List.copyOf(registry.getHistograms().keySet()));
+  }
+
+  @Test
+  public void reportListsRecordedHistograms() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.histogram("console.move").record(2_000_000);
+    registry.histogram("console.shoot");
+    String report = registry.report();
+    assertTrue(report.contains("p99 ms"));
+    assertTrue(report.contains("console.move"));
+    assertTrue(report.contains("2.000"));
+    // nothing was recorded for shoot.
+    assertFalse(report.contains("console.shoot"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void emptyName() {
+    new MetricsRegistry().histogram("");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullName() {
+    new MetricsRegistry().histogram(null);
+  }
+}
@@ -0,0 +1,178 @@
+package mazeservertest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import maze.CustomRandomInteger;
+import maze.NonWrappingDungeon;
+import mazeserver.DungeonServer;
+import mazeserver.DungeonSpec;
+import mazeserver.SessionRegistry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link DungeonServer}.
+ */
+public class DungeonServerTest {
+  private static final String FIRST_PROMPT = "enter or display player (E-D): ";
+  private static final int TIMEOUT = 10000;
+
+  private DungeonServer server;
+  private final List<Socket> clients = new ArrayList<>();
+
+  private DungeonServer start(int maxSessions, int idleTimeout) throws IOException {
+    server = new DungeonServer(0, () -> new NonWrappingDungeon("player", 5, 6, 1, 50, 0,
+            new CustomRandomInteger(7)), maxSessions, idleTimeout);
+    server.start();
+    return server;
+  }
+
+  private Socket connect() throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    socket.setSoTimeout(TIMEOUT);
+    clients.add(socket);
+    return socket;
+  }
+
+  // reads from the connection until the text was received or the connection is closed.
+  private static String readUntil(Socket socket, String text) throws IOException {
+    InputStream in = socket.getInputStream();
+    StringBuilder received = new StringBuilder();
+    byte[] buffer = new byte[512];
+    while (received.indexOf(text) < 0) {
+      int read = in.read(buffer);
+      if (read < 0) {
+        break;
+      }
+      received.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+    }
+    return received.toString();
+  }
+
+  private static void send(Socket socket, String text) throws IOException {
+    OutputStream out = socket.getOutputStream();
+    out.write(text.getBytes(StandardCharsets.UTF_8));
+    out.flush();
+  }
+
+  // waits for the number of sessions to settle on the expected value.
+  private void awaitSessions(int expected) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT;
+    while ((server.getActiveSessions() != expected) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(10);
+    }
+    assertEquals(expected, server.getActiveSessions());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (Socket socket : clients) {
+      socket.close();
+    }
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  public void playsConsoleGame() throws IOException {
+    start(4, 0);
+    Socket client = connect();
+    assertTrue(readUntil(client, FIRST_PROMPT).contains(FIRST_PROMPT));
+    send(client, "D\n");
+    assertTrue(readUntil(client, FIRST_PROMPT).contains("player"));
+    send(client, "E\n");
+    String entered = readUntil(client, "): ");
+    assertTrue(entered.contains("entering dungeon..."));
+  }
+
+  @Test
+  public void manyConcurrentSessions() throws IOException, InterruptedException {
+    start(1000, 0);
+    int sessions = 200;
+    for (int i = 0; i < sessions; i++) {
+      connect();
+    }
+    for (Socket client : clients) {
+      assertTrue(readUntil(client, FIRST_PROMPT).contains(FIRST_PROMPT));
+    }
+    awaitSessions(sessions);
+    for (Socket client : clients) {
+      client.close();
+    }
+    awaitSessions(0);
+  }
+
+  @Test
+  public void refusesWhenFull() throws IOException, InterruptedException {
+    start(2, 0);
+    readUntil(connect(), FIRST_PROMPT);
+    readUntil(connect(), FIRST_PROMPT);
+    awaitSessions(2);
+    assertTrue(readUntil(connect(), "later.").contains("server is full"));
+  }
+
+  @Test
+  public void closesIdleSessions() throws IOException, InterruptedException {
+    start(4, 200);
+    Socket client = connect();
+    readUntil(client, FIRST_PROMPT);
+    assertEquals(-1, client.getInputStream().read());
+    awaitSessions(0);
+  }
+
+  @Test
+  public void closeDisconnectsSessions() throws IOException, InterruptedException {
+    start(4, 0);
+    Socket client = connect();
+    readUntil(client, FIRST_PROMPT);
+    server.close();
+    assertEquals(-1, client.getInputStream().read());
+    awaitSessions(0);
+  }
+
+  @Test
+  public void endsRegistrySessions() throws IOException, InterruptedException {
+    Path spillDir = Files.createTempDirectory("sessions");
+    SessionRegistry registry = new SessionRegistry(spillDir, 1, 0);
+    server = new DungeonServer(0, () -> registry.create(new DungeonSpec("player", 5, 6, 1, 50,
+            0, false, 7)), 4, 0);
+    server.start();
+    Socket first = connect();
+    readUntil(first, FIRST_PROMPT);
+    Socket second = connect();
+    readUntil(second, FIRST_PROMPT);
+    // the budget only fits one session, the first one is played from its spill file.
+    send(first, "E\n");
+    assertTrue(readUntil(first, "): ").contains("entering dungeon..."));
+    assertTrue(registry.getRestores() >= 1);
+    first.close();
+    second.close();
+    awaitSessions(0);
+    assertEquals(0, registry.getSessions());
+    Files.delete(spillDir);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidMaxSessions() {
+    new DungeonServer(0, () -> null, 0, 0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void portBeforeStart() {
+    new DungeonServer(0, () -> null, 1, 0).getPort();
+  }
+}
@@ -0,0 +1,209 @@
+package mazeservertest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import maze.Direction;
+import maze.Dungeon;
+import mazeserver.DungeonSpec;
+import mazeserver.SessionRegistry;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link SessionRegistry}.
+ */
+public class SessionRegistryTest {
+  // estimated size of a resident 6x6 dungeon.
+  private static final long ONE_SESSION = 6 * 6 * 512;
+
+  private Path spillDir;
+  private SessionRegistry registry;
+
+  @Before
+  public void setUp() throws IOException {
+    spillDir = Files.createTempDirectory("sessions");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    if (registry != null) {
+      registry.close();
+    }
+    try (Stream<Path> files = Files.list(spillDir)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(spillDir);
+  }
+
+  private static DungeonSpec spec(long seed) {
+    return new DungeonSpec("player", 6, 6, 2, 50, 2, true, seed);
+  }
+
+  private static long spillFiles(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.count();
+    }
+  }
+
+  // plays the same few actions on the dungeon.
+  private static void play(Dungeon dungeon) {
+    dungeon.enter();
+    dungeon.pickWeapon();
+    dungeon.collectTreasure();
+    for (Direction dir : Direction.values()) {
+      try {
+        dungeon.move(dir);
+        break;
+      } catch (IllegalStateException ill) {
+        // no neighbour in the direction.
+      }
+    }
+  }
+
+  @Test
+  public void spillsAndRestoresTransparently() throws IOException {
+    registry = new SessionRegistry(spillDir, ONE_SESSION, 0);
+    Dungeon first = registry.create(spec(5));
+    play(first);
+    Dungeon reference = spec(5).create();
+    play(reference);
+
+    Dungeon second = registry.create(spec(6));
+    assertEquals(1, registry.getResidentSessions());
+    assertEquals(1, registry.getSpills());
+    assertEquals(1, spillFiles(spillDir));
+
+    assertEquals(reference.getPlayerLocation(), first.getPlayerLocation());
+    assertEquals(reference.describePlayer(), first.describePlayer());
+    assertEquals(reference.getVisitedCells(), first.getVisitedCells());
+    assertEquals(reference.describeLocation(), first.describeLocation());
+    assertEquals(reference.canUndo(), first.canUndo());
+    assertEquals(1, registry.getRestores());
+    // restoring the first session spilled the second.
+    assertEquals(2, registry.getSpills());
+    assertEquals(2, registry.getSessions());
+    assertEquals(1, registry.getResidentSessions());
+    assertEquals(ONE_SESSION, registry.getMemoryUsed());
+
+    second.enter();
+    assertEquals(2, registry.getRestores());
+  }
+
+  // walks next to the end and injures its monster, from where entering the end flips a coin.
+  private static Direction injureEndMonster(Dungeon dungeon) {
+    dungeon.enter();
+    int end = dungeon.getEndCell();
+    Direction[] path = dungeon.pathTo(end / 6, end % 6);
+    dungeon.moveAlong(Arrays.copyOf(path, path.length - 1));
+    Direction last = path[path.length - 1];
+    assertTrue(dungeon.shootArrow(last, 1));
+    return last;
+  }
+
+  // enters the end and undoes it, flipping a coin each time.
+  private static void flip(Dungeon dungeon, Direction toEnd, int times) {
+    for (int i = 0; i < times; i++) {
+      dungeon.move(toEnd);
+      dungeon.undo();
+    }
+  }
+
+  @Test
+  public void restoredSessionFlipsAsBefore() throws IOException {
+    registry = new SessionRegistry(spillDir, ONE_SESSION, 0);
+    Dungeon spilled = registry.create(spec(1));
+    Dungeon reference = spec(1).create();
+    Direction toEnd = injureEndMonster(spilled);
+    injureEndMonster(reference);
+    flip(spilled, toEnd, 4);
+    flip(reference, toEnd, 4);
+
+    registry.create(spec(2));
+    assertEquals(1, registry.getSpills());
+    flip(spilled, toEnd, 16);
+    flip(reference, toEnd, 16);
+    assertEquals(1, registry.getRestores());
+    // the log records every flip.
+    assertArrayEquals(reference.getActionLog().toByteArray(),
+            spilled.getActionLog().toByteArray());
+  }
+
+  @Test
+  public void countsHits() throws IOException {
+    registry = new SessionRegistry(spillDir, 100 * ONE_SESSION, 0);
+    Dungeon dungeon = registry.create(spec(1));
+    dungeon.enter();
+    dungeon.getPlayerLocation();
+    assertEquals(2, registry.getHits());
+    assertEquals(0, registry.getRestores());
+    assertEquals(1.0, registry.getHitRate(), 1e-9);
+  }
+
+  @Test
+  public void spillsIdleSessions() throws IOException, InterruptedException {
+    registry = new SessionRegistry(spillDir, 100 * ONE_SESSION, 50);
+    Dungeon dungeon = registry.create(spec(2));
+    dungeon.enter();
+    long deadline = System.currentTimeMillis() + 5000;
+    while ((registry.getResidentSessions() != 0) && (System.currentTimeMillis() < deadline)) {
+      Thread.sleep(20);
+    }
+    assertEquals(0, registry.getResidentSessions());
+    assertTrue(dungeon.gameStarted());
+    assertEquals(1, registry.getRestores());
+    assertTrue(registry.getMeanRestoreMillis() > 0);
+  }
+
+  @Test
+  public void idleEvictionKeepsSessionsInUse() throws IOException, InterruptedException {
+    registry = new SessionRegistry(spillDir, 100 * ONE_SESSION, 100);
+    Dungeon idle = registry.create(spec(1));
+    Dungeon inUse = registry.create(spec(2));
+    Thread.sleep(150);
+    inUse.enter();
+    registry.evictIdle();
+    assertEquals(1, registry.getResidentSessions());
+    long restored = registry.getRestores();
+    inUse.getPlayerLocation();
+    assertEquals(restored, registry.getRestores());
+    idle.gameStarted();
+    assertEquals(restored + 1, registry.getRestores());
+  }
+
+  @Test
+  public void closingRemovesSession() throws IOException {
+    registry = new SessionRegistry(spillDir, ONE_SESSION, 0);
+    Dungeon first = registry.create(spec(3));
+    registry.create(spec(4));
+    assertEquals(1, spillFiles(spillDir));
+    ((Closeable) first).close();
+    assertEquals(0, spillFiles(spillDir));
+    assertEquals(1, registry.getSessions());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void callAfterClose() throws IOException {
+    registry = new SessionRegistry(spillDir, ONE_SESSION, 0);
+    Dungeon dungeon = registry.create(spec(3));
+    ((Closeable) dungeon).close();
+    dungeon.enter();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidBudget() throws IOException {
+    new SessionRegistry(spillDir, 0, 0);
+  }
+}
@@ -0,0 +1,111 @@
+package mazesimulationtest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+import mazesimulation.Action;
+import mazesimulation.ActionType;
+import mazesimulation.Agent;
+import mazesimulation.BfsExplorerAgent;
+import mazesimulation.RandomAgent;
+import mazesimulation.SimulationResult;
+import mazesimulation.SimulationRunner;
+
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link SimulationRunner} and the built in agents.
+ */
+public class SimulationRunnerTest {
+  private LongFunction<Dungeon> wrapping;
+  private LongFunction<Dungeon> noMonsters;
+
+  @Before
+  public void setUp() {
+    wrapping = seed -> new WrappingDungeon("player", 6, 6, 2, 50, 2,
+            new CustomRandomInteger(seed));
+    noMonsters = seed -> new NonWrappingDungeon("player", 6, 6, 2, 50, 0,
+            new CustomRandomInteger(seed));
+  }
+
+  // plays the games on a new runner, which is closed afterwards.
+  private static SimulationResult run(LongFunction<Dungeon> dungeons, Supplier<Agent> agents,
+                                      int maxTurns, int parallelism, long firstSeed, int games) {
+    try (SimulationRunner runner = new SimulationRunner(dungeons, agents, maxTurns,
+            parallelism)) {
+      return runner.run(firstSeed, games);
+    }
+  }
+
+  @Test
+  public void runIsReproducible() {
+    SimulationResult first = run(wrapping, RandomAgent::new, 200, 2, 7, 40);
+    SimulationResult second = run(wrapping, RandomAgent::new, 200, 1, 7, 40);
+    assertEquals(first.toString(), second.toString());
+    assertEquals(40, first.getGames());
+    assertEquals(first.getGames(), first.getWins() + first.getDeaths() + first.getTimeouts());
+  }
+
+  @Test
+  public void explorerAlwaysFindsEndWithoutMonsters() {
+    SimulationResult result = run(noMonsters, BfsExplorerAgent::new, 500, 2, 1, 40);
+    assertEquals(40, result.getWins());
+    assertEquals(0, result.getDeaths());
+    assertEquals(0, result.getArrowsUsed());
+    assertTrue(result.getAverageTreasure() > 0);
+  }
+
+  @Test
+  public void explorerBeatsRandomAgent() {
+    SimulationResult random = run(wrapping, RandomAgent::new, 360, 2, 1, 40);
+    SimulationResult explorer = run(wrapping, BfsExplorerAgent::new, 360, 2, 1, 40);
+    assertTrue(explorer.getWinRate() > random.getWinRate());
+    assertTrue(explorer.getAverageTurns() < random.getAverageTurns());
+  }
+
+  @Test
+  public void failedDungeonsAreCounted() {
+    SimulationResult result = run(seed -> {
+      throw new IllegalArgumentException("invalid dungeon.");
+    }, RandomAgent::new, 10, 1, 1, 5);
+    assertEquals(5, result.getFailed());
+    assertEquals(0, result.getGames());
+    assertEquals(0, result.getWinRate(), 0.0001);
+  }
+
+  @Test
+  public void actions() {
+    Action shoot = Action.shoot(Direction.EAST, 2);
+    assertEquals(ActionType.SHOOT, shoot.getType());
+    assertEquals(Direction.EAST, shoot.getDirection());
+    assertEquals(2, shoot.getDistance());
+    assertEquals(ActionType.PICKUP, Action.pickUp().getType());
+    assertEquals("MOVE NORTH", Action.move(Direction.NORTH).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shootWithoutDistance() {
+    Action.shoot(Direction.EAST, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void runnerWithoutTurns() {
+    new SimulationRunner(wrapping, RandomAgent::new, 0, 1);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void runAfterClose() {
+    SimulationRunner runner = new SimulationRunner(wrapping, RandomAgent::new, 10, 1);
+    runner.close();
+    runner.run(1, 1);
+  }
+}
@@ -0,0 +1,153 @@
+package mazetest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import maze.ActionLog;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.DungeonReplayer;
+import maze.NonWrappingDungeon;
+import maze.WeaponType;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link ActionLog} and {@link DungeonReplayer}.
+ */
+public class ActionLogTest {
+
+  private Dungeon create(long seed) {
+    return new WrappingDungeon("player1", 6, 6, 2, 50, 3, new CustomRandomInteger(seed));
+  }
+
+  // plays random actions, resetting whenever a game ends.
+  private void play(Dungeon dungeon, long seed, int actions) {
+    Random random = new Random(seed);
+    Direction[] directions = Direction.values();
+    if (!dungeon.gameStarted()) {
+      dungeon.enter();
+    }
+    for (int i = 0; i < actions; i++) {
+      if (dungeon.gameEnded()) {
+        dungeon.reset();
+        dungeon.enter();
+        continue;
+      }
+      int choice = random.nextInt(8);
+      Direction dir = directions[random.nextInt(4)];
+      try {
+        if (choice == 0) {
+          dungeon.collectTreasure();
+        } else if (choice == 1) {
+          dungeon.pickWeapon();
+        } else if ((choice == 2) && (dungeon.getPlayerWeapon(WeaponType.CROOKEDARROW) > 0)) {
+          dungeon.shootArrow(dir, 1 + random.nextInt(3));
+        } else if ((choice == 3) && dungeon.canUndo()) {
+          dungeon.undo();
+        } else if ((choice == 4) && dungeon.canRedo()) {
+          dungeon.redo();
+        } else {
+          dungeon.move(dir);
+        }
+      } catch (IllegalStateException ill) {
+        // no neighbour in the direction.
+      }
+    }
+  }
+
+  @Test
+  public void replayReconstructsGame() {
+    for (long seed = 1; seed <= 20; seed++) {
+      Dungeon played = create(seed);
+      play(played, seed, 300);
+      ActionLog log = played.getActionLog();
+      assertTrue(log.size() > 0);
+
+      Dungeon replayed = create(seed);
+      // changes the state of the generator, replay should not depend on it.
+      replayed.fork();
+      DungeonReplayer.replay(replayed, log);
+      assertEquals("replay should reconstruct the dungeon.",
+              played.toString(), replayed.toString());
+      assertEquals(played.describePlayer(), replayed.describePlayer());
+      assertEquals(played.getPlayerStatus(), replayed.getPlayerStatus());
+      assertArrayEquals(log.toByteArray(), replayed.getActionLog().toByteArray());
+    }
+  }
+
+  @Test
+  public void copiesShareRecordedActions() {
+    Dungeon played = create(5);
+    play(played, 5, 50);
+    ActionLog before = played.getActionLog();
+    Dungeon fork = played.fork();
+    play(fork, 6, 50);
+    play(played, 7, 50);
+    assertArrayEquals(before.toByteArray(), Arrays.copyOf(
+            fork.getActionLog().toByteArray(), before.byteLength()));
+    assertArrayEquals(before.toByteArray(), Arrays.copyOf(
+            played.getActionLog().toByteArray(), before.byteLength()));
+  }
+
+  @Test
+  public void deepChainOfForks() {
+    Dungeon straight = new NonWrappingDungeon("player1", 6, 6, 2, 50, 0,
+            new CustomRandomInteger(3));
+    Dungeon forked = new NonWrappingDungeon("player1", 6, 6, 2, 50, 0,
+            new CustomRandomInteger(3));
+    straight.enter();
+    forked.enter();
+    for (int i = 0; i < 50000; i++) {
+      straight.pickWeapon();
+      forked = forked.fork();
+      forked.pickWeapon();
+    }
+    assertEquals(straight.getActionLog().size(), forked.getActionLog().size());
+    assertArrayEquals(straight.getActionLog().toByteArray(),
+            forked.getActionLog().toByteArray());
+  }
+
+  @Test
+  public void streamRoundTrip() throws IOException {
+    Dungeon played = create(3);
+    play(played, 3, 200);
+    ActionLog log = played.getActionLog();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    log.writeTo(out);
+    ActionLog read = ActionLog.readFrom(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals(log.size(), read.size());
+    assertEquals(log.toString(), read.toString());
+    assertArrayEquals(log.toByteArray(), read.toByteArray());
+  }
+
+  @Test
+  public void readableForm() {
+    Dungeon played = create(3);
+    played.enter();
+    played.shootArrow(Direction.EAST, 200);
+    played.reset();
+    assertEquals("ENTER\nSHOOT_ARROW EAST 200\nRESET\n", played.getActionLog().toString());
+    assertEquals(5, played.getActionLog().byteLength());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidBytes() {
+    ActionLog.fromByteArray(new byte[]{(byte) (4 << 5)});
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void logNotMatchingDungeon() {
+    ActionLog log = ActionLog.fromByteArray(new byte[]{1 << 5});
+    DungeonReplayer.replay(create(3), log);
+  }
+}
@@ -0,0 +1,171 @@
+package mazetest;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import maze.CaveGraph;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LocationDescription;
+import maze.LocationType;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for the {@link CaveGraph} of a {@link Dungeon}.
+ */
+public class CaveGraphTest {
+
+  // cell id of the neighbour in the direction as described by the dungeon, -1 when there is none.
+  private int neighbour(Dungeon dungeon, int cell, Direction dir) {
+    int rows = dungeon.getRow();
+    int cols = dungeon.getCol();
+    int r = cell / cols;
+    int c = cell % cols;
+    List<String> moves = dungeon.describeLocation(r, c).get(LocationDescription.MOVES);
+    if (moves.get(dir.ordinal()).equals("null")) {
+      return -1;
+    }
+    if (dir == Direction.NORTH) {
+      r = Math.floorMod(r - 1, rows);
+    } else if (dir == Direction.SOUTH) {
+      r = (r + 1) % rows;
+    } else if (dir == Direction.WEST) {
+      c = Math.floorMod(c - 1, cols);
+    } else {
+      c = (c + 1) % cols;
+    }
+    return r * cols + c;
+  }
+
+  private boolean isCave(Dungeon dungeon, int cell) {
+    return dungeon.describeLocation(cell / dungeon.getCol(), cell % dungeon.getCol())
+            .get(LocationDescription.TYPE).get(0).equals(LocationType.CAVE.name());
+  }
+
+  private static Direction opposite(Direction dir) {
+    Direction[] directions = Direction.values();
+    return directions[directions.length - 1 - dir.ordinal()];
+  }
+
+  // walks the tunnels one location at a time, checking each edge of the graph.
+  private void checkEdges(Dungeon dungeon) {
+    CaveGraph graph = dungeon.getCaveGraph();
+    int cells = dungeon.getRow() * dungeon.getCol();
+    int caves = 0;
+    for (int cell = 0; cell < cells; cell++) {
+      assertEquals(isCave(dungeon, cell), graph.isCave(cell));
+      if (graph.isCave(cell)) {
+        caves++;
+      }
+      for (Direction dir : Direction.values()) {
+        int next = neighbour(dungeon, cell, dir);
+        if (next < 0) {
+          assertEquals(-1, graph.getTarget(cell, dir));
+          assertNull(graph.getArrival(cell, dir));
+          continue;
+        }
+        int moves = 1;
+        Direction heading = dir;
+        while (!isCave(dungeon, next)) {
+          for (Direction exit : Direction.values()) {
+            if ((exit != opposite(heading)) && (neighbour(dungeon, next, exit) >= 0)) {
+              heading = exit;
+              break;
+            }
+          }
+          next = neighbour(dungeon, next, heading);
+          moves++;
+        }
+        assertEquals(next, graph.getTarget(cell, dir));
+        assertEquals(moves, graph.getLength(cell, dir));
+        assertEquals(heading, graph.getArrival(cell, dir));
+      }
+    }
+    assertEquals(caves, graph.getCaveCount());
+    assertEquals(cells - caves, graph.getTunnelCount());
+  }
+
+  @Test
+  public void edgesWrapping() {
+    checkEdges(new WrappingDungeon("player", 7, 8, 2, 40, 0, new CustomRandomInteger(4)));
+  }
+
+  @Test
+  public void edgesNonWrapping() {
+    checkEdges(new NonWrappingDungeon("player", 8, 7, 0, 40, 0, new CustomRandomInteger(4)));
+  }
+
+  @Test
+  public void distancesBetweenCaves() {
+    Dungeon dungeon = new WrappingDungeon("player", 8, 8, 3, 40, 0, new CustomRandomInteger(6));
+    CaveGraph graph = dungeon.getCaveGraph();
+    int cells = dungeon.getRow() * dungeon.getCol();
+    int from = graph.getCaves()[0];
+
+    int[] expected = new int[cells];
+    Arrays.fill(expected, -1);
+    expected[from] = 0;
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      int cell = queue.poll();
+      for (Direction dir : Direction.values()) {
+        int next = neighbour(dungeon, cell, dir);
+        if ((next >= 0) && (expected[next] < 0)) {
+          expected[next] = expected[cell] + 1;
+          queue.add(next);
+        }
+      }
+    }
+
+    int[] distance = graph.distancesFrom(from);
+    for (int cell = 0; cell < cells; cell++) {
+      assertEquals(graph.isCave(cell) ? expected[cell] : -1, distance[cell]);
+    }
+  }
+
+  @Test
+  public void tunnelsCollapsed() {
+    Dungeon dungeon = new NonWrappingDungeon("player", 9, 9, 0, 40, 0,
+            new CustomRandomInteger(2));
+    CaveGraph graph = dungeon.getCaveGraph();
+    assertTrue("a perfect maze should have many tunnels.", graph.getTunnelCount() > 0);
+    // a spanning tree over the caves.
+    assertEquals(graph.getCaveCount() - 1, graph.getEdgeCount());
+  }
+
+  @Test
+  public void sharedByForks() {
+    Dungeon dungeon = new WrappingDungeon("player", 6, 6, 1, 40, 0, new CustomRandomInteger(1));
+    assertSame(dungeon.getCaveGraph(), dungeon.fork().getCaveGraph());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cellOutsideDungeon() {
+    Dungeon dungeon = new WrappingDungeon("player", 6, 6, 1, 40, 0, new CustomRandomInteger(1));
+    dungeon.getCaveGraph().getTarget(36, Direction.NORTH);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void distancesFromTunnel() {
+    Dungeon dungeon = new NonWrappingDungeon("player", 9, 9, 0, 40, 0,
+            new CustomRandomInteger(2));
+    CaveGraph graph = dungeon.getCaveGraph();
+    for (int cell = 0; cell < 81; cell++) {
+      if (!graph.isCave(cell)) {
+        graph.distancesFrom(cell);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package mazetest;
+
+import org.junit.Test;
+
+import maze.Cell;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Testing class for {@link Cell} and the cell id accessors of a {@link Dungeon}.
+ */
+public class CellTest {
+
+  @Test
+  public void interned() {
+    assertSame(Cell.of(3, 4), Cell.of(3, 4));
+    assertEquals(Cell.of(500, 70000), Cell.of(500, 70000));
+    assertEquals(Cell.of(500, 70000).hashCode(), Cell.of(500, 70000).hashCode());
+    assertNotSame(Cell.of(3, 4), Cell.of(4, 3));
+    assertEquals(Cell.of(3, 4), Cell.ofId(3 * 7 + 4, 7));
+  }
+
+  @Test
+  public void farCellsAreNotInterned() {
+    assertNotSame(Cell.of(128, 0), Cell.of(128, 0));
+    assertNotSame(Cell.ofId(1000 * 1000 - 1, 1000), Cell.ofId(1000 * 1000 - 1, 1000));
+    assertEquals("999,999", Cell.ofId(1000 * 1000 - 1, 1000).toString());
+  }
+
+  @Test
+  public void coordinates() {
+    Cell cell = Cell.of(2, 5);
+    assertEquals(2, cell.getRow());
+    assertEquals(5, cell.getCol());
+    assertEquals(2 * 6 + 5, cell.getId(6));
+    assertEquals("2,5", cell.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeCoordinates() {
+    Cell.of(-1, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidColumns() {
+    Cell.ofId(3, 0);
+  }
+
+  @Test
+  public void matchesStrings() {
+    Dungeon dungeon = new WrappingDungeon("player", 6, 7, 2, 40, 0, new CustomRandomInteger(8));
+    int cols = dungeon.getCol();
+    assertEquals(dungeon.getStart(), Cell.ofId(dungeon.getStartCell(), cols).toString());
+    assertEquals(dungeon.getEnd(), Cell.ofId(dungeon.getEndCell(), cols).toString());
+    dungeon.enter();
+    assertEquals(dungeon.getStartCell(), dungeon.getPlayerCell());
+    for (Direction dir : Direction.values()) {
+      try {
+        dungeon.move(dir);
+        break;
+      } catch (IllegalStateException ill) {
+        // no neighbour in the direction.
+      }
+    }
+    assertEquals(dungeon.getPlayerLocation(), dungeon.getPlayerPosition().toString());
+    assertSame(Cell.of(dungeon.getPlayerRow(), dungeon.getPlayerCol()),
+            dungeon.getPlayerPosition());
+    assertEquals(dungeon.getPlayerRow() * cols + dungeon.getPlayerCol(),
+            dungeon.getPlayerCell());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void playerCellBeforeEntering() {
+    Dungeon dungeon = new WrappingDungeon("player", 6, 7, 2, 40, 0, new CustomRandomInteger(8));
+    dungeon.getPlayerCell();
+  }
+}
@@ -0,0 +1,577 @@
+package mazetest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import maze.ChunkedDungeon;
+import maze.ContentMode;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LocationDescription;
+import maze.SmellIntensity;
+import maze.Treasure;
+import maze.WilsonGenerator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Testing class for the {@link ChunkedDungeon}.
+ */
+public class ChunkedDungeonTest {
+  private static final int SIZE = 6;
+  private static final int CHUNKS = 3;
+  private static final int CELLS = SIZE * CHUNKS * SIZE * CHUNKS;
+  private static final int COLS = SIZE * CHUNKS;
+
+  private static ChunkedDungeon dungeon(long seed, int difficulty, int maxResident,
+                                        Path spillDir) {
+    return new ChunkedDungeon("player", SIZE, CHUNKS, CHUNKS, 0, 50, difficulty, seed, null,
+            null, maxResident, spillDir);
+  }
+
+  private static ChunkedDungeon hashed(long seed, int difficulty, int maxResident) {
+    return new ChunkedDungeon("player", SIZE, CHUNKS, CHUNKS, 0, 30, difficulty, seed, null,
+            null, maxResident, null, ContentMode.HASHED);
+  }
+
+  // neighbours of every location, by cell * 4 + direction, read from the descriptions.
+  private static int[] neighbours(Dungeon dungeon) {
+    int[] neighbours = new int[CELLS * 4];
+    for (int cell = 0; cell < CELLS; cell++) {
+      List<String> moves = dungeon.describeLocation(cell / COLS, cell % COLS)
+              .get(LocationDescription.MOVES);
+      for (int d = 0; d < 4; d++) {
+        String move = moves.get(d);
+        if (move.equals("null")) {
+          neighbours[cell * 4 + d] = -1;
+        } else {
+          String[] parts = move.split(",");
+          neighbours[cell * 4 + d] = Integer.parseInt(parts[0]) * COLS
+                  + Integer.parseInt(parts[1]);
+        }
+      }
+    }
+    return neighbours;
+  }
+
+  // whether a living monster is in each location, read from the descriptions.
+  private static boolean[] monsters(Dungeon dungeon) {
+    boolean[] monsters = new boolean[CELLS];
+    for (int cell = 0; cell < CELLS; cell++) {
+      String monster = dungeon.describeLocation(cell / COLS, cell % COLS)
+              .get(LocationDescription.MONSTER).get(0);
+      monsters[cell] = !monster.equals("null") && !monster.endsWith(" 0");
+    }
+    return monsters;
+  }
+
+  private static boolean isCave(int[] neighbours, int cell) {
+    int moves = 0;
+    for (int d = 0; d < 4; d++) {
+      moves += (neighbours[cell * 4 + d] >= 0) ? 1 : 0;
+    }
+    return moves != 2;
+  }
+
+  // walks from the cell in the direction through the tunnels, {cave, moves, arrival direction}.
+  private static int[] walk(int[] neighbours, int cell, int dir) {
+    int next = neighbours[cell * 4 + dir];
+    if (next < 0) {
+      return null;
+    }
+    int moves = 1;
+    while (!isCave(neighbours, next)) {
+      int back = 3 - dir;
+      for (int d = 0; d < 4; d++) {
+        if ((d != back) && (neighbours[next * 4 + d] >= 0)) {
+          dir = d;
+          break;
+        }
+      }
+      next = neighbours[next * 4 + dir];
+      moves++;
+    }
+    return new int[] {next, moves, dir};
+  }
+
+  // smell at the location, by the rules of the dungeon, with the monster of the location itself.
+  private static SmellIntensity smell(int[] neighbours, boolean[] monsters, int cell) {
+    if (monsters[cell]) {
+      return SmellIntensity.HIGH;
+    }
+    int count = 0;
+    int counted = -1;
+    for (int d = 0; d < 4; d++) {
+      int[] hop = walk(neighbours, cell, d);
+      if (hop == null) {
+        continue;
+      }
+      if (hop[1] == 1) {
+        if (monsters[hop[0]]) {
+          return SmellIntensity.HIGH;
+        }
+        for (int e = 0; e < 4; e++) {
+          int[] next = (e == 3 - hop[2]) ? null : walk(neighbours, hop[0], e);
+          if ((next != null) && (next[1] == 1) && (next[0] != counted) && monsters[next[0]]) {
+            if (++count == 2) {
+              return SmellIntensity.HIGH;
+            }
+            counted = next[0];
+          }
+        }
+      } else if ((hop[1] == 2) && (hop[0] != counted) && monsters[hop[0]]) {
+        if (++count == 2) {
+          return SmellIntensity.HIGH;
+        }
+        counted = hop[0];
+      }
+    }
+    return (count == 1) ? SmellIntensity.LOW : null;
+  }
+
+  private static int treasure(Dungeon dungeon, int cell) {
+    int quantity = 0;
+    for (String value : dungeon.describeLocation(cell / COLS, cell % COLS)
+            .get(LocationDescription.TREASURE)) {
+      quantity += Integer.parseInt(value.split(" ")[1]);
+    }
+    return quantity;
+  }
+
+  private static void deleteAll(Path dir) throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Test
+  public void sameSeedSameWorld() {
+    ChunkedDungeon first = dungeon(7, 2, 64, null);
+    ChunkedDungeon second = dungeon(7, 2, 64, null);
+    assertEquals(first.getStart(), second.getStart());
+    assertEquals(first.getEnd(), second.getEnd());
+    for (int cell = 0; cell < CELLS; cell++) {
+      assertEquals(first.describeLocation(cell / COLS, cell % COLS),
+              second.describeLocation(cell / COLS, cell % COLS));
+    }
+    assertEquals(CHUNKS * CHUNKS, first.getResidentChunks());
+    assertEquals(0, first.getEvictedChunks());
+  }
+
+  @Test
+  public void evictedChunksAreGeneratedAgain() {
+    ChunkedDungeon all = dungeon(11, 2, 64, null);
+    ChunkedDungeon few = dungeon(11, 2, 4, null);
+    for (int round = 0; round < 2; round++) {
+      for (int cell = 0; cell < CELLS; cell++) {
+        assertEquals(all.describeLocation(cell / COLS, cell % COLS),
+                few.describeLocation(cell / COLS, cell % COLS));
+        assertTrue(few.getResidentChunks() <= 4);
+      }
+    }
+    assertTrue(few.getEvictedChunks() > 0);
+    assertTrue(few.getGeneratedChunks() > CHUNKS * CHUNKS);
+  }
+
+  @Test
+  public void neighbouringChunksAgreeOnBorders() {
+    int[] neighbours = neighbours(dungeon(3, 0, 4, null));
+    int[][] crossings = new int[CHUNKS * CHUNKS][CHUNKS * CHUNKS];
+    for (int cell = 0; cell < CELLS; cell++) {
+      for (int d = 0; d < 4; d++) {
+        int next = neighbours[cell * 4 + d];
+        if (next < 0) {
+          continue;
+        }
+        assertEquals(cell, neighbours[next * 4 + 3 - d]);
+        int from = (cell / COLS / SIZE) * CHUNKS + cell % COLS / SIZE;
+        int to = (next / COLS / SIZE) * CHUNKS + next % COLS / SIZE;
+        if (from != to) {
+          crossings[from][to]++;
+        }
+      }
+    }
+    // without interconnectivity the borders crossed form a spanning tree of the chunks.
+    int borders = 0;
+    for (int[] row : crossings) {
+      for (int count : row) {
+        assertTrue(count <= 1);
+        borders += count;
+      }
+    }
+    assertEquals(2 * (CHUNKS * CHUNKS - 1), borders);
+  }
+
+  @Test
+  public void everyLocationCanBeReached() {
+    for (long seed = 0; seed < 5; seed++) {
+      ChunkedDungeon dungeon = dungeon(seed, 1, 4, null);
+      int[] neighbours = neighbours(dungeon);
+      boolean[] seen = new boolean[CELLS];
+      ArrayDeque<Integer> queue = new ArrayDeque<>();
+      queue.add(dungeon.getStartCell());
+      seen[dungeon.getStartCell()] = true;
+      int reached = 1;
+      while (!queue.isEmpty()) {
+        int cell = queue.poll();
+        for (int d = 0; d < 4; d++) {
+          int next = neighbours[cell * 4 + d];
+          if ((next >= 0) && !seen[next]) {
+            seen[next] = true;
+            reached++;
+            queue.add(next);
+          }
+        }
+      }
+      assertEquals(CELLS, reached);
+      assertTrue(isCave(neighbours, dungeon.getStartCell()));
+      assertTrue(isCave(neighbours, dungeon.getEndCell()));
+    }
+  }
+
+  @Test
+  public void interconnectivityCrossesEveryBorder() {
+    ChunkedDungeon dungeon = new ChunkedDungeon("player", SIZE, CHUNKS, CHUNKS, 2, 50, 0, 3,
+            null, new WilsonGenerator(), 4, null);
+    int[] neighbours = neighbours(dungeon);
+    int crossing = 0;
+    for (int cell = 0; cell < CELLS; cell++) {
+      int next = neighbours[cell * 4 + Direction.EAST.ordinal()];
+      if ((next >= 0) && (next % COLS % SIZE == 0)) {
+        crossing++;
+      }
+      next = neighbours[cell * 4 + Direction.SOUTH.ordinal()];
+      if ((next >= 0) && (next / COLS % SIZE == 0)) {
+        crossing++;
+      }
+    }
+    assertEquals(2 * CHUNKS * (CHUNKS - 1), crossing);
+  }
+
+  @Test
+  public void smellMatchesTheRulesAcrossBorders() {
+    for (long seed = 0; seed < 5; seed++) {
+      ChunkedDungeon dungeon = dungeon(seed, 4, 4, null);
+      int[] neighbours = neighbours(dungeon);
+      boolean[] monsters = monsters(dungeon);
+      for (int cell = 0; cell < CELLS; cell++) {
+        SmellIntensity smell = smell(neighbours, monsters, cell);
+        assertEquals("cell " + cell, (smell == null) ? "null" : smell.name(),
+                dungeon.describeLocation(cell / COLS, cell % COLS)
+                        .get(LocationDescription.SMELL).get(0));
+      }
+    }
+  }
+
+  @Test
+  public void shootingMatchesTheRules() {
+    int hits = 0;
+    for (long seed = 0; seed < 10; seed++) {
+      ChunkedDungeon dungeon = dungeon(seed, 4, 4, null);
+      int[] neighbours = neighbours(dungeon);
+      boolean[] monsters = monsters(dungeon);
+      dungeon.enter();
+      for (int d = 0; d < 4; d++) {
+        for (int distance = 1; distance <= 4; distance++) {
+          int cell = dungeon.getStartCell();
+          int dir = d;
+          int left = distance;
+          while (left > 0) {
+            int[] hop = walk(neighbours, cell, dir);
+            if (hop == null) {
+              break;
+            }
+            cell = hop[0];
+            dir = hop[2];
+            left--;
+          }
+          boolean hit = (left == 0) && monsters[cell];
+          Dungeon fork = dungeon.fork();
+          assertEquals(hit, fork.shootArrow(Direction.values()[d], distance));
+          if (hit) {
+            hits++;
+            assertTrue(fork.describeLocation(cell / COLS, cell % COLS)
+                    .get(LocationDescription.MONSTER).get(0).endsWith(" 1"));
+            assertTrue(dungeon.describeLocation(cell / COLS, cell % COLS)
+                    .get(LocationDescription.MONSTER).get(0).endsWith(" 2"));
+          }
+        }
+      }
+    }
+    assertTrue(hits > 0);
+  }
+
+  // travels to the first cave with treasure in another chunk, collects it and evicts its chunk.
+  private static void collectAndEvict(ChunkedDungeon dungeon) {
+    int start = dungeon.getStartCell();
+    int target = -1;
+    for (int cell = 0; (cell < CELLS) && (target < 0); cell++) {
+      if ((cell / COLS / SIZE != 0) && (treasure(dungeon, cell) > 0)) {
+        target = cell;
+      }
+    }
+    assertTrue(target >= 0);
+    int before = treasure(dungeon, target);
+    dungeon.travelTo(target / COLS, target % COLS);
+    assertEquals(target, dungeon.getPlayerCell());
+    Map<Treasure, Integer> collected = dungeon.collectTreasure();
+    assertNotNull(collected);
+    int sum = 0;
+    for (Treasure t : Treasure.values()) {
+      sum += dungeon.getPlayerTreasure(t);
+    }
+    assertEquals(before, sum);
+
+    // describing the whole world cycles every chunk through the 4 resident ones.
+    long evicted = dungeon.getEvictedChunks();
+    for (int cell = CELLS - 1; cell >= 0; cell--) {
+      dungeon.describeLocation(cell / COLS, cell % COLS);
+    }
+    assertTrue(dungeon.getEvictedChunks() > evicted);
+    assertEquals(0, treasure(dungeon, target));
+    assertNull(dungeon.collectTreasure());
+    assertTrue(dungeon.isVisited(start / COLS, start % COLS));
+    assertTrue(dungeon.isVisited(target / COLS, target % COLS));
+    assertTrue(dungeon.getVisitedCells().get(target));
+    assertEquals(dungeon.getVisitedCells().cardinality(), dungeon.getVisitedCount());
+    assertFalse(dungeon.isVisited(dungeon.getEndCell() / COLS, dungeon.getEndCell() % COLS));
+  }
+
+  @Test
+  public void typedLocationAccessors() {
+    ChunkedDungeon dungeon = dungeon(5, 2, 4, null);
+    dungeon.enter();
+    dungeon.collectTreasure();
+    dungeon.pickWeapon();
+    DungeonTest.assertTypedAccessors(dungeon);
+    DungeonTest.assertTypedAccessors(hashed(5, 2, 4));
+  }
+
+  @Test
+  public void changedChunksKeepTheirStateInMemory() {
+    ChunkedDungeon dungeon = dungeon(5, 0, 4, null);
+    dungeon.enter();
+    collectAndEvict(dungeon);
+  }
+
+  @Test
+  public void changedChunksKeepTheirStateInSpillFiles() throws IOException {
+    Path dir = Files.createTempDirectory("chunks");
+    try {
+      ChunkedDungeon dungeon = dungeon(5, 0, 4, dir);
+      dungeon.enter();
+      collectAndEvict(dungeon);
+      try (Stream<Path> files = Files.list(dir)) {
+        assertTrue(files.count() > 0);
+      }
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  private static Set<Path> files(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.collect(Collectors.toSet());
+    }
+  }
+
+  @Test
+  public void forksShareSpillFilesUntilClosed() throws IOException {
+    Path dir = Files.createTempDirectory("chunks");
+    try {
+      ChunkedDungeon dungeon = dungeon(5, 0, 4, dir);
+      dungeon.enter();
+      collectAndEvict(dungeon);
+      // collecting more treasure changes a resident chunk again.
+      int target = -1;
+      for (int cell = CELLS - 1; (cell >= 0) && (target < 0); cell--) {
+        if (treasure(dungeon, cell) > 0) {
+          target = cell;
+        }
+      }
+      dungeon.travelTo(target / COLS, target % COLS);
+      assertNotNull(dungeon.collectTreasure());
+      Set<Path> before = files(dir);
+      ChunkedDungeon fork = (ChunkedDungeon) dungeon.fork();
+      // the fork keeps the changed resident chunks in memory and reads the other files.
+      assertEquals(before, files(dir));
+
+      List<Map<LocationDescription, List<String>>> described = new ArrayList<>();
+      for (int cell = 0; cell < CELLS; cell++) {
+        described.add(dungeon.describeLocation(cell / COLS, cell % COLS));
+      }
+      dungeon.close();
+      Set<Path> shared = files(dir);
+      for (int cell = 0; cell < CELLS; cell++) {
+        assertEquals(described.get(cell), fork.describeLocation(cell / COLS, cell % COLS));
+      }
+      // the kept chunks are written once the fork drops them.
+      assertFalse(shared.containsAll(files(dir)));
+      fork.close();
+      assertTrue(files(dir).isEmpty());
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  public void resetAndForkRestoreTheWorld() {
+    ChunkedDungeon dungeon = dungeon(5, 0, 4, null);
+    ChunkedDungeon original = dungeon(5, 0, 64, null);
+    dungeon.enter();
+    Dungeon fork = dungeon.fork();
+    collectAndEvict(dungeon);
+    int start = dungeon.getStartCell();
+    assertEquals(start, fork.getPlayerCell());
+    for (int cell = 0; cell < CELLS; cell++) {
+      assertEquals(original.describeLocation(cell / COLS, cell % COLS),
+              fork.describeLocation(cell / COLS, cell % COLS));
+    }
+
+    dungeon.reset();
+    assertTrue(dungeon.getVisitedCells().isEmpty());
+    assertEquals(0, dungeon.getVisitedCount());
+    for (int cell = 0; cell < CELLS; cell++) {
+      assertEquals(original.describeLocation(cell / COLS, cell % COLS),
+              dungeon.describeLocation(cell / COLS, cell % COLS));
+    }
+  }
+
+  @Test
+  public void hashedContentMatchesThePercentages() {
+    int caves = 0;
+    int treasureCaves = 0;
+    int arrowLocations = 0;
+    int monsters = 0;
+    int seeds = 5;
+    for (long seed = 0; seed < seeds; seed++) {
+      ChunkedDungeon dungeon = hashed(seed, 2, 4);
+      int[] neighbours = neighbours(dungeon);
+      for (int cell = 0; cell < CELLS; cell++) {
+        Map<LocationDescription, List<String>> desc = dungeon.describeLocation(cell / COLS,
+                cell % COLS);
+        int kinds = 0;
+        for (String value : desc.get(LocationDescription.TREASURE)) {
+          int quantity = Integer.parseInt(value.split(" ")[1]);
+          if (quantity > 0) {
+            assertTrue((quantity >= 20) && (quantity < 100));
+            kinds++;
+          }
+        }
+        assertTrue(kinds <= 1);
+        int arrows = Integer.parseInt(desc.get(LocationDescription.WEAPON).get(0).split(" ")[1]);
+        assertTrue((arrows >= 0) && (arrows <= 2));
+        arrowLocations += (arrows > 0) ? 1 : 0;
+        boolean monster = !desc.get(LocationDescription.MONSTER).get(0).equals("null");
+        if (isCave(neighbours, cell)) {
+          caves++;
+          treasureCaves += kinds;
+          monsters += monster ? 1 : 0;
+        } else {
+          assertEquals(0, kinds);
+          assertFalse(monster);
+        }
+      }
+      int start = dungeon.getStartCell();
+      int end = dungeon.getEndCell();
+      assertEquals("null", dungeon.describeLocation(start / COLS, start % COLS)
+              .get(LocationDescription.MONSTER).get(0));
+      assertEquals("OTYUGH 2 2", dungeon.describeLocation(end / COLS, end % COLS)
+              .get(LocationDescription.MONSTER).get(0));
+    }
+    assertEquals(0.3, treasureCaves / (double) caves, 0.06);
+    assertEquals(0.3, arrowLocations / (double) (seeds * CELLS), 0.06);
+    int expected = seeds * CHUNKS * CHUNKS * 2;
+    assertTrue((monsters > expected / 2) && (monsters < expected * 2));
+  }
+
+  @Test
+  public void hashedContentIsDerivedAgain() {
+    ChunkedDungeon all = hashed(13, 2, 64);
+    ChunkedDungeon few = hashed(13, 2, 4);
+    ChunkedDungeon placed = new ChunkedDungeon("player", SIZE, CHUNKS, CHUNKS, 0, 30, 2, 13,
+            null, null, 64, null);
+    assertEquals(placed.getStart(), all.getStart());
+    assertEquals(placed.getEnd(), all.getEnd());
+    for (int round = 0; round < 2; round++) {
+      for (int cell = 0; cell < CELLS; cell++) {
+        Map<LocationDescription, List<String>> desc = all.describeLocation(cell / COLS,
+                cell % COLS);
+        assertEquals(desc, few.describeLocation(cell / COLS, cell % COLS));
+        // the layout does not depend on the content mode.
+        assertEquals(placed.describeLocation(cell / COLS, cell % COLS)
+                .get(LocationDescription.MOVES), desc.get(LocationDescription.MOVES));
+      }
+    }
+    assertTrue(few.getEvictedChunks() > 0);
+  }
+
+  @Test
+  public void hashedContentKeepsTheChanges() {
+    ChunkedDungeon dungeon = hashed(5, 0, 4);
+    dungeon.enter();
+    collectAndEvict(dungeon);
+  }
+
+  @Test
+  public void undoIsNotSupported() {
+    ChunkedDungeon dungeon = dungeon(5, 0, 4, null);
+    dungeon.enter();
+    assertFalse(dungeon.canUndo());
+    assertFalse(dungeon.canRedo());
+    assertNull(dungeon.getCaveGraph());
+    try {
+      dungeon.undo();
+      fail("undo should fail.");
+    } catch (IllegalStateException ill) {
+      assertEquals("there is no action to undo.", ill.getMessage());
+    }
+  }
+
+  @Test
+  public void invalidArguments() {
+    Object[][] invalid = {
+        {null, 6, 2, 2, 0, 50, 0}, {"", 6, 2, 2, 0, 50, 0}, {"p", 4, 2, 2, 0, 50, 0},
+        {"p", 6, 1, 1, 0, 50, 0}, {"p", 6, 0, 2, 0, 50, 0}, {"p", 6, 2, 2, -1, 50, 0},
+        {"p", 6, 2, 2, 0, 0, 0}, {"p", 6, 2, 2, 0, 101, 0}, {"p", 6, 2, 2, 0, 50, -1},
+        {"p", 50000, 2, 2, 0, 50, 0}};
+    for (Object[] args : invalid) {
+      try {
+        new ChunkedDungeon((String) args[0], (int) args[1], (int) args[2], (int) args[3],
+                (int) args[4], (int) args[5], (int) args[6], 1);
+        fail("should fail for " + Arrays.toString(args));
+      } catch (IllegalArgumentException ill) {
+        // expected.
+      }
+    }
+    try {
+      new ChunkedDungeon("p", 6, 2, 2, 0, 50, 0, 1, null, null, 3, null);
+      fail("should fail for 3 resident chunks.");
+    } catch (IllegalArgumentException ill) {
+      // expected.
+    }
+    try {
+      new ChunkedDungeon("p", 6, 2, 2, 0, 50, 0, 1, null, null, 4, null, null);
+      fail("should fail for a null content mode.");
+    } catch (IllegalArgumentException ill) {
+      // expected.
+    }
+  }
+}
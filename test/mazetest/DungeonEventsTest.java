@@ -0,0 +1,140 @@
+package mazetest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.NonWrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for the JFR events of the dungeon model.
+ */
+public class DungeonEventsTest {
+  private static final String[] EVENTS = {"maze.GenerationPhase", "maze.Move", "maze.ShootArrow",
+      "maze.CollectTreasure", "maze.PickWeapon", "maze.DescribeLocation"};
+
+  // runs the action in a recording of the dungeon events, returning the events recorded.
+  private static List<RecordedEvent> record(Runnable action) throws IOException {
+    Path file = Files.createTempFile("dungeon", ".jfr");
+    try (Recording recording = new Recording()) {
+      for (String event : EVENTS) {
+        recording.enable(event).withoutThreshold();
+      }
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> result = new ArrayList<>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(name)) {
+        result.add(event);
+      }
+    }
+    return result;
+  }
+
+  private static Dungeon dungeon() {
+    return new NonWrappingDungeon("player", 6, 7, 2, 100, 2, new CustomRandomInteger(21));
+  }
+
+  @Test
+  public void recordsGenerationPhases() throws IOException {
+    List<RecordedEvent> phases = named(record(DungeonEventsTest::dungeon),
+            "maze.GenerationPhase");
+    assertFalse(phases.isEmpty());
+    for (RecordedEvent phase : phases) {
+      assertEquals(6, phase.getInt("rows"));
+      assertEquals(7, phase.getInt("columns"));
+    }
+    assertEquals("CONFIGURE_MONSTERS", phases.get(phases.size() - 1).getString("phase"));
+  }
+
+  @Test
+  public void recordsActions() throws IOException {
+    Dungeon dungeon = dungeon();
+    List<RecordedEvent> events = record(() -> {
+      dungeon.enter();
+      dungeon.describeLocation();
+      dungeon.collectTreasure();
+      dungeon.pickWeapon();
+      dungeon.shootArrow(Direction.NORTH, 1);
+      for (Direction dir : Direction.values()) {
+        try {
+          dungeon.move(dir);
+        } catch (IllegalStateException ill) {
+          // no neighbour in the direction.
+        }
+      }
+    });
+    int start = dungeon.getStartCell();
+
+    RecordedEvent describe = named(events, "maze.DescribeLocation").get(0);
+    assertEquals(start, describe.getInt("cell"));
+    assertEquals(start, describe.getInt("location"));
+    assertEquals("CAVE", describe.getString("outcome"));
+
+    RecordedEvent collect = named(events, "maze.CollectTreasure").get(0);
+    assertEquals("COLLECTED", collect.getString("outcome"));
+    assertTrue(collect.getInt("quantity") > 0);
+
+    RecordedEvent shoot = named(events, "maze.ShootArrow").get(0);
+    assertEquals("NORTH", shoot.getString("direction"));
+    assertEquals(1, shoot.getInt("distance"));
+
+    List<RecordedEvent> moves = named(events, "maze.Move");
+    assertEquals(4, moves.size());
+    boolean moved = false;
+    for (RecordedEvent move : moves) {
+      assertEquals(6, move.getInt("rows"));
+      if (!move.getString("outcome").equals("FAILED")) {
+        assertTrue(move.getInt("target") != move.getInt("cell"));
+        moved = true;
+        break;
+      }
+      assertEquals(start, move.getInt("target"));
+    }
+    assertTrue(moved);
+  }
+
+  @Test
+  public void recordsNothingWhenDisabled() throws IOException {
+    Path file = Files.createTempFile("dungeon", ".jfr");
+    try (Recording recording = new Recording()) {
+      for (String event : EVENTS) {
+        recording.disable(event);
+      }
+      recording.start();
+      Dungeon dungeon = dungeon();
+      dungeon.enter();
+      dungeon.describeLocation();
+      recording.stop();
+      recording.dump(file);
+      for (String name : EVENTS) {
+        assertTrue(named(RecordingFile.readAllEvents(file), name).isEmpty());
+      }
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
@@ -18,6 +18,7 @@ import maze.NonWrappingDungeon;
 import maze.PlayerDescription;
 import maze.RandomInteger;
 import maze.Treasure;
+import maze.WeaponType;
 import maze.WrappingDungeon;
 
 import static org.junit.Assert.assertEquals;
@@ -1402,4 +1403,86 @@ public class DungeonTest {
   public void resetNonWrapD() {
     assertTrue("reset should work for non wrapping dungeon.", reset(nonWrapR));
   }
+
+  @Test
+  public void seededDungeonIsReproducible() {
+    for (long seed = 0; seed < 10; seed++) {
+      Dungeon first = new WrappingDungeon("player1", 5, 6, 2, 50,
+              new CustomRandomInteger(seed));
+      Dungeon second = new WrappingDungeon("player1", 5, 6, 2, 50,
+              new CustomRandomInteger(seed));
+      assertEquals("same seed should construct the same dungeon.",
+              first.toString(), second.toString());
+      assertEquals(first.getStart(), second.getStart());
+      assertEquals(first.getEnd(), second.getEnd());
+    }
+  }
+
+  @Test
+  public void describeAnyLocation() {
+    nonWrap.enter();
+    String[] startRC = nonWrap.getStart().split(",");
+    Map<LocationDescription, List<String>> atStart = nonWrap.describeLocation(
+            Integer.parseInt(startRC[0]), Integer.parseInt(startRC[1]));
+    Map<LocationDescription, List<String>> atPlayer = nonWrap.describeLocation();
+    for (LocationDescription l : LocationDescription.values()) {
+      assertEquals("description of the player location should match.",
+              atPlayer.get(l), atStart.get(l));
+    }
+    for (int i = 0; i < nonWrap.getRow(); i++) {
+      for (int j = 0; j < nonWrap.getCol(); j++) {
+        Map<LocationDescription, List<String>> locationD = nonWrap.describeLocation(i, j);
+        assertEquals(String.valueOf(i), locationD.get(LocationDescription.ROW).get(0));
+        assertEquals(String.valueOf(j), locationD.get(LocationDescription.COLUMN).get(0));
+      }
+    }
+  }
+
+  // checks that the typed accessors agree with the description of every location.
+  static void assertTypedAccessors(Dungeon dungeon) {
+    int cols = dungeon.getCol();
+    for (int cell = 0; cell < dungeon.getRow() * cols; cell++) {
+      Map<LocationDescription, List<String>> locationD =
+              dungeon.describeLocation(cell / cols, cell % cols);
+      List<String> moves = locationD.get(LocationDescription.MOVES);
+      for (int d = 0; d < moves.size(); d++) {
+        assertEquals(!moves.get(d).equals("null"), (dungeon.getMoves(cell) & (1 << d)) != 0);
+      }
+      for (String t : locationD.get(LocationDescription.TREASURE)) {
+        String[] quantity = t.split(" ");
+        assertEquals(Integer.parseInt(quantity[1]),
+                dungeon.getTreasureAt(cell, Treasure.valueOf(quantity[0])));
+      }
+      for (String w : locationD.get(LocationDescription.WEAPON)) {
+        String[] quantity = w.split(" ");
+        assertEquals(Integer.parseInt(quantity[1]),
+                dungeon.getWeaponAt(cell, WeaponType.valueOf(quantity[0])));
+      }
+    }
+  }
+
+  @Test
+  public void typedLocationAccessors() {
+    assertTypedAccessors(wrap);
+    assertTypedAccessors(nonWrap);
+    nonWrap.enter();
+    nonWrap.collectTreasure();
+    nonWrap.pickWeapon();
+    int start = nonWrap.getPlayerCell();
+    for (Treasure t : Treasure.values()) {
+      assertEquals(0, nonWrap.getTreasureAt(start, t));
+    }
+    assertEquals(0, nonWrap.getWeaponAt(start, WeaponType.CROOKEDARROW));
+    assertTypedAccessors(nonWrap);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void typedAccessorOutside() {
+    nonWrap.getMoves(nonWrap.getRow() * nonWrap.getCol());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void describeLocationOutside() {
+    nonWrap.describeLocation(nonWrap.getRow(), 0);
+  }
 }
\ No newline at end of file
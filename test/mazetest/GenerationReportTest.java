@@ -0,0 +1,122 @@
+package mazetest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import maze.CustomRandomInteger;
+import maze.Dungeon;
+import maze.GenerationPhase;
+import maze.GenerationReport;
+import maze.LayoutCache;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link GenerationReport}.
+ */
+public class GenerationReportTest {
+
+  @After
+  public void tearDown() {
+    LayoutCache.clear();
+  }
+
+  @Test
+  public void wrappingDungeonPhases() {
+    GenerationReport report = new WrappingDungeon("player", 7, 8, 2, 50, 3, null)
+            .getGenerationReport();
+    assertEquals(List.of(GenerationPhase.SETUP_NON_WRAPPING_EDGES,
+            GenerationPhase.SETUP_WRAPPING_EDGES, GenerationPhase.CREATE_LOCATIONS,
+            GenerationPhase.GENERATE_MAZE, GenerationPhase.SELECT_START_END,
+            GenerationPhase.CONFIGURE_TREASURE, GenerationPhase.CONFIGURE_ARROWS,
+            GenerationPhase.CONFIGURE_MONSTERS), report.getPhases());
+    long phases = 0;
+    for (GenerationPhase phase : report.getPhases()) {
+      assertTrue(report.getNanos(phase) > 0);
+      phases += report.getNanos(phase);
+    }
+    assertTrue(report.getTotalNanos() >= phases);
+    assertFalse(report.isLayoutCached());
+    assertEquals(0, report.getNanos(GenerationPhase.RESTORE_LAYOUT));
+  }
+
+  @Test
+  public void nonWrappingDungeonWithoutMonsters() {
+    GenerationReport report = new NonWrappingDungeon("player", 5, 6, 1, 50, 0, null)
+            .getGenerationReport();
+    assertEquals(List.of(GenerationPhase.SETUP_NON_WRAPPING_EDGES,
+            GenerationPhase.CREATE_LOCATIONS, GenerationPhase.GENERATE_MAZE,
+            GenerationPhase.SELECT_START_END, GenerationPhase.CONFIGURE_TREASURE),
+            report.getPhases());
+    assertEquals(0, report.getRetries(GenerationPhase.CONFIGURE_ARROWS));
+  }
+
+  @Test
+  public void countsRetries() {
+    GenerationReport report = new WrappingDungeon("player", 8, 9, 0, 100, 10,
+            new CustomRandomInteger(4)).getGenerationReport();
+    // a spanning tree keeps cells - 1 of the edges, the others are rejected or left over.
+    assertTrue(report.getRetries(GenerationPhase.GENERATE_MAZE) > 0);
+    // the treasure goes to every cave, so every draw of a tunnel is retried.
+    assertTrue(report.getRetries(GenerationPhase.CONFIGURE_TREASURE) > 0);
+    assertTrue(report.getRetries(GenerationPhase.CONFIGURE_MONSTERS) > 0);
+    assertEquals(0, report.getRetries(GenerationPhase.CREATE_LOCATIONS));
+  }
+
+  @Test
+  public void measuresAllocations() {
+    GenerationReport report = new NonWrappingDungeon("player", 6, 7, 1, 50, 0, null)
+            .getGenerationReport();
+    if (report.getAllocatedBytes(GenerationPhase.CREATE_LOCATIONS) == -1) {
+      // the runtime cannot measure allocations.
+      return;
+    }
+    assertTrue(report.getAllocatedBytes(GenerationPhase.CREATE_LOCATIONS) > 0);
+    assertEquals(0, report.getAllocatedBytes(GenerationPhase.SETUP_WRAPPING_EDGES));
+  }
+
+  @Test
+  public void cachedLayoutIsRestored() {
+    new NonWrappingDungeon("player", 6, 7, 1, 50, 2, new CustomRandomInteger(9));
+    GenerationReport report = new NonWrappingDungeon("player", 6, 7, 1, 50, 2,
+            new CustomRandomInteger(9)).getGenerationReport();
+    assertTrue(report.isLayoutCached());
+    assertEquals(List.of(GenerationPhase.RESTORE_LAYOUT, GenerationPhase.CONFIGURE_TREASURE,
+            GenerationPhase.CONFIGURE_ARROWS, GenerationPhase.CONFIGURE_MONSTERS),
+            report.getPhases());
+    assertEquals(0, report.getNanos(GenerationPhase.GENERATE_MAZE));
+  }
+
+  @Test
+  public void forkSharesReport() {
+    Dungeon dungeon = new WrappingDungeon("player", 6, 7, 1, 50, null);
+    assertSame(dungeon.getGenerationReport(), dungeon.fork().getGenerationReport());
+  }
+
+  @Test
+  public void printsPhases() {
+    GenerationReport report = new WrappingDungeon("player", 6, 7, 1, 50, null)
+            .getGenerationReport();
+    String printed = report.toString();
+    assertTrue(printed.contains("GENERATE_MAZE"));
+    assertTrue(printed.contains("TOTAL"));
+    assertFalse(printed.contains("CONFIGURE_MONSTERS"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void phasesAreImmutable() {
+    new WrappingDungeon("player", 6, 7, 1, 50, null).getGenerationReport().getPhases().clear();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullPhase() {
+    new WrappingDungeon("player", 6, 7, 1, 50, null).getGenerationReport().getNanos(null);
+  }
+}
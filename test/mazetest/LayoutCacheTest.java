@@ -0,0 +1,131 @@
+package mazetest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LayoutCache;
+import maze.NonWrappingDungeon;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Testing class for {@link LayoutCache}.
+ */
+public class LayoutCacheTest {
+
+  @Before
+  public void setUp() {
+    LayoutCache.clear();
+  }
+
+  @After
+  public void tearDown() {
+    LayoutCache.setMaxBytes(LayoutCache.DEFAULT_MAX_BYTES);
+    LayoutCache.clear();
+  }
+
+  private static Dungeon wrapping(int interConn, long seed) {
+    return new WrappingDungeon("player", 7, 8, interConn, 50, 4, new CustomRandomInteger(seed));
+  }
+
+  // plays the same few actions on the dungeon, recording where they led.
+  private static String play(Dungeon dungeon) {
+    StringBuilder played = new StringBuilder();
+    dungeon.enter();
+    for (Direction dir : Direction.values()) {
+      try {
+        dungeon.move(dir);
+        played.append(dungeon.getPlayerLocation()).append(dungeon.getLocationSmell());
+        dungeon.pickWeapon();
+        dungeon.collectTreasure();
+      } catch (IllegalStateException ill) {
+        // no neighbour in the direction, or the game ended.
+        played.append('-');
+      }
+    }
+    return played.append(dungeon.describePlayer()).toString();
+  }
+
+  @Test
+  public void cachedLayoutConstructsSameDungeon() {
+    Dungeon first = wrapping(3, 11);
+    long hits = LayoutCache.getHits();
+    Dungeon second = wrapping(3, 11);
+    assertEquals(hits + 1, LayoutCache.getHits());
+    assertEquals(first.toString(), second.toString());
+    assertEquals(first.getStart(), second.getStart());
+    assertEquals(first.getEnd(), second.getEnd());
+    assertSame(first.getCaveGraph(), second.getCaveGraph());
+    assertEquals(play(first), play(second));
+  }
+
+  @Test
+  public void contentIsPlacedAgain() {
+    Dungeon first = new NonWrappingDungeon("player", 6, 7, 2, 20, 0, new CustomRandomInteger(5));
+    long hits = LayoutCache.getHits();
+    Dungeon second = new NonWrappingDungeon("player", 6, 7, 2, 100, 3,
+            new CustomRandomInteger(5));
+    assertEquals(hits + 1, LayoutCache.getHits());
+    assertEquals(first.getStart(), second.getStart());
+    assertNotEquals(first.toString(), second.toString());
+  }
+
+  @Test
+  public void differentParametersMiss() {
+    wrapping(3, 11);
+    long misses = LayoutCache.getMisses();
+    wrapping(3, 12);
+    wrapping(4, 11);
+    new NonWrappingDungeon("player", 7, 8, 3, 50, 4, new CustomRandomInteger(11));
+    assertEquals(misses + 3, LayoutCache.getMisses());
+    assertEquals(4, LayoutCache.size());
+  }
+
+  @Test
+  public void unseededDungeonsAreNotCached() {
+    new WrappingDungeon("player", 7, 8, 3, 50, 4, null);
+    CustomRandomInteger used = new CustomRandomInteger(11);
+    used.nextInt(0, 2);
+    new WrappingDungeon("player", 7, 8, 3, 50, 4, used);
+    assertEquals(0, LayoutCache.size());
+  }
+
+  @Test
+  public void evictsLeastRecentlyUsed() {
+    wrapping(3, 1);
+    long oneLayout = LayoutCache.getBytes();
+    LayoutCache.setMaxBytes(2 * oneLayout);
+    wrapping(3, 2);
+    wrapping(3, 1);
+    long evictions = LayoutCache.getEvictions();
+    wrapping(3, 3);
+    assertEquals(evictions + 1, LayoutCache.getEvictions());
+    assertEquals(2, LayoutCache.size());
+    assertEquals(2 * oneLayout, LayoutCache.getBytes());
+    // seed 2 was the least recently used.
+    long hits = LayoutCache.getHits();
+    wrapping(3, 1);
+    wrapping(3, 2);
+    assertEquals(hits + 1, LayoutCache.getHits());
+  }
+
+  @Test
+  public void zeroDisablesCache() {
+    LayoutCache.setMaxBytes(0);
+    wrapping(3, 1);
+    assertEquals(0, LayoutCache.size());
+    assertEquals(0, LayoutCache.getBytes());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeMaxBytes() {
+    LayoutCache.setMaxBytes(-1);
+  }
+}
@@ -0,0 +1,176 @@
+package mazetest;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import maze.BacktrackerGenerator;
+import maze.CaveGraph;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.KruskalGenerator;
+import maze.LayoutCache;
+import maze.MazeGenerator;
+import maze.NonWrappingDungeon;
+import maze.PrimGenerator;
+import maze.WilsonGenerator;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for the {@link MazeGenerator} implementations.
+ */
+public class MazeGeneratorTest {
+  private static final MazeGenerator[] GENERATORS = {new KruskalGenerator(),
+      new WilsonGenerator(), new PrimGenerator(), new BacktrackerGenerator()};
+
+  @After
+  public void tearDown() {
+    LayoutCache.clear();
+  }
+
+  // packed edges of a grid, with the wrapping edges when asked for.
+  private static int[] grid(int rows, int cols, boolean wrapping) {
+    int[] edges = new int[4 * rows * cols];
+    int count = 0;
+    for (int row = 0; row < rows; row++) {
+      for (int col = 0; col < cols; col++) {
+        int cell = row * cols + col;
+        if (wrapping || (col != cols - 1)) {
+          edges[count++] = cell;
+          edges[count++] = row * cols + (col + 1) % cols;
+        }
+        if (wrapping || (row != rows - 1)) {
+          edges[count++] = cell;
+          edges[count++] = ((row + 1) % rows) * cols + col;
+        }
+      }
+    }
+    return Arrays.copyOf(edges, count);
+  }
+
+  // checks the order holds every edge once and starts with a spanning tree of the cells.
+  private static void assertSpanningTree(int[] edges, int cells, int[] order) {
+    int[] sorted = order.clone();
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; i++) {
+      assertEquals(i, sorted[i]);
+    }
+    int[] roots = new int[cells];
+    for (int cell = 0; cell < cells; cell++) {
+      roots[cell] = cell;
+    }
+    for (int i = 0; i < cells - 1; i++) {
+      int first = root(roots, edges[2 * order[i]]);
+      int second = root(roots, edges[2 * order[i] + 1]);
+      assertNotEquals("edge " + order[i] + " closes a loop", first, second);
+      roots[first] = second;
+    }
+  }
+
+  private static int root(int[] roots, int cell) {
+    while (roots[cell] != cell) {
+      cell = roots[cell];
+    }
+    return cell;
+  }
+
+  @Test
+  public void generatesSpanningTrees() {
+    for (boolean wrapping : new boolean[]{false, true}) {
+      int[] edges = grid(23, 31, wrapping);
+      for (MazeGenerator generator : GENERATORS) {
+        int[] order = new int[edges.length / 2];
+        int retries = generator.generate(edges, 23 * 31, new CustomRandomInteger(3), order);
+        assertSpanningTree(edges, 23 * 31, order);
+        assertTrue(retries >= 0);
+      }
+    }
+  }
+
+  @Test
+  public void predictableGeneratorEnds() {
+    int[] edges = grid(9, 11, true);
+    for (MazeGenerator generator : GENERATORS) {
+      int[] order = new int[edges.length / 2];
+      generator.generate(edges, 99, new CustomRandomInteger(true), order);
+      assertSpanningTree(edges, 99, order);
+    }
+  }
+
+  @Test
+  public void kruskalWithPredictableGeneratorKeepsFirstEdges() {
+    // always drawing the first edge left keeps the edges in order until one closes a loop.
+    int[] edges = {0, 1, 1, 2, 0, 2, 2, 3};
+    int[] order = new int[4];
+    assertEquals(1, new KruskalGenerator().generate(edges, 4, new CustomRandomInteger(true),
+            order));
+    assertEquals("[0, 1, 3, 2]", Arrays.toString(order));
+  }
+
+  @Test
+  public void everyLocationIsReachable() {
+    for (MazeGenerator generator : GENERATORS) {
+      Dungeon dungeon = new WrappingDungeon("player", 12, 17, 0, 50, 0,
+              new CustomRandomInteger(8), generator);
+      dungeon.enter();
+      for (int row = 0; row < 12; row++) {
+        for (int col = 0; col < 17; col++) {
+          dungeon.pathTo(row, col);
+        }
+      }
+      assertEquals(12 * 17 - 1, countPassages(dungeon));
+    }
+  }
+
+  // counts the passages of the dungeon from the moves out of its locations.
+  private static int countPassages(Dungeon dungeon) {
+    CaveGraph graph = dungeon.getCaveGraph();
+    int moves = 0;
+    for (int cell = 0; cell < dungeon.getRow() * dungeon.getCol(); cell++) {
+      for (Direction dir : Direction.values()) {
+        moves += (graph.getLength(cell, dir) > 0) ? 1 : 0;
+      }
+    }
+    return moves / 2;
+  }
+
+  @Test
+  public void interconnectivityAddsLeftOverEdges() {
+    for (MazeGenerator generator : GENERATORS) {
+      Dungeon dungeon = new NonWrappingDungeon("player", 10, 12, 7, 50, 0,
+              new CustomRandomInteger(5), generator);
+      assertEquals(10 * 12 - 1 + 7, countPassages(dungeon));
+    }
+  }
+
+  @Test
+  public void generatorsAreCachedApart() {
+    new NonWrappingDungeon("player", 6, 7, 1, 50, 0, new CustomRandomInteger(5),
+            new PrimGenerator());
+    long hits = LayoutCache.getHits();
+    new NonWrappingDungeon("player", 6, 7, 1, 50, 0, new CustomRandomInteger(5),
+            new WilsonGenerator());
+    assertEquals(hits, LayoutCache.getHits());
+    new NonWrappingDungeon("player", 6, 7, 1, 50, 0, new CustomRandomInteger(5),
+            new PrimGenerator());
+    assertEquals(hits + 1, LayoutCache.getHits());
+  }
+
+  @Test
+  public void defaultIsKruskal() {
+    Dungeon kruskal = new WrappingDungeon("player", 7, 8, 2, 50, 0, new CustomRandomInteger(4),
+            new KruskalGenerator());
+    LayoutCache.clear();
+    Dungeon fallback = new WrappingDungeon("player", 7, 8, 2, 50, 0, new CustomRandomInteger(4),
+            null);
+    assertEquals(kruskal.toString(), fallback.toString());
+    assertFalse(kruskal.toString().isEmpty());
+  }
+}
@@ -7,10 +7,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import maze.ChunkedDungeon;
 import maze.CustomRandomInteger;
 import maze.Direction;
 import maze.Dungeon;
+import maze.DungeonChange;
+import maze.DungeonListener;
 import maze.LocationDescription;
 import maze.LocationType;
 import maze.NonWrappingDungeon;
@@ -57,6 +61,127 @@ public class MonsterDungeonTest {
     assertTrue("player should initially have 3 arrows.", check);
   }
 
+  @Test
+  public void playerArrowsWithoutParsing() {
+    wrap.enter();
+    assertEquals(3, wrap.getPlayerWeapon(WeaponType.CROOKEDARROW));
+    assertEquals(0, wrap.getPlayerTreasure(Treasure.DIAMONDS));
+    wrap.shootArrow(Direction.NORTH, 1);
+    assertEquals(2, wrap.getPlayerWeapon(WeaponType.CROOKEDARROW));
+  }
+
+  @Test
+  public void listenersNotifiedOncePerOperation() {
+    List<Set<DungeonChange>> notified = new ArrayList<>();
+    DungeonListener listener = notified::add;
+    wrap.addListener(listener);
+    wrap.addListener(listener);
+
+    wrap.enter();
+    assertEquals(1, notified.size());
+    assertTrue(notified.get(0).contains(DungeonChange.PLAYER_LOCATION));
+    assertTrue(notified.get(0).contains(DungeonChange.PLAYER_INVENTORY));
+
+    wrap.shootArrow(Direction.NORTH, 1);
+    assertEquals(2, notified.size());
+    assertTrue(notified.get(1).contains(DungeonChange.PLAYER_INVENTORY));
+
+    for (Direction dir : Direction.values()) {
+      try {
+        wrap.move(dir);
+        break;
+      } catch (IllegalStateException ill) {
+        // no neighbour in this direction, try the next one.
+      }
+    }
+    assertEquals(3, notified.size());
+    assertTrue(notified.get(2).contains(DungeonChange.PLAYER_LOCATION));
+
+    wrap.removeListener(listener);
+    wrap.reset();
+    assertEquals(3, notified.size());
+  }
+
+  @Test
+  public void forkIsIndependent() {
+    Dungeon seeded = new WrappingDungeon("player1", 6, 6, 2, 50, 2,
+            new CustomRandomInteger(3));
+    seeded.enter();
+    String before = seeded.toString();
+    String playerBefore = seeded.describePlayer().toString();
+
+    Dungeon fork = seeded.fork();
+    assertEquals(before, fork.toString());
+    fork.collectTreasure();
+    fork.pickWeapon();
+    fork.shootArrow(Direction.NORTH, 1);
+    fork.shootArrow(Direction.SOUTH, 1);
+    for (Direction dir : Direction.values()) {
+      try {
+        fork.move(dir);
+        break;
+      } catch (IllegalStateException ill) {
+        // no neighbour in this direction, try the next one.
+      }
+    }
+    assertEquals("fork should not change the original.", before, seeded.toString());
+    assertEquals(playerBefore, seeded.describePlayer().toString());
+    assertEquals(3, seeded.getPlayerWeapon(WeaponType.CROOKEDARROW));
+
+    String forkState = fork.toString();
+    seeded.collectTreasure();
+    seeded.shootArrow(Direction.EAST, 1);
+    assertEquals("original should not change the fork.", forkState, fork.toString());
+  }
+
+  @Test
+  public void forkLeavesTheCoinFlipsAlone() {
+    CustomRandomInteger plain = new CustomRandomInteger(11);
+    CustomRandomInteger forked = new CustomRandomInteger(11);
+    new WrappingDungeon("player1", 6, 6, 2, 50, 2, plain);
+    Dungeon dungeon = new WrappingDungeon("player1", 6, 6, 2, 50, 2, forked);
+    dungeon.enter();
+    dungeon.fork();
+    dungeon.fork().fork();
+    new ChunkedDungeon("player1", 6, 2, 2, 0, 50, 1, 11, forked, null, 4, null).fork();
+    for (int i = 0; i < 32; i++) {
+      assertEquals("flip " + i, plain.nextInt(0, 2), forked.nextInt(0, 2));
+    }
+  }
+
+  @Test
+  public void resetRestoresDungeon() {
+    Dungeon seeded = new WrappingDungeon("player1", 6, 6, 2, 50, 2,
+            new CustomRandomInteger(3));
+    seeded.enter();
+    String before = seeded.toString();
+    for (int i = 0; (i < 30) && (!seeded.gameEnded()); i++) {
+      seeded.collectTreasure();
+      seeded.pickWeapon();
+      if (seeded.getPlayerWeapon(WeaponType.CROOKEDARROW) > 0) {
+        seeded.shootArrow(Direction.values()[i % 4], 1);
+      }
+      for (Direction dir : Direction.values()) {
+        try {
+          seeded.move(Direction.values()[(dir.ordinal() + i) % 4]);
+          break;
+        } catch (IllegalStateException ill) {
+          // no neighbour in this direction, try the next one.
+        }
+      }
+    }
+    assertFalse("game should have changed the dungeon.", before.equals(seeded.toString()));
+    seeded.reset();
+    seeded.enter();
+    assertEquals("reset should restore treasure, arrows and monsters.",
+            before, seeded.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullListener() {
+    wrap.addListener(null);
+  }
+
   private boolean checkWeapon(int crookedArrQ, List<String> weaponS) {
     List<String> weaponInfo = weaponS;
     for (String w : weaponInfo) {
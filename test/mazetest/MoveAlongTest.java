@@ -0,0 +1,157 @@
+package mazetest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LocationDescription;
+import maze.MoveResult;
+import maze.MoveStatus;
+import maze.NonWrappingDungeon;
+import maze.PlayerStatus;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for making a batch of moves in a {@link Dungeon}.
+ */
+public class MoveAlongTest {
+  private Dungeon dungeon;
+  private int endRow;
+  private int endCol;
+
+  @Before
+  public void setUp() {
+    dungeon = new NonWrappingDungeon("player", 6, 6, 2, 40, 0, new CustomRandomInteger(9));
+    dungeon.enter();
+    String[] end = dungeon.getEnd().split(",");
+    endRow = Integer.parseInt(end[0]);
+    endCol = Integer.parseInt(end[1]);
+  }
+
+  @Test
+  public void sameAsSingleMoves() {
+    Direction[] path = dungeon.pathTo(endRow, endCol);
+    Direction[] steps = Arrays.copyOf(path, path.length - 1);
+    Dungeon single = dungeon.fork();
+    for (Direction dir : steps) {
+      single.move(dir);
+    }
+
+    int[] notified = new int[1];
+    dungeon.addListener(changes -> notified[0]++);
+    MoveResult result = dungeon.moveAlong(steps);
+    assertEquals("listeners should be notified once.", 1, notified[0]);
+    assertEquals(MoveStatus.COMPLETED, result.getStatus());
+    assertEquals(steps.length, result.getSteps());
+    assertEquals(single.getPlayerLocation(), dungeon.getPlayerLocation());
+    assertEquals(result.getRow() + "," + result.getCol(), dungeon.getPlayerLocation());
+    assertEquals(result.getRow() * dungeon.getCol() + result.getCol(), result.getCell());
+    assertEquals(single.toString(), dungeon.toString());
+    assertEquals(single.getActionLog().toString(), dungeon.getActionLog().toString());
+  }
+
+  @Test
+  public void stopsAtInvalidMove() {
+    String start = dungeon.getPlayerLocation();
+    List<String> moves = dungeon.describeLocation().get(LocationDescription.MOVES);
+    Direction valid = null;
+    Direction invalid = null;
+    for (Direction dir : Direction.values()) {
+      if (moves.get(dir.ordinal()).equals("null")) {
+        invalid = dir;
+      } else {
+        valid = dir;
+      }
+    }
+    if (invalid == null) {
+      // every move is possible from the start, nothing blocks.
+      return;
+    }
+    MoveResult result = dungeon.moveAlong(new Direction[]{invalid, valid});
+    assertEquals(MoveStatus.BLOCKED, result.getStatus());
+    assertEquals(0, result.getSteps());
+    assertEquals(start, dungeon.getPlayerLocation());
+  }
+
+  @Test
+  public void stopsAtEnd() {
+    Direction[] path = dungeon.pathTo(endRow, endCol);
+    Direction[] steps = Arrays.copyOf(path, path.length + 3);
+    Arrays.fill(steps, path.length, steps.length, path[path.length - 1]);
+    MoveResult result = dungeon.moveAlong(steps);
+    assertEquals(MoveStatus.REACHED_END, result.getStatus());
+    assertEquals(path.length, result.getSteps());
+    assertEquals(dungeon.getEnd(), dungeon.getPlayerLocation());
+    assertTrue(dungeon.gameEnded());
+  }
+
+  @Test
+  public void stopsWhenKilled() {
+    for (int seed = 0; seed < 20; seed++) {
+      Dungeon d = new WrappingDungeon("player", 8, 8, 2, 40, 6, new CustomRandomInteger(seed));
+      d.enter();
+      String[] end = d.getEnd().split(",");
+      Direction[] path = d.pathTo(Integer.parseInt(end[0]), Integer.parseInt(end[1]));
+      MoveResult result = d.moveAlong(path);
+      if (d.getPlayerStatus() == PlayerStatus.DECEASED) {
+        assertEquals(MoveStatus.KILLED, result.getStatus());
+      } else {
+        assertEquals(MoveStatus.REACHED_END, result.getStatus());
+        assertEquals(path.length, result.getSteps());
+      }
+      assertEquals(result.getRow() + "," + result.getCol(), d.getPlayerLocation());
+    }
+  }
+
+  @Test
+  public void movesUndoneOneByOne() {
+    Direction[] path = dungeon.pathTo(endRow, endCol);
+    String start = dungeon.getPlayerLocation();
+    Dungeon single = dungeon.fork();
+    single.move(path[0]);
+    dungeon.moveAlong(Arrays.copyOf(path, 2));
+    dungeon.undo();
+    assertEquals(single.getPlayerLocation(), dungeon.getPlayerLocation());
+    dungeon.undo();
+    assertEquals(start, dungeon.getPlayerLocation());
+  }
+
+  @Test
+  public void noSteps() {
+    MoveResult result = dungeon.moveAlong(new Direction[0]);
+    assertEquals(MoveStatus.COMPLETED, result.getStatus());
+    assertEquals(0, result.getSteps());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullSteps() {
+    dungeon.moveAlong(null);
+  }
+
+  @Test
+  public void nullStepMakesNoMove() {
+    String start = dungeon.getPlayerLocation();
+    Direction[] path = dungeon.pathTo(endRow, endCol);
+    try {
+      dungeon.moveAlong(new Direction[]{path[0], null});
+    } catch (IllegalArgumentException ill) {
+      assertEquals(start, dungeon.getPlayerLocation());
+      return;
+    }
+    throw new AssertionError("null step should not be accepted.");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void movesBeforeEntering() {
+    Dungeon d = new WrappingDungeon("player", 5, 6, 1, 40, 0, new CustomRandomInteger(3));
+    d.moveAlong(new Direction[]{Direction.NORTH});
+  }
+}
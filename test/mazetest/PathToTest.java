@@ -0,0 +1,178 @@
+package mazetest;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LocationDescription;
+import maze.NonWrappingDungeon;
+import maze.PlayerStatus;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for finding paths and travelling in a {@link Dungeon}.
+ */
+public class PathToTest {
+
+  /*
+  cell id of the neighbour in the direction as described by the dungeon, -1 when there is no
+  move; the neighbour wraps around the edges of the dungeon.
+   */
+  private int neighbour(Dungeon dungeon, int cell, Direction dir) {
+    int rows = dungeon.getRow();
+    int cols = dungeon.getCol();
+    int r = cell / cols;
+    int c = cell % cols;
+    // moves are listed in the order of the directions, "null" when there is no move.
+    List<String> moves = dungeon.describeLocation(r, c).get(LocationDescription.MOVES);
+    if (moves.get(dir.ordinal()).equals("null")) {
+      return -1;
+    }
+    if (dir == Direction.NORTH) {
+      r = Math.floorMod(r - 1, rows);
+    } else if (dir == Direction.SOUTH) {
+      r = (r + 1) % rows;
+    } else if (dir == Direction.WEST) {
+      c = Math.floorMod(c - 1, cols);
+    } else {
+      c = (c + 1) % cols;
+    }
+    return r * cols + c;
+  }
+
+  // number of moves between two cells, found with a search over the described moves.
+  private int distance(Dungeon dungeon, int from, int to) {
+    int[] dist = new int[dungeon.getRow() * dungeon.getCol()];
+    Arrays.fill(dist, -1);
+    Deque<Integer> queue = new ArrayDeque<>();
+    dist[from] = 0;
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      int cell = queue.poll();
+      for (Direction dir : Direction.values()) {
+        int next = neighbour(dungeon, cell, dir);
+        if ((next >= 0) && (dist[next] < 0)) {
+          dist[next] = dist[cell] + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return dist[to];
+  }
+
+  private int[] playerLocation(Dungeon dungeon) {
+    String[] rowCol = dungeon.getPlayerLocation().split(",");
+    return new int[]{Integer.parseInt(rowCol[0]), Integer.parseInt(rowCol[1])};
+  }
+
+  private void checkShortestPaths(Dungeon dungeon) {
+    dungeon.enter();
+    int[] start = playerLocation(dungeon);
+    int cols = dungeon.getCol();
+    int from = start[0] * cols + start[1];
+    for (int i = 0; i < dungeon.getRow(); i++) {
+      for (int j = 0; j < cols; j++) {
+        Direction[] path = dungeon.pathTo(i, j);
+        assertEquals("path should be a shortest one.",
+                distance(dungeon, from, i * cols + j), path.length);
+
+        int cell = from;
+        for (Direction dir : path) {
+          cell = neighbour(dungeon, cell, dir);
+          assertTrue("path should only use possible moves.", cell >= 0);
+        }
+        assertEquals("path should lead to the location.", i * cols + j, cell);
+      }
+    }
+  }
+
+  @Test
+  public void shortestPathsWrapping() {
+    checkShortestPaths(new WrappingDungeon("player", 6, 7, 3, 40, 0,
+            new CustomRandomInteger(5)));
+  }
+
+  @Test
+  public void shortestPathsNonWrapping() {
+    checkShortestPaths(new NonWrappingDungeon("player", 7, 6, 3, 40, 0,
+            new CustomRandomInteger(5)));
+  }
+
+  @Test
+  public void pathToPlayerLocation() {
+    Dungeon dungeon = new WrappingDungeon("player", 5, 6, 1, 40, 0, new CustomRandomInteger(3));
+    dungeon.enter();
+    int[] start = playerLocation(dungeon);
+    assertEquals(0, dungeon.pathTo(start[0], start[1]).length);
+    assertEquals(0, dungeon.travelTo(start[0], start[1]));
+  }
+
+  @Test
+  public void travelToEnd() {
+    Dungeon dungeon = new NonWrappingDungeon("player", 6, 6, 2, 40, 0,
+            new CustomRandomInteger(9));
+    dungeon.enter();
+    String[] end = dungeon.getEnd().split(",");
+    int row = Integer.parseInt(end[0]);
+    int col = Integer.parseInt(end[1]);
+    int expected = dungeon.pathTo(row, col).length;
+    assertTrue("end should be at least 5 moves away.", expected >= 5);
+    assertEquals(expected, dungeon.travelTo(row, col));
+    assertEquals(dungeon.getEnd(), dungeon.getPlayerLocation());
+    assertTrue(dungeon.gameEnded());
+    assertEquals(expected + 1, dungeon.getActionLog().size());
+  }
+
+  @Test
+  public void travelStopsWhenKilled() {
+    for (int seed = 0; seed < 20; seed++) {
+      Dungeon dungeon = new WrappingDungeon("player", 8, 8, 2, 40, 6,
+              new CustomRandomInteger(seed));
+      dungeon.enter();
+      String[] end = dungeon.getEnd().split(",");
+      int row = Integer.parseInt(end[0]);
+      int col = Integer.parseInt(end[1]);
+      int length = dungeon.pathTo(row, col).length;
+      int moves = dungeon.travelTo(row, col);
+      assertTrue(dungeon.gameEnded());
+      if (dungeon.getPlayerStatus() == PlayerStatus.DECEASED) {
+        assertTrue("travel should stop at the monster.", moves <= length);
+      } else {
+        assertEquals(length, moves);
+        assertEquals(dungeon.getEnd(), dungeon.getPlayerLocation());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void pathOutsideDungeon() {
+    Dungeon dungeon = new WrappingDungeon("player", 5, 6, 1, 40, 0, new CustomRandomInteger(3));
+    dungeon.enter();
+    dungeon.pathTo(5, 0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void pathBeforeEntering() {
+    Dungeon dungeon = new WrappingDungeon("player", 5, 6, 1, 40, 0, new CustomRandomInteger(3));
+    dungeon.pathTo(0, 0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void travelAfterGameEnded() {
+    Dungeon dungeon = new WrappingDungeon("player", 5, 6, 1, 40, 0, new CustomRandomInteger(3));
+    dungeon.enter();
+    String[] end = dungeon.getEnd().split(",");
+    dungeon.travelTo(Integer.parseInt(end[0]), Integer.parseInt(end[1]));
+    String[] start = dungeon.getStart().split(",");
+    dungeon.travelTo(Integer.parseInt(start[0]), Integer.parseInt(start[1]));
+  }
+}
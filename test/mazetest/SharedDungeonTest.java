@@ -0,0 +1,238 @@
+package mazetest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import maze.CaveGraph;
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LocationDescription;
+import maze.PlayerStatus;
+import maze.SharedDungeon;
+import maze.Treasure;
+import maze.WeaponType;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for {@link SharedDungeon}.
+ */
+public class SharedDungeonTest {
+  private static final int PLAYERS = 8;
+
+  private Dungeon layout;
+  private SharedDungeon shared;
+
+  @Before
+  public void setUp() {
+    layout = new WrappingDungeon("player", 7, 8, 3, 100, 4, new CustomRandomInteger(3));
+    shared = new SharedDungeon(layout);
+  }
+
+  // runs the task for every player at once, collecting what each returned.
+  private interface Task {
+    Object run(int player);
+  }
+
+  private List<Object> race(Task task) throws InterruptedException {
+    List<Object> results = new ArrayList<>();
+    List<Thread> threads = new ArrayList<>();
+    CountDownLatch go = new CountDownLatch(1);
+    Object[] out = new Object[PLAYERS];
+    for (int p = 0; p < PLAYERS; p++) {
+      int player = shared.join("player" + p);
+      Thread t = new Thread(() -> {
+        try {
+          go.await();
+          out[player] = task.run(player);
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      t.start();
+      threads.add(t);
+    }
+    go.countDown();
+    for (Thread t : threads) {
+      t.join();
+    }
+    for (Object o : out) {
+      results.add(o);
+    }
+    return results;
+  }
+
+  @Test
+  public void playersJoinAtStart() {
+    int first = shared.join("first");
+    int second = shared.join("second");
+    assertEquals(2, shared.getPlayerCount());
+    assertEquals(layout.getStartCell(), shared.getPlayerCell(first));
+    assertEquals(layout.getStartCell(), shared.getPlayerCell(second));
+    assertEquals(PlayerStatus.ALIVE, shared.getPlayerStatus(first));
+    assertFalse(shared.gameEnded(second));
+  }
+
+  @Test
+  public void treasureCollectedOnce() throws InterruptedException {
+    List<Object> results = race(shared::collectTreasure);
+    int winners = 0;
+    for (Object o : results) {
+      if (o != null) {
+        winners++;
+      }
+    }
+    assertEquals(1, winners);
+    int total = 0;
+    for (int p = 0; p < PLAYERS; p++) {
+      for (Treasure t : Treasure.values()) {
+        total += shared.getPlayerTreasure(p, t);
+      }
+    }
+    int placed = 0;
+    int start = layout.getStartCell();
+    for (String treasure : layout.describeLocation(start / layout.getCol(),
+            start % layout.getCol()).get(LocationDescription.TREASURE)) {
+      placed += Integer.parseInt(treasure.split(" ")[1]);
+    }
+    assertEquals(placed, total);
+    assertNull(shared.collectTreasure(0));
+  }
+
+  @Test
+  public void emptyCaveNotTaken() throws InterruptedException {
+    layout = new WrappingDungeon("player", 7, 8, 3, 10, 4, new CustomRandomInteger(0));
+    shared = new SharedDungeon(layout);
+    int start = layout.getStartCell();
+    for (Treasure t : Treasure.values()) {
+      assertEquals(0, layout.getTreasureAt(start, t));
+    }
+    assertEquals(0, layout.getWeaponAt(start, WeaponType.CROOKEDARROW));
+    for (Object o : race(shared::collectTreasure)) {
+      assertNotNull(o);
+    }
+    for (int p = 0; p < PLAYERS; p++) {
+      assertNotNull(shared.pickWeapon(p));
+    }
+  }
+
+  @Test
+  public void arrowsPickedOnce() throws InterruptedException {
+    List<Object> results = race(shared::pickWeapon);
+    int arrows = 0;
+    int winners = 0;
+    for (int p = 0; p < PLAYERS; p++) {
+      if (results.get(p) != null) {
+        winners++;
+      }
+      arrows += shared.getPlayerWeapon(p, WeaponType.CROOKEDARROW);
+    }
+    assertEquals(1, winners);
+    // every player starts with 3 arrows.
+    assertTrue(arrows > 3 * PLAYERS);
+  }
+
+  @Test
+  public void monsterHitAsManyTimesAsItsHealth() throws InterruptedException {
+    // finds a seeded dungeon with a shot from the start that reaches a monster.
+    Direction shotDir = null;
+    int shotDistance = 0;
+    int monster = -1;
+    int cols = layout.getCol();
+    for (int seed = 0; (seed < 50) && (shotDir == null); seed++) {
+      layout = new WrappingDungeon("player", 7, 8, 3, 100, 8, new CustomRandomInteger(seed));
+      shared = new SharedDungeon(layout);
+      CaveGraph graph = layout.getCaveGraph();
+      int start = layout.getStartCell();
+      for (Direction dir : Direction.values()) {
+        int cell = start;
+        Direction heading = dir;
+        for (int distance = 1; (distance <= 5) && (shotDir == null); distance++) {
+          int next = graph.getTarget(cell, heading);
+          if (next < 0) {
+            break;
+          }
+          heading = graph.getArrival(cell, heading);
+          cell = next;
+          if (!layout.describeLocation(cell / cols, cell % cols)
+                  .get(LocationDescription.MONSTER).get(0).equals("null")) {
+            shotDir = dir;
+            shotDistance = distance;
+            monster = cell;
+          }
+        }
+      }
+    }
+    assertNotNull("seeded dungeon should have a monster in range of the start.", shotDir);
+
+    Direction dir = shotDir;
+    int distance = shotDistance;
+    AtomicInteger hits = new AtomicInteger();
+    race(p -> {
+      if (shared.shootArrow(p, dir, distance)) {
+        hits.incrementAndGet();
+      }
+      return null;
+    });
+    assertEquals(2, hits.get());
+    List<String> health = shared.describeLocation(monster / cols, monster % cols)
+            .get(LocationDescription.MONSTER);
+    assertTrue(health.get(0).endsWith(" 0"));
+    for (int p = 0; p < PLAYERS; p++) {
+      assertEquals(2, shared.getPlayerWeapon(p, WeaponType.CROOKEDARROW));
+    }
+  }
+
+  @Test
+  public void playersMoveIndependently() {
+    int first = shared.join("first");
+    int second = shared.join("second");
+    int start = layout.getStartCell();
+    for (Direction dir : Direction.values()) {
+      try {
+        shared.move(first, dir);
+        break;
+      } catch (IllegalStateException ill) {
+        // no neighbour in the direction.
+      }
+    }
+    assertTrue(shared.getPlayerCell(first) != start);
+    assertEquals(start, shared.getPlayerCell(second));
+  }
+
+  @Test
+  public void layoutGameNotShared() {
+    layout.enter();
+    Map<Treasure, Integer> collected = layout.collectTreasure();
+    assertNotNull(collected);
+    int player = shared.join("first");
+    assertNotNull(shared.collectTreasure(player));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownPlayer() {
+    shared.getPlayerCell(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidName() {
+    shared.join("");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullLayout() {
+    new SharedDungeon(null);
+  }
+}
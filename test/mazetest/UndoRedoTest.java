@@ -0,0 +1,158 @@
+package mazetest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.PlayerStatus;
+import maze.WeaponType;
+import maze.WrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for undo and redo of the actions in a {@link Dungeon}.
+ */
+public class UndoRedoTest {
+  private Dungeon dungeon;
+
+  @Before
+  public void setUp() {
+    dungeon = new WrappingDungeon("player1", 6, 6, 2, 50, 3, new CustomRandomInteger(11));
+  }
+
+  private String state(Dungeon d) {
+    return d.toString() + d.describePlayer() + d.gameStarted() + d.gameEnded();
+  }
+
+  // makes one random action that changes the game, returns false when the game ended.
+  private boolean act(Random random) {
+    Direction dir = Direction.values()[random.nextInt(4)];
+    int choice = random.nextInt(5);
+    try {
+      if (choice == 0) {
+        dungeon.collectTreasure();
+      } else if (choice == 4) {
+        dungeon.pickWeapon();
+      } else if ((choice == 1) && (dungeon.getPlayerWeapon(WeaponType.CROOKEDARROW) > 0)) {
+        dungeon.shootArrow(dir, 1);
+      } else {
+        dungeon.move(dir);
+      }
+    } catch (IllegalStateException ill) {
+      // no neighbour in the direction.
+    }
+    return !dungeon.gameEnded();
+  }
+
+  @Test
+  public void undoAndRedoEveryAction() {
+    List<String> states = new ArrayList<>();
+    states.add(state(dungeon));
+    dungeon.enter();
+    states.add(state(dungeon));
+    Random random = new Random(4);
+    boolean playing = true;
+    while ((states.size() < 60) && playing) {
+      playing = act(random);
+      String current = state(dungeon);
+      if (!current.equals(states.get(states.size() - 1))) {
+        states.add(current);
+      }
+    }
+    for (int i = states.size() - 2; i >= 0; i--) {
+      dungeon.undo();
+      assertEquals("undo should restore the state before the action.", states.get(i),
+              state(dungeon));
+    }
+    assertFalse(dungeon.canUndo());
+    for (int i = 1; i < states.size(); i++) {
+      dungeon.redo();
+      assertEquals("redo should restore the state after the action.", states.get(i),
+              state(dungeon));
+    }
+    assertFalse(dungeon.canRedo());
+  }
+
+  @Test
+  public void undoDeath() {
+    for (long seed = 1; seed < 200; seed++) {
+      setUp();
+      dungeon.enter();
+      Random random = new Random(seed);
+      while (act(random)) {
+        // plays until the game ends.
+      }
+      if (dungeon.getPlayerStatus() == PlayerStatus.DECEASED) {
+        String location = dungeon.getPlayerLocation();
+        dungeon.undo();
+        assertEquals(PlayerStatus.ALIVE, dungeon.getPlayerStatus());
+        assertFalse(dungeon.gameEnded());
+        dungeon.redo();
+        assertEquals(PlayerStatus.DECEASED, dungeon.getPlayerStatus());
+        assertEquals(location, dungeon.getPlayerLocation());
+        return;
+      }
+    }
+    throw new AssertionError("player was never killed.");
+  }
+
+  @Test
+  public void actionForgetsRedo() {
+    dungeon.enter();
+    Random random = new Random(2);
+    for (int i = 0; i < 10; i++) {
+      act(random);
+    }
+    dungeon.undo();
+    assertTrue(dungeon.canRedo());
+    dungeon.move(movable());
+    assertFalse(dungeon.canRedo());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void undoBeyondDepth() {
+    dungeon.setUndoDepth(2);
+    dungeon.enter();
+    for (int i = 0; i < 4; i++) {
+      dungeon.move(movable());
+    }
+    dungeon.undo();
+    dungeon.undo();
+    dungeon.undo();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void resetForgetsHistory() {
+    dungeon.enter();
+    dungeon.move(movable());
+    dungeon.reset();
+    dungeon.undo();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void negativeDepth() {
+    dungeon.setUndoDepth(-1);
+  }
+
+  private Direction movable() {
+    for (Direction dir : Direction.values()) {
+      Dungeon fork = dungeon.fork();
+      try {
+        fork.move(dir);
+        return dir;
+      } catch (IllegalStateException ill) {
+        // no neighbour in the direction.
+      }
+    }
+    throw new AssertionError("no possible move.");
+  }
+}
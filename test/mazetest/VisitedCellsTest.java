@@ -0,0 +1,123 @@
+package mazetest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import maze.CustomRandomInteger;
+import maze.Direction;
+import maze.Dungeon;
+import maze.LocationDescription;
+import maze.NonWrappingDungeon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Testing class for the locations a {@link Dungeon} records as visited.
+ */
+public class VisitedCellsTest {
+  private Dungeon dungeon;
+
+  @Before
+  public void setUp() {
+    dungeon = new NonWrappingDungeon("player", 6, 6, 2, 40, 0, new CustomRandomInteger(9));
+  }
+
+  @Test
+  public void nothingVisitedBeforeEntering() {
+    assertEquals(0, dungeon.getVisitedCells().cardinality());
+  }
+
+  @Test
+  public void pathIsVisited() {
+    dungeon.enter();
+    int cols = dungeon.getCol();
+    int start = dungeon.getStartCell();
+    assertTrue(dungeon.isVisited(start / cols, start % cols));
+    int end = dungeon.getEndCell();
+    Direction[] path = dungeon.pathTo(end / cols, end % cols);
+    dungeon.travelTo(end / cols, end % cols);
+
+    BitSet expected = new BitSet();
+    expected.set(start);
+    Dungeon walker = new NonWrappingDungeon("player", 6, 6, 2, 40, 0,
+            new CustomRandomInteger(9));
+    walker.enter();
+    for (Direction dir : path) {
+      walker.move(dir);
+      expected.set(walker.getPlayerCell());
+    }
+    assertEquals(expected, dungeon.getVisitedCells());
+    assertEquals(path.length + 1, dungeon.getVisitedCells().cardinality());
+  }
+
+  @Test
+  public void visitedLocationDescribed() {
+    dungeon.enter();
+    int cols = dungeon.getCol();
+    int start = dungeon.getStartCell();
+    assertEquals(dungeon.describeLocation().get(LocationDescription.MOVES),
+            dungeon.describeVisitedLocation(start / cols, start % cols)
+                    .get(LocationDescription.MOVES));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void unvisitedLocationHidden() {
+    dungeon.enter();
+    int cols = dungeon.getCol();
+    int end = dungeon.getEndCell();
+    dungeon.describeVisitedLocation(end / cols, end % cols);
+  }
+
+  @Test
+  public void forkAndReset() {
+    dungeon.enter();
+    int cols = dungeon.getCol();
+    int end = dungeon.getEndCell();
+    Dungeon fork = dungeon.fork();
+    fork.travelTo(end / cols, end % cols);
+    assertTrue(fork.isVisited(end / cols, end % cols));
+    assertFalse(dungeon.isVisited(end / cols, end % cols));
+    assertEquals(1, dungeon.getVisitedCells().cardinality());
+
+    fork.reset();
+    assertEquals(0, fork.getVisitedCells().cardinality());
+    assertEquals(1, dungeon.getVisitedCells().cardinality());
+  }
+
+  @Test
+  public void undoKeepsVisited() {
+    dungeon.enter();
+    int cols = dungeon.getCol();
+    int end = dungeon.getEndCell();
+    Direction[] path = dungeon.pathTo(end / cols, end % cols);
+    dungeon.move(path[0]);
+    int cell = dungeon.getPlayerCell();
+    dungeon.undo();
+    assertTrue(dungeon.isVisited(cell / cols, cell % cols));
+  }
+
+  @Test
+  public void countMatchesVisitedCells() {
+    assertEquals(0, dungeon.getVisitedCount());
+    dungeon.enter();
+    int cols = dungeon.getCol();
+    int end = dungeon.getEndCell();
+    Dungeon fork = dungeon.fork();
+    dungeon.travelTo(end / cols, end % cols);
+    assertEquals(dungeon.getVisitedCells().cardinality(), dungeon.getVisitedCount());
+    assertEquals(1, fork.getVisitedCount());
+    dungeon.undo();
+    assertEquals(dungeon.getVisitedCells().cardinality(), dungeon.getVisitedCount());
+    dungeon.reset();
+    assertEquals(0, dungeon.getVisitedCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void outsideDungeon() {
+    dungeon.isVisited(6, 0);
+  }
+}